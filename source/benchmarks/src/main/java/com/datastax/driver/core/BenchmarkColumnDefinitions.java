@@ -0,0 +1,26 @@
+package com.datastax.driver.core;
+
+import java.util.Map;
+
+/**
+ * Creates the variable metadata of a prepared statement without a Cassandra node, the constructors are only visible in
+ * the package of the driver.
+ */
+public final class BenchmarkColumnDefinitions {
+
+    private BenchmarkColumnDefinitions() {
+    }
+
+    /**
+     * @param columnTypes data types of the variables in the order of the statement, keyed by the column name
+     */
+    public static ColumnDefinitions of(String keyspace, String table, Map<String, DataType> columnTypes) {
+        ColumnDefinitions.Definition[] definitions = new ColumnDefinitions.Definition[columnTypes.size()];
+        int index = 0;
+        for (Map.Entry<String, DataType> columnType : columnTypes.entrySet()) {
+            definitions[index++] = new ColumnDefinitions.Definition(keyspace, table, columnType.getKey(),
+                    columnType.getValue());
+        }
+        return new ColumnDefinitions(definitions, CodecRegistry.DEFAULT_INSTANCE);
+    }
+}
@@ -0,0 +1,82 @@
+package com.exportstaging.benchmarks;
+
+import com.exportstaging.api.ExternalItemAPI;
+import com.exportstaging.api.ExternalItemAPIFactory;
+import com.exportstaging.api.exception.ExportStagingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup and first query latency of the ExternalItemAPI objects of several item types: every object created with
+ * its own Spring context (<i>new ExternalItemAPI(itemType)</i>) compared with the objects of the
+ * ExternalItemAPIFactory, which share one context. The first query is getAllFields and, if an item ID is given,
+ * getItemById. The factory is closed after every invocation, so every invocation includes the creation of the shared
+ * context.
+ * <p>
+ * Needs the properties class path of configuration.xml and a running export database:
+ * -Dbenchmark.api.itemTypes=Pdmarticle,Pdmarticlestructure,Mamfile and optionally -Dbenchmark.api.itemID=1234
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ApiStartupBenchmark {
+
+    @Param({"context", "factory"})
+    private String mode;
+
+    private String[] itemTypes;
+    private long itemID;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        itemTypes = BenchmarkFixtures.getRequiredProperty("benchmark.api.itemTypes").split(",");
+        itemID = Long.parseLong(System.getProperty("benchmark.api.itemID", "0"));
+    }
+
+    @Benchmark
+    public int startup() throws Exception {
+        int fields = 0;
+        if ("factory".equals(mode)) {
+            try {
+                for (String itemType : itemTypes) {
+                    fields += query(ExternalItemAPIFactory.getInstance().getItemAPI(itemType));
+                }
+            } finally {
+                ExternalItemAPIFactory.getInstance().close();
+            }
+            return fields;
+        }
+        for (String itemType : itemTypes) {
+            ExternalItemAPI itemAPI = new ExternalItemAPI(itemType);
+            try {
+                fields += query(itemAPI);
+            } finally {
+                itemAPI.close();
+            }
+        }
+        return fields;
+    }
+
+    private int query(ExternalItemAPI itemAPI) throws ExportStagingException {
+        int fields = itemAPI.getAllFields().size();
+        if (itemID != 0) {
+            itemAPI.getItemById(itemID);
+        }
+        return fields;
+    }
+}
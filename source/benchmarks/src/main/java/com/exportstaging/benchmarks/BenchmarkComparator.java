@@ -0,0 +1,88 @@
+package com.exportstaging.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files written by {@link BenchmarkRunner}, for example of the last and the current release:
+ * <pre>
+ * java -cp target/benchmarks.jar com.exportstaging.benchmarks.BenchmarkComparator baseline.json current.json [10]
+ * </pre>
+ * Prints the change of the score of every benchmark and parameter combination found in both files. A benchmark
+ * regressed if it is slower by more than the threshold in percent (10 by default) and the difference is larger than
+ * the error of both scores. The exit code is 1 if any benchmark regressed.
+ */
+public final class BenchmarkComparator {
+
+    private static final double DEFAULT_THRESHOLD = 10;
+
+    private BenchmarkComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BenchmarkComparator <baseline.json> <current.json> [threshold percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, JsonNode> baseline = readResults(new File(args[0]));
+        Map<String, JsonNode> current = readResults(new File(args[1]));
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode baselineResult = baseline.get(entry.getKey());
+            if (baselineResult == null) {
+                System.out.println(String.format("%-100s new", entry.getKey()));
+                continue;
+            }
+            JsonNode baselineMetric = baselineResult.get("primaryMetric");
+            JsonNode currentMetric = entry.getValue().get("primaryMetric");
+            double baselineScore = baselineMetric.get("score").asDouble();
+            double currentScore = currentMetric.get("score").asDouble();
+            double error = getError(baselineMetric) + getError(currentMetric);
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().get("mode").asText());
+            double change = baselineScore == 0 ? 0 : (currentScore - baselineScore) / baselineScore * 100;
+            double slowdown = higherIsBetter ? -change : change;
+            boolean regressed = slowdown > threshold && Math.abs(currentScore - baselineScore) > error;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.println(String.format("%-100s %12.3f -> %12.3f %s %+7.1f%%%s", entry.getKey(), baselineScore,
+                    currentScore, currentMetric.get("scoreUnit").asText(), change, regressed ? "  REGRESSION" : ""));
+        }
+        System.out.println(regressions + " regressions with a threshold of " + threshold + "%");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * @return results keyed by benchmark and parameters
+     */
+    private static Map<String, JsonNode> readResults(File resultFile) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(resultFile)) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                Map<String, String> sortedParams = new TreeMap<>();
+                for (Iterator<Map.Entry<String, JsonNode>> fields = params.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    sortedParams.put(param.getKey(), param.getValue().asText());
+                }
+                key.append(sortedParams);
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double getError(JsonNode metric) {
+        JsonNode error = metric.get("scoreError");
+        return error == null || !error.isNumber() ? 0 : error.asDouble();
+    }
+}
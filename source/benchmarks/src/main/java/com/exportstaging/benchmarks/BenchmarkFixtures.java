@@ -0,0 +1,210 @@
+package com.exportstaging.benchmarks;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Deflater;
+
+/**
+ * Messages with the structure sent by the MasterProducer and helpers to wire components without Spring.
+ * <p>
+ * The "medium" Pdmarticle has the size of a typical product with a few languages (about 150 KB), the "large" one the
+ * size of a multi-megabyte product with many attributes, references and subtable rows. The Mamfile message carries
+ * the extracted text of a large document.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String ITEM_ID = "4711";
+    public static final int LANGUAGES = 6;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static String createItemMessage(String messageSize) {
+        if ("large".equals(messageSize)) {
+            return createItemMessage(LANGUAGES, 2500, 1500, 600);
+        }
+        return createItemMessage(LANGUAGES, 80, 130, 50);
+    }
+
+    /**
+     * Creates an item message: language independent data with LanguageID 0 followed by the language dependent data,
+     * references, subtable rows and the attributes with large values per language. Every third attribute is language
+     * independent, the FormattedValue of the attributes holds HTML.
+     */
+    @SuppressWarnings("unchecked")
+    public static String createItemMessage(int languages, int attributes, int references, int subtableRows) {
+        JSONArray items = new JSONArray();
+        for (int languageID = 0; languageID <= languages; languageID++) {
+            JSONObject item = new JSONObject();
+            item.put("ID", 4711L);
+            item.put("LanguageID", String.valueOf(languageID));
+            item.put("LanguageShortName", "l" + languageID);
+            item.put("ParentID", "4700");
+            item.put("StateID", "120");
+            item.put("ExternalKey", "CS-4711");
+            item.put("Label", "Media Player " + languageID);
+            for (int attribute = 0; attribute < attributes; attribute++) {
+                boolean languageIndependent = attribute % 3 == 0;
+                if (languageIndependent == (languageID == 0)) {
+                    item.put(attribute + ":Value", "Value of attribute " + attribute + " in language " + languageID);
+                    item.put(attribute + ":FormattedValue", "<p>Value of attribute " + attribute + "</p>");
+                }
+            }
+            items.add(item);
+        }
+        JSONArray referenceArray = new JSONArray();
+        for (int reference = 0; reference < references; reference++) {
+            JSONObject referenceData = new JSONObject();
+            referenceData.put("ItemID", ITEM_ID);
+            referenceData.put("SourceType", "Pdmarticle");
+            referenceData.put("TargetType", "Pdmarticle");
+            referenceData.put("LanguageID", reference % 4 == 0 ? "0" : String.valueOf(1 + reference % languages));
+            referenceData.put("AttributeID", String.valueOf(30 + reference % 7));
+            referenceData.put("TargetID", String.valueOf(5000 + reference));
+            referenceData.put("CSReferenceID", String.valueOf(10000 + reference));
+            referenceData.put("SortOrder", String.valueOf(reference));
+            referenceData.put("13:Value", "Reference value " + reference);
+            referenceData.put("13:FormattedValue", "Reference value " + reference);
+            referenceArray.add(referenceData);
+        }
+        JSONArray subtableArray = new JSONArray();
+        for (int row = 0; row < subtableRows; row++) {
+            JSONObject subtableData = new JSONObject();
+            subtableData.put("ItemID", ITEM_ID);
+            subtableData.put("ItemType", "Pdmarticle");
+            subtableData.put("LanguageID", String.valueOf(1 + row % languages));
+            subtableData.put("AttributeID", "191");
+            subtableData.put("ItemTableID", String.valueOf(20000 + row));
+            subtableData.put("SortOrder", String.valueOf(row));
+            subtableData.put("185:Value", "Standard");
+            subtableData.put("193:Value", "80.00");
+            subtableArray.add(subtableData);
+        }
+        JSONObject bigDataAttributes = new JSONObject();
+        for (int languageID = 0; languageID <= languages; languageID++) {
+            JSONArray attributeIDs = new JSONArray();
+            attributeIDs.add((languageID == 0 ? 0 : 1) + ":Value");
+            bigDataAttributes.put(String.valueOf(languageID), attributeIDs);
+        }
+        JSONObject message = new JSONObject();
+        message.put("Item", items);
+        message.put("Reference", referenceArray);
+        message.put("Subtable", subtableArray);
+        message.put("_BigDataAttributes", bigDataAttributes);
+        return message.toJSONString();
+    }
+
+    /**
+     * Creates a Mamfile content message with the extracted text of a document.
+     *
+     * @param contentSize length of the text in characters
+     */
+    @SuppressWarnings("unchecked")
+    public static String createFileContentMessage(int contentSize) {
+        JSONObject content = new JSONObject();
+        content.put("ID", ITEM_ID);
+        content.put("LanguageID", "0");
+        content.put("Content", createText(contentSize));
+        JSONArray fileContent = new JSONArray();
+        fileContent.add(content);
+        JSONObject message = new JSONObject();
+        message.put("FileContent", fileContent);
+        return message.toJSONString();
+    }
+
+    /**
+     * Creates the HTML of a formatted text attribute: paragraphs with inline markup, a list and a table.
+     *
+     * @param paragraphs number of paragraphs
+     */
+    public static String createHtml(int paragraphs) {
+        StringBuilder html = new StringBuilder("<div class=\"description\">");
+        for (int paragraph = 0; paragraph < paragraphs; paragraph++) {
+            html.append("<p>The <b>media player ").append(paragraph).append("</b> plays <i>audio</i> &amp; video")
+                    .append(" files in <span style=\"color:#333\">all common formats</span>.</p>");
+            if (paragraph % 5 == 4) {
+                html.append("<ul><li>Weight: 120 g</li><li>Battery: 12 h</li></ul>")
+                        .append("<table><tr><td>Width</td><td>60 mm</td></tr><tr><td>Height</td><td>95 mm</td></tr></table>");
+            }
+        }
+        return html.append("</div>").toString();
+    }
+
+    /**
+     * Compresses a message the way the producer does: deflated and Base64 encoded.
+     */
+    public static String compress(String message) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(message.getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(message.length() / 4);
+        byte[] buffer = new byte[65536];
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return Base64.getEncoder().encodeToString(output.toByteArray());
+    }
+
+    /**
+     * Creates a component through its constructor without arguments, which may be private.
+     */
+    public static <T> T newInstance(Class<T> type) throws ReflectiveOperationException {
+        Constructor<T> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    /**
+     * Sets a field of the component or one of its super classes, which is injected by Spring otherwise.
+     */
+    public static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        getField(target.getClass(), name).set(target, value);
+    }
+
+    public static void setStaticField(Class<?> type, String name, Object value) throws ReflectiveOperationException {
+        getField(type, name).set(null, value);
+    }
+
+    /**
+     * Returns a system property of a benchmark which needs an external system, e.g. -Dbenchmark.jdbc.url=... for the
+     * IDB. The forked JVMs of JMH inherit the -D options of the runner.
+     *
+     * @throws IllegalStateException if the property is not set, which fails only the benchmarks of the system
+     */
+    public static String getRequiredProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalStateException("Set -D" + name + " to run this benchmark");
+        }
+        return value;
+    }
+
+    private static Field getField(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // declared in a super class
+            }
+        }
+        throw new NoSuchFieldException(name + " in " + type.getName());
+    }
+
+    private static String createText(int size) {
+        String sentence = "The media player plays audio and video files in all common formats and weighs 120 g. ";
+        StringBuilder text = new StringBuilder(size + sentence.length());
+        while (text.length() < size) {
+            text.append(sentence);
+        }
+        return text.substring(0, size);
+    }
+}
@@ -0,0 +1,39 @@
+package com.exportstaging.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks and writes the results as JSON to results/jmh-&lt;version&gt;-&lt;time&gt;.json, so the
+ * results of two releases can be compared with {@link BenchmarkComparator}. All JMH options are passed through, an
+ * explicit -rf or -rff replaces the default result file. The directory can be changed with -Dbenchmark.results=dir.
+ */
+public final class BenchmarkRunner {
+
+    private static final List<String> NO_RESULT_OPTIONS = Arrays.asList("-h", "-l", "-lp", "-lprof", "-lrf", "-rf", "-rff");
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (arguments.stream().noneMatch(NO_RESULT_OPTIONS::contains)) {
+            File directory = new File(System.getProperty("benchmark.results", "results"));
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IllegalStateException("Cannot create the result directory " + directory.getAbsolutePath());
+            }
+            String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+            String time = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            File resultFile = new File(directory, "jmh-" + (version == null ? "dev" : version) + "-" + time + ".json");
+            arguments.addAll(0, Arrays.asList("-rf", "json", "-rff", resultFile.getPath()));
+            System.out.println("Results are written to " + resultFile.getPath());
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,187 @@
+package com.exportstaging.benchmarks;
+
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TupleType;
+import com.datastax.driver.core.TupleValue;
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.connectors.database.CassandraRowBinder;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the typed {@link CassandraRowBinder} with the per-value String conversion CassandraDAO used before, for an
+ * item row with many attribute columns. The values are bound into a {@link TupleValue} with the column types of the
+ * row, so no Cassandra session is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CassandraRowBinderBenchmark {
+
+    private static final String CONST_FORMATE_DATE_TIME  = "yyyy-MM-dd HH:mm:ss";
+    private static final String CONST_DEFAULT_DATE_VALUE = "0000-00-00 00:00:00";
+
+    @Param({"100", "2000"})
+    private int attributeCount;
+
+    private Map<String, Object>  fieldValues;
+    private Map<String, String>  columnNameWithDataType;
+    private Map<String, Integer> columnIndexes;
+    private CassandraRowBinder   rowBinder;
+    private TupleType            rowType;
+
+    @Setup
+    public void setUp() {
+        Map<String, DataType> columnTypes = new LinkedHashMap<>();
+        fieldValues = new HashMap<>();
+        columnTypes.put("ID", DataType.bigint());
+        fieldValues.put("\"ID\"", "4711");
+        columnTypes.put("LanguageID", DataType.bigint());
+        fieldValues.put("\"LanguageID\"", "1");
+        columnTypes.put("ParentID", DataType.bigint());
+        fieldValues.put("\"ParentID\"", 42L);
+        columnTypes.put("_IsCreated", DataType.cint());
+        fieldValues.put("\"_IsCreated\"", "0");
+        columnTypes.put("_LastWritten", DataType.timestamp());
+        fieldValues.put("\"_LastWritten\"", "toTimestamp(now())");
+        columnTypes.put("LastChange", DataType.timestamp());
+        fieldValues.put("\"LastChange\"", "2019-06-12 14:35:10");
+        for (int attribute = 0; attribute < attributeCount; attribute++) {
+            String columnName = attribute + ":" + (attribute % 2 == 0 ? "Value" : "FormattedValue");
+            switch (attribute % 5) {
+                case 0:
+                    columnTypes.put(columnName, DataType.bigint());
+                    fieldValues.put("\"" + columnName + "\"", String.valueOf(attribute * 31L));
+                    break;
+                case 1:
+                    columnTypes.put(columnName, DataType.cfloat());
+                    fieldValues.put("\"" + columnName + "\"", attribute + ".25");
+                    break;
+                case 2:
+                    columnTypes.put(columnName, DataType.timestamp());
+                    fieldValues.put("\"" + columnName + "\"", attribute % 3 == 0 ? "" : "2020-01-15 08:30:00");
+                    break;
+                default:
+                    columnTypes.put(columnName, DataType.text());
+                    fieldValues.put("\"" + columnName + "\"", "Attribute value " + attribute);
+                    break;
+            }
+        }
+        List<DataType> types = new ArrayList<>(columnTypes.values());
+        rowType = TupleType.of(ProtocolVersion.V4, CodecRegistry.DEFAULT_INSTANCE, types.toArray(new DataType[0]));
+        rowBinder = new CassandraRowBinder(columnTypes);
+        columnNameWithDataType = new HashMap<>();
+        columnIndexes = new HashMap<>();
+        int index = 0;
+        for (Map.Entry<String, DataType> columnType : columnTypes.entrySet()) {
+            String quotedName = "\"" + columnType.getKey() + "\"";
+            columnNameWithDataType.put(quotedName, columnType.getValue().getName().toString());
+            columnIndexes.put(quotedName, index++);
+        }
+    }
+
+    @Benchmark
+    public TupleValue typedRowBinder() throws ExportStagingException {
+        TupleValue row = rowType.newValue();
+        rowBinder.bind(row, fieldValues);
+        return row;
+    }
+
+    @Benchmark
+    public TupleValue stringConversion() throws ExportStagingException {
+        TupleValue row = rowType.newValue();
+        for (String columnName : fieldValues.keySet()) {
+            String columnDataType = columnNameWithDataType.get(columnName);
+            Object columnValue = fieldValues.get(columnName);
+            prepareBoundStatement(row, columnName, columnDataType, columnValue);
+        }
+        return row;
+    }
+
+    /**
+     * Conversion of CassandraDAO.prepareBoundStatement before the typed binder. The name lookup of BoundStatement is
+     * replaced by a lookup of the column index.
+     */
+    private void prepareBoundStatement(TupleValue row, String fieldName, String fieldType, Object columnValues) throws ExportStagingException {
+        if (StringUtils.isEmpty(fieldType)) {
+            fieldType = "text";
+        }
+        int index = columnIndexes.get(fieldName);
+        try {
+            switch (fieldType) {
+                case "int":
+                    String intFieldValue = String.valueOf(columnValues);
+                    intFieldValue = (StringUtils.isEmpty(intFieldValue) || intFieldValue.equalsIgnoreCase("null")) ? "0" : intFieldValue;
+                    row.setInt(index, Integer.parseInt(intFieldValue));
+                    break;
+                case "bigint":
+                    String bigintFieldValue = String.valueOf(columnValues);
+                    bigintFieldValue = (StringUtils.isEmpty(bigintFieldValue) || bigintFieldValue.equalsIgnoreCase("null")) ? "0" : bigintFieldValue;
+                    row.setLong(index, Long.parseLong(bigintFieldValue));
+                    break;
+                case "float":
+                    String floatFieldValue = String.valueOf(columnValues);
+                    floatFieldValue = (StringUtils.isEmpty(floatFieldValue) || floatFieldValue.equalsIgnoreCase("null")) ? "0" : floatFieldValue;
+                    row.setFloat(index, Float.parseFloat(floatFieldValue));
+                    break;
+                case "timestamp":
+                    row.setTimestamp(index, getFormattedDate(columnValues));
+                    break;
+                default:
+                    row.setString(index, String.valueOf(columnValues));
+                    break;
+            }
+        } catch (Exception e) {
+            throw new ExportStagingException(e.getMessage());
+        }
+    }
+
+    private Date getFormattedDate(Object providedDate) throws ParseException {
+        Date parseDate;
+        String dateValue = String.valueOf(providedDate);
+        try {
+            if (StringUtils.isEmpty(dateValue) || dateValue.equalsIgnoreCase("null")) {
+                dateValue = CONST_DEFAULT_DATE_VALUE;
+                parseDate = new SimpleDateFormat(CONST_FORMATE_DATE_TIME).parse(dateValue);
+            } else if (dateValue.contains("now")) {
+                DateFormat dateFormat = new SimpleDateFormat(CONST_FORMATE_DATE_TIME);
+                parseDate = new Date();
+                dateFormat.format(parseDate);
+            } else {
+                parseDate = new SimpleDateFormat(CONST_FORMATE_DATE_TIME).parse(dateValue);
+            }
+        } catch (ParseException exception) {
+            if (!dateValue.contains(":")) {
+                dateValue = dateValue + " 00:00:00";
+            }
+            parseDate = new SimpleDateFormat(CONST_FORMATE_DATE_TIME).parse(dateValue);
+        }
+        return parseDate;
+    }
+}
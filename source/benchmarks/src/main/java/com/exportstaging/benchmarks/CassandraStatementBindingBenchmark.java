@@ -0,0 +1,162 @@
+package com.exportstaging.benchmarks;
+
+import com.datastax.driver.core.BenchmarkColumnDefinitions;
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.TupleType;
+import com.datastax.driver.core.TupleValue;
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.connectors.database.CassandraConnection;
+import com.exportstaging.connectors.database.CassandraRowBinder;
+import com.exportstaging.connectors.database.CassandraStatementCache;
+import com.exportstaging.domain.ExportMessage;
+import com.google.common.util.concurrent.Futures;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Binding the item rows of a Pdmarticle message the way CassandraDAO.processItemData does: the insert statement of the
+ * columns of each language row is looked up in the {@link CassandraStatementCache} and the values are bound with its
+ * {@link CassandraRowBinder}.
+ * <p>
+ * The session is a stub which prepares statements from the column list of the query, without a Cassandra node. The
+ * values are bound into a {@link TupleValue} with the variables of the statement, because a BoundStatement can only be
+ * created for statements prepared by a node.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CassandraStatementBindingBenchmark {
+
+    private static final String KEYSPACE = "benchmark";
+    private static final String TABLE_NAME = "export_pdmarticle";
+    private static final Pattern QUOTED_COLUMN = Pattern.compile("\"([^\"]+)\"");
+
+    @Param({"medium", "large"})
+    private String messageSize;
+
+    private CassandraStatementCache statementCache;
+    private final Map<PreparedStatement, TupleType> rowTypes = new HashMap<>();
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        Session session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class[]{Session.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareAsync":
+                            return Futures.immediateFuture(prepare((String) args[0]));
+                        case "isClosed":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+        CassandraConnection connection = BenchmarkFixtures.newInstance(CassandraConnection.class);
+        BenchmarkFixtures.setField(connection, "session", session);
+        BenchmarkFixtures.setField(connection, "keyspace", KEYSPACE);
+        statementCache = new CassandraStatementCache();
+        BenchmarkFixtures.setField(statementCache, "conn", connection);
+
+        String message = BenchmarkFixtures.createItemMessage(messageSize);
+        for (Object item : new ExportMessage(BenchmarkFixtures.ITEM_ID, message, 2, "Pdmarticle", "Item", 0)
+                .getItemMessage().getParsedItem()) {
+            Map<String, Object> row = new HashMap<>();
+            for (Object field : ((JSONObject) item).entrySet()) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) field;
+                row.put("\"" + entry.getKey() + "\"", entry.getValue());
+            }
+            row.put("\"_LastWritten\"", "toTimestamp(now())");
+            row.put("\"_InsertTime\"", "toTimestamp(now())");
+            row.put("\"_IsCreated\"", "0");
+            rows.add(row);
+        }
+    }
+
+    @Benchmark
+    public void bindItemRows(Blackhole blackhole) throws ExportStagingException {
+        for (Map<String, Object> row : rows) {
+            CassandraRowBinder rowBinder = statementCache.getInsertBinder(TABLE_NAME, row.keySet());
+            TupleValue boundRow = rowTypes.get(rowBinder.getStatement()).newValue();
+            rowBinder.bind(boundRow, row);
+            blackhole.consume(boundRow);
+        }
+    }
+
+    /**
+     * Prepares the insert statement of the stub session: ID and LanguageID are bigint, the metadata columns are
+     * timestamps or int and all attribute columns are text.
+     */
+    private PreparedStatement prepare(String query) {
+        Map<String, DataType> columnTypes = new LinkedHashMap<>();
+        Matcher matcher = QUOTED_COLUMN.matcher(query);
+        while (matcher.find()) {
+            columnTypes.put(matcher.group(1), getDataType(matcher.group(1)));
+        }
+        ColumnDefinitions variables = BenchmarkColumnDefinitions.of(KEYSPACE, TABLE_NAME, columnTypes);
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getVariables":
+                            return variables;
+                        case "getQueryString":
+                            return query;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+        rowTypes.put(statement, TupleType.of(ProtocolVersion.V4, CodecRegistry.DEFAULT_INSTANCE,
+                columnTypes.values().toArray(new DataType[0])));
+        return statement;
+    }
+
+    private static DataType getDataType(String columnName) {
+        switch (columnName) {
+            case "ID":
+            case "LanguageID":
+            case "ParentID":
+            case "StateID":
+                return DataType.bigint();
+            case "_IsCreated":
+                return DataType.cint();
+            case "_LastWritten":
+            case "_InsertTime":
+                return DataType.timestamp();
+            default:
+                return DataType.text();
+        }
+    }
+}
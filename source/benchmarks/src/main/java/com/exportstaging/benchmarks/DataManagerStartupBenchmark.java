@@ -0,0 +1,96 @@
+package com.exportstaging.benchmarks;
+
+import com.exportstaging.subscribers.ItemInsertTimeIndex;
+import com.exportstaging.subscribers.ItemInsertTimeStore;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time of the DataManager: reading the JSON file written on shutdown by earlier versions compared with
+ * loading the snapshot of the {@link ItemInsertTimeStore}, for a Pdmarticle and a Mamfile index of the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class DataManagerStartupBenchmark {
+
+    private static final String STORE_NAME = "coreSubscriber";
+
+    @Param({"1000000", "10000000"})
+    private int entries;
+
+    private File directory;
+    private File jsonFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("datamanager").toFile();
+        jsonFile = new File(directory, STORE_NAME + ".data");
+        Map<String, ItemInsertTimeIndex> indexes = new ConcurrentHashMap<>();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(jsonFile, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            for (String indexKey : new String[]{"Pdmarticle", "Mamfile"}) {
+                ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+                for (long itemID = 1; itemID <= entries / 2; itemID++) {
+                    long insertTime = 1560000000000L + itemID;
+                    index.put(itemID, insertTime);
+                    generator.writeNumberField(indexKey + "_" + itemID, insertTime);
+                }
+                indexes.put(indexKey, index);
+            }
+            generator.writeEndObject();
+        }
+        ItemInsertTimeStore store = new ItemInsertTimeStore(directory, STORE_NAME);
+        store.load();
+        store.checkpoint(indexes);
+        store.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public Map<String, ItemInsertTimeIndex> loadJsonFile() throws IOException {
+        return ItemInsertTimeStore.readJsonFile(jsonFile);
+    }
+
+    @Benchmark
+    public Map<String, ItemInsertTimeIndex> loadSnapshot() throws IOException {
+        ItemInsertTimeStore store = new ItemInsertTimeStore(directory, STORE_NAME);
+        Map<String, ItemInsertTimeIndex> indexes = store.load();
+        store.close();
+        return indexes;
+    }
+}
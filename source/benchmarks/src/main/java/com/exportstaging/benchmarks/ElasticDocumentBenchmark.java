@@ -0,0 +1,94 @@
+package com.exportstaging.benchmarks;
+
+import com.exportstaging.domain.ExportMessage;
+import com.exportstaging.domain.ItemMessage;
+import com.exportstaging.elasticsearch.ElasticOperationHandler;
+import com.exportstaging.elasticsearch.ElasticSearchOperations;
+import org.elasticsearch.action.index.IndexRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preparation of the Elasticsearch documents of all languages of a Pdmarticle by
+ * {@link ElasticSearchOperations#prepareIndexRequests}: grouping references and subtable rows by language, removing
+ * empty values, stripping the HTML of the formatted values and creating the index requests. The message is parsed
+ * once, the documents are not sent.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElasticDocumentBenchmark {
+
+    private static final String ITEM_TYPE = "Pdmarticle";
+    private static final String SUBSCRIBER_NAME = "ElasticSubscriber";
+
+    @Param({"medium", "large"})
+    private String messageSize;
+
+    private ElasticSearchOperations elasticSearchOperations;
+    private ItemMessage itemMessage;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        ElasticOperationHandler.isLanguagePerIndex = true;
+        elasticSearchOperations = BenchmarkFixtures.newInstance(ElasticSearchOperations.class);
+        BenchmarkFixtures.setField(elasticSearchOperations, "handler", new StubOperationHandler());
+        BenchmarkFixtures.setField(elasticSearchOperations, "typeItem", "Item");
+        BenchmarkFixtures.setField(elasticSearchOperations, "elasticSubscriberName", SUBSCRIBER_NAME);
+        BenchmarkFixtures.setField(elasticSearchOperations, "attributeDataLength", 10922);
+        itemMessage = new ExportMessage(BenchmarkFixtures.ITEM_ID, BenchmarkFixtures.createItemMessage(messageSize), 2,
+                ITEM_TYPE, "Item", 0).getItemMessage();
+    }
+
+    @Benchmark
+    public List<IndexRequest> prepareIndexRequests() {
+        return elasticSearchOperations.prepareIndexRequests(itemMessage, ITEM_TYPE, "Item", SUBSCRIBER_NAME);
+    }
+
+    /**
+     * Index names and HTML fields without the intermediate database: every FormattedValue of the first 50 attributes
+     * and of the references is an HTML field.
+     */
+    private static class StubOperationHandler extends ElasticOperationHandler {
+        private final Set<String> htmlFields = new HashSet<>();
+
+        private StubOperationHandler() {
+            for (int attribute = 0; attribute < 50; attribute++) {
+                htmlFields.add(attribute + ":FormattedValue");
+            }
+            htmlFields.add("13:FormattedValue");
+        }
+
+        @Override
+        public Set<String> getFields(String itemType, String type, String searchablility) {
+            return htmlFields;
+        }
+
+        @Override
+        public String getElasticIndexName(String itemType) {
+            return "export_" + itemType.toLowerCase();
+        }
+
+        @Override
+        public String getElasticTypeName(String type) {
+            return "item";
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.exportstaging.benchmarks;
+
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.utilities.Html2Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removing the tags of HTML attribute values with {@link Html2Text#stripHtml(String)}, done by the Elasticsearch
+ * subscribers for every HTML field of every language, reference and subtable row. A short value of a single paragraph
+ * and a long description with lists and tables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Html2TextBenchmark {
+
+    @Param({"1", "100"})
+    private int paragraphs;
+
+    private String html;
+
+    @Setup
+    public void setUp() {
+        html = BenchmarkFixtures.createHtml(paragraphs);
+    }
+
+    @Benchmark
+    public String stripHtml() throws ExportStagingException {
+        return Html2Text.stripHtml(html);
+    }
+}
@@ -0,0 +1,199 @@
+package com.exportstaging.benchmarks;
+
+import com.exportstaging.moderators.IDBPollingCursor;
+import com.exportstaging.producers.Producer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Poll latency of the legacy IDB select query compared with the keyset polling mode of the {@link IDBPollingCursor},
+ * for an intermediate database table of 10k to 5M rows.
+ * <p>
+ * Needs a MySQL database for the benchmark table:
+ * -Dbenchmark.jdbc.url=jdbc:mysql://localhost/benchmark -Dbenchmark.jdbc.username=root -Dbenchmark.jdbc.password=
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IDBPollingBenchmark {
+
+    private static final String BENCHMARK_TABLE_NAME = "idb_polling_benchmark";
+    private static final int    BATCH_SIZE           = 50;
+    private static final int    INSERT_BATCH_SIZE    = 5000;
+    private static final int[]  JMS_PRIORITIES       = {2, 3, 4, 7, 7, 7};
+    private static final int[]  PRODUCER_STATUSES    = {0, 0, 0, 2, 4};
+    private static final List<String> SELECT_COLUMNS = Arrays.asList("ID", "Message", "Action", "JobID", "VersionNr",
+            "InsertTime", "JMSPriority");
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    private long rows;
+
+    private Connection connection;
+    private String legacyQuery;
+    private IDBPollingCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(BenchmarkFixtures.getRequiredProperty("benchmark.jdbc.url"),
+                BenchmarkFixtures.getRequiredProperty("benchmark.jdbc.username"),
+                System.getProperty("benchmark.jdbc.password", ""));
+        createTable();
+        insertRows();
+        legacyQuery = "SELECT * FROM " + BENCHMARK_TABLE_NAME +
+                " WHERE (Action = 1 OR Action = 2 OR Action = 3 OR Action = 4)" +
+                " AND (ProducerStatus & " + Producer.masterProducerID + " = 0 )" +
+                " ORDER BY JMSPriority DESC LIMIT " + BATCH_SIZE;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dropTable();
+        connection.close();
+    }
+
+    /**
+     * Poll with the query built by BatchModerator.getSelectQuery in legacy polling mode.
+     */
+    @Benchmark
+    public int legacyPoll() throws SQLException {
+        int fetchedRows = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(legacyQuery)) {
+            while (resultSet.next()) {
+                resultSet.getString("Message");
+                fetchedRows++;
+            }
+        }
+        return fetchedRows;
+    }
+
+    /**
+     * Poll of the next pages of a keyset walk over the table, including the priority lookups. The walk starts again
+     * when the cursor is exhausted.
+     */
+    @Benchmark
+    public int keysetPoll() throws SQLException {
+        if (cursor == null || cursor.isExhausted()) {
+            cursor = new IDBPollingCursor(BENCHMARK_TABLE_NAME, false, "ID", "InsertTime", "JMSPriority", "Action",
+                    "ProducerStatus", SELECT_COLUMNS, Arrays.asList(1, 2, 3, 4), Producer.masterProducerID);
+        }
+        if (!cursor.isStarted()) {
+            cursor.setPriority(queryInteger(cursor.getFirstPriorityQuery()));
+        }
+        int fetchedRows = 0;
+        while (!cursor.isExhausted() && fetchedRows < BATCH_SIZE) {
+            int pageSize = BATCH_SIZE - fetchedRows;
+            long lastInsertTime = 0;
+            long lastID = 0;
+            int pageRows = 0;
+            try (PreparedStatement statement = connection.prepareStatement(cursor.getPageQuery(pageSize))) {
+                bind(statement, cursor.getPageParameters());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getString("Message");
+                        lastInsertTime = resultSet.getLong("InsertTime");
+                        lastID = resultSet.getLong("ID");
+                        pageRows++;
+                    }
+                }
+            }
+            fetchedRows += pageRows;
+            if (pageRows < pageSize) {
+                cursor.setPriority(queryInteger(cursor.getNextPriorityQuery(), cursor.getPriority()));
+            } else {
+                cursor.advance(lastInsertTime, lastID);
+            }
+        }
+        return fetchedRows;
+    }
+
+    /**
+     * Creates the benchmark table with the same structure as the intermediate database tables.
+     */
+    private void createTable() throws SQLException {
+        dropTable();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + BENCHMARK_TABLE_NAME + "( ID BIGINT(20) NOT NULL, Message LONGTEXT CHARACTER SET utf8 COLLATE utf8_unicode_ci, Action SMALLINT(6) NOT NULL DEFAULT '1', InsertTime BIGINT(20) UNSIGNED NOT NULL, JMSPriority SMALLINT(6) NOT NULL DEFAULT '0', JobID BIGINT(20) NOT NULL DEFAULT '0', VersionNr MEDIUMINT(8) UNSIGNED NOT NULL DEFAULT '1', ProducerStatus smallint(6) NOT NULL DEFAULT '0',PRIMARY KEY (ID), KEY IDX_JMSPriority (JMSPriority) USING BTREE, KEY IDX_Action (Action) USING BTREE, KEY IDX_ProducerStatus (ProducerStatus) USING BTREE, KEY IDX_InsertTime (InsertTime) USING BTREE, KEY IDX_KeysetPolling (JMSPriority, InsertTime, ID, ProducerStatus) USING BTREE)");
+        }
+    }
+
+    private void dropTable() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + BENCHMARK_TABLE_NAME);
+        }
+    }
+
+    /**
+     * Fills the benchmark table with randomly prioritized rows.
+     */
+    private void insertRows() throws SQLException {
+        Random random = new Random(rows);
+        String message = new String(new char[200]).replace('\0', 'x');
+        String insertQuery = "INSERT INTO " + BENCHMARK_TABLE_NAME +
+                " (ID, Message, Action, InsertTime, JMSPriority, ProducerStatus) VALUES (?, ?, 1, ?, ?, ?)";
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(insertQuery)) {
+            for (long id = 1; id <= rows; id++) {
+                statement.setLong(1, id);
+                statement.setString(2, message);
+                statement.setLong(3, 1500000000000L + id);
+                statement.setInt(4, JMS_PRIORITIES[random.nextInt(JMS_PRIORITIES.length)]);
+                statement.setInt(5, PRODUCER_STATUSES[random.nextInt(PRODUCER_STATUSES.length)]);
+                statement.addBatch();
+                if (id % INSERT_BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private Integer queryInteger(String query, Object... args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            bind(statement, args);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    int value = resultSet.getInt(1);
+                    return resultSet.wasNull() ? null : value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void bind(PreparedStatement statement, Object[] args) throws SQLException {
+        for (int index = 0; index < args.length; index++) {
+            statement.setObject(index + 1, args[index]);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.exportstaging.benchmarks;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page latency of the sequential multi partition IN queries, which ItemAPIDAOImpl used to read the items of a page,
+ * compared with the single partition requests of the CassandraPartitionReader, for the item table (partitioned by
+ * LanguageID) and the record table (partitioned by ID). Every invocation reads the next page of the items.
+ * <p>
+ * Needs a Cassandra cluster for the benchmark keyspace, e.g. three nodes started with ccm:
+ * -Dbenchmark.cassandra.contactPoints=127.0.0.1,127.0.0.2,127.0.0.3 and -p replicationFactor=3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemFetchBenchmark {
+
+    private static final String KEYSPACE_NAME     = "esa_fetch_benchmark";
+    private static final String ITEM_TABLE_NAME   = KEYSPACE_NAME + ".export_pdmarticle";
+    private static final String RECORD_TABLE_NAME = KEYSPACE_NAME + ".export_user";
+    private static final int    IN_LIST_SIZE      = 1000;
+    private static final int    CHUNK_SIZE        = 100;
+    private static final int    MAX_IN_FLIGHT     = 64;
+
+    @Param({"in-list", "fan-out"})
+    private String mode;
+
+    @Param({"20000"})
+    private int items;
+
+    @Param({"4"})
+    private int languages;
+
+    @Param({"300"})
+    private int pageSize;
+
+    @Param({"1"})
+    private int replicationFactor;
+
+    private Cluster cluster;
+    private Session session;
+    private PreparedStatement itemSelect;
+    private PreparedStatement recordSelect;
+    private List<List<Long>> pages;
+    private List<Long> languageIds;
+    private String languageFilter;
+    private int nextPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cluster = Cluster.builder()
+                .addContactPoints(BenchmarkFixtures.getRequiredProperty("benchmark.cassandra.contactPoints").split(","))
+                .build();
+        session = cluster.connect();
+        createTables();
+        writeRows();
+        List<Long> itemIds = new ArrayList<>();
+        for (long itemId = 1; itemId <= items; itemId++) {
+            itemIds.add(itemId);
+        }
+        pages = Lists.partition(itemIds, pageSize);
+        languageIds = new ArrayList<>();
+        for (long languageId = 1; languageId <= languages; languageId++) {
+            languageIds.add(languageId);
+        }
+        languageFilter = " AND \"LanguageID\" IN " + languageIds.toString().replace('[', '(').replace(']', ')');
+        itemSelect = session.prepare("SELECT * FROM " + ITEM_TABLE_NAME + " WHERE \"LanguageID\" = ? AND \"ID\" IN ?");
+        recordSelect = session.prepare("SELECT * FROM " + RECORD_TABLE_NAME + " WHERE \"ID\" = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.execute("DROP KEYSPACE IF EXISTS " + KEYSPACE_NAME);
+        cluster.close();
+    }
+
+    @Benchmark
+    public long itemPage() throws InterruptedException, ExecutionException {
+        List<Long> page = nextPage();
+        if ("fan-out".equals(mode)) {
+            List<Statement> statements = new ArrayList<>();
+            for (List<Long> chunk : Lists.partition(page, CHUNK_SIZE)) {
+                for (Long languageId : languageIds) {
+                    statements.add(itemSelect.bind(languageId, chunk));
+                }
+            }
+            return readAsync(statements);
+        }
+        return readSequentially(getInListStatements(ITEM_TABLE_NAME, page, languageFilter));
+    }
+
+    @Benchmark
+    public long recordPage() throws InterruptedException, ExecutionException {
+        List<Long> page = nextPage();
+        if ("fan-out".equals(mode)) {
+            List<Statement> statements = new ArrayList<>(page.size());
+            for (Long recordId : page) {
+                statements.add(recordSelect.bind(recordId));
+            }
+            return readAsync(statements);
+        }
+        return readSequentially(getInListStatements(RECORD_TABLE_NAME, page, ""));
+    }
+
+    /**
+     * Creates the benchmark tables with the same primary keys as the item and record tables of the export database.
+     */
+    private void createTables() {
+        session.execute("DROP KEYSPACE IF EXISTS " + KEYSPACE_NAME);
+        session.execute("CREATE KEYSPACE " + KEYSPACE_NAME +
+                " WITH replication = {'class': 'SimpleStrategy', 'replication_factor': " + replicationFactor + "}");
+        session.execute("CREATE TABLE " + ITEM_TABLE_NAME + "(\"ID\" bigint, \"LanguageID\" bigint, \"ParentID\" bigint," +
+                " \"Label\" text, \"1:Value\" text, \"2:Value\" text, PRIMARY KEY(\"LanguageID\",\"ID\"))");
+        session.execute("CREATE TABLE " + RECORD_TABLE_NAME + "(\"ID\" bigint, \"StateID\" bigint, \"Label\" text," +
+                " \"1:Value\" text, PRIMARY KEY(\"ID\"))");
+    }
+
+    private void writeRows() {
+        PreparedStatement insertItem = session.prepare("INSERT INTO " + ITEM_TABLE_NAME +
+                " (\"ID\", \"LanguageID\", \"ParentID\", \"Label\", \"1:Value\", \"2:Value\") VALUES (?, ?, ?, ?, ?, ?)");
+        PreparedStatement insertRecord = session.prepare("INSERT INTO " + RECORD_TABLE_NAME +
+                " (\"ID\", \"StateID\", \"Label\", \"1:Value\") VALUES (?, ?, ?, ?)");
+        List<ResultSetFuture> futures = new ArrayList<>();
+        for (long itemId = 1; itemId <= items; itemId++) {
+            for (long languageId = 1; languageId <= languages; languageId++) {
+                futures.add(session.executeAsync(insertItem.bind(itemId, languageId, itemId / 100, "Item " + itemId,
+                        "Value 1 of item " + itemId, "Value 2 of item " + itemId)));
+            }
+            futures.add(session.executeAsync(insertRecord.bind(itemId, 0L, "Record " + itemId, "Value of " + itemId)));
+            if (futures.size() >= MAX_IN_FLIGHT) {
+                futures.forEach(ResultSetFuture::getUninterruptibly);
+                futures.clear();
+            }
+        }
+        futures.forEach(ResultSetFuture::getUninterruptibly);
+    }
+
+    private List<Statement> getInListStatements(String tableName, List<Long> page, String filter) {
+        List<Statement> statements = new ArrayList<>();
+        for (List<Long> chunk : Lists.partition(page, IN_LIST_SIZE)) {
+            statements.add(new SimpleStatement("SELECT * FROM " + tableName + " WHERE \"ID\" IN " +
+                    chunk.toString().replace('[', '(').replace(']', ')') + filter));
+        }
+        return statements;
+    }
+
+    private long readSequentially(List<Statement> statements) {
+        long rows = 0;
+        for (Statement statement : statements) {
+            rows += session.execute(statement).all().size();
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the statements like the CassandraPartitionReader: asynchronously with a bounded number of requests in
+     * flight, the rows are collected in the order of the statements.
+     */
+    private long readAsync(List<Statement> statements) throws InterruptedException, ExecutionException {
+        Semaphore permits = new Semaphore(MAX_IN_FLIGHT);
+        List<ResultSetFuture> futures = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            permits.acquire();
+            ResultSetFuture future = session.executeAsync(statement);
+            future.addListener(permits::release, MoreExecutors.directExecutor());
+            futures.add(future);
+        }
+        long rows = 0;
+        for (ResultSetFuture future : futures) {
+            rows += future.get().all().size();
+        }
+        return rows;
+    }
+
+    private List<Long> nextPage() {
+        List<Long> page = pages.get(nextPage);
+        nextPage = (nextPage + 1) % pages.size();
+        return page;
+    }
+}
@@ -0,0 +1,97 @@
+package com.exportstaging.benchmarks;
+
+import com.exportstaging.subscribers.ItemInsertTimeIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ItemInsertTimeIndex} of the DataManager with the ConcurrentHashMap of String keys it replaces.
+ * Every operation is the update and validation done by a subscriber for one message of a known item, with four
+ * subscriber threads.
+ * <p>
+ * The heap used per entry is printed after the setup, the map measured from the heap in use before and after
+ * filling it. The map with 50M entries needs about 10 GB of heap, the fork is started with -Xmx16g.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = {"-Xms16g", "-Xmx16g"})
+public class ItemInsertTimeIndexBenchmark {
+
+    private static final String ITEM_TYPE = "Pdmarticle";
+
+    @Param({"1000000", "10000000", "50000000"})
+    private int entries;
+
+    @Param({"index", "map"})
+    private String implementation;
+
+    private ItemInsertTimeIndex index;
+    private ConcurrentHashMap<String, Long> map;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long usedBefore = getUsedHeap();
+        if ("index".equals(implementation)) {
+            index = new ItemInsertTimeIndex();
+            for (long itemID = 1; itemID <= entries; itemID++) {
+                index.update(itemID, itemID, false);
+            }
+            System.out.println("\nItemInsertTimeIndex: " + (double) index.getMemoryBytes() / entries + " bytes per entry");
+        } else {
+            map = new ConcurrentHashMap<>();
+            for (long itemID = 1; itemID <= entries; itemID++) {
+                map.put(ITEM_TYPE + "_" + itemID, itemID);
+            }
+        }
+        System.out.println("\nHeap used by " + implementation + ": "
+                + (double) (getUsedHeap() - usedBefore) / entries + " bytes per entry");
+    }
+
+    @Benchmark
+    public boolean updateAndValidate() {
+        long itemID = 1 + ThreadLocalRandom.current().nextInt(entries);
+        long insertTime = itemID + ThreadLocalRandom.current().nextInt(2);
+        if (index != null) {
+            index.update(itemID, insertTime, false);
+            return index.isLatest(itemID, insertTime);
+        }
+        String mapKey = ITEM_TYPE + "_" + itemID;
+        if (map.containsKey(mapKey)) {
+            if (map.get(mapKey) != -1) {
+                if (insertTime > map.get(mapKey)) {
+                    map.put(mapKey, insertTime);
+                }
+            }
+        } else {
+            map.put(mapKey, insertTime);
+        }
+        return map.containsKey(mapKey) && map.get(mapKey) == insertTime;
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int gc = 0; gc < 3; gc++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
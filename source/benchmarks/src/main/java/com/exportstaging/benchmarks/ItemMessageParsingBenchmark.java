@@ -0,0 +1,74 @@
+package com.exportstaging.benchmarks;
+
+import com.exportstaging.domain.ExportMessage;
+import com.exportstaging.domain.ItemMessage;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of reading an item message the way a subscriber does: detecting the message type and building the
+ * {@link ItemMessage}. The json-simple benchmark repeats the two DOM parses done before the streaming parser, the
+ * streaming benchmarks use {@link ExportMessage} once with and once without touching Reference and Subtable.
+ * <p>
+ * Allocation numbers are reported with the GC profiler: java -jar target/benchmarks.jar ItemMessageParsing -prof gc
+ * <p>
+ * The messages are described in {@link BenchmarkFixtures}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemMessageParsingBenchmark {
+
+    @Param({"medium", "large"})
+    private String messageSize;
+
+    private String message;
+
+    @Setup
+    public void setUp() {
+        message = BenchmarkFixtures.createItemMessage(messageSize);
+    }
+
+    @Benchmark
+    public void jsonSimpleTwoPass(Blackhole blackhole) {
+        JSONObject typeMessage = (JSONObject) JSONValue.parse(message);
+        blackhole.consume(typeMessage.containsKey("Record"));
+        JSONObject jsonObject = (JSONObject) JSONValue.parse(message);
+        blackhole.consume(jsonObject.get("Item"));
+        blackhole.consume(jsonObject.get("Reference"));
+        blackhole.consume(jsonObject.get("Subtable"));
+        blackhole.consume(jsonObject.get("_BigDataAttributes"));
+    }
+
+    @Benchmark
+    public void streamingItemMessage(Blackhole blackhole) {
+        ItemMessage itemMessage = new ExportMessage("4711", message, 1, "Pdmarticle", "Item", 0).getItemMessage();
+        blackhole.consume(itemMessage.getParsedItem());
+        blackhole.consume(itemMessage.getParsedReference());
+        blackhole.consume(itemMessage.getParsedSubtable());
+        blackhole.consume(itemMessage.getBigDataAttributes());
+    }
+
+    @Benchmark
+    public void streamingItemOnly(Blackhole blackhole) {
+        ItemMessage itemMessage = new ExportMessage("4711", message, 1, "Pdmarticle", "Item", 0).getItemMessage();
+        blackhole.consume(itemMessage.getParsedItem());
+    }
+}
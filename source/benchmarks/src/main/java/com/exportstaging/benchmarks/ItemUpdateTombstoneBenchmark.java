@@ -0,0 +1,219 @@
+package com.exportstaging.benchmarks;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.QueryTrace;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replace mode (delete all rows of an item, insert them again) compared with the upsert mode (insert all rows, delete
+ * only the removed rows) of the ItemUpdater on the export_reference table of a Cassandra node.
+ * <p>
+ * The setup writes the references of all items and applies the update rounds, so the reads find the tombstones of
+ * the mode. updateItem measures one more update, readItem the read of an item and tracedReadItem counts the
+ * tombstones scanned by the reads from the query traces: tombstones / reads is the number per read.
+ * <p>
+ * Needs a Cassandra node for the benchmark keyspace: -Dbenchmark.cassandra.contactPoints=127.0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemUpdateTombstoneBenchmark {
+
+    private static final String  KEYSPACE_NAME        = "esa_tombstone_benchmark";
+    private static final String  TABLE_NAME           = KEYSPACE_NAME + ".export_reference";
+    private static final String  SOURCE_TYPE          = "Pdmarticle";
+    private static final int     LANGUAGE_COUNT       = 2;
+    private static final double  CHANGED_REFERENCES   = 0.1;
+    private static final Pattern TOMBSTONE_TRACE      = Pattern.compile("Read (\\d+) live rows and (\\d+) tombstone cells");
+
+    @Param({"replace", "upsert"})
+    private String mode;
+
+    @Param({"200"})
+    private int items;
+
+    @Param({"20"})
+    private int updates;
+
+    @Param({"50"})
+    private int references;
+
+    private Cluster cluster;
+    private Session session;
+    private PreparedStatement insert;
+    private PreparedStatement deleteItem;
+    private PreparedStatement selectKeys;
+    private PreparedStatement deleteRow;
+    private PreparedStatement selectItem;
+    private Random random;
+    private List<Set<Long>> itemReferences;
+    private long nextReferenceID;
+    private int nextItem;
+
+    /**
+     * Tombstones scanned by the traced reads.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class TombstoneCounter {
+        public long reads;
+        public long tombstones;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            reads = 0;
+            tombstones = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cluster = Cluster.builder()
+                .addContactPoints(BenchmarkFixtures.getRequiredProperty("benchmark.cassandra.contactPoints").split(","))
+                .build();
+        session = cluster.connect();
+        createTable();
+        insert = session.prepare("INSERT INTO " + TABLE_NAME +
+                " (\"ItemID\", \"SourceType\", \"LanguageID\", \"AttributeID\", \"CSReferenceID\", \"TargetID\", \"Value\")" +
+                " VALUES (?, ?, ?, ?, ?, ?, ?)");
+        deleteItem = session.prepare("DELETE FROM " + TABLE_NAME + " WHERE \"ItemID\" = ? AND \"SourceType\" = ?");
+        selectKeys = session.prepare("SELECT \"LanguageID\", \"AttributeID\", \"CSReferenceID\" FROM " +
+                TABLE_NAME + " WHERE \"ItemID\" = ? AND \"SourceType\" = ?");
+        deleteRow = session.prepare("DELETE FROM " + TABLE_NAME + " WHERE \"ItemID\" = ? AND" +
+                " \"SourceType\" = ? AND \"LanguageID\" = ? AND \"AttributeID\" = ? AND \"CSReferenceID\" = ?");
+        selectItem = session.prepare("SELECT * FROM " + TABLE_NAME + " WHERE \"ItemID\" = ? AND \"SourceType\" = ?");
+        random = new Random(items);
+        itemReferences = new ArrayList<>();
+        nextReferenceID = 1;
+        for (int item = 0; item < items; item++) {
+            Set<Long> referenceIDs = new HashSet<>();
+            for (int reference = 0; reference < references; reference++) {
+                referenceIDs.add(nextReferenceID++);
+            }
+            itemReferences.add(referenceIDs);
+            session.execute(getInsertBatch(item, referenceIDs));
+        }
+        for (int update = 0; update < updates * items; update++) {
+            updateItem();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.execute("DROP KEYSPACE IF EXISTS " + KEYSPACE_NAME);
+        cluster.close();
+    }
+
+    /**
+     * Replaces a part of the references of the next item by new ones, like a delta update of an item which lost and
+     * gained references.
+     */
+    @Benchmark
+    public int updateItem() {
+        int item = nextItem();
+        Set<Long> referenceIDs = itemReferences.get(item);
+        List<Long> removable = new ArrayList<>(referenceIDs);
+        int changedReferences = Math.max(1, (int) (references * CHANGED_REFERENCES));
+        for (int change = 0; change < changedReferences && !removable.isEmpty(); change++) {
+            referenceIDs.remove(removable.remove(random.nextInt(removable.size())));
+            referenceIDs.add(nextReferenceID++);
+        }
+        if ("upsert".equals(mode)) {
+            BatchStatement deletes = new BatchStatement(BatchStatement.Type.UNLOGGED);
+            for (Row row : session.execute(selectKeys.bind((long) item, SOURCE_TYPE))) {
+                if (!referenceIDs.contains(row.getLong(2))) {
+                    deletes.add(deleteRow.bind((long) item, SOURCE_TYPE, row.getLong(0), row.getLong(1), row.getLong(2)));
+                }
+            }
+            if (deletes.size() > 0) {
+                session.execute(deletes);
+            }
+        } else {
+            session.execute(deleteItem.bind((long) item, SOURCE_TYPE));
+        }
+        session.execute(getInsertBatch(item, referenceIDs));
+        return item;
+    }
+
+    @Benchmark
+    public int readItem() {
+        return session.execute(selectItem.bind((long) nextItem(), SOURCE_TYPE)).all().size();
+    }
+
+    @Benchmark
+    public int tracedReadItem(TombstoneCounter counter) {
+        BoundStatement select = selectItem.bind((long) nextItem(), SOURCE_TYPE);
+        select.enableTracing();
+        ResultSet resultSet = session.execute(select);
+        int rows = resultSet.all().size();
+        QueryTrace trace = resultSet.getExecutionInfo().getQueryTrace();
+        for (QueryTrace.Event event : trace.getEvents()) {
+            Matcher matcher = TOMBSTONE_TRACE.matcher(event.getDescription());
+            if (matcher.find()) {
+                counter.tombstones += Long.parseLong(matcher.group(2));
+            }
+        }
+        counter.reads++;
+        return rows;
+    }
+
+    /**
+     * Creates the benchmark table with the same primary key as the export_reference table.
+     */
+    private void createTable() {
+        session.execute("DROP KEYSPACE IF EXISTS " + KEYSPACE_NAME);
+        session.execute("CREATE KEYSPACE " + KEYSPACE_NAME +
+                " WITH replication = {'class': 'SimpleStrategy', 'replication_factor': 1}");
+        session.execute("CREATE TABLE " + TABLE_NAME + "(\"ItemID\" bigint, \"SourceType\" text, \"LanguageID\" bigint," +
+                " \"AttributeID\" bigint, \"CSReferenceID\" bigint, \"TargetID\" bigint, \"Value\" text," +
+                " PRIMARY KEY(\"ItemID\",\"SourceType\",\"LanguageID\",\"AttributeID\",\"CSReferenceID\"))");
+    }
+
+    private BatchStatement getInsertBatch(long itemID, Set<Long> referenceIDs) {
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        for (long languageID = 1; languageID <= LANGUAGE_COUNT; languageID++) {
+            for (Long referenceID : referenceIDs) {
+                batch.add(insert.bind(itemID, SOURCE_TYPE, languageID, referenceID % 5, referenceID, referenceID * 7,
+                        "Reference " + referenceID));
+            }
+        }
+        return batch;
+    }
+
+    private int nextItem() {
+        int item = nextItem;
+        nextItem = (nextItem + 1) % items;
+        return item;
+    }
+}
@@ -0,0 +1,51 @@
+package com.exportstaging.benchmarks;
+
+import com.exportstaging.common.ExportMiscellaneousUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decompression of the messages received by the subscribers with
+ * {@link ExportMiscellaneousUtils#getUnCompressedItemMessage(String)}, for Pdmarticle messages and the content of a
+ * large Mamfile (about 4 MB of text).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDecompressionBenchmark {
+
+    private static final int MAMFILE_CONTENT_SIZE = 4 * 1024 * 1024;
+
+    @Param({"medium", "large", "mamfile"})
+    private String message;
+
+    private String compressedMessage;
+
+    @Setup
+    public void setUp() {
+        if ("mamfile".equals(message)) {
+            compressedMessage = BenchmarkFixtures.compress(BenchmarkFixtures.createFileContentMessage(MAMFILE_CONTENT_SIZE));
+        } else {
+            compressedMessage = BenchmarkFixtures.compress(BenchmarkFixtures.createItemMessage(message));
+        }
+    }
+
+    @Benchmark
+    public String getUnCompressedItemMessage() {
+        return ExportMiscellaneousUtils.getUnCompressedItemMessage(compressedMessage);
+    }
+}
@@ -0,0 +1,145 @@
+package com.exportstaging.moderators;
+
+import com.exportstaging.benchmarks.BenchmarkFixtures;
+import com.exportstaging.common.ExportMiscellaneousUtils;
+import com.exportstaging.dataprovider.DataProviderItem;
+import com.exportstaging.dataprovider.DataProviderReference;
+import com.exportstaging.dataprovider.DataProviderSubtable;
+import com.exportstaging.domain.ExportMessage;
+import com.exportstaging.domain.ItemMessage;
+import org.json.simple.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the item, reference and subtable rows of a parsed Pdmarticle message to the column values of the
+ * Cassandra tables by the {@link ItemUpdater}. The data providers are replaced by stubs which only count the mapped
+ * rows, so the Cassandra writes are not part of the measurement.
+ * <p>
+ * The benchmark is in the package of the ItemUpdater because the class is package private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemUpdaterBenchmark {
+
+    private static final String ITEM_TYPE = "Pdmarticle";
+    private static final int ACTION_UPDATE = 2;
+
+    @Param({"medium", "large"})
+    private String messageSize;
+
+    private ItemUpdater itemUpdater;
+    private JSONArray items;
+    private JSONArray references;
+    private JSONArray subtables;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        BenchmarkFixtures.setStaticField(ExportMiscellaneousUtils.class, "itemTypes",
+                Arrays.asList(ITEM_TYPE, "Pdmarticlestructure", "Mamfile", "User"));
+        itemUpdater = new ItemUpdater();
+        itemUpdater.dataProviderItem = new StubItemProvider();
+        itemUpdater.dataProviderReference = new StubReferenceProvider();
+        itemUpdater.dataProviderSubtable = new StubSubtableProvider();
+        itemUpdater.mActionCreate = 1;
+        ItemMessage itemMessage = new ExportMessage(BenchmarkFixtures.ITEM_ID,
+                BenchmarkFixtures.createItemMessage(messageSize), ACTION_UPDATE, ITEM_TYPE, "Item", 0).getItemMessage();
+        items = itemMessage.getParsedItem();
+        references = itemMessage.getParsedReference();
+        subtables = itemMessage.getParsedSubtable();
+    }
+
+    @Benchmark
+    public boolean updateItemTable() {
+        return itemUpdater.updateItemTable(BenchmarkFixtures.ITEM_ID, items, ITEM_TYPE, ACTION_UPDATE, false);
+    }
+
+    @Benchmark
+    public boolean updateReferenceTable() {
+        return itemUpdater.updateReferenceTable(BenchmarkFixtures.ITEM_ID, references, ITEM_TYPE);
+    }
+
+    @Benchmark
+    public boolean updateSubtableTable() {
+        return itemUpdater.updateSubtableTable(BenchmarkFixtures.ITEM_ID, subtables, ITEM_TYPE);
+    }
+
+    private static class StubItemProvider extends DataProviderItem {
+        private long rows;
+
+        @Override
+        public String getTableName(String itemType) {
+            return "export_" + itemType.toLowerCase();
+        }
+
+        @Override
+        public boolean deleteRow(String itemType, String message) {
+            return true;
+        }
+
+        @Override
+        public boolean insertItemData(String itemType, String tableName, Map<String, Map<String, Object>> fieldValueMapping) {
+            rows += fieldValueMapping.size();
+            return true;
+        }
+    }
+
+    private static class StubReferenceProvider extends DataProviderReference {
+        private long rows;
+
+        @Override
+        public String getTableName(String itemType) {
+            return "export_reference";
+        }
+
+        @Override
+        public boolean deleteRow(String itemType, String message) {
+            return true;
+        }
+
+        @Override
+        public boolean insertReferenceData(String itemType, String tableName,
+                                           Map<String, Map<String, Map<String, Object>>> fieldValueMapping) {
+            rows += fieldValueMapping.size();
+            return true;
+        }
+    }
+
+    private static class StubSubtableProvider extends DataProviderSubtable {
+        private long rows;
+
+        @Override
+        public String getTableName(String itemType) {
+            return "export_subtable";
+        }
+
+        @Override
+        public boolean deleteRow(String itemType, String message) {
+            return true;
+        }
+
+        @Override
+        public boolean insertSubtableData(String itemType, String tableName,
+                                          Map<String, Map<String, Map<String, Object>>> fieldValueMapping) {
+            rows += fieldValueMapping.size();
+            return true;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import com.datastax.driver.core.Row;
 import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import com.exportstaging.connectors.database.CassandraDAO;
+import com.exportstaging.connectors.database.CassandraRowBinder;
+import com.exportstaging.connectors.database.CassandraStatementCache;
 import com.exportstaging.connectors.database.DatabaseConnection;
 import com.exportstaging.dao.DataProvider;
 import com.exportstaging.utils.CassandraListener;
@@ -80,6 +82,8 @@ public abstract class AbstractDataProvider implements DataProvider {
     protected CassandraListener listener;
     @Autowired
     public CassandraDAO cassandraDAO;
+    @Autowired
+    protected CassandraStatementCache statementCache;
     @Value("${cassandra.prefix.export}")
     protected String prefixExport;
     @Value("${export.tools.connection.delay}")
@@ -89,20 +93,19 @@ public abstract class AbstractDataProvider implements DataProvider {
     @Value("${core.project.name}")
     protected String projectName;
     protected String keyspaceTemplate = "keyspace_template";
-    private String tableName;
     private Map<String, Set<String>> cacheColumnFamily = new HashMap<>();
 
 
     @Override
     public boolean checkTable(String itemType) throws ExportStagingException {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         return cassandraDAO.checkTable(tableName);
     }
 
 
     @Override
     public boolean checkColumn(String itemType, String columnName) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         try {
             return cassandraDAO.checkColumn(tableName, columnName);
         } catch (Exception e) {
@@ -115,7 +118,7 @@ public abstract class AbstractDataProvider implements DataProvider {
     @Override
     public List<String> getColumns(String itemType) {
         List<String> columnList = new ArrayList<>();
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         try {
             columnList = cassandraDAO.getColumns(tableName);
         } catch (Exception e) {
@@ -127,7 +130,7 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public boolean addColumn(String itemType, String columnName) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         try {
             if (checkTable(itemType)) {
                 if (!checkColumn(itemType, columnName)) {
@@ -150,7 +153,6 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public void addAttributeColumns(String itemType, String attributeID) {
-        tableName = getTableName(itemType);
         String sColumnF = attributeID + ":" + "FormattedValue";
         String sColumnV = attributeID + ":" + "Value";
         addColumn(itemType, sColumnF);
@@ -160,10 +162,10 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public boolean insertColumnData(String itemType, String columnNames, String columnValues) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         columnNames = columnNames.trim();
         try {
-            String insertQuery = getQuery(columnNames, columnValues);
+            String insertQuery = getQuery(tableName, columnNames, columnValues);
             cassandraDAO.dbOperations(insertQuery);
         } catch (ExportStagingException e) {
             if (e.getMessage().contains(UNKNOWN_IDENTIFIER)) {
@@ -193,7 +195,7 @@ public abstract class AbstractDataProvider implements DataProvider {
     }
 
 
-    private String getQuery(String columnNames, String columnValues) {
+    private String getQuery(String tableName, String columnNames, String columnValues) {
         return "INSERT INTO " + keyspaceTemplate + "." + tableName + " (" + columnNames + ") VALUES(" + columnValues + ");";
     }
 
@@ -390,12 +392,12 @@ public abstract class AbstractDataProvider implements DataProvider {
 
 
     public boolean bulkInsertData(String itemType, List<Map<String, String>> insertData) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         List<String> queries = new ArrayList<>();
         for (Map<String, String> singleRow : insertData) {
             String columnNames = singleRow.get("columnNames");
             String columnValues = singleRow.get("columnValues");
-            queries.add(getQuery(columnNames, columnValues));
+            queries.add(getQuery(tableName, columnNames, columnValues));
         }
         try {
 
@@ -431,7 +433,7 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public boolean dropColumn(String itemType, String columnName) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         boolean status = false;
         try {
             if (checkColumn(itemType, columnName)) {
@@ -456,6 +458,72 @@ public abstract class AbstractDataProvider implements DataProvider {
     }
 
 
+    /**
+     * Deletes the rows of one item which are not part of its current message anymore.
+     * Compared to deleting all rows of the item before inserting them again, tombstones are written only for the
+     * removed rows. The keys of the existing rows are read from the partition of the item, the select and the deletes
+     * are prepared statements with bound values.
+     *
+     * @param tableName         String name of the table
+     * @param itemKey           Map of quoted column name and value selecting all rows of the item
+     * @param keyColumns        List of clustering columns identifying a row of the item
+     * @param fieldValueMapping Map of the current rows of the item
+     *                          Structure of Map would be <LanguageID,<RowID,<FieldName, FieldValue>>>
+     * @return true if the removed rows are deleted successfully otherwise false
+     */
+    protected boolean deleteRemovedRows(String tableName, Map<String, Object> itemKey, List<String> keyColumns,
+                                        Map<String, Map<String, Map<String, Object>>> fieldValueMapping) {
+        Set<List<String>> currentKeys = new HashSet<>();
+        List<String> quotedKeyColumns = new ArrayList<>();
+        for (String keyColumn : keyColumns) {
+            quotedKeyColumns.add("\"" + keyColumn + "\"");
+        }
+        for (Map<String, Map<String, Object>> rows : fieldValueMapping.values()) {
+            for (Map<String, Object> fieldData : rows.values()) {
+                List<String> key = new ArrayList<>();
+                for (String keyColumn : quotedKeyColumns) {
+                    key.add(String.valueOf(fieldData.get(keyColumn)));
+                }
+                currentKeys.add(key);
+            }
+        }
+        String itemFilter = String.join(" = ? AND ", itemKey.keySet()) + " = ?";
+        try {
+            CassandraRowBinder selectBinder = statementCache.getSelectBinder(tableName, quotedKeyColumns, itemFilter);
+            BoundStatement select = selectBinder.getStatement().bind();
+            selectBinder.bind(select, itemKey);
+            select.setReadTimeoutMillis(ExportMiscellaneousUtils.CONST_READ_TIMEOUT_IN_MILISEC);
+            CassandraRowBinder deleteBinder = null;
+            Set<BoundStatement> deleteStatements = new LinkedHashSet<>();
+            for (Row row : cassandraDAO.execute(select)) {
+                List<String> key = new ArrayList<>();
+                Map<String, Object> rowKey = new LinkedHashMap<>(itemKey);
+                for (int index = 0; index < quotedKeyColumns.size(); index++) {
+                    key.add(String.valueOf(row.getObject(index)));
+                    rowKey.put(quotedKeyColumns.get(index), row.getObject(index));
+                }
+                if (currentKeys.contains(key)) {
+                    continue;
+                }
+                if (deleteBinder == null) {
+                    deleteBinder = statementCache.getDeleteBinder(tableName,
+                            itemFilter + " AND " + String.join(" = ? AND ", quotedKeyColumns) + " = ?");
+                }
+                BoundStatement delete = deleteBinder.getStatement().bind();
+                deleteBinder.bind(delete, rowKey);
+                deleteStatements.add(delete);
+            }
+            if (!deleteStatements.isEmpty()) {
+                cassandraDAO.executeBatch(deleteStatements);
+            }
+        } catch (Exception e) {
+            logError("Exception while deleting removed rows from table " + tableName + " of item " + itemKey.values(), e);
+            return false;
+        }
+        return true;
+    }
+
+
     protected String prepareINOperatorDataQuery(String itemIds) {
         itemIds = itemIds.replace(", ", "\', \'");
         itemIds = itemIds.replace("[", "\'");
@@ -483,7 +551,7 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public boolean dropAttributeColumns(String itemType, String attributeID) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         boolean bStatusF;
         boolean bStatusV;
         try {
@@ -501,7 +569,7 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public void dropTable(String itemType) throws ExportStagingException {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         if (checkTable(itemType)) {
             String dropQuery;
             try {
@@ -518,7 +586,7 @@ public abstract class AbstractDataProvider implements DataProvider {
     @Override
     public boolean truncateTable(String itemType) {
         String truncateQuery;
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         try {
             truncateQuery = "TRUNCATE " + keyspaceTemplate + "." + tableName;
             cassandraDAO.dbOperations(truncateQuery);
@@ -589,7 +657,7 @@ public abstract class AbstractDataProvider implements DataProvider {
 
 
     public ResultSet getItemResultSet(String itemType, String itemId, String languageId, String columnNames) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String selectQuery =
                 "SELECT " + columnNames + " FROM  " + keyspaceTemplate + "." + tableName + " WHERE \"" + ExportMiscellaneousUtils.EXPORT_FIELD_LANGUAGEID + "\" = " + languageId + " AND \"" + ExportMiscellaneousUtils.EXPORT_FIELD_ID + "\" = " + itemId + ";";
         try {
@@ -602,7 +670,7 @@ public abstract class AbstractDataProvider implements DataProvider {
 
 
     public ResultSet getItemResultSet(String itemType, String itemId, List<String> languageIDs, String columnNames) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String selectQuery =
                 "SELECT " + columnNames + " FROM  " + keyspaceTemplate + "." + tableName + " WHERE \"" + ExportMiscellaneousUtils.EXPORT_FIELD_LANGUAGEID + "\" IN ( " + String
                         .join(",", languageIDs) + ") AND \"" + ExportMiscellaneousUtils.EXPORT_FIELD_ID + "\" = " + itemId + ";";
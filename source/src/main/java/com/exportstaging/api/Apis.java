@@ -52,6 +52,18 @@ public interface Apis {
     Set<Long> getItemIdsByFilters(SearchFilterCriteria searchFilterCriteria)
             throws ExportStagingException;
 
+    /**
+     * Returns the plan of getItemIdsByFilters for the Filter without reading any Item IDs: the access path chosen
+     * for each condition and the estimated cost.
+     *
+     * @param searchFilterCriteria : The SearchFilterCriteria class object which has the Filters for
+     *                             searching the Item IDs.
+     * @return String: One line per step of the plan.
+     * @throws ExportStagingException If any type of Exception will throw Handle by this Custom
+     *                                Exception
+     */
+    String explain(SearchFilterCriteria searchFilterCriteria) throws ExportStagingException;
+
     /**
      * Returns Object of ItemsByFilter class according to the Filter.
      *
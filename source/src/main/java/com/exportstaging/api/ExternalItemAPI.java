@@ -24,11 +24,14 @@ import java.util.*;
  * <b>ITEM_TYPE_FILE     : </b> For Mamfile<br>
  * <b>ITEM_TYPE_USER     : </b> For User<br>
  * <b>ITEM_TYPE_WORKFLOW : </b> For Workflow<br>
+ * Every object created with the constructor has its own Spring context with its own Cassandra session. Processes which
+ * read more than one item type or create objects per request get shared objects from the {@link ExternalItemAPIFactory}.
  */
 public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
 
     private ConfigurableApplicationContext context = null;
     private ItemApiImpl itemApiImpl = null;
+    private ExternalItemAPIFactory factory = null;
     protected String itemType = null;
 
 
@@ -47,20 +50,38 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
     public ExternalItemAPI(String itemType) throws ExportStagingException {
         try {
             initialiseResources();
-            if (checkItemType(itemType)) {
-                this.itemType = itemType;
-                itemApiImpl.init(itemType);
-            } else {
-                String msg = "Invalid item type: " + itemType + " not supported";
-                System.out.println(msg);
-                throw new ExportStagingException(msg);
-            }
+            setItemType(itemType);
         } catch (ExportStagingException e) {
             this.close();
             throw new ExportStagingException(e);
         }
     }
 
+    /**
+     * Constructor used by the {@link ExternalItemAPIFactory}, the object uses the shared context of the factory.
+     *
+     * @param itemType Item type i.e Pdmarticle/Mamfile
+     * @param factory  ExternalItemAPIFactory which owns the context
+     * @throws ExportStagingException If the item type is not supported
+     */
+    ExternalItemAPI(String itemType, ExternalItemAPIFactory factory) throws ExportStagingException {
+        this.factory = factory;
+        this.context = factory.getContext();
+        this.itemApiImpl = factory.getItemApiImpl();
+        setItemType(itemType);
+    }
+
+    private void setItemType(String itemType) throws ExportStagingException {
+        if (checkItemType(itemType)) {
+            this.itemType = itemType;
+            itemApiImpl.init(itemType);
+        } else {
+            String msg = "Invalid item type: " + itemType + " not supported";
+            System.out.println(msg);
+            throw new ExportStagingException(msg);
+        }
+    }
+
     /**
      * Returns the item type for which @{@link ExternalItemAPI} object is created.
      *
@@ -72,6 +93,10 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
 
 
     private void initialiseResources() {
+        if (factory != null) {
+            factory.checkActive();
+            return;
+        }
         try {
             if (context == null || !context.isActive()) {
                 context = new ClassPathXmlApplicationContext("spring/api.xml");
@@ -93,6 +118,9 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
         try {
             return (ItemsResultSet) context.getBean("itemsResultSet");
         } catch (Exception e) {
+            if (factory != null) {
+                throw e;
+            }
             context.refresh();
             return (ItemsResultSet) context.getBean("itemsResultSet");
         }
@@ -136,22 +164,22 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
 
     @Override
     public List<String> getAllFields() throws ExportStagingException {
-        return itemApiImpl.getAllFields(itemType);
+        return new ArrayList<>(itemApiImpl.getAllFields(itemType));
     }
 
     @Override
     public List<String> getStandardFields() throws ExportStagingException {
-        return itemApiImpl.getStandardFields(itemType);
+        return new ArrayList<>(itemApiImpl.getStandardFields(itemType));
     }
 
     @Override
     public List<Long> getCustomFields() throws ExportStagingException {
-        return itemApiImpl.getCustomFields(itemType);
+        return new ArrayList<>(itemApiImpl.getCustomFields(itemType));
     }
 
     @Override
     public List<Long> getPluginFields() throws ExportStagingException {
-        return itemApiImpl.getPluginFields(itemType);
+        return new ArrayList<>(itemApiImpl.getPluginFields(itemType));
     }
 
     private ItemWrapper getItemByExternalKey(String itemType, String itemExternalKey) throws ExportStagingException {
@@ -188,24 +216,30 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
         return getItemIdsByFilters(itemType, searchFilterCriteria);
     }
 
+    @Override
+    public String explain(SearchFilterCriteria searchFilterCriteria) throws ExportStagingException {
+        initialiseResources();
+        return itemApiImpl.getItemIdsQueryPlan(itemType, searchFilterCriteria).explain();
+    }
+
     @Override
     public Set<Long> getUpdatedItemIDs(String date, SearchFilterCriteria criteria) throws ExportStagingException {
-        return itemApiImpl.getUpdatedItemIDs(date, criteria);
+        return itemApiImpl.getUpdatedItemIDs(itemType, date, criteria);
     }
 
     @Override
     public Set<Long> getCreatedItemIDs(String date, SearchFilterCriteria criteria) throws ExportStagingException {
-        return itemApiImpl.getCreatedItemIDs(date, criteria);
+        return itemApiImpl.getCreatedItemIDs(itemType, date, criteria);
     }
 
     @Override
     public Set<Long> getUpdatedItemIDs(String date) throws ExportStagingException {
-        return itemApiImpl.getUpdatedItemIDs(date);
+        return itemApiImpl.getUpdatedItemIDs(itemType, date);
     }
 
     @Override
     public Set<Long> getCreatedItemIDs(String date) throws ExportStagingException {
-        return itemApiImpl.getCreatedItemIDs(date);
+        return itemApiImpl.getCreatedItemIDs(itemType, date);
     }
 
     private Attribute getAttributeByID(String itemType, long attributeID) throws ExportStagingException {
@@ -317,12 +351,12 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
         return itemApiImpl.getLanguagesShortName(itemType);
     }
 
-    public String getDefaultLanguage() {
-        return itemApiImpl.getDefaultShortName();
+    public String getDefaultLanguage() throws ExportStagingException {
+        return itemApiImpl.getDefaultShortName(itemType);
     }
 
-    public long getDefaultLanguageID() {
-        return itemApiImpl.getDefaultLanguageID();
+    public long getDefaultLanguageID() throws ExportStagingException {
+        return itemApiImpl.getDefaultLanguageID(itemType);
     }
 
     private List<Attribute> getAttribute(long ID, int depth, String itemType)
@@ -345,7 +379,7 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
         if (!checkItemType(ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_LANGUAGE)) {
             throw new ExportStagingException("Language table not configured");
         }
-        return itemApiImpl.getLanguageIDs();
+        return itemApiImpl.getLanguageIDs(itemType);
     }
 
     @Override
@@ -354,7 +388,7 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
         if (!checkItemType(ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_LANGUAGE)) {
             throw new ExportStagingException("Language table not configured");
         }
-        return itemApiImpl.getLanguageShortNames();
+        return itemApiImpl.getLanguageShortNames(itemType);
     }
 
     @Override
@@ -382,12 +416,19 @@ public class ExternalItemAPI implements ItemAPIs, RecordAPIs {
 
     @PreDestroy
     protected void finalize() {
-        if (context != null) {
+        if (context != null && factory == null) {
             context.close();
         }
     }
 
+    /**
+     * Closes the Spring context of the object. Objects of the {@link ExternalItemAPIFactory} share its context and are
+     * not closed, the factory closes the context.
+     */
     public void close() {
+        if (factory != null) {
+            return;
+        }
         if (context != null) {
             context.close();
         }
@@ -0,0 +1,107 @@
+package com.exportstaging.api;
+
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.api.implementation.ItemApiImpl;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ExternalItemAPIFactory creates the {@link ExternalItemAPI} objects of a process from one shared Spring context.
+ * <p>
+ * Every <i>new ExternalItemAPI(itemType)</i> creates its own context with its own Cassandra cluster and session. The
+ * ExternalItemAPI objects of the factory share one context, one session and the metadata cache for all item types
+ * and threads, so getting an ExternalItemAPI after the first one only validates the item type once and returns the
+ * same object on every further call.
+ * <pre>
+ * ExternalItemAPI itemAPI = ExternalItemAPIFactory.getInstance().getItemAPI(ExternalItemAPI.ITEM_TYPE_PRODUCT);
+ * ...
+ * ExternalItemAPIFactory.getInstance().close(); // on shutdown of the process
+ * </pre>
+ * The ExternalItemAPI objects of the factory are thread safe and must not be closed by the caller, calling
+ * {@link ExternalItemAPI#close()} on them has no effect. {@link #close()} closes the shared context; the
+ * ExternalItemAPI objects of a closed factory throw an IllegalStateException and {@link #getInstance()} creates a new
+ * factory. The context is also closed by a shutdown hook when the JVM exits.
+ */
+public final class ExternalItemAPIFactory {
+
+    private static ExternalItemAPIFactory instance = null;
+
+    private final ConfigurableApplicationContext context;
+    private final ItemApiImpl itemApiImpl;
+    private final Map<String, ExternalItemAPI> itemAPIs = new ConcurrentHashMap<>();
+
+    private ExternalItemAPIFactory() {
+        try {
+            context = new ClassPathXmlApplicationContext("spring/api.xml");
+        } catch (RuntimeException e) {
+            System.out.println("Make sure properties class path is properly configured in configuration.xml file");
+            throw e;
+        }
+        context.registerShutdownHook();
+        itemApiImpl = (ItemApiImpl) context.getBean("itemApiImpl");
+    }
+
+    /**
+     * Returns the factory of the process and creates it with the shared context on first use or after it was closed.
+     *
+     * @return ExternalItemAPIFactory of the process
+     */
+    public static synchronized ExternalItemAPIFactory getInstance() {
+        if (instance == null || !instance.isActive()) {
+            instance = new ExternalItemAPIFactory();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the ExternalItemAPI of an item type. The object is created on first use and shared by all callers.
+     *
+     * @param itemType Item type i.e Pdmarticle/Mamfile
+     * @return ExternalItemAPI of the item type
+     * @throws ExportStagingException If the item type is not supported
+     */
+    public ExternalItemAPI getItemAPI(String itemType) throws ExportStagingException {
+        checkActive();
+        ExternalItemAPI itemAPI = itemAPIs.get(itemType);
+        if (itemAPI == null) {
+            ExternalItemAPI newItemAPI = new ExternalItemAPI(itemType, this);
+            itemAPI = itemAPIs.putIfAbsent(itemType, newItemAPI);
+            if (itemAPI == null) {
+                itemAPI = newItemAPI;
+            }
+        }
+        return itemAPI;
+    }
+
+    public boolean isActive() {
+        return context.isActive();
+    }
+
+    /**
+     * Closes the shared context with the Cassandra session. The ExternalItemAPI objects of the factory can not be used
+     * afterwards.
+     */
+    public synchronized void close() {
+        itemAPIs.clear();
+        if (context.isActive()) {
+            context.close();
+        }
+    }
+
+    void checkActive() {
+        if (!isActive()) {
+            throw new IllegalStateException("ExternalItemAPIFactory is closed, get a new one with getInstance()");
+        }
+    }
+
+    ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    ItemApiImpl getItemApiImpl() {
+        return itemApiImpl;
+    }
+}
@@ -11,7 +11,9 @@ import com.exportstaging.api.implementation.WrapperImpl;
 import com.exportstaging.api.wraper.ItemWrapper;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import com.exportstaging.connectors.database.CassandraDAO;
+import com.exportstaging.connectors.database.CassandraPartitionReader;
 import com.exportstaging.connectors.database.DatabaseConnection;
+import com.exportstaging.connectors.database.MetadataVersions;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.collect.Lists;
 import org.springframework.beans.BeansException;
@@ -23,6 +25,7 @@ import org.springframework.context.ApplicationContextAware;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Repository("itemAPIDAOImpl")
 public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware {
@@ -31,6 +34,10 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
     private DatabaseConnection databaseConnection;
     @Autowired
     protected CassandraDAO cassandraDAO;
+    @Autowired
+    private CassandraPartitionReader cassandraPartitionReader;
+    @Autowired
+    private MetadataVersions metadataVersions;
 
     @JsonIgnore
     @Autowired
@@ -58,27 +65,29 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
     private String sSuffixSubtable;
     @Value("${cassandra.suffix.language}")
     private String sSuffixLanguage;
+    @Value("${cassandra.suffix.lookup}")
+    private String sSuffixLookup;
+    @Value("${cassandra.lookup.fields}")
+    private String lookupFields;
+    @Value("${cassandra.suffix.hierarchy}")
+    private String sSuffixHierarchy;
+    @Value("${cassandra.metadata.recheck.interval}")
+    private long metadataRecheckInterval;
 
-    private static final String ATTRIBUTE_TYPE_STANDARD = "1";
-    private static final String ATTRIBUTE_TYPE_REFERENCE = "2";
-    private static final String ATTRIBUTE_TYPE_SUBTABLE = "3";
-    private static final String ATTRIBUTE_TYPE_FOLDER = "0";
     private static final int READ_TIMEOUT_IN_MILISEC = 1800000;
+    private static final long INDEX_RECHECK_INTERVAL_IN_MILISEC = 60000;
 
     private ApplicationContext context = null;
-    public static Map<String, HashMap<Long, HashMap<String, String>>> attributeMetadata = new HashMap<>();
-    public static Map<String, HashMap<Long, List<Long>>> attributesParentChildMapping = new LinkedHashMap<>();
-    public static Map<String, HashMap<String, Long>> attributeExternalKey = new HashMap<>();
-    private static Map<String, HashMap<Long, Long>> attributeTypeID = new HashMap<>();
-    public static Map<String, Integer> languageIDMap = new HashMap<>();
-    private static Map<String, HashMap<String, List<Long>>> attributeTypeIdWithAttributeIdsMapping = new HashMap<>();
-    public String defaultShortName;
-    private long defaultLanguageID;
+    private static final Map<String, MetadataSnapshot> metadataSnapshots = new ConcurrentHashMap<>();
+    private static volatile Map<String, UUID> publishedMetadataVersions = Collections.emptyMap();
+    private static volatile long metadataVersionCheckTime = 0;
+    private static final Map<String, Long> failedMetadataBuildTimes = new ConcurrentHashMap<>();
 
     String ITEM_TYPE_PRODUCT = "Pdmarticle";
     String ITEM_TYPE_VIEW = "Pdmarticlestructure";
 
-    private Map<String, Map<String, String>> columnFamily = new HashMap<>();
+    private Map<String, Long> indexCheckTimes = new ConcurrentHashMap<>();
+    private Set<String> completeIndexTables = ConcurrentHashMap.newKeySet();
 
     public String getFormattedItemType(String itemType) {
         if (itemType.contains(itemTypeSuffix)) {
@@ -105,27 +114,123 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
     }
 
     public void init(String itemType) throws ExportStagingException {
-        setColumnFamily(itemType);
-        if (itemTypes.contains(itemType)) {
-            getAttributeMetadata(itemType);
-            setAttributeTypeID(itemType);
+        getMetadataSnapshot(itemType);
+        if (!itemType.equals(getFormattedItemType(itemType))) {
+            getMetadataSnapshot(getFormattedItemType(itemType));
         }
-        if (defaultShortName == null) {
-            populateLanguageIDMapAndSetDefaultShortName();
+    }
+
+    /**
+     * Returns the ID of the attribute with the external key from the snapshot the item type currently has, for the
+     * domain objects which have no reference to the DAO.
+     *
+     * @param itemType    item type
+     * @param externalKey external key of the attribute
+     * @return ID of the attribute, null if there is no attribute with the external key
+     */
+    public static Long getAttributeIDByExternalKey(String itemType, String externalKey) {
+        MetadataSnapshot snapshot = getAttributeSnapshot(itemType);
+        return snapshot == null ? null : snapshot.getAttributeID(externalKey);
+    }
+
+    private static MetadataSnapshot getAttributeSnapshot(String itemType) {
+        return itemType == null ? null : metadataSnapshots.get(itemType);
+    }
+
+    /**
+     * Returns the metadata of an item type. The snapshot is built on first use and built again once the subscriber
+     * published a new version of the configuration, mapping or languages, which is checked at most once per
+     * cassandra.metadata.recheck.interval. If the new snapshot cannot be built the previous one is kept and the next
+     * attempt is made after cassandra.metadata.recheck.interval.
+     *
+     * @param itemType item type
+     * @return MetadataSnapshot of the item type
+     * @throws ExportStagingException if there is no snapshot of the item type and it cannot be built
+     */
+    public MetadataSnapshot getMetadataSnapshot(String itemType) throws ExportStagingException {
+        MetadataSnapshot snapshot = metadataSnapshots.get(itemType);
+        if (snapshot != null && (!isMetadataChanged(snapshot) || isMetadataBuildFailed(itemType))) {
+            return snapshot;
         }
+        synchronized (metadataSnapshots) {
+            MetadataSnapshot currentSnapshot = metadataSnapshots.get(itemType);
+            if (currentSnapshot != null && currentSnapshot != snapshot) {
+                return currentSnapshot;
+            }
+            try {
+                snapshot = loadMetadataSnapshot(itemType);
+                metadataSnapshots.put(itemType, snapshot);
+                failedMetadataBuildTimes.remove(itemType);
+            } catch (ExportStagingException | RuntimeException e) {
+                if (currentSnapshot == null) {
+                    throw e;
+                }
+                failedMetadataBuildTimes.put(itemType, System.currentTimeMillis());
+                System.out.println("Exception occurred - getMetadataSnapshot() keeps the previous metadata of " +
+                        itemType + ": " + e.getMessage());
+                snapshot = currentSnapshot;
+            }
+        }
+        return snapshot;
     }
 
-    public List<String> getColumns(String itemType) throws ExportStagingException {
-        List<String> columnList = new ArrayList<>();
+    /**
+     * Snapshot of the item type for the language lookups, which fall back to the previous snapshot instead of failing.
+     *
+     * @throws ExportStagingException if no snapshot of the item type was built yet and it cannot be built
+     */
+    private MetadataSnapshot getLanguageSnapshot(String itemType) throws ExportStagingException {
         try {
-            columnList = cassandraDAO.getColumns(getTableName(itemType));
+            return getMetadataSnapshot(itemType);
         } catch (ExportStagingException e) {
+            System.out.println("Exception occurred - getLanguageSnapshot() " + e.getMessage());
+            MetadataSnapshot snapshot = metadataSnapshots.get(itemType);
+            if (snapshot == null) {
+                throw e;
+            }
+            return snapshot;
         }
-        return columnList;
     }
 
-    @JsonIgnore
-    private void populateLanguageIDMapAndSetDefaultShortName() throws ExportStagingException {
+    private boolean isMetadataBuildFailed(String itemType) {
+        Long failureTime = failedMetadataBuildTimes.get(itemType);
+        return failureTime != null && System.currentTimeMillis() - failureTime < metadataRecheckInterval;
+    }
+
+    private boolean isMetadataChanged(MetadataSnapshot snapshot) {
+        Map<String, UUID> versions = getPublishedMetadataVersions();
+        return !Objects.equals(versions.get(metadataVersions.getKey(snapshot.getItemType())), snapshot.getVersion())
+                || !Objects.equals(versions.get(metadataVersions.getKey(ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_LANGUAGE)),
+                snapshot.getLanguageVersion());
+    }
+
+    private Map<String, UUID> getPublishedMetadataVersions() {
+        long currentTime = System.currentTimeMillis();
+        if (currentTime - metadataVersionCheckTime >= metadataRecheckInterval) {
+            metadataVersionCheckTime = currentTime;
+            try {
+                publishedMetadataVersions = metadataVersions.getVersions();
+            } catch (ExportStagingException e) {
+                System.out.println("Exception occurred - getPublishedMetadataVersions() " + e.getMessage());
+            }
+        }
+        return publishedMetadataVersions;
+    }
+
+    /**
+     * Reads the metadata of an item type. The versions are read before the metadata, so a change published while the
+     * snapshot is built leads to another snapshot.
+     */
+    private MetadataSnapshot loadMetadataSnapshot(String itemType) throws ExportStagingException {
+        Map<String, UUID> versions = getPublishedMetadataVersions();
+        Map<String, String> columnTypes = getColumnTypes(itemType);
+        Map<Long, HashMap<String, String>> attributes = new LinkedHashMap<>();
+        Map<Long, List<Long>> classAttributeIDs = new HashMap<>();
+        if (itemTypes.contains(itemType)) {
+            attributes = getAttributeMetadata(itemType, columnTypes);
+            classAttributeIDs = getClassAttributeMapping(itemType);
+        }
+
         String selectQuery = "SELECT \"ShortName\",\"ID\",\"IsDefault\" FROM  " + databaseConnection.getKeyspace() + "." +
                 getTableName(sSuffixLanguage);
         ResultSet resultSet = databaseConnection.getSession().execute(selectQuery);
@@ -133,141 +238,115 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
         if (languageIds.isEmpty()) {
             throw new ExportStagingException("Message: export_language table is empty");
         }
+        Map<String, Integer> languageIDMap = new HashMap<>();
+        String defaultShortName = null;
+        long defaultLanguageID = 0;
         for (Row row : languageIds) {
             int langID = row.getInt("ID");
             String shortName = row.getString("ShortName");
             languageIDMap.put(shortName, langID);
             if (row.getInt("IsDefault") == 1) {
                 if (shortName != null && !shortName.equals("")) {
-                    setDefaultShortName(shortName);
-                    setDefaultLanguageID(langID);
+                    defaultShortName = shortName;
+                    defaultLanguageID = langID;
                 }
             }
         }
+        return new MetadataSnapshot(itemType, versions.get(metadataVersions.getKey(itemType)),
+                versions.get(metadataVersions.getKey(ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_LANGUAGE)), attributes,
+                languageIDMap, defaultShortName, defaultLanguageID, columnTypes, getColumns(itemType), classAttributeIDs);
     }
 
-    private void setDefaultLanguageID(int languageID) {
-        this.defaultLanguageID = languageID;
-    }
-
-    public long getDefaultLanguageID() {
-        return this.defaultLanguageID;
+    public List<String> getColumns(String itemType) throws ExportStagingException {
+        return cassandraDAO.getColumns(getTableName(itemType));
     }
 
-    public Map<Integer, String> getLanguageShortNames() {
-        return ExportMiscellaneousUtils.reverseMap(languageIDMap);
+    public long getDefaultLanguageID(String itemType) throws ExportStagingException {
+        return getLanguageSnapshot(itemType).getDefaultLanguageID();
     }
 
-    public Set<Integer> getLanguageIDs() {
-        return new HashSet<>(languageIDMap.values());
+    public Map<Integer, String> getLanguageShortNames(String itemType) throws ExportStagingException {
+        return new HashMap<>(getLanguageSnapshot(itemType).getLanguageShortNames());
     }
 
-    private void setAttributeTypeID(String itemType) {
-        String query;
-        ResultSet resultSet;
-        try {
-            query = "SELECT \"ID\",\"" + ExportMiscellaneousUtils.getExportDatabaseFieldTypeId() + "\" FROM " + databaseConnection.getKeyspace() + "." +
-                    getTableName(itemType, sSuffixConfiguration) + ";";
-            resultSet = this.databaseConnection.getSession().execute(query);
-            List<Row> resultRow = resultSet.all();
-            String itemTypeFormatted = getFormattedItemType(itemType);
-            for (Row aResultRow : resultRow) {
-                attributeTypeID.get(itemTypeFormatted).put(aResultRow.getLong("ID"), aResultRow.getLong(ExportMiscellaneousUtils.getExportDatabaseFieldTypeId()));
-            }
-        } catch (Exception e) {
-            System.out.println("Exception occurred : setAttributeTypeID() " + e.getMessage());
-        }
+    public Set<Integer> getLanguageIDs(String itemType) throws ExportStagingException {
+        return new HashSet<>(getLanguageSnapshot(itemType).getLanguageIDs().values());
     }
 
     public List<Long> getAttributeFolderIDs(String itemType) throws ExportStagingException {
-        return getSpecialAttributeIDs(itemType, ATTRIBUTE_TYPE_FOLDER);
+        return new ArrayList<>(getMetadataSnapshot(itemType).getFolderAttributeIDs());
     }
 
     public List<Long> getSubtableConfigurationIDs(String itemType) throws ExportStagingException {
-        return getSpecialAttributeIDs(itemType, ATTRIBUTE_TYPE_SUBTABLE);
+        return new ArrayList<>(getMetadataSnapshot(itemType).getSubtableAttributeIDs());
     }
 
     public List<Long> getReferenceConfigurationIDs(String itemType) throws ExportStagingException {
-        return getSpecialAttributeIDs(itemType, ATTRIBUTE_TYPE_REFERENCE);
+        return new ArrayList<>(getMetadataSnapshot(itemType).getReferenceAttributeIDs());
     }
 
-    private List<Long> getSpecialAttributeIDs(String itemType, String typeID) throws ExportStagingException {
-        List<Long> specialConfigurationList = new ArrayList<>();
-        String formattedItemType = getFormattedItemType(itemType);
-        try {
-            attributeTypeIdWithAttributeIdsMapping.putIfAbsent(formattedItemType, new HashMap<>());
-            if (attributeTypeIdWithAttributeIdsMapping.get(formattedItemType).get(typeID) == null) {
-
-                String selectQuery = "SELECT \"" + itemID + "\"" +
-                        " FROM  " + databaseConnection.getKeyspace() + "." + getTableName(itemType, sSuffixConfiguration) +
-                        " WHERE \"" + ExportMiscellaneousUtils.getExportDatabaseFieldModule() + "\" ='" + getFormattedItemType(itemType) +
-                        "' AND \"" + ExportMiscellaneousUtils.getExportDatabaseFieldTypeId() + "\" = " + typeID +
-                        " ALLOW FILTERING;";
-
-                ResultSet resultSet = databaseConnection.getSession().execute(selectQuery);
-                for (Row row : resultSet) {
-                    specialConfigurationList.add(row.getLong(itemID));
-                }
+    /**
+     * Returns the IDs of the attributes assigned to a class. The mapping table is read when the snapshot is built.
+     *
+     * @param classID  ID of the class, 0 for the attributes without class
+     * @param itemType item type
+     * @return read only List of attribute IDs
+     * @throws ExportStagingException if the metadata of the item type cannot be read
+     */
+    public List<Long> getClassAttributeIDs(long classID, String itemType) throws ExportStagingException {
+        return getMetadataSnapshot(itemType).getClassAttributeIDs(classID);
+    }
 
-                attributeTypeIdWithAttributeIdsMapping.get(formattedItemType).put(typeID, specialConfigurationList);
+    /**
+     * Reads the attribute IDs of all classes from the mapping table.
+     *
+     * @return attribute IDs per class ID in the order of the table
+     */
+    private Map<Long, List<Long>> getClassAttributeMapping(String itemType) throws ExportStagingException {
+        Map<Long, List<Long>> classAttributeIDs = new HashMap<>();
+        try {
+            String query = "SELECT \"ClassID\", \"AttributeID\" FROM " + databaseConnection.getKeyspace() + "."
+                    + getTableName(itemType, sSuffixMapping) + ";";
+            for (Row row : databaseConnection.getSession().execute(query)) {
+                long classID = ((Number) row.getObject("ClassID")).longValue();
+                classAttributeIDs.computeIfAbsent(classID, key -> new ArrayList<>()).add(row.getLong("AttributeID"));
             }
         } catch (Exception e) {
-            throw new ExportStagingException("Exception while fetching attributeIds for " + itemType + " with _TypeID " + typeID
-                    + "Exception message: " + e.getMessage());
+            System.out.println("Error ES1002 - Unable to get AttributeIDs from Cassandra " + e.getMessage());
+            throw new ExportStagingException(e);
         }
-        return new ArrayList<>(attributeTypeIdWithAttributeIdsMapping.get(formattedItemType).get(typeID));
+        return classAttributeIDs;
     }
 
-    private Map<String, HashMap<Long, HashMap<String, String>>> getAttributeMetadata(String itemType) {
-        String query;
-        ResultSet resultSet;
-        Map<String, String> attributeProperty = new HashMap<>();
+    private Map<Long, HashMap<String, String>> getAttributeMetadata(String itemType, Map<String, String> columnTypes)
+            throws ExportStagingException {
+        Map<Long, HashMap<String, String>> attributeMetadata = new LinkedHashMap<>();
         try {
-            query = "SELECT * FROM " + databaseConnection.getKeyspace() + "." + getTableName(itemType, sSuffixConfiguration) + ";";
-            resultSet = this.databaseConnection.getSession().execute(query);
-            List<Row> attIDItr1 = resultSet.all();
-            String formattedItemType = getFormattedItemType(itemType);
-
-            if (!attributeMetadata.containsKey(formattedItemType)) {
-                attributeMetadata.put(formattedItemType, new HashMap<>());
-                attributeExternalKey.put(formattedItemType, new HashMap<>());
-                attributeTypeID.put(formattedItemType, new HashMap<>());
-                attributesParentChildMapping.put(formattedItemType, new HashMap<>());
-            }
-
-            for (Row classAttribute : attIDItr1) {
-                long AttributeID = classAttribute.getLong(itemID);
-                attributeMetadata.get(formattedItemType).putIfAbsent(AttributeID, new HashMap<>());
+            String query = "SELECT * FROM " + databaseConnection.getKeyspace() + "." + getTableName(itemType, sSuffixConfiguration) + ";";
+            ResultSet resultSet = this.databaseConnection.getSession().execute(query);
+            for (Row classAttribute : resultSet) {
+                HashMap<String, String> attributeProperty = new HashMap<>();
                 ColumnDefinitions property = classAttribute.getColumnDefinitions();
                 int propertySize = property.size();
                 for (int i = 0; i < propertySize; i++) {
-                    String fieldValue = getFieldValueFromResultset(classAttribute, property.getName(i));
-                    attributeProperty.put(property.getName(i), fieldValue);
-                }
-                attributeMetadata.get(formattedItemType).get(AttributeID).putAll(attributeProperty);
-
-                String externalKey = classAttribute.getString("ExternalKey");
-                if (externalKey != null) {
-                    if (!(externalKey.isEmpty() || externalKey.equals(""))) {
-                        attributeExternalKey.get(formattedItemType).put(externalKey, AttributeID);
-                    }
-                }
-                long parentID = classAttribute.getLong("ParentID");
-                int isLink = classAttribute.getInt("IsLink");
-                if (isLink == 0) {
-                    attributesParentChildMapping.get(formattedItemType).putIfAbsent(AttributeID, new ArrayList<>());
-                    attributesParentChildMapping.get(formattedItemType).putIfAbsent(parentID, new ArrayList<>());
-                    attributesParentChildMapping.get(formattedItemType).get(parentID).add(AttributeID);
+                    String fieldName = property.getName(i);
+                    attributeProperty.put(fieldName, getFieldValue(classAttribute, fieldName, columnTypes.get(fieldName)));
                 }
+                attributeMetadata.put(classAttribute.getLong(itemID), attributeProperty);
             }
         } catch (Exception e) {
             System.out.println("Error ES1001 - Unable to create AttributeMetadata: " + e.getMessage());
+            throw new ExportStagingException(e);
         }
         return attributeMetadata;
     }
 
     @JsonIgnore
     public Set<Long> getItemChildrenById(long itemId, int level, String itemType) throws ExportStagingException {
+        Set<Long> descendants = getDescendantsFromHierarchy(itemId, level, itemType);
+        if (descendants != null) {
+            return descendants;
+        }
         int levelCount = 1;
         Set<Long> itemIds;
         Set<Long> immediateItemIds;
@@ -308,7 +387,11 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
 
     @JsonIgnore
     private Set<Long> getChild(long ID, String itemType) throws ExportStagingException {
-        Set<Long> children = new HashSet<>();
+        Set<Long> children = getItemIDsFromLookup(itemType, "ParentID", String.valueOf(ID), null);
+        if (children != null) {
+            return children;
+        }
+        children = new HashSet<>();
         String selectQuery;
         long itemId;
         try {
@@ -326,6 +409,124 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
         return children;
     }
 
+    /**
+     * Reads the IDs of the items with the value of a field from the lookup table of the item type, which is a single
+     * partition read instead of ALLOW FILTERING over all partitions of the item table.
+     *
+     * @param itemType   Item type i.e Pdmarticle/Mamfile/Pdmarticlestructure
+     * @param fieldName  Name of a field in cassandra.lookup.fields
+     * @param fieldValue Value of the field
+     * @param languageID ID of the language, null for all languages
+     * @return IDs of the items, null if the field has no lookup table containing the entries of all items
+     */
+    private Set<Long> getItemIDsFromLookup(String itemType, String fieldName, String fieldValue, Long languageID) {
+        if (!isLookupField(fieldName) || !hasCompleteLookupTable(itemType)) {
+            return null;
+        }
+        String selectQuery = "SELECT \"ID\" FROM " + databaseConnection.getKeyspace() + "." + getLookupTableName(itemType)
+                + " WHERE \"Field\" = '" + fieldName + "' AND \"Value\" = '" + fieldValue.replace("'", "''") + "'";
+        if (languageID != null) {
+            selectQuery += " AND \"LanguageID\" = " + languageID;
+        }
+        try {
+            Set<Long> itemIDSet = new HashSet<>();
+            Statement statement = new SimpleStatement(selectQuery).setReadTimeoutMillis(READ_TIMEOUT_IN_MILISEC)
+                    .setFetchSize(500);
+            for (Row row : databaseConnection.getSession().execute(statement)) {
+                itemIDSet.add(row.getLong(itemID));
+            }
+            return itemIDSet;
+        } catch (Exception e) {
+            System.out.println("Exception occurred - getItemIDsFromLookup() " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the descendants of an item from the hierarchy table of the item type, which holds all descendants of an
+     * item with their depth in the partition of the item.
+     *
+     * @param itemId   ID of the item
+     * @param level    maximum depth of the descendants, 0 for all descendants
+     * @param itemType Item type i.e Pdmarticle/Mamfile/Pdmarticlestructure
+     * @return IDs of the descendants, null if the item type has no hierarchy table containing all items
+     */
+    private Set<Long> getDescendantsFromHierarchy(long itemId, int level, String itemType) {
+        if (itemId <= 0 || !hasCompleteHierarchyTable(itemType)) {
+            return null;
+        }
+        String selectQuery = "SELECT \"ID\" FROM " + databaseConnection.getKeyspace() + "." + getHierarchyTableName(itemType)
+                + " WHERE \"NodeID\" = " + itemId + " AND \"Depth\" > 0";
+        if (level > 0) {
+            selectQuery += " AND \"Depth\" <= " + level;
+        }
+        try {
+            Set<Long> itemIDSet = new HashSet<>();
+            Statement statement = new SimpleStatement(selectQuery).setReadTimeoutMillis(READ_TIMEOUT_IN_MILISEC)
+                    .setFetchSize(5000);
+            for (Row row : databaseConnection.getSession().execute(statement)) {
+                itemIDSet.add(row.getLong(itemID));
+            }
+            return itemIDSet;
+        } catch (Exception e) {
+            System.out.println("Exception occurred - getDescendantsFromHierarchy() " + e.getMessage());
+            return null;
+        }
+    }
+
+    boolean isLookupField(String fieldName) {
+        return Arrays.asList(lookupFields.split("\\s*,\\s*")).contains(fieldName);
+    }
+
+    boolean hasCompleteLookupTable(String itemType) {
+        return itemTypes.contains(itemType)
+                && isIndexTableComplete(getLookupTableName(itemType), "\"Field\" = '_Lookup' AND \"Value\" = 'complete'");
+    }
+
+    boolean hasCompleteHierarchyTable(String itemType) {
+        return itemTypes.contains(itemType) && isIndexTableComplete(getHierarchyTableName(itemType), "\"NodeID\" = -1");
+    }
+
+    /**
+     * The lookup and hierarchy tables of a keyspace created by an older version are used once the backfill tool filled
+     * them and wrote their marker row. A missing table or marker is checked again after a minute.
+     *
+     * @param tableName    name of the lookup or hierarchy table
+     * @param markerFilter condition selecting the marker row
+     * @return true if the table contains the rows of all items
+     */
+    private boolean isIndexTableComplete(String tableName, String markerFilter) {
+        if (completeIndexTables.contains(tableName)) {
+            return true;
+        }
+        Long checkTime = indexCheckTimes.get(tableName);
+        if (checkTime != null && System.currentTimeMillis() - checkTime < INDEX_RECHECK_INTERVAL_IN_MILISEC) {
+            return false;
+        }
+        indexCheckTimes.put(tableName, System.currentTimeMillis());
+        try {
+            if (cassandraDAO.checkTable(tableName)) {
+                String selectQuery = "SELECT \"ID\" FROM " + databaseConnection.getKeyspace() + "." + tableName
+                        + " WHERE " + markerFilter;
+                if (databaseConnection.getSession().execute(selectQuery).one() != null) {
+                    completeIndexTables.add(tableName);
+                    return true;
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Exception occurred - isIndexTableComplete() " + e.getMessage());
+        }
+        return false;
+    }
+
+    String getLookupTableName(String itemType) {
+        return getTableName(itemType) + "_" + sSuffixLookup;
+    }
+
+    String getHierarchyTableName(String itemType) {
+        return getTableName(itemType) + "_" + sSuffixHierarchy;
+    }
+
     public Set<Long> getItemIDsFromDB(String itemType, String filter) throws ExportStagingException {
         try {
             Set<Long> itemIDSet = new HashSet<>();
@@ -334,15 +535,17 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
             List<String> itemIDsList = new ArrayList<String>(Arrays.asList(preparedIDs.split(",")));
             Collection<List<String>> batchItemIDsList = Lists.partition(itemIDsList, 1000);
             String selectQuery;
+            List<Statement> statements = new ArrayList<>();
             //TODO get IDs from elasticsearch instead of cassandra
             for (List batchItemIds : batchItemIDsList) {
                 selectQuery = "SELECT \"ID\" "
                         + " FROM " + databaseConnection.getKeyspace() + ".export_" + itemType
                         + " WHERE " + QueryFilter.replace("XXX", String.join(",", batchItemIds)) + " ALLOW FILTERING";
-                ResultSet resultSet = getResultSet(selectQuery);
-                for (Row row : resultSet) {
-                    itemIDSet.add(row.getLong(itemID));
-                }
+                statements.add(new SimpleStatement(selectQuery).setReadTimeoutMillis(READ_TIMEOUT_IN_MILISEC)
+                        .setFetchSize(500));
+            }
+            for (Row row : cassandraPartitionReader.read(statements)) {
+                itemIDSet.add(row.getLong(itemID));
             }
 
             return itemIDSet;
@@ -383,15 +586,16 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
         List<String> itemIDsList = new ArrayList<String>(Arrays.asList(preparedIDs.split(",")));
         Collection<List<String>> batchItemIDsList = Lists.partition(itemIDsList, 1000);
         try {
+            List<Statement> statements = new ArrayList<>();
             for (List batchItemIds : batchItemIDsList) {
                 selectViewQuery = "SELECT \"ID\" "
                         + " FROM " + databaseConnection.getKeyspace() + ".export_" + itemType + "_view_" + viewColumnName
                         + " WHERE " + QueryFilter.replace("XXX", String.join(",", batchItemIds));
-
-                ResultSet resultSet = getResultSet(selectViewQuery);
-                for (Row row : resultSet) {
-                    itemIDSet.add(row.getLong(itemID));
-                }
+                statements.add(new SimpleStatement(selectViewQuery).setReadTimeoutMillis(READ_TIMEOUT_IN_MILISEC)
+                        .setFetchSize(500));
+            }
+            for (Row row : cassandraPartitionReader.read(statements)) {
+                itemIDSet.add(row.getLong(itemID));
             }
         } catch (Exception e) {
             throw new ExportMaterializeViewException("[Export Exception]: while fetching data for " + viewColumnName + " from materialized view." + e.getMessage());
@@ -400,13 +604,10 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
     }
 
     @JsonIgnore
-    public int getLanguageID(String filterLanguageShortName) throws ExportStagingException {
-        if (languageIDMap != null) {
-            for (Map.Entry entry : languageIDMap.entrySet()) {
-                if (entry.getValue().equals(filterLanguageShortName)) {
-                    return (int) entry.getKey();
-                }
-            }
+    public int getLanguageID(String filterLanguageShortName, String itemType) throws ExportStagingException {
+        Integer snapshotLanguageID = getLanguageSnapshot(itemType).getLanguageIDs().get(filterLanguageShortName);
+        if (snapshotLanguageID != null) {
+            return snapshotLanguageID;
         }
         int defaultLanguage = 0;
         int languageID = 0;
@@ -446,39 +647,45 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
     }
 
     public Map<Long, HashMap<Long, Item>> setItemTableData(String itemIDs, String itemType, String filterLanguageID) throws ExportStagingException {
-        String selectQuery;
-        ResultSet resultSet;
+        // record types are read without a language filter
+        List<Long> languageIDs = filterLanguageID == null ? new ArrayList<>() : parseIDs(filterLanguageID);
+        return setItemTableData(parseIDs(itemIDs), itemType, languageIDs);
+    }
+
+    /**
+     * Reads the items in the languages with single partition requests of the {@link CassandraPartitionReader}.
+     * The languages are ignored for record types.
+     *
+     * @param itemIDs     List of item IDs
+     * @param itemType    item type
+     * @param languageIDs List of language IDs
+     * @return items per ID and language ID
+     * @throws ExportStagingException if the items cannot be read
+     */
+    public Map<Long, HashMap<Long, Item>> setItemTableData(List<Long> itemIDs, String itemType, List<Long> languageIDs)
+            throws ExportStagingException {
         Map<Long, HashMap<Long, Item>> itemsData = new HashMap<>();
         try {
-            List<String> itemIDsList = new ArrayList<String>(Arrays.asList(itemIDs.split(",")));
-            Collection<List<String>> batchItemIDsList = Lists.partition(itemIDsList, 1000);
-            Statement simpleStatement;
-            for (List batchItemIDs : batchItemIDsList) {
-                selectQuery = "SELECT * FROM  " + databaseConnection.getKeyspace() + "." + getTableName(itemType)
-                        + " WHERE " + " \"ID\"" + " IN (" + String.join(",", batchItemIDs) + ")";
-
-                if (itemTypes.contains(itemType)) {
-                    selectQuery += " AND \"LanguageID\" " + filterLanguageID;
-                }
-                selectQuery += ";";
-
-                simpleStatement = new SimpleStatement(selectQuery).setReadTimeoutMillis(READ_TIMEOUT_IN_MILISEC);
-                resultSet = databaseConnection.getSession().execute(simpleStatement);
-
-                for (Row row : resultSet) {
-                    long itemId = row.getLong("ID");
-                    long languageID = 0;
-                    if (getItemTypes().contains(itemType)) {
-                        languageID = row.getLong("LanguageID");
-                    } else {
-                        // TODO write it generic
-                        if (row.getLong("StateID") == 0) {
-                            languageID = getLanguageID(getDefaultShortName());
-                        }
+            MetadataSnapshot snapshot = getMetadataSnapshot(itemType);
+            List<Row> rows;
+            if (itemTypes.contains(itemType)) {
+                rows = cassandraPartitionReader.readItems(getTableName(itemType), itemIDs, languageIDs);
+            } else {
+                rows = cassandraPartitionReader.readRecords(getTableName(itemType), itemIDs);
+            }
+            for (Row row : rows) {
+                long itemId = row.getLong("ID");
+                long languageID = 0;
+                if (getItemTypes().contains(itemType)) {
+                    languageID = row.getLong("LanguageID");
+                } else {
+                    // TODO write it generic
+                    if (row.getLong("StateID") == 0) {
+                        languageID = snapshot.getDefaultLanguageID();
                     }
-                    itemsData.putIfAbsent(itemId, new HashMap<>());
-                    itemsData.get(itemId).put(languageID, itemApiImpl.setItemData(row, itemId, itemType));
                 }
+                itemsData.putIfAbsent(itemId, new HashMap<>());
+                itemsData.get(itemId).put(languageID, itemApiImpl.setItemData(row, itemId, itemType));
             }
         } catch (Exception e) {
             System.out.println("Exception occurred - setItemTableData() " + e.getMessage());
@@ -487,6 +694,16 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
         return itemsData;
     }
 
+    private List<Long> parseIDs(String ids) {
+        List<Long> idList = new ArrayList<>();
+        for (String id : ids.replaceAll("[^0-9,]", "").split(",")) {
+            if (!id.isEmpty()) {
+                idList.add(Long.parseLong(id));
+            }
+        }
+        return idList;
+    }
+
     public ItemWrapper prepareAndSetItemDataFromDB(String itemType, String fieldName, String fieldValue)
             throws ExportStagingException {
         ItemWrapper itemLanguageList;
@@ -499,6 +716,8 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
         String prepareConditions = "\"" + fieldName + "\"=";
         String allowFiltering = " ALLOW FILTERING";
         try {
+            MetadataSnapshot snapshot = getMetadataSnapshot(itemType);
+            Collection<Integer> languageIDs = snapshot.getLanguageIDs().values();
             if (itemTypes.contains(itemType) && !fieldName.equals(itemID)) {
                 prepareConditions = " \"ID\" = ";
                 itemIdSet = getItemIDs(itemType, fieldName, fieldValue);
@@ -510,6 +729,13 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
             } else if (recordTypes.contains(itemType) && !fieldName.equals(itemID) && !fieldName.equals("StateID")) {
                 itemId = "'" + itemId + "'";
             }
+            if (itemTypes.contains(itemType) && !languageIDs.isEmpty()) {
+                prepareConditions = " \"LanguageID\" IN (" + getCommaSeparatedIds(new ArrayList<>(languageIDs))
+                        + ") AND \"ID\" = ";
+                allowFiltering = "";
+            } else if (fieldName.equals(itemID)) {
+                allowFiltering = "";
+            }
             selectQuery = "SELECT * FROM  " + databaseConnection.getKeyspace() + "." + getTableName(itemType)
                     + " WHERE " + prepareConditions + itemId + allowFiltering + ";";
             Statement statement = new SimpleStatement(selectQuery).setReadTimeoutMillis(READ_TIMEOUT_IN_MILISEC);
@@ -529,8 +755,8 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
             }
 
             itemLanguageList = context.getBean("wrapperImpl", WrapperImpl.class);
-            itemLanguageList.setDefaultLanguageShortName(defaultShortName);
-            itemLanguageList.setDefaultLanguageID((int) getDefaultLanguageID());
+            itemLanguageList.setDefaultLanguageShortName(snapshot.getDefaultShortName());
+            itemLanguageList.setDefaultLanguageID((int) snapshot.getDefaultLanguageID());
             itemLanguageList.setItemType(itemType);
             itemLanguageList.setLanguagesItem(itemList);
             ((WrapperImpl) itemLanguageList).setLanguageIdsShortNamesMapping(languageIdAndShortName);
@@ -546,7 +772,13 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
     }
 
     private Set<Long> getItemIDs(String itemType, String fieldName, String fieldValue) throws ExportStagingException {
-        String filter = "\"LanguageID\" = " + getDefaultLanguageID() + " AND \"" + fieldName + "\" = " + prepareFieldValue(fieldName, fieldValue, itemType);
+        MetadataSnapshot snapshot = getMetadataSnapshot(itemType);
+        Set<Long> lookupItemIDs = getItemIDsFromLookup(itemType, fieldName, fieldValue, snapshot.getDefaultLanguageID());
+        if (lookupItemIDs != null) {
+            return lookupItemIDs;
+        }
+        String filter = "\"LanguageID\" = " + snapshot.getDefaultLanguageID() + " AND \"" + fieldName + "\" = " +
+                prepareFieldValue(fieldName, fieldValue, snapshot);
         Set<Long> itemIdSet;
         try {
             itemIdSet = getItemIdFromMaterializedView(itemType, fieldName, filter);
@@ -566,7 +798,7 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
         long stateID = 0;
         try {
             selectQuery = "SELECT \"StateID\" FROM  " + databaseConnection.getKeyspace() + "." + getTableName(itemType)
-                    + " WHERE \"ID\" =" + itemID + " ALLOW FILTERING;";
+                    + " WHERE \"ID\" =" + itemID + ";";
             ResultSet resultSet = databaseConnection.getSession().execute(selectQuery);
             for (Row row : resultSet) {
                 stateID = row.getLong("StateID");
@@ -723,34 +955,13 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
         return databaseConnection.getSession().execute(statement);
     }
 
-    public String getDefaultShortName() {
-        return defaultShortName;
-    }
-
-    private void setDefaultShortName(String defaultShortName) {
-        this.defaultShortName = defaultShortName;
+    public String getDefaultShortName(String itemType) throws ExportStagingException {
+        return getLanguageSnapshot(itemType).getDefaultShortName();
     }
 
     @JsonIgnore
     public List<String> getLanguagesShortName(String itemType) throws ExportStagingException {
-        List<String> languageShortNames = new ArrayList<>();
-        if (languageIDMap != null) {
-            for (Map.Entry<String, Integer> entry : languageIDMap.entrySet()) {
-                languageShortNames.add(entry.getKey());
-            }
-            return languageShortNames;
-        }
-        try {
-            String selectQuery = "SELECT \"ShortName\" FROM  " + databaseConnection.getKeyspace() + "." + getTableName(sSuffixLanguage);
-            ResultSet resultSet = databaseConnection.getSession().execute(selectQuery);
-            Iterator<Row> itr = resultSet.iterator();
-            while (itr.hasNext()) {
-                languageShortNames.add(resultSet.one().getString("ShortName"));
-            }
-        } catch (Exception e) {
-            System.out.println("Exception occurred - getLanguageID()" + e.getMessage());
-        }
-        return languageShortNames;
+        return new ArrayList<>(getMetadataSnapshot(itemType).getLanguageIDs().keySet());
     }
 
     @JsonIgnore
@@ -776,36 +987,26 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
      * Key pair value of column and its data type for Item (its subtable,reference,configuration - if present)
      *
      * @param itemType Module name (i.e Pdmarticle/Mamfile/Pdmarticlestructure)
+     * @return type per column name
+     * @throws ExportStagingException if the table metadata cannot be read
      */
-    private void setColumnFamily(String itemType) {
-        if (columnFamily.get(itemType) == null) {
-            try {
-                List<ColumnMetadata> itemColumns;
-                TableMetadata itemTableMetaData = databaseConnection.getCluster().getMetadata().getKeyspace(databaseConnection.getKeyspace()).getTable(getTableName(itemType));
-                if (itemTableMetaData != null) {
-                    columnFamily.put(itemType, getColumnNameType(itemTableMetaData));
-                }
-
-                TableMetadata subtableMetaData = databaseConnection.getCluster().getMetadata().getKeyspace(databaseConnection.getKeyspace()).getTable(getTableName(itemType, sSuffixSubtable));
-                if (subtableMetaData != null) {
-                    columnFamily.get(itemType).putAll(getColumnNameType(subtableMetaData));
-                }
-                TableMetadata referenceMetaData = databaseConnection.getCluster().getMetadata().getKeyspace(databaseConnection.getKeyspace()).getTable(getTableName(itemType, sSuffixReference));
-                if (referenceMetaData != null) {
-                    columnFamily.get(itemType).putAll(getColumnNameType(referenceMetaData));
-                }
-                TableMetadata configurationMetaData = databaseConnection.getCluster().getMetadata().getKeyspace(databaseConnection.getKeyspace()).getTable(getTableName(itemType, sSuffixConfiguration));
-                if (configurationMetaData != null) {
-                    columnFamily.get(itemType).putAll(getColumnNameType(configurationMetaData));
-                }
-                TableMetadata mappingMetaData = databaseConnection.getCluster().getMetadata().getKeyspace(databaseConnection.getKeyspace()).getTable(getTableName(itemType, sSuffixMapping));
-                if (mappingMetaData != null) {
-                    columnFamily.get(itemType).putAll(getColumnNameType(mappingMetaData));
+    private Map<String, String> getColumnTypes(String itemType) throws ExportStagingException {
+        Map<String, String> columnTypes = new HashMap<>();
+        try {
+            KeyspaceMetadata keyspaceMetadata = databaseConnection.getCluster().getMetadata().getKeyspace(databaseConnection.getKeyspace());
+            for (String tableName : Arrays.asList(getTableName(itemType), getTableName(itemType, sSuffixSubtable),
+                    getTableName(itemType, sSuffixReference), getTableName(itemType, sSuffixConfiguration),
+                    getTableName(itemType, sSuffixMapping))) {
+                TableMetadata tableMetaData = keyspaceMetadata.getTable(tableName);
+                if (tableMetaData != null) {
+                    columnTypes.putAll(getColumnNameType(tableMetaData));
                 }
-            } catch (Exception e) {
-                System.out.println("Export Staging Error in getColumnsWithType(): " + e.getMessage());
             }
+        } catch (Exception e) {
+            System.out.println("Export Staging Error in getColumnsWithType(): " + e.getMessage());
+            throw new ExportStagingException(e);
         }
+        return columnTypes;
     }
 
 
@@ -823,11 +1024,12 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
      *
      * @param fieldName  Name of column
      * @param fieldValue Value to be set in query
-     * @param itemType   Item Type
+     * @param snapshot   MetadataSnapshot of the item type
      * @return prepare value
      */
-    private String prepareFieldValue(String fieldName, String fieldValue, String itemType) {
-        if (columnFamily.get(itemType).get(fieldName).equals("text") || columnFamily.get(itemType).get(fieldName).equals("timestamp")) {
+    private String prepareFieldValue(String fieldName, String fieldValue, MetadataSnapshot snapshot) {
+        String columnType = snapshot.getColumnType(fieldName);
+        if (columnType.equals("text") || columnType.equals("timestamp")) {
             return "'" + fieldValue + "'";
         } else {
             return fieldValue;
@@ -835,15 +1037,22 @@ public class ItemAPIDAOImpl implements InitializingBean, ApplicationContextAware
     }
 
     /**
-     * Value from cassandra result set using field name.
+     * Value from cassandra result set using field name. The type of the column is taken from the row, so the value
+     * does not depend on the item type the shared {@link ItemApiImpl} was initialised with last.
      *
      * @param row       Cassandra Row
      * @param fieldName Column name
      * @return value from cassandra
      */
     public String getFieldValueFromResultset(Row row, String fieldName) {
+        ColumnDefinitions columnDefinitions = row.getColumnDefinitions();
+        return getFieldValue(row, fieldName,
+                columnDefinitions.contains(fieldName) ? columnDefinitions.getType(fieldName).toString() : null);
+    }
+
+    private String getFieldValue(Row row, String fieldName, String columnType) {
         try {
-            switch (columnFamily.get(itemApiImpl.getItemType()).get(fieldName)) {
+            switch (columnType) {
                 case ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_TEXT:
                     return row.getString(fieldName);
                 case ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_TIMESTAMP:
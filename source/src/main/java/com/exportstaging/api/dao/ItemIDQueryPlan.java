@@ -0,0 +1,230 @@
+package com.exportstaging.api.dao;
+
+import com.exportstaging.api.searchfilter.FilterPredicate;
+import com.exportstaging.api.searchfilter.FilterPredicate.Condition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plan of the {@link ItemIDQueryPlanner} for reading the IDs of the items matching a {@link FilterPredicate}.
+ * <p>
+ * The index accesses read the IDs matching single conditions from the lookup, hierarchy and materialized view tables;
+ * they run in parallel and their ID sets are intersected with the IDs of an ID condition. The final read reads the
+ * candidates by primary key, or scans the item table if there is no index access, and applies the remaining
+ * conditions: the server conditions in Cassandra, the client conditions on the rows read. Without final read the
+ * intersection of the index accesses is the result.
+ */
+public final class ItemIDQueryPlan {
+
+    public enum AccessPath {
+        /**
+         * Reads the candidates with single partition requests by ID.
+         */
+        PRIMARY_KEY,
+        /**
+         * Reads the partition of the field value in the lookup table.
+         */
+        LOOKUP,
+        /**
+         * Reads the descendants of a node from the partition of the node in the hierarchy table.
+         */
+        HIERARCHY,
+        /**
+         * Reads the language partition of the materialized view of the column.
+         */
+        MATERIALIZED_VIEW,
+        /**
+         * Reads the language partition of the item table.
+         */
+        PARTITION_SCAN,
+        /**
+         * Reads the record table with one request per token range of the cluster.
+         */
+        TOKEN_RANGE_SCAN
+    }
+
+    /**
+     * Access of a table on one path.
+     */
+    public static final class Access {
+        private final AccessPath path;
+        private final String tableName;
+        private final Condition condition;
+        private final long estimatedRows;
+        private final boolean languageExact;
+
+        Access(AccessPath path, String tableName, Condition condition, long estimatedRows, boolean languageExact) {
+            this.path = path;
+            this.tableName = tableName;
+            this.condition = condition;
+            this.estimatedRows = estimatedRows;
+            this.languageExact = languageExact;
+        }
+
+        public AccessPath getPath() {
+            return path;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        /**
+         * @return condition answered by the access, null for the final read
+         */
+        public Condition getCondition() {
+            return condition;
+        }
+
+        public long getEstimatedRows() {
+            return estimatedRows;
+        }
+
+        /**
+         * @return true if the IDs read are restricted to the language of the query
+         */
+        boolean isLanguageExact() {
+            return languageExact;
+        }
+    }
+
+    private final String itemType;
+    private final FilterPredicate predicate;
+    private final Long languageID;
+    private final Set<Long> itemIDs;
+    private final List<Access> indexAccesses;
+    private final Access finalRead;
+    private final List<Condition> serverConditions;
+    private final List<Condition> clientConditions;
+    private final long estimatedCost;
+
+    ItemIDQueryPlan(String itemType, FilterPredicate predicate, Long languageID, Set<Long> itemIDs,
+                    List<Access> indexAccesses, Access finalRead, List<Condition> serverConditions,
+                    List<Condition> clientConditions, long estimatedCost) {
+        this.itemType = itemType;
+        this.predicate = predicate;
+        this.languageID = languageID;
+        this.itemIDs = itemIDs == null ? null : Collections.unmodifiableSet(itemIDs);
+        this.indexAccesses = Collections.unmodifiableList(new ArrayList<>(indexAccesses));
+        this.finalRead = finalRead;
+        this.serverConditions = Collections.unmodifiableList(new ArrayList<>(serverConditions));
+        this.clientConditions = Collections.unmodifiableList(new ArrayList<>(clientConditions));
+        this.estimatedCost = estimatedCost;
+    }
+
+    public String getItemType() {
+        return itemType;
+    }
+
+    public FilterPredicate getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return language partition of the item table, null for record types
+     */
+    public Long getLanguageID() {
+        return languageID;
+    }
+
+    /**
+     * @return IDs of the ID condition, null if the filter has no ID condition
+     */
+    public Set<Long> getItemIDs() {
+        return itemIDs;
+    }
+
+    public List<Access> getIndexAccesses() {
+        return indexAccesses;
+    }
+
+    /**
+     * @return read of the item table, null if the intersection of the index accesses is the result
+     */
+    public Access getFinalRead() {
+        return finalRead;
+    }
+
+    public List<Condition> getServerConditions() {
+        return serverConditions;
+    }
+
+    public List<Condition> getClientConditions() {
+        return clientConditions;
+    }
+
+    /**
+     * @return estimated number of rows read by the plan
+     */
+    public long getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    /**
+     * Describes the plan, one line per step.
+     *
+     * @return the chosen access paths with their estimated rows and the estimated cost of the plan
+     */
+    public String explain() {
+        StringBuilder explain = new StringBuilder();
+        explain.append("Plan for ").append(itemType).append(": ").append(predicate.getCql()).append('\n');
+        explain.append("Estimated cost: ").append(estimatedCost).append(" rows").append('\n');
+        int idSets = indexAccesses.size() + (itemIDs == null ? 0 : 1);
+        if (idSets > 1) {
+            explain.append("  INTERSECT ").append(idSets).append(" ID sets read in parallel").append('\n');
+        }
+        if (itemIDs != null) {
+            appendStep(explain, "ID_LIST", "-", itemIDs.size() + " IDs of the filter", itemIDs.size());
+        }
+        for (Access access : indexAccesses) {
+            appendStep(explain, access.getPath().name(), access.getTableName(), access.getCondition().getCql(),
+                    access.getEstimatedRows());
+        }
+        if (finalRead != null) {
+            String restriction;
+            if (finalRead.getPath() == AccessPath.PRIMARY_KEY) {
+                restriction = "\"ID\" IN (candidates)";
+            } else if (finalRead.getPath() == AccessPath.PARTITION_SCAN) {
+                restriction = "all items";
+            } else {
+                restriction = "all token ranges";
+            }
+            if (languageID != null) {
+                restriction = "\"LanguageID\" = " + languageID + ", " + restriction;
+            }
+            appendStep(explain, finalRead.getPath().name(), finalRead.getTableName(), restriction,
+                    finalRead.getEstimatedRows());
+            appendConditions(explain, "server filter", serverConditions);
+            appendConditions(explain, "client filter", clientConditions);
+        }
+        return explain.toString();
+    }
+
+    private void appendStep(StringBuilder explain, String path, String tableName, String condition, long rows) {
+        explain.append(String.format("  %-18s %-36s %s (estimated rows %d)", path, tableName, condition, rows))
+                .append('\n');
+    }
+
+    private void appendConditions(StringBuilder explain, String label, List<Condition> conditions) {
+        if (!conditions.isEmpty()) {
+            explain.append("    ").append(label).append(": ").append(String.join(" AND ", getCql(conditions)))
+                    .append('\n');
+        }
+    }
+
+    private static List<String> getCql(List<Condition> conditions) {
+        List<String> cql = new ArrayList<>();
+        for (Condition condition : conditions) {
+            cql.add(condition.getCql());
+        }
+        return cql;
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
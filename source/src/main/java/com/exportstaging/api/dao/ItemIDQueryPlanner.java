@@ -0,0 +1,456 @@
+package com.exportstaging.api.dao;
+
+import com.datastax.driver.core.IndexMetadata;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.TableMetadata;
+import com.datastax.driver.core.TokenRange;
+import com.exportstaging.api.dao.ItemIDQueryPlan.Access;
+import com.exportstaging.api.dao.ItemIDQueryPlan.AccessPath;
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.api.searchfilter.FilterPredicate;
+import com.exportstaging.api.searchfilter.FilterPredicate.Condition;
+import com.exportstaging.api.searchfilter.SearchFilterCriteria;
+import com.exportstaging.common.ExportMiscellaneousUtils;
+import com.exportstaging.connectors.database.CassandraConnection;
+import com.exportstaging.connectors.database.CassandraPartitionReader;
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plans and executes the queries of the read API for the IDs of the items matching a {@link SearchFilterCriteria}.
+ * <p>
+ * The criteria are compiled into a {@link FilterPredicate}. For every condition the planner looks for an index access:
+ * the lookup table for equality on a field of cassandra.lookup.fields, the hierarchy table for a _Parents filter and
+ * the materialized view of the column for equality and ranges. It then compares the plans using the cheapest index
+ * accesses, whose ID sets are read in parallel and intersected, followed by a read of the candidates by primary key
+ * if conditions remain, with a scan of the table, and executes the cheapest one. The item tables are scanned in the
+ * partition of the language, the record tables with one request per token range. Conditions which Cassandra cannot
+ * evaluate, LIKE on a column without SASI index or in a read by primary key, are evaluated on the rows read, as is
+ * the _Parents filter answered by the hierarchy table.
+ * <p>
+ * There are no statistics of the tables, so the costs are the estimated numbers of rows read given by the constants
+ * below. {@link ItemIDQueryPlan#explain()} shows the chosen plan with its estimates.
+ */
+@Component("itemIDQueryPlanner")
+public class ItemIDQueryPlanner {
+    @Autowired
+    private ItemAPIDAOImpl itemAPIDAOImpl;
+    @Autowired
+    private CassandraConnection cassandraConnection;
+    @Autowired
+    private CassandraPartitionReader cassandraPartitionReader;
+
+    @Value("${cassandra.reader.chunksize}")
+    private int chunkSize;
+
+    private static final long LOOKUP_ROWS_PER_VALUE = 10;
+    private static final long HIERARCHY_ROWS = 100;
+    private static final long VIEW_ROWS_PER_VALUE = 20;
+    private static final long VIEW_RANGE_ROWS = 5000;
+    private static final long SCAN_ROWS = 100000;
+    private static final long PRIMARY_KEY_COST_PER_ROW = 2;
+    private static final int FETCH_SIZE = 500;
+
+    private static final String COLUMN_ID = "ID";
+    private static final String COLUMN_LANGUAGE_ID = "LanguageID";
+    private static final String COLUMN_PARENTS = "_Parents";
+    private static final Pattern PARENTS_PATTERN = Pattern.compile("^% (\\d+) %$");
+
+    /**
+     * Plans the query of the criteria without executing it.
+     *
+     * @param itemType Item type i.e Pdmarticle/Mamfile/User
+     * @param criteria filters of the query, with the language filter of item types already set
+     * @return cheapest plan
+     * @throws ExportStagingException if the metadata of the cluster cannot be read
+     */
+    public ItemIDQueryPlan plan(String itemType, SearchFilterCriteria criteria) throws ExportStagingException {
+        return plan(itemType, criteria.getPredicate(), true);
+    }
+
+    /**
+     * Plans and executes the query of the criteria. If an index access fails, the query is executed again with a scan.
+     *
+     * @param itemType Item type i.e Pdmarticle/Mamfile/User
+     * @param criteria filters of the query, with the language filter of item types already set
+     * @return IDs of the matching items
+     * @throws ExportStagingException if the IDs cannot be read
+     */
+    public Set<Long> getItemIDs(String itemType, SearchFilterCriteria criteria) throws ExportStagingException {
+        FilterPredicate.And predicate = criteria.getPredicate();
+        ItemIDQueryPlan plan = plan(itemType, predicate, true);
+        try {
+            return execute(plan);
+        } catch (ExportStagingException e) {
+            if (plan.getIndexAccesses().isEmpty()) {
+                throw e;
+            }
+            System.out.println("Exception occurred - getItemIDs() index access failed, scanning " + itemType + ": "
+                    + e.getMessage());
+            return execute(plan(itemType, predicate, false));
+        }
+    }
+
+    private ItemIDQueryPlan plan(String itemType, FilterPredicate.And predicate, boolean useIndexes)
+            throws ExportStagingException {
+        boolean itemTable = itemAPIDAOImpl.getItemTypes().contains(itemType);
+        String tableName = itemAPIDAOImpl.getTableName(itemType);
+        KeyspaceMetadata keyspace = cassandraConnection.getCluster().getMetadata()
+                .getKeyspace(cassandraConnection.getKeyspace());
+        TableMetadata table = keyspace == null ? null : keyspace.getTable(tableName);
+
+        Long languageID = null;
+        List<Condition> conditions = new ArrayList<>(predicate.getConditions());
+        if (itemTable) {
+            for (Condition condition : conditions) {
+                if (COLUMN_LANGUAGE_ID.equals(condition.getColumn()) && "=".equals(condition.getOperator())) {
+                    languageID = Long.parseLong(condition.getValues().get(0));
+                    conditions.remove(condition);
+                    break;
+                }
+            }
+        }
+        // the item tables can only be read by primary key in the partition of a language
+        boolean byPrimaryKey = !itemTable || languageID != null;
+        Set<Long> itemIDs = null;
+        List<Access> candidateAccesses = new ArrayList<>();
+        List<Condition> remainingConditions = new ArrayList<>();
+        for (Condition condition : conditions) {
+            if (byPrimaryKey && COLUMN_ID.equals(condition.getColumn()) && condition.isEquality()) {
+                itemIDs = intersect(itemIDs, parseIDs(condition.getValues()));
+                continue;
+            }
+            Access access = null;
+            if (useIndexes && byPrimaryKey) {
+                access = getIndexAccess(itemType, itemTable, tableName, keyspace, languageID, condition);
+            }
+            if (access != null) {
+                candidateAccesses.add(access);
+            } else {
+                remainingConditions.add(condition);
+            }
+        }
+        candidateAccesses.sort(Comparator.comparingLong(Access::getEstimatedRows));
+
+        ItemIDQueryPlan cheapestPlan = null;
+        if (itemIDs == null) {
+            cheapestPlan = getScanPlan(itemType, predicate, languageID, tableName, table, conditions);
+        }
+        for (int accessCount = itemIDs == null ? 1 : 0; accessCount <= candidateAccesses.size(); accessCount++) {
+            List<Condition> residualConditions = new ArrayList<>(remainingConditions);
+            for (Access access : candidateAccesses.subList(accessCount, candidateAccesses.size())) {
+                residualConditions.add(access.getCondition());
+            }
+            ItemIDQueryPlan plan = getIndexPlan(itemType, predicate, languageID, tableName, table, itemIDs,
+                    candidateAccesses.subList(0, accessCount), residualConditions);
+            if (cheapestPlan == null || plan.getEstimatedCost() < cheapestPlan.getEstimatedCost()) {
+                cheapestPlan = plan;
+            }
+        }
+        return cheapestPlan;
+    }
+
+    private ItemIDQueryPlan getScanPlan(String itemType, FilterPredicate predicate, Long languageID, String tableName,
+                                        TableMetadata table, List<Condition> conditions) {
+        List<Condition> serverConditions = new ArrayList<>();
+        List<Condition> clientConditions = new ArrayList<>();
+        splitConditions(table, false, conditions, serverConditions, clientConditions);
+        AccessPath path = languageID != null ? AccessPath.PARTITION_SCAN : AccessPath.TOKEN_RANGE_SCAN;
+        Access scan = new Access(path, tableName, null, SCAN_ROWS, true);
+        return new ItemIDQueryPlan(itemType, predicate, languageID, null, Collections.<Access>emptyList(), scan,
+                serverConditions, clientConditions, SCAN_ROWS);
+    }
+
+    private ItemIDQueryPlan getIndexPlan(String itemType, FilterPredicate predicate, Long languageID, String tableName,
+                                         TableMetadata table, Set<Long> itemIDs,
+                                         List<Access> indexAccesses, List<Condition> residualConditions) {
+        long cost = 0;
+        long candidates = itemIDs == null ? Long.MAX_VALUE : itemIDs.size();
+        boolean readCandidates = itemIDs != null || !residualConditions.isEmpty();
+        for (Access access : indexAccesses) {
+            cost += access.getEstimatedRows();
+            candidates = Math.min(candidates, access.getEstimatedRows());
+            readCandidates |= !access.isLanguageExact();
+        }
+        Access finalRead = null;
+        List<Condition> serverConditions = new ArrayList<>();
+        List<Condition> clientConditions = new ArrayList<>();
+        if (readCandidates) {
+            splitConditions(table, true, residualConditions, serverConditions, clientConditions);
+            for (Access access : indexAccesses) {
+                // the hierarchy table is written after the item, so its IDs are checked against _Parents of the row
+                if (access.getPath() == AccessPath.HIERARCHY) {
+                    clientConditions.add(access.getCondition());
+                }
+            }
+            finalRead = new Access(AccessPath.PRIMARY_KEY, tableName, null, candidates, true);
+            cost += candidates * PRIMARY_KEY_COST_PER_ROW;
+        }
+        return new ItemIDQueryPlan(itemType, predicate, languageID, itemIDs, indexAccesses, finalRead,
+                serverConditions, clientConditions, cost);
+    }
+
+    /**
+     * Returns the cheapest index access answering the condition.
+     *
+     * @return access, null if there is no index for the condition
+     */
+    private Access getIndexAccess(String itemType, boolean itemTable, String tableName, KeyspaceMetadata keyspace,
+                                  Long languageID, Condition condition) {
+        if (!itemTable || condition.isRaw()) {
+            return null;
+        }
+        String column = condition.getColumn();
+        if (condition.isEquality() && itemAPIDAOImpl.isLookupField(column)
+                && itemAPIDAOImpl.hasCompleteLookupTable(itemType)) {
+            return new Access(AccessPath.LOOKUP, itemAPIDAOImpl.getLookupTableName(itemType), condition,
+                    LOOKUP_ROWS_PER_VALUE * condition.getLiterals().size(), languageID != null);
+        }
+        if (COLUMN_PARENTS.equals(column) && "LIKE".equals(condition.getOperator())
+                && PARENTS_PATTERN.matcher(condition.getValues().get(0)).matches()
+                && itemAPIDAOImpl.hasCompleteHierarchyTable(itemType)) {
+            return new Access(AccessPath.HIERARCHY, itemAPIDAOImpl.getHierarchyTableName(itemType), condition,
+                    HIERARCHY_ROWS, false);
+        }
+        String viewName = getViewName(tableName, column);
+        if (languageID != null && (condition.isEquality() || condition.isRange()) && keyspace != null
+                && keyspace.getMaterializedView(viewName) != null) {
+            long rows = condition.isRange() ? VIEW_RANGE_ROWS : VIEW_ROWS_PER_VALUE * condition.getLiterals().size();
+            return new Access(AccessPath.MATERIALIZED_VIEW, viewName, condition, rows, true);
+        }
+        return null;
+    }
+
+    /**
+     * LIKE needs a SASI index in Cassandra, so LIKE on a column without index is evaluated on the client. An index
+     * cannot be used together with the IN restriction on the IDs of a read by primary key, so LIKE is always evaluated
+     * on the client there.
+     */
+    private void splitConditions(TableMetadata table, boolean primaryKeyRead, List<Condition> conditions,
+                                 List<Condition> serverConditions, List<Condition> clientConditions) {
+        for (Condition condition : conditions) {
+            if ("LIKE".equals(condition.getOperator())
+                    && (primaryKeyRead || table != null && !isIndexed(table, condition.getColumn()))) {
+                clientConditions.add(condition);
+            } else {
+                serverConditions.add(condition);
+            }
+        }
+    }
+
+    private boolean isIndexed(TableMetadata table, String column) {
+        for (IndexMetadata index : table.getIndexes()) {
+            if (column.equals(index.getTarget().replace("\"", ""))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Executes a plan. The statements of the index accesses are executed together, so the accesses run in parallel.
+     *
+     * @param plan plan of the query
+     * @return IDs of the matching items
+     * @throws ExportStagingException if one of the requests failed
+     */
+    public Set<Long> execute(ItemIDQueryPlan plan) throws ExportStagingException {
+        List<Set<Long>> idSets = new ArrayList<>();
+        if (plan.getItemIDs() != null) {
+            idSets.add(plan.getItemIDs());
+        }
+        if (!plan.getIndexAccesses().isEmpty()) {
+            List<List<Statement>> statements = new ArrayList<>();
+            for (Access access : plan.getIndexAccesses()) {
+                statements.add(getIndexStatements(plan, access));
+            }
+            for (List<Row> rows : cassandraPartitionReader.readGroups(statements)) {
+                Set<Long> ids = new HashSet<>();
+                for (Row row : rows) {
+                    ids.add(row.getLong(COLUMN_ID));
+                }
+                idSets.add(ids);
+            }
+        }
+        Set<Long> candidates = idSets.isEmpty() ? null : intersect(idSets);
+        Access finalRead = plan.getFinalRead();
+        if (finalRead == null || (candidates != null && candidates.isEmpty())) {
+            return candidates == null ? new HashSet<Long>() : candidates;
+        }
+        List<Statement> statements;
+        if (finalRead.getPath() == AccessPath.PRIMARY_KEY) {
+            statements = getPrimaryKeyStatements(plan, new ArrayList<>(candidates));
+        } else if (finalRead.getPath() == AccessPath.PARTITION_SCAN) {
+            statements = Collections.singletonList(getStatement(plan, "\"LanguageID\" = " + plan.getLanguageID()));
+        } else {
+            statements = getTokenRangeStatements(plan);
+        }
+        Set<Long> itemIDs = new HashSet<>();
+        for (Row row : cassandraPartitionReader.read(statements)) {
+            if (matches(plan.getClientConditions(), row)) {
+                itemIDs.add(row.getLong(COLUMN_ID));
+            }
+        }
+        return itemIDs;
+    }
+
+    private List<Statement> getIndexStatements(ItemIDQueryPlan plan, Access access) throws ExportStagingException {
+        String table = cassandraConnection.getKeyspace() + "." + access.getTableName();
+        Condition condition = access.getCondition();
+        List<Statement> statements = new ArrayList<>();
+        switch (access.getPath()) {
+            case LOOKUP:
+                for (String value : condition.getValues()) {
+                    String query = "SELECT \"ID\" FROM " + table + " WHERE \"Field\" = '" + condition.getColumn()
+                            + "' AND \"Value\" = '" + value.replace("'", "''") + "'";
+                    if (plan.getLanguageID() != null) {
+                        query += " AND \"LanguageID\" = " + plan.getLanguageID();
+                    }
+                    statements.add(newStatement(query));
+                }
+                break;
+            case HIERARCHY:
+                Matcher matcher = PARENTS_PATTERN.matcher(condition.getValues().get(0));
+                matcher.matches();
+                statements.add(newStatement("SELECT \"ID\" FROM " + table + " WHERE \"NodeID\" = " + matcher.group(1)
+                        + " AND \"Depth\" > 0"));
+                break;
+            default:
+                statements.add(newStatement("SELECT \"ID\" FROM " + table + " WHERE \"LanguageID\" = "
+                        + plan.getLanguageID() + " AND " + condition.getCql()));
+        }
+        return statements;
+    }
+
+    private List<Statement> getPrimaryKeyStatements(ItemIDQueryPlan plan, List<Long> candidates)
+            throws ExportStagingException {
+        List<Statement> statements = new ArrayList<>();
+        if (plan.getLanguageID() != null) {
+            for (List<Long> chunk : Lists.partition(candidates, Math.max(chunkSize, 1))) {
+                statements.add(getStatement(plan, "\"LanguageID\" = " + plan.getLanguageID() + " AND \"ID\" IN ("
+                        + StringUtils.join(chunk, ',') + ")"));
+            }
+        } else {
+            for (Long candidate : candidates) {
+                statements.add(getStatement(plan, "\"ID\" = " + candidate));
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * One request per token range of the ring, so the scan is spread over the replicas of the ranges instead of one
+     * coordinator reading all partitions.
+     */
+    private List<Statement> getTokenRangeStatements(ItemIDQueryPlan plan) throws ExportStagingException {
+        Metadata metadata = cassandraConnection.getCluster().getMetadata();
+        String tokenColumn = "\"" + getPartitionKey(metadata, plan.getFinalRead().getTableName()) + "\"";
+        List<Statement> statements = new ArrayList<>();
+        for (TokenRange tokenRange : metadata.getTokenRanges()) {
+            for (TokenRange range : tokenRange.unwrap()) {
+                String restriction = "token(" + tokenColumn + ") > " + range.getStart().getValue();
+                if (range.getStart().compareTo(range.getEnd()) < 0) {
+                    restriction += " AND token(" + tokenColumn + ") <= " + range.getEnd().getValue();
+                }
+                statements.add(getStatement(plan, restriction));
+            }
+        }
+        return statements;
+    }
+
+    private String getPartitionKey(Metadata metadata, String tableName) throws ExportStagingException {
+        KeyspaceMetadata keyspace = metadata.getKeyspace(cassandraConnection.getKeyspace());
+        TableMetadata table = keyspace == null ? null : keyspace.getTable(tableName);
+        return table == null ? COLUMN_ID : table.getPartitionKey().get(0).getName();
+    }
+
+    private Statement getStatement(ItemIDQueryPlan plan, String restriction) throws ExportStagingException {
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("\"ID\"");
+        for (Condition condition : plan.getClientConditions()) {
+            columns.add("\"" + condition.getColumn() + "\"");
+        }
+        StringBuilder query = new StringBuilder("SELECT ").append(String.join(",", columns)).append(" FROM ")
+                .append(cassandraConnection.getKeyspace()).append(".").append(plan.getFinalRead().getTableName())
+                .append(" WHERE ").append(restriction);
+        for (Condition condition : plan.getServerConditions()) {
+            query.append(" AND ").append(condition.getCql());
+        }
+        if (!plan.getServerConditions().isEmpty()) {
+            query.append(" ALLOW FILTERING");
+        }
+        return newStatement(query.toString());
+    }
+
+    private Statement newStatement(String query) {
+        return new SimpleStatement(query).setReadTimeoutMillis(ExportMiscellaneousUtils.CONST_READ_TIMEOUT_IN_MILISEC)
+                .setFetchSize(FETCH_SIZE);
+    }
+
+    private boolean matches(List<Condition> conditions, Row row) {
+        for (Condition condition : conditions) {
+            if (!condition.matches(row.getObject(condition.getColumn()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getViewName(String tableName, String column) {
+        return (tableName + "_view_" + column.replace(":", "_")).toLowerCase();
+    }
+
+    private static Set<Long> parseIDs(List<String> values) {
+        Set<Long> ids = new HashSet<>();
+        for (String value : values) {
+            ids.add(Long.parseLong(value.trim()));
+        }
+        return ids;
+    }
+
+    private static Set<Long> intersect(Set<Long> ids, Set<Long> otherIds) {
+        return ids == null ? otherIds : intersect(Lists.newArrayList(ids, otherIds));
+    }
+
+    /**
+     * Intersects the sets starting with the smallest one, so only its IDs are looked up in the other sets.
+     *
+     * @param idSets at least one set of IDs
+     * @return IDs contained in all sets
+     */
+    public static Set<Long> intersect(List<Set<Long>> idSets) {
+        List<Set<Long>> sortedSets = new ArrayList<>(idSets);
+        sortedSets.sort(Comparator.comparingInt(Set::size));
+        Set<Long> intersection = new HashSet<>();
+        for (Long id : sortedSets.get(0)) {
+            boolean inAllSets = true;
+            for (Set<Long> ids : sortedSets.subList(1, sortedSets.size())) {
+                if (!ids.contains(id)) {
+                    inAllSets = false;
+                    break;
+                }
+            }
+            if (inAllSets) {
+                intersection.add(id);
+            }
+        }
+        return intersection;
+    }
+}
@@ -0,0 +1,253 @@
+package com.exportstaging.api.dao;
+
+import com.exportstaging.common.ExportMiscellaneousUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Metadata of an item type as read by the {@link ItemAPIDAOImpl}: the attributes with their external keys and type
+ * IDs, the attribute trees, the languages and the column types and fields of the tables.
+ * <p>
+ * A snapshot is never changed after it is built. When the metadata versions published by the subscriber change, the
+ * {@link ItemAPIDAOImpl} builds a new snapshot and replaces the old one, so a reader either sees the old or the new
+ * metadata but never a mixture of both.
+ */
+public final class MetadataSnapshot {
+
+    private static final String ATTRIBUTE_TYPE_REFERENCE = "2";
+    private static final String ATTRIBUTE_TYPE_SUBTABLE = "3";
+    private static final String ATTRIBUTE_TYPE_FOLDER = "0";
+
+    private final String itemType;
+    private final UUID version;
+    private final UUID languageVersion;
+    private final Map<Long, HashMap<String, String>> attributes;
+    private final Map<String, Long> attributeExternalKeys = new HashMap<>();
+    private final Map<Long, List<Long>> attributeChildren = new LinkedHashMap<>();
+    private final Map<String, List<Long>> attributeIDsByType = new HashMap<>();
+    private final List<Long> specialAttributeIDs = new ArrayList<>();
+    private final Map<String, Integer> languageIDs;
+    private final Map<Integer, String> languageShortNames;
+    private final String defaultShortName;
+    private final long defaultLanguageID;
+    private final Map<String, String> columnTypes;
+    private final List<String> allFields = new ArrayList<>();
+    private final List<String> standardFields = new ArrayList<>();
+    private final List<Long> customFields = new ArrayList<>();
+    private final List<Long> pluginFields = new ArrayList<>();
+    private final Map<Long, List<Long>> classAttributeIDs = new HashMap<>();
+
+    /**
+     * @param itemType          item type the snapshot was built for
+     * @param version           published version of the configuration and mapping, null if none was published
+     * @param languageVersion   published version of the languages, null if none was published
+     * @param attributes        rows of the configuration table per attribute ID in the order of the table, with the
+     *                          values as strings
+     * @param languageIDs       language ID per short name
+     * @param defaultShortName  short name of the default language
+     * @param defaultLanguageID ID of the default language
+     * @param columnTypes       type per column of the item, subtable, reference, configuration and mapping table
+     * @param itemColumns       columns of the item table
+     * @param classAttributeIDs attribute IDs per class ID of the mapping table
+     */
+    MetadataSnapshot(String itemType, UUID version, UUID languageVersion, Map<Long, HashMap<String, String>> attributes,
+                     Map<String, Integer> languageIDs, String defaultShortName, long defaultLanguageID,
+                     Map<String, String> columnTypes, List<String> itemColumns,
+                     Map<Long, List<Long>> classAttributeIDs) {
+        this.itemType = itemType;
+        this.version = version;
+        this.languageVersion = languageVersion;
+        this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+        this.languageIDs = Collections.unmodifiableMap(new HashMap<>(languageIDs));
+        this.languageShortNames = Collections.unmodifiableMap(ExportMiscellaneousUtils.reverseMap(languageIDs));
+        this.defaultShortName = defaultShortName;
+        this.defaultLanguageID = defaultLanguageID;
+        this.columnTypes = Collections.unmodifiableMap(new HashMap<>(columnTypes));
+        buildAttributeTrees();
+        buildFieldLists(itemColumns);
+        for (Map.Entry<Long, List<Long>> attributeIDs : classAttributeIDs.entrySet()) {
+            this.classAttributeIDs.put(attributeIDs.getKey(),
+                    Collections.unmodifiableList(new ArrayList<>(attributeIDs.getValue())));
+        }
+    }
+
+    /**
+     * Indexes the attributes by external key and type and links every attribute which is no class to its parent.
+     */
+    private void buildAttributeTrees() {
+        String typeIDField = ExportMiscellaneousUtils.getExportDatabaseFieldTypeId();
+        for (Map.Entry<Long, HashMap<String, String>> attribute : attributes.entrySet()) {
+            long attributeID = attribute.getKey();
+            Map<String, String> attributeData = attribute.getValue();
+            String externalKey = attributeData.get("ExternalKey");
+            if (externalKey != null && !externalKey.isEmpty()) {
+                attributeExternalKeys.put(externalKey, attributeID);
+            }
+            if (parseLong(attributeData.get("IsLink")) == 0) {
+                long parentID = parseLong(attributeData.get("ParentID"));
+                attributeChildren.computeIfAbsent(attributeID, key -> new ArrayList<>());
+                attributeChildren.computeIfAbsent(parentID, key -> new ArrayList<>()).add(attributeID);
+            }
+            String typeID = attributeData.get(typeIDField);
+            if (typeID != null) {
+                attributeIDsByType.computeIfAbsent(typeID, key -> new ArrayList<>()).add(attributeID);
+            }
+        }
+        for (Map.Entry<Long, List<Long>> children : attributeChildren.entrySet()) {
+            children.setValue(Collections.unmodifiableList(children.getValue()));
+        }
+        for (Map.Entry<String, List<Long>> attributeIDs : attributeIDsByType.entrySet()) {
+            attributeIDs.setValue(Collections.unmodifiableList(attributeIDs.getValue()));
+        }
+        specialAttributeIDs.addAll(getAttributeIDsByType(ATTRIBUTE_TYPE_FOLDER));
+        specialAttributeIDs.addAll(getAttributeIDsByType(ATTRIBUTE_TYPE_REFERENCE));
+        specialAttributeIDs.addAll(getAttributeIDsByType(ATTRIBUTE_TYPE_SUBTABLE));
+    }
+
+    private void buildFieldLists(List<String> itemColumns) {
+        for (String element : itemColumns) {
+            if (element.contains(":Value")) {
+                String field = element.substring(0, element.indexOf(":"));
+                //Note: if malformed column exists in Cassandra
+                if (field.contains(",")) {
+                    continue;
+                }
+                customFields.add(Long.parseLong(field));
+                allFields.add(field);
+                if (element.contains("-")) {
+                    pluginFields.add(Long.parseLong(field));
+                }
+            } else if (!element.contains(":FormattedValue")) {
+                standardFields.add(element);
+                allFields.add(element);
+            }
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public String getItemType() {
+        return itemType;
+    }
+
+    public UUID getVersion() {
+        return version;
+    }
+
+    public UUID getLanguageVersion() {
+        return languageVersion;
+    }
+
+    /**
+     * @param attributeID ID of the attribute
+     * @return row of the attribute in the configuration table, null if the attribute is unknown
+     */
+    public HashMap<String, String> getAttribute(long attributeID) {
+        return attributes.get(attributeID);
+    }
+
+    /**
+     * @param externalKey external key of the attribute
+     * @return ID of the attribute, null if no attribute has the external key
+     */
+    public Long getAttributeID(String externalKey) {
+        return attributeExternalKeys.get(externalKey);
+    }
+
+    public boolean hasAttributeExternalKeys() {
+        return !attributeExternalKeys.isEmpty();
+    }
+
+    /**
+     * @param attributeID ID of an attribute, 0 for the root of the attribute tree
+     * @return IDs of the child attributes, null if the attribute is a class or unknown
+     */
+    public List<Long> getChildAttributeIDs(long attributeID) {
+        return attributeChildren.get(attributeID);
+    }
+
+    public List<Long> getFolderAttributeIDs() {
+        return getAttributeIDsByType(ATTRIBUTE_TYPE_FOLDER);
+    }
+
+    public List<Long> getReferenceAttributeIDs() {
+        return getAttributeIDsByType(ATTRIBUTE_TYPE_REFERENCE);
+    }
+
+    public List<Long> getSubtableAttributeIDs() {
+        return getAttributeIDsByType(ATTRIBUTE_TYPE_SUBTABLE);
+    }
+
+    private List<Long> getAttributeIDsByType(String typeID) {
+        List<Long> attributeIDs = attributeIDsByType.get(typeID);
+        return attributeIDs == null ? Collections.<Long>emptyList() : attributeIDs;
+    }
+
+    /**
+     * @return IDs of the folder, reference and subtable attributes, which have no value in the item table
+     */
+    public List<Long> getSpecialAttributeIDs() {
+        return Collections.unmodifiableList(specialAttributeIDs);
+    }
+
+    /**
+     * @param classID ID of the class, 0 for the attributes without class
+     * @return IDs of the attributes assigned to the class, empty if the class has no attributes or is unknown
+     */
+    public List<Long> getClassAttributeIDs(long classID) {
+        List<Long> attributeIDs = classAttributeIDs.get(classID);
+        return attributeIDs == null ? Collections.<Long>emptyList() : attributeIDs;
+    }
+
+    public Map<String, Integer> getLanguageIDs() {
+        return languageIDs;
+    }
+
+    public Map<Integer, String> getLanguageShortNames() {
+        return languageShortNames;
+    }
+
+    public String getDefaultShortName() {
+        return defaultShortName;
+    }
+
+    public long getDefaultLanguageID() {
+        return defaultLanguageID;
+    }
+
+    /**
+     * @param columnName name of a column
+     * @return CQL type of the column, null if no table of the item type has the column
+     */
+    public String getColumnType(String columnName) {
+        return columnTypes.get(columnName);
+    }
+
+    public List<String> getAllFields() {
+        return Collections.unmodifiableList(allFields);
+    }
+
+    public List<String> getStandardFields() {
+        return Collections.unmodifiableList(standardFields);
+    }
+
+    public List<Long> getCustomFields() {
+        return Collections.unmodifiableList(customFields);
+    }
+
+    public List<Long> getPluginFields() {
+        return Collections.unmodifiableList(pluginFields);
+    }
+}
@@ -355,7 +355,7 @@ public class Item implements Serializable {
      */
 
     public String getFormattedValueByExternalKey(String externalKey) {
-        return formattedValuesMapList.get(ItemAPIDAOImpl.attributeExternalKey.get(itemType).get(externalKey));
+        return formattedValuesMapList.get(ItemAPIDAOImpl.getAttributeIDByExternalKey(itemType, externalKey));
     }
 
     /**
@@ -365,7 +365,7 @@ public class Item implements Serializable {
      * @return String: custom Attribute's Value of the Item.
      */
     public String getValueByExternalKey(String externalKey) {
-        return valuesMapList.get(ItemAPIDAOImpl.attributeExternalKey.get(itemType).get(externalKey));
+        return valuesMapList.get(ItemAPIDAOImpl.getAttributeIDByExternalKey(itemType, externalKey));
     }
 
     /**
@@ -185,7 +185,7 @@ public class Reference implements Serializable {
      * @return String: reference Attribute's formatted Value of the reference.
      */
     public String getFormattedValueByExternalKey(String externalKey) {
-        return formattedValueMapListReference.get(ItemAPIDAOImpl.attributeExternalKey.get(getItemType()).get(externalKey));
+        return formattedValueMapListReference.get(ItemAPIDAOImpl.getAttributeIDByExternalKey(getItemType(), externalKey));
     }
 
     /**
@@ -195,7 +195,7 @@ public class Reference implements Serializable {
      * @return String: reference Attribute's Value of the reference.
      */
     public String getValueByExternalKey(String externalKey) {
-        return valueMapListReference.get(ItemAPIDAOImpl.attributeExternalKey.get(getItemType()).get(externalKey));
+        return valueMapListReference.get(ItemAPIDAOImpl.getAttributeIDByExternalKey(getItemType(), externalKey));
     }
 
     /**
@@ -160,7 +160,7 @@ public class Subtable implements Serializable {
      * @return String: table Attribute's formatted Value of the table.
      */
     public String getFormattedValueByExternalKey(String externalKey) {
-        return formattedValueMapListSubTable.get(ItemAPIDAOImpl.attributeExternalKey.get(getItemType()).get(externalKey));
+        return formattedValueMapListSubTable.get(ItemAPIDAOImpl.getAttributeIDByExternalKey(getItemType(), externalKey));
     }
 
     /**
@@ -170,7 +170,7 @@ public class Subtable implements Serializable {
      * @return String: table Attribute's Value of the table.
      */
     public String getValueByExternalKey(String externalKey) {
-        return valueMapListSubTable.get(ItemAPIDAOImpl.attributeExternalKey.get(getItemType()).get(externalKey));
+        return valueMapListSubTable.get(ItemAPIDAOImpl.getAttributeIDByExternalKey(getItemType(), externalKey));
     }
 
     /**
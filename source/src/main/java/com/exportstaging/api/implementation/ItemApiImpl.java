@@ -5,6 +5,9 @@ import com.datastax.driver.core.Row;
 import com.exportstaging.api.ExternalItemAPI;
 import com.exportstaging.api.RecordAPIs;
 import com.exportstaging.api.dao.ItemAPIDAOImpl;
+import com.exportstaging.api.dao.ItemIDQueryPlan;
+import com.exportstaging.api.dao.ItemIDQueryPlanner;
+import com.exportstaging.api.dao.MetadataSnapshot;
 import com.exportstaging.api.domain.*;
 import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.api.searchfilter.SearchFilterCriteria;
@@ -41,16 +44,10 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
 
     @Autowired
     private ItemAPIDAOImpl itemAPIDAOImpl;
-    private Map<String, List<Long>> specialConfigurations = new HashMap<>();
-    private String languageShortName = null;
-    private Map<String, Map<Long, List<Long>>> itemMappingData = new HashMap<>();
-    private Map<String, List<Long>> customFields = new HashMap<>();
-    private Map<String, List<String>> standardFields = new HashMap<>();
-    private Map<String, List<Long>> pluginFields = new HashMap<>();
-    private Map<String, List<String>> allFields = new HashMap<>();
+    @Autowired
+    private ItemIDQueryPlanner itemIDQueryPlanner;
 
     public void init(String itemType) throws ExportStagingException {
-        super.itemType = itemType;
         itemAPIDAOImpl.init(itemType);
     }
 
@@ -58,77 +55,23 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
     }
 
     private List<Long> getSpecialConfigurations(String itemType) throws ExportStagingException {
-        if (!specialConfigurations.containsKey(itemType)) {
-            specialConfigurations.put(itemType, setSpecialConfigurations(itemType));
-        }
-        return specialConfigurations.get(itemType);
-    }
-
-    private List<Long> setSpecialConfigurations(String itemType) throws ExportStagingException {
-        List<Long> specialConfigurations = new ArrayList<>();
-        specialConfigurations.addAll(itemAPIDAOImpl.getAttributeFolderIDs(itemType));
-        specialConfigurations.addAll(itemAPIDAOImpl.getReferenceConfigurationIDs(itemType));
-        specialConfigurations.addAll(itemAPIDAOImpl.getSubtableConfigurationIDs(itemType));
-        return specialConfigurations;
+        return itemAPIDAOImpl.getMetadataSnapshot(itemType).getSpecialAttributeIDs();
     }
 
     public List<String> getAllFields(String itemType) throws ExportStagingException {
-        if (allFields.get(itemType) == null) {
-            populateFieldList(itemType);
-        }
-        return allFields.get(itemType);
-    }
-
-    private void populateFieldList(String itemType) throws ExportStagingException {
-        List<String> columnList = getColumns(itemType);
-        List<String> allFieldList = new ArrayList<>();
-        List<Long> customFieldList = new ArrayList<>();
-        List<Long> pluginFieldList = new ArrayList<>();
-        List<String> standardFieldList = new ArrayList<>();
-        for (String element : columnList) {
-            if (element.contains(":Value")) {
-                String field = element.substring(0, element.indexOf(":"));
-                //Note: if malformed column exists in Cassandra
-                if (field.contains(",")) {
-                    continue;
-                }
-                customFieldList.add(Long.parseLong(field));
-                allFieldList.add(field);
-                if (element.contains("-")) {
-                    pluginFieldList.add(Long.parseLong(field));
-                }
-            } else if (element.contains(":FormattedValue")) {
-                //Skip since it already populated from Value If Condition
-            } else {
-                standardFieldList.add(element);
-                allFieldList.add(element);
-            }
-        }
-        standardFields.put(itemType, standardFieldList);
-        customFields.put(itemType, customFieldList);
-        allFields.put(itemType, allFieldList);
-        pluginFields.put(itemType, pluginFieldList);
+        return itemAPIDAOImpl.getMetadataSnapshot(itemType).getAllFields();
     }
 
     public List<String> getStandardFields(String itemType) throws ExportStagingException {
-        if (standardFields.get(itemType) == null) {
-            populateFieldList(itemType);
-        }
-        return standardFields.get(itemType);
+        return itemAPIDAOImpl.getMetadataSnapshot(itemType).getStandardFields();
     }
 
     public List<Long> getPluginFields(String itemType) throws ExportStagingException {
-        if (pluginFields.get(itemType) == null) {
-            populateFieldList(itemType);
-        }
-        return pluginFields.get(itemType);
+        return itemAPIDAOImpl.getMetadataSnapshot(itemType).getPluginFields();
     }
 
     public List<Long> getCustomFields(String itemType) throws ExportStagingException {
-        if (customFields.get(itemType) == null) {
-            populateFieldList(itemType);
-        }
-        return customFields.get(itemType);
+        return itemAPIDAOImpl.getMetadataSnapshot(itemType).getCustomFields();
     }
 
     public boolean checkItemType(String itemType) throws ExportStagingException {
@@ -140,8 +83,8 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
 
     }
 
-    public String getDefaultShortName() {
-        return itemAPIDAOImpl.getDefaultShortName();
+    public String getDefaultShortName(String itemType) throws ExportStagingException {
+        return itemAPIDAOImpl.getDefaultShortName(itemType);
     }
 
     /**
@@ -196,43 +139,47 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
         return itemAPIDAOImpl.setItemTableData(itemIDs, itemType, languageIdFilter);
     }
 
-    @Override
-    public Set<Long> getUpdatedItemIDs(String date) throws ExportStagingException {
-        return getItemIdsFromMVByField(date, "\"_LastWritten\" > '");
+    public Map<Long, HashMap<Long, Item>> getItemByIdInBatch(List<Long> itemIDs, String itemType, List<Long> languageIDs)
+            throws ExportStagingException {
+        return itemAPIDAOImpl.setItemTableData(itemIDs, itemType, languageIDs);
     }
 
-    @Override
-    public Set<Long> getUpdatedItemIDs(String date, SearchFilterCriteria criteria) throws ExportStagingException {
-        Set<Long> itemIds = getUpdatedItemIDs(date);
-        return getItemIdsByFilterAndIds(criteria, itemIds);
+    public Set<Long> getUpdatedItemIDs(String itemType, String date) throws ExportStagingException {
+        return getItemIdsFromMVByField(itemType, date, "\"_LastWritten\" > '");
     }
 
-    @Override
-    public Set<Long> getCreatedItemIDs(String date) throws ExportStagingException {
-        return getItemIdsFromMVByField(date, "\"_InsertTime\" > '");
+    public Set<Long> getUpdatedItemIDs(String itemType, String date, SearchFilterCriteria criteria)
+            throws ExportStagingException {
+        Set<Long> itemIds = getUpdatedItemIDs(itemType, date);
+        return getItemIdsByFilterAndIds(itemType, criteria, itemIds);
     }
 
-    @Override
-    public Set<Long> getCreatedItemIDs(String date, SearchFilterCriteria criteria) throws ExportStagingException {
-        Set<Long> itemIds = getCreatedItemIDs(date);
-        return getItemIdsByFilterAndIds(criteria, itemIds);
+    public Set<Long> getCreatedItemIDs(String itemType, String date) throws ExportStagingException {
+        return getItemIdsFromMVByField(itemType, date, "\"_InsertTime\" > '");
     }
 
-    private Set<Long> getItemIdsFromMVByField(String date, String field) throws ExportStagingException {
+    public Set<Long> getCreatedItemIDs(String itemType, String date, SearchFilterCriteria criteria)
+            throws ExportStagingException {
+        Set<Long> itemIds = getCreatedItemIDs(itemType, date);
+        return getItemIdsByFilterAndIds(itemType, criteria, itemIds);
+    }
+
+    private Set<Long> getItemIdsFromMVByField(String itemType, String date, String field) throws ExportStagingException {
         SearchFilterCriteria criteria = new SearchFilterCriteria();
         criteria.setUserDefineFilter(field + date + "'");
 
         return getItemIdsByFilterFromMaterializeView(itemType, criteria);
     }
 
-    private Set<Long> getItemIdsByFilterAndIds(SearchFilterCriteria criteria, Set<Long> itemIds) throws ExportStagingException {
+    private Set<Long> getItemIdsByFilterAndIds(String itemType, SearchFilterCriteria criteria, Set<Long> itemIds)
+            throws ExportStagingException {
         Set<Long> userItemIdsFilter = criteria.getItemIds();
         if (userItemIdsFilter != null) {
             itemIds = Sets.intersection(userItemIdsFilter, itemIds);
         }
 
         criteria.setItemIds(itemIds);
-        return getItemIdsByFilters(criteria);
+        return getItemIdsByFilters(itemType, criteria);
     }
 
     private List<Long> getStateIDs(long itemID, String itemType) throws ExportStagingException {
@@ -246,7 +193,7 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
         item.setItemType(itemType);
         item.setExternalKey(row.getString("ExternalKey"));
         if (recordTypes.contains(itemType)) {
-            item.setLanguageShortName(itemAPIDAOImpl.getDefaultShortName());
+            item.setLanguageShortName(itemAPIDAOImpl.getDefaultShortName(itemType));
         } else {
             item.setLanguageShortName(row.getString("LanguageShortName"));
         }
@@ -305,7 +252,7 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
 
                 List<Long> specialConfigurations = getSpecialConfigurations(itemType);
                 standardAttributeList.removeAll(specialConfigurations);
-                Map<String, Map<Long, String>> formattedAndValueMap = setFormattedAndValues(standardAttributeList, row);
+                Map<String, Map<Long, String>> formattedAndValueMap = setFormattedAndValues(standardAttributeList, row, itemType);
                 item.setFormattedValuesMapList(formattedAndValueMap.get("FormattedValue"));
                 item.setValuesMapList(formattedAndValueMap.get("Value"));
                 item.setAttributeIDs(standardAttributeList);
@@ -330,9 +277,9 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
     }
 
     private String getExternalKeyByAttributeId(long attributeId, String itemType) throws ExportStagingException {
-        HashMap<String, String> attributeIdData = ItemAPIDAOImpl.attributeMetadata
-                .get(itemAPIDAOImpl.getFormattedItemType(itemType))
-                .get(attributeId);
+        HashMap<String, String> attributeIdData = itemAPIDAOImpl
+                .getMetadataSnapshot(itemAPIDAOImpl.getFormattedItemType(itemType))
+                .getAttribute(attributeId);
         if (attributeIdData != null)
             return attributeIdData.get("ExternalKey");
         return "";
@@ -351,7 +298,7 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
         return standardValueMap;
     }
 
-    private Map<String, Map<Long, String>> setFormattedAndValues(List<Long> attributeIdList, Row row)
+    private Map<String, Map<Long, String>> setFormattedAndValues(List<Long> attributeIdList, Row row, String itemType)
             throws ExportStagingException {
         Map<String, Map<Long, String>> formattedAndValueMap = new HashMap<>();
         Map<Long, String> formattedValueMap = new HashMap<>();
@@ -366,10 +313,10 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
                     if (columnDefinitions.contains(formattedValue)) {
                         formattedValueMap.put(attributeId, row.getString(formattedValue));
                     } else {
-                        System.out.println("WARN | " + formattedValue + " column not available in " + super.itemType + " table");
+                        System.out.println("WARN | " + formattedValue + " column not available in " + itemType + " table");
                     }
                 } else {
-                    System.out.println("WARN | " + value + " column not available in " + super.itemType + " table");
+                    System.out.println("WARN | " + value + " column not available in " + itemType + " table");
                 }
             } catch (IllegalArgumentException e) {
                 System.out.println("Exception while fetching data from resultSet: Cause: " + e.getMessage());
@@ -382,10 +329,6 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
         return formattedAndValueMap;
     }
 
-    private List<String> getColumns(String itemType) throws ExportStagingException {
-        return itemAPIDAOImpl.getColumns(itemType);
-    }
-
     private String getStandardFieldValueFromDB(String attributeId, Row row) throws ExportStagingException {
         String Value = null;
         try {
@@ -398,20 +341,12 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
 
     private List<Long> getAttributesIdList(List<Long> classList, String itemType)
             throws ExportStagingException {
-        itemMappingData.putIfAbsent(itemType, new HashMap<>());
         Set<Long> attributeIDSet = new HashSet<>();
-        List<Long> attributeIDListTemp;
         if (classList.size() == 0) {
-            attributeIDListTemp = itemAPIDAOImpl.getAttributesIdListFromDB(0, itemType);
-            attributeIDSet.addAll(attributeIDListTemp);
+            attributeIDSet.addAll(itemAPIDAOImpl.getClassAttributeIDs(0, itemType));
         }
         for (long classID : classList) {
-            attributeIDListTemp = itemMappingData.get(itemType).get(classID);
-            if (attributeIDListTemp == null) {
-                attributeIDListTemp = itemAPIDAOImpl.getAttributesIdListFromDB(classID, itemType);
-                itemMappingData.get(itemType).put(classID, attributeIDListTemp);
-            }
-            attributeIDSet.addAll(attributeIDListTemp);
+            attributeIDSet.addAll(itemAPIDAOImpl.getClassAttributeIDs(classID, itemType));
         }
         List<Long> attributeIDList = new ArrayList<>();
         attributeIDList.addAll(attributeIDSet);
@@ -591,6 +526,8 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
 
     /**
      * To get the list of Item IDs from MaterializeView, should use this API.
+     * The {@link ItemIDQueryPlanner} reads the materialized view of a filtered column if it is the cheapest access
+     * path of the filter.
      *
      * @param itemType             type of an Item
      * @param searchFilterCriteria filter criteria that should be executed on MaterializedView.
@@ -601,10 +538,8 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
             throws ExportStagingException {
         Set<Long> itemIdSet = new HashSet<>();
         try {
-            String filter = setLanguageFilter(searchFilterCriteria, itemType);
-            int filterColumnEndIndex = filter.indexOf(" ", filter.indexOf(" ") + 1);
-            String filterColumn = filter.substring(1, filterColumnEndIndex).replace("\"", "");
-            itemIdSet = itemAPIDAOImpl.getItemIdFromMaterializedView(itemType, filterColumn, filter);
+            setLanguageFilter(searchFilterCriteria, itemType);
+            itemIdSet = itemIDQueryPlanner.getItemIDs(itemType, searchFilterCriteria);
         } catch (Exception e) {
             String eMessage = e.getMessage();
             System.out.println("Exception occurred - getItemIdsByFilters()" + eMessage);
@@ -617,25 +552,25 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
             throws ExportStagingException {
         if (searchFilterCriteria.getLanguageId() == null && !RecordAPIs.ITEM_TYPE_WORKFLOW.equalsIgnoreCase(itemType)) {
             if (searchFilterCriteria.getLanguageShortName() == null) {
-                searchFilterCriteria.setLanguageId(String.valueOf(getDefaultLanguageID()));
+                searchFilterCriteria.setLanguageId(String.valueOf(getDefaultLanguageID(itemType)));
             } else {
-                searchFilterCriteria.setLanguageId(String.valueOf(itemAPIDAOImpl.getLanguageID(searchFilterCriteria.getLanguageShortNameValue())));
+                searchFilterCriteria.setLanguageId(String.valueOf(itemAPIDAOImpl.getLanguageID(searchFilterCriteria.getLanguageShortNameValue(), itemType)));
             }
         }
         return searchFilterCriteria.getFilters();
     }
 
 
-    public long getDefaultLanguageID() {
-        return itemAPIDAOImpl.getDefaultLanguageID();
+    public long getDefaultLanguageID(String itemType) throws ExportStagingException {
+        return itemAPIDAOImpl.getDefaultLanguageID(itemType);
     }
 
-    public Map<Integer, String> getLanguageShortNames() {
-        return itemAPIDAOImpl.getLanguageShortNames();
+    public Map<Integer, String> getLanguageShortNames(String itemType) throws ExportStagingException {
+        return itemAPIDAOImpl.getLanguageShortNames(itemType);
     }
 
-    public Set<Integer> getLanguageIDs() {
-        return itemAPIDAOImpl.getLanguageIDs();
+    public Set<Integer> getLanguageIDs(String itemType) throws ExportStagingException {
+        return itemAPIDAOImpl.getLanguageIDs(itemType);
     }
 
     public Map<String, String> getLanguageData(int languageID) {
@@ -656,8 +591,8 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
             throws ExportStagingException {
         Set<Long> itemIdSet = new HashSet<>();
         try {
-            String filter = setLanguageFilter(searchFilterCriteria, itemType);
-            itemIdSet = itemAPIDAOImpl.getItemIDsFromDB(itemType, filter);
+            setLanguageFilter(searchFilterCriteria, itemType);
+            itemIdSet = itemIDQueryPlanner.getItemIDs(itemType, searchFilterCriteria);
         } catch (Exception e) {
             String eMessage = e.getMessage();
             System.out.println("Exception occurred - getItemIdsByFilters()" + eMessage);
@@ -666,8 +601,26 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
         return itemIdSet;
     }
 
-    public String getLanguageShortName() {
-        return languageShortName;
+    /**
+     * Returns the plan of {@link #getItemIdsByFilters(String, SearchFilterCriteria)} without reading any Item IDs.
+     *
+     * @param itemType             : The String which has the Item Type.
+     * @param searchFilterCriteria : The SearchFilterCriteria class object which has the Filters for
+     *                             searching the Item IDs.
+     * @return ItemIDQueryPlan: The access paths and estimated cost of the query.
+     * @throws ExportStagingException If any type of Exception will throw Handle by this Custom
+     *                                Exception
+     */
+    public ItemIDQueryPlan getItemIdsQueryPlan(String itemType, SearchFilterCriteria searchFilterCriteria)
+            throws ExportStagingException {
+        try {
+            setLanguageFilter(searchFilterCriteria, itemType);
+            return itemIDQueryPlanner.plan(itemType, searchFilterCriteria);
+        } catch (Exception e) {
+            String eMessage = e.getMessage();
+            System.out.println("Exception occurred - getItemIdsQueryPlan()" + eMessage);
+            throw new ExportStagingException(eMessage);
+        }
     }
 
     /**
@@ -698,25 +651,27 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
      */
     public Attribute getAttributeByExternalKey(String itemType, String attributeExternalkey)
             throws ExportStagingException {
-        long attributeID;
-        if (ItemAPIDAOImpl.attributeExternalKey.get(itemAPIDAOImpl.getFormattedItemType(itemType)).isEmpty()) {
+        if (itemType == null) {
             return null;
         }
-        attributeID = ItemAPIDAOImpl.attributeExternalKey.get(itemAPIDAOImpl.getFormattedItemType(itemType))
-                .get(attributeExternalkey);
-        if (attributeID == 0) {
+        MetadataSnapshot snapshot = itemAPIDAOImpl.getMetadataSnapshot(itemAPIDAOImpl.getFormattedItemType(itemType));
+        Long attributeID = snapshot.getAttributeID(attributeExternalkey);
+        if (attributeID == null || attributeID == 0) {
             return null;
         }
-        return getAndPrepareAttributeObject(itemType, attributeID);
+        return getAndPrepareAttributeObject(snapshot, attributeID);
     }
 
-    private Attribute getAndPrepareAttributeObject(String itemType, long attributeID) {
-
+    private Attribute getAndPrepareAttributeObject(String itemType, long attributeID) throws ExportStagingException {
         if (itemType == null) {
             return null;
         }
-        itemType = itemAPIDAOImpl.getFormattedItemType(itemType);
-        HashMap<String, String> attributeData = ItemAPIDAOImpl.attributeMetadata.get(itemType).get(attributeID);
+        return getAndPrepareAttributeObject(
+                itemAPIDAOImpl.getMetadataSnapshot(itemAPIDAOImpl.getFormattedItemType(itemType)), attributeID);
+    }
+
+    private Attribute getAndPrepareAttributeObject(MetadataSnapshot snapshot, long attributeID) {
+        HashMap<String, String> attributeData = snapshot.getAttribute(attributeID);
         if (attributeData == null) {
             return null;
         }
@@ -784,59 +739,51 @@ public class ItemApiImpl extends ExternalItemAPI implements ApplicationContextAw
 
     public List<Attribute> getAttribute(long attributeID, int depth, String itemType)
             throws ExportStagingException {
-        itemType = itemAPIDAOImpl.getFormattedItemType(itemType);
+        MetadataSnapshot snapshot = itemAPIDAOImpl.getMetadataSnapshot(itemAPIDAOImpl.getFormattedItemType(itemType));
         List<Attribute> attributes = new ArrayList<>();
         List<Long> rootAttributeList = new ArrayList<>();
         if (attributeID == 0) {
-            rootAttributeList = ItemAPIDAOImpl.attributesParentChildMapping.get(itemType).get(0L);
-        } else {
-            if (ItemAPIDAOImpl.attributesParentChildMapping.get(itemType).containsKey(attributeID)) {
-                rootAttributeList.add(attributeID);
+            List<Long> rootAttributes = snapshot.getChildAttributeIDs(0L);
+            if (rootAttributes != null) {
+                rootAttributeList.addAll(rootAttributes);
             }
+        } else if (snapshot.getChildAttributeIDs(attributeID) != null) {
+            rootAttributeList.add(attributeID);
         }
         for (long ID : rootAttributeList) {
-            Attribute attribute = preparedAndGetAttribute(ID, depth, itemType);
+            Attribute attribute = preparedAndGetAttribute(snapshot, ID, depth);
             attributes.add(attribute);
         }
         return attributes;
     }
 
-    private Attribute preparedAndGetAttribute(long attributeID, int depth, String itemType)
-            throws ExportStagingException {
+    /**
+     * Creates the Attribute objects of an attribute and its descendants up to the depth from the attribute tree of the
+     * snapshot. The objects are created for every call, since the caller may change them.
+     */
+    private Attribute preparedAndGetAttribute(MetadataSnapshot snapshot, long attributeID, int depth) {
+        Attribute attributeObject = getAndPrepareAttributeObject(snapshot, attributeID);
+        if (attributeObject != null) {
+            addChildAttributes(snapshot, attributeObject, attributeID, 0, depth);
+        }
+        return attributeObject;
+    }
 
-        itemType = itemAPIDAOImpl.getFormattedItemType(itemType);
-        int level;
-        long currentNode;
-        List<Long> attributeIterator = new ArrayList<>();
-        Map<Long, Integer> attributeLevel = new LinkedHashMap<>();
-        Map<Long, Attribute> attributeMetaDataObject = new LinkedHashMap<>();
-
-        attributeIterator.add(attributeID);
-        Attribute attributeObject = getAttributeByID(itemType, attributeID);
-        attributeLevel.put(attributeID, 0);
-        attributeMetaDataObject.put(attributeID, attributeObject);
-
-        do {
-            List<Attribute> childList = new ArrayList<>();
-            currentNode = attributeIterator.get(0);
-            List<Long> child = ItemAPIDAOImpl.attributesParentChildMapping.get(itemType).get(currentNode);
-            level = attributeLevel.get(currentNode);
-            if (depth != 0 && level >= depth)
-                break;
-            if (child != null) {
-                for (long attribute : child) {
-                    attributeObject = getAttributeByID(itemType, attribute);
-                    attributeMetaDataObject.put(attribute, attributeObject);
-                    attributeLevel.put(attribute, (level + 1));
-                    childList.add(attributeObject);
-                    attributeIterator.add(attribute);
-                }
-                attributeMetaDataObject.get(currentNode).setAttribute(childList);
+    private void addChildAttributes(MetadataSnapshot snapshot, Attribute attributeObject, long attributeID, int level,
+                                    int depth) {
+        List<Long> child = snapshot.getChildAttributeIDs(attributeID);
+        if (child == null || (depth != 0 && level >= depth)) {
+            return;
+        }
+        List<Attribute> childList = new ArrayList<>(child.size());
+        for (long childID : child) {
+            Attribute childObject = getAndPrepareAttributeObject(snapshot, childID);
+            if (childObject != null) {
+                addChildAttributes(snapshot, childObject, childID, level + 1, depth);
             }
-            attributeIterator.remove(0);
+            childList.add(childObject);
         }
-        while (!(attributeIterator.isEmpty()));
-        return attributeMetaDataObject.get(attributeID);
+        attributeObject.setAttribute(childList);
     }
 
     protected void finalize() {
@@ -329,9 +329,8 @@ public class WrapperImpl implements ItemWrapper, RecordWrapper {
     @Override
     @JsonIgnore
     public String getFormattedValueByExternalKey(String externalKey, String languageShortName) {
-        return getFormattedValuesMapList(languageShortName).
-                get(ItemAPIDAOImpl.attributeExternalKey.get(itemAPIDAOImpl.getFormattedItemType(getItemType())).
-                        get(externalKey));
+        return getFormattedValuesMapList(languageShortName).get(ItemAPIDAOImpl.getAttributeIDByExternalKey(
+                itemAPIDAOImpl.getFormattedItemType(getItemType()), externalKey));
     }
 
     @Override
@@ -343,9 +342,8 @@ public class WrapperImpl implements ItemWrapper, RecordWrapper {
     @Override
     @JsonIgnore
     public String getValueByExternalKey(String externalKey, String languageShortName) {
-        return getValuesMapList(languageShortName).
-                get(ItemAPIDAOImpl.attributeExternalKey.get(itemAPIDAOImpl.getFormattedItemType(getItemType())).
-                        get(externalKey));
+        return getValuesMapList(languageShortName).get(ItemAPIDAOImpl.getAttributeIDByExternalKey(
+                itemAPIDAOImpl.getFormattedItemType(getItemType()), externalKey));
     }
 
     /**
@@ -445,7 +443,7 @@ public class WrapperImpl implements ItemWrapper, RecordWrapper {
 
     @Override
     public List<Subtable> getTableRowsByExternalKey(String attributeExternalKey, String languageShortName) {
-        Long tableAttributeId = ItemAPIDAOImpl.attributeExternalKey.get(getItemType()).get(attributeExternalKey);
+        Long tableAttributeId = ItemAPIDAOImpl.getAttributeIDByExternalKey(getItemType(), attributeExternalKey);
         if (tableAttributeId != null) {
             return getTableRowsByAttributeID(tableAttributeId, languageShortName);
         }
@@ -461,7 +459,7 @@ public class WrapperImpl implements ItemWrapper, RecordWrapper {
     @Override
     @JsonIgnore
     public List<Reference> getReferencesByExternalKey(String externalKey, String languageShortName) {
-        Long referenceAttributeId = ItemAPIDAOImpl.attributeExternalKey.get(getItemType()).get(externalKey);
+        Long referenceAttributeId = ItemAPIDAOImpl.getAttributeIDByExternalKey(getItemType(), externalKey);
         if (referenceAttributeId != null) {
             return getReferencesByID(referenceAttributeId, languageShortName);
         }
@@ -476,7 +474,7 @@ public class WrapperImpl implements ItemWrapper, RecordWrapper {
     @Override
     public ExportValues getValues(String languageShortName) throws ExportStagingException {
         List<AttributeValue> attributeValueList = new ArrayList<>();
-        int languageID = ItemAPIDAOImpl.languageIDMap.get(languageShortName);
+        int languageID = itemAPIDAOImpl.getLanguageID(languageShortName, getItemType());
         Map<String, String> standardValueMap = getStandardValuesMapList(languageShortName);
         for (Map.Entry<String, String> entry : standardValueMap.entrySet()) {
             attributeValueList.add(new AttributeValue(entry.getKey(), languageID, entry.getValue(),
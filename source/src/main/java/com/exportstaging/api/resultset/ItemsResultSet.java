@@ -15,20 +15,41 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Items of a filter, read page by page: the items of export.hashmap.batch.size IDs are read from Cassandra when
+ * the first item of the page is requested, and the next page is read in the background while the items of the
+ * current page are processed. At most two pages are held in memory, whatever the number of IDs.
+ * <p>
+ * The first page is always read on the calling thread, so the metadata of the item type is cached before pages
+ * are read in the background.
+ */
 @Scope("prototype")
 @Component("itemsResultSet")
 public class ItemsResultSet implements ApplicationContextAware {
 
+    private static final ExecutorService prefetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ItemsResultSetPrefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Value("${export.hashmap.batch.size}")
     private int batchSize;
+    @Value("${export.api.resultset.prefetch}")
+    private boolean prefetch;
 
     private int batchCount = 0;
     private String itemType;
     private List<Long> itemIdList = new ArrayList<>();
     private String languageShortName = null;
     private Map<Long, HashMap<Long, Item>> itemList = new HashMap<>();
-    private boolean fetchData = true;
+    private Deque<Long> pageItemIds = new ArrayDeque<>();
+    private Page prefetchedPage = null;
     private ApplicationContext context = null;
 
     @Autowired
@@ -39,18 +60,14 @@ public class ItemsResultSet implements ApplicationContextAware {
     public ItemsResultSet() {
     }
 
-    private String prepareINOperatorDataQuery(String itemIDs) {
-        return itemIDs.replace("[", "").replace("]", "");
-    }
-
-    private String getBatch() {
-        String itemIDs = "";
-        try {
-            itemIDs = prepareINOperatorDataQuery(itemIdList.toString());
-        } catch (Exception e) {
-            e.printStackTrace();
+    private List<Long> getBatch() {
+        int pageSize = Math.max(batchSize, 1);
+        int start = batchCount * pageSize;
+        if (start >= itemIdList.size()) {
+            return Collections.emptyList();
         }
-        return itemIDs;
+        batchCount++;
+        return new ArrayList<>(itemIdList.subList(start, Math.min(start + pageSize, itemIdList.size())));
     }
 
     public String getLanguageShortName() {
@@ -67,6 +84,10 @@ public class ItemsResultSet implements ApplicationContextAware {
 
     public void setItemIdList(List<Long> itemIdList) {
         this.itemIdList = itemIdList;
+        batchCount = 0;
+        itemList = new HashMap<>();
+        pageItemIds = new ArrayDeque<>();
+        prefetchedPage = null;
     }
 
     public String getItemType() {
@@ -87,7 +108,7 @@ public class ItemsResultSet implements ApplicationContextAware {
      */
     public ItemWrapper nextItem() throws ExportStagingException {
         List<Long> defaultLanguageID = new ArrayList<>();
-        defaultLanguageID.add(itemApiImpl.getDefaultLanguageID());
+        defaultLanguageID.add(itemApiImpl.getDefaultLanguageID(itemType));
         return nextItem(defaultLanguageID);
     }
 
@@ -100,8 +121,8 @@ public class ItemsResultSet implements ApplicationContextAware {
      */
     public ItemWrapper nextItem(List<Long> LanguageID) throws ExportStagingException {
         ItemWrapper itemWrapper = context.getBean("wrapperImpl", WrapperImpl.class);
-        itemWrapper.setDefaultLanguageShortName(itemAPIDAOImpl.getDefaultShortName());
-        itemWrapper.setDefaultLanguageID((int) itemAPIDAOImpl.getDefaultLanguageID());
+        itemWrapper.setDefaultLanguageShortName(itemAPIDAOImpl.getDefaultShortName(itemType));
+        itemWrapper.setDefaultLanguageID((int) itemAPIDAOImpl.getDefaultLanguageID(itemType));
         itemWrapper.setItemType(itemType);
 
         List<Item> itemLanguageList = nextItemLanguage(itemType, LanguageID);
@@ -125,22 +146,60 @@ public class ItemsResultSet implements ApplicationContextAware {
         }
     }
 
-    private String prepareLanguageFilter(List<Long> LanguageID) {
-        return "IN (" + LanguageID.toString().replace("[", "").replace("]", "") + ")";
+    private List<Item> nextItemLanguage(String itemType, List<Long> LanguageID) throws ExportStagingException {
+        List<Item> itemListTemp = getItemData();
+        while (itemListTemp.isEmpty() && fetchNextPage(itemType, LanguageID)) {
+            itemListTemp = getItemData();
+        }
+        return itemListTemp;
     }
 
-    private List<Item> nextItemLanguage(String itemType, List<Long> LanguageID) throws ExportStagingException {
-        List<Item> itemListTemp;
-        String languageIdFilter = prepareLanguageFilter(LanguageID);
-        if (fetchData) {
-            String itemIds = getBatch();
-            if (!itemIds.equals("")) {
-                itemList = itemApiImpl.getItemByIdInBatch(itemIds, itemType, languageIdFilter);
-                fetchData = false;
+    /**
+     * Replaces the current page by the prefetched one, or reads the next page if nothing was prefetched for the
+     * languages, and starts to prefetch the page after it.
+     *
+     * @return false if all pages were read
+     */
+    private boolean fetchNextPage(String itemType, List<Long> languageIds) throws ExportStagingException {
+        Page page = prefetchedPage;
+        prefetchedPage = null;
+        if (page != null && !page.languageIds.equals(languageIds)) {
+            page.items.cancel(false);
+            page = new Page(page.itemIds, languageIds, null);
+        }
+        if (page == null) {
+            List<Long> itemIds = getBatch();
+            if (itemIds.isEmpty()) {
+                return false;
             }
+            page = new Page(itemIds, languageIds, null);
+        }
+        itemList = page.items != null ? getPrefetchedItems(page)
+                : itemApiImpl.getItemByIdInBatch(page.itemIds, itemType, languageIds);
+        pageItemIds = new ArrayDeque<>(page.itemIds);
+        if (prefetch) {
+            List<Long> nextItemIds = getBatch();
+            List<Long> nextLanguageIds = new ArrayList<>(languageIds);
+            if (!nextItemIds.isEmpty()) {
+                prefetchedPage = new Page(nextItemIds, nextLanguageIds, prefetchExecutor.submit(
+                        () -> itemApiImpl.getItemByIdInBatch(nextItemIds, itemType, nextLanguageIds)));
+            }
+        }
+        return true;
+    }
+
+    private Map<Long, HashMap<Long, Item>> getPrefetchedItems(Page page) throws ExportStagingException {
+        try {
+            return page.items.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExportStagingException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ExportStagingException) {
+                throw (ExportStagingException) e.getCause();
+            }
+            throw new ExportStagingException(e.getCause());
         }
-        itemListTemp = getItemData();
-        return itemListTemp;
     }
 
     /**
@@ -155,15 +214,12 @@ public class ItemsResultSet implements ApplicationContextAware {
 
     private List<Item> getItemData() {
         List<Item> itemListTemp = new ArrayList<>();
-        for (Long itemId : itemList.keySet()) {
-            HashMap<Long, Item> languageObjects = itemList.get(itemId);
-            Set<Long> languageIds = languageObjects.keySet();
-            for (long language : languageIds) {
-                Item item = itemList.get(itemId).get(language);
-                itemListTemp.add(item);
+        Long itemId;
+        while (itemListTemp.isEmpty() && (itemId = pageItemIds.poll()) != null) {
+            HashMap<Long, Item> languageObjects = itemList.remove(itemId);
+            if (languageObjects != null) {
+                itemListTemp.addAll(languageObjects.values());
             }
-            itemList.remove(itemId);
-            break;
         }
         return itemListTemp;
     }
@@ -172,4 +228,16 @@ public class ItemsResultSet implements ApplicationContextAware {
     public void setApplicationContext(ApplicationContext context) throws BeansException {
         this.context = context;
     }
+
+    private static class Page {
+        private final List<Long> itemIds;
+        private final List<Long> languageIds;
+        private final Future<Map<Long, HashMap<Long, Item>>> items;
+
+        private Page(List<Long> itemIds, List<Long> languageIds, Future<Map<Long, HashMap<Long, Item>>> items) {
+            this.itemIds = itemIds;
+            this.languageIds = languageIds;
+            this.items = items;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,283 @@
+package com.exportstaging.api.searchfilter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Predicate tree of a {@link SearchFilterCriteria}: a conjunction of conditions on single columns.
+ * <p>
+ * Every filter of the criteria is compiled into a {@link Condition} with its column, operator and values, so the
+ * planner of the read API can choose an access path per condition instead of reading the columns out of the filter
+ * string. A user defined filter is split at its top level AND operators; a part which is no condition on a single
+ * column is kept as raw condition, which can only be evaluated by Cassandra.
+ */
+public abstract class FilterPredicate {
+
+    private static final Pattern CONDITION_PATTERN = Pattern.compile(
+            "^\"([^\"]+)\"(?:\\s*(<=|>=|=|<|>)|\\s+(IN|LIKE|CONTAINS)(?=[\\s(]))\\s*(.+)$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * @return CQL of the predicate, as used in the WHERE clause of a query
+     */
+    public abstract String getCql();
+
+    /**
+     * @return conditions of the predicate in the order of the filters
+     */
+    public abstract List<Condition> getConditions();
+
+    @Override
+    public String toString() {
+        return getCql();
+    }
+
+    /**
+     * Compiles filters into a predicate.
+     *
+     * @param filters CQL filters, each one condition or a user defined filter
+     * @return conjunction of the conditions of the filters
+     */
+    public static And compile(List<String> filters) {
+        List<FilterPredicate> conditions = new ArrayList<>();
+        for (String filter : filters) {
+            for (String part : splitConjunction(filter)) {
+                conditions.add(parseCondition(part));
+            }
+        }
+        return new And(conditions);
+    }
+
+    private static Condition parseCondition(String filter) {
+        Matcher matcher = CONDITION_PATTERN.matcher(filter);
+        if (!matcher.matches()) {
+            return new Condition(null, null, Collections.<String>emptyList(), filter);
+        }
+        String operator = (matcher.group(2) != null ? matcher.group(2) : matcher.group(3)).toUpperCase();
+        String value = matcher.group(4).trim();
+        List<String> literals = new ArrayList<>();
+        if (operator.equals("IN")) {
+            if (!value.startsWith("(") || !value.endsWith(")")) {
+                return new Condition(null, null, Collections.<String>emptyList(), filter);
+            }
+            for (String literal : split(value.substring(1, value.length() - 1), ",")) {
+                literals.add(literal.trim());
+            }
+        } else {
+            literals.add(value);
+        }
+        return new Condition(matcher.group(1), operator, literals, filter);
+    }
+
+    private static List<String> splitConjunction(String filter) {
+        List<String> parts = new ArrayList<>();
+        for (String part : split(filter, " AND ")) {
+            if (!part.trim().isEmpty()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Splits at the separator outside of string literals and parentheses, ignoring the case of the separator.
+     */
+    private static List<String> split(String value, String separator) {
+        List<String> parts = new ArrayList<>();
+        boolean quoted = false;
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && character == '(') {
+                depth++;
+            } else if (!quoted && character == ')') {
+                depth--;
+            } else if (!quoted && depth == 0 && value.regionMatches(true, i, separator, 0, separator.length())) {
+                parts.add(value.substring(start, i));
+                start = i + separator.length();
+                i = start - 1;
+            }
+        }
+        parts.add(value.substring(start));
+        return parts;
+    }
+
+    /**
+     * Conjunction of predicates.
+     */
+    public static final class And extends FilterPredicate {
+        private final List<FilterPredicate> children;
+
+        And(List<FilterPredicate> children) {
+            this.children = Collections.unmodifiableList(new ArrayList<>(children));
+        }
+
+        public List<FilterPredicate> getChildren() {
+            return children;
+        }
+
+        @Override
+        public String getCql() {
+            List<String> cql = new ArrayList<>();
+            for (FilterPredicate child : children) {
+                cql.add(child.getCql());
+            }
+            return String.join(" AND ", cql);
+        }
+
+        @Override
+        public List<Condition> getConditions() {
+            List<Condition> conditions = new ArrayList<>();
+            for (FilterPredicate child : children) {
+                conditions.addAll(child.getConditions());
+            }
+            return conditions;
+        }
+    }
+
+    /**
+     * Condition on a single column, or a raw condition without column and operator.
+     */
+    public static final class Condition extends FilterPredicate {
+        private final String column;
+        private final String operator;
+        private final List<String> literals;
+        private final String cql;
+
+        Condition(String column, String operator, List<String> literals, String cql) {
+            this.column = column;
+            this.operator = operator;
+            this.literals = Collections.unmodifiableList(new ArrayList<>(literals));
+            this.cql = cql.trim();
+        }
+
+        /**
+         * @return name of the column without quotes, null for a raw condition
+         */
+        public String getColumn() {
+            return column;
+        }
+
+        /**
+         * @return =, &lt;, &gt;, &lt;=, &gt;=, IN, LIKE or CONTAINS, null for a raw condition
+         */
+        public String getOperator() {
+            return operator;
+        }
+
+        public boolean isRaw() {
+            return column == null;
+        }
+
+        public boolean isEquality() {
+            return "=".equals(operator) || "IN".equals(operator);
+        }
+
+        public boolean isRange() {
+            return "<".equals(operator) || ">".equals(operator) || "<=".equals(operator) || ">=".equals(operator);
+        }
+
+        /**
+         * @return CQL literals of the values, e.g. 12 or 'Label'
+         */
+        public List<String> getLiterals() {
+            return literals;
+        }
+
+        /**
+         * @return values without the quotes of string literals
+         */
+        public List<String> getValues() {
+            List<String> values = new ArrayList<>();
+            for (String literal : literals) {
+                values.add(unquote(literal));
+            }
+            return values;
+        }
+
+        @Override
+        public String getCql() {
+            return cql;
+        }
+
+        @Override
+        public List<Condition> getConditions() {
+            return Collections.singletonList(this);
+        }
+
+        /**
+         * Evaluates the condition on the client for a value read from Cassandra. Equality, IN and LIKE are evaluated
+         * for all values, the comparisons for numbers only.
+         *
+         * @param columnValue value of the column, null if the column has no value
+         * @return true if the value matches the condition
+         * @throws IllegalStateException if the condition cannot be evaluated on the client
+         */
+        public boolean matches(Object columnValue) {
+            if (isRaw() || "CONTAINS".equals(operator)) {
+                throw new IllegalStateException("Condition " + cql + " can only be evaluated by Cassandra");
+            }
+            if (columnValue == null) {
+                return false;
+            }
+            if (isEquality()) {
+                for (String value : getValues()) {
+                    if (isEqual(columnValue, value)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if ("LIKE".equals(operator)) {
+                return getLikePattern(getValues().get(0)).matcher(String.valueOf(columnValue)).matches();
+            }
+            if (!(columnValue instanceof Number)) {
+                throw new IllegalStateException("Condition " + cql + " can only be evaluated by Cassandra");
+            }
+            int comparison = new BigDecimal(columnValue.toString()).compareTo(new BigDecimal(getValues().get(0)));
+            switch (operator) {
+                case "<":
+                    return comparison < 0;
+                case ">":
+                    return comparison > 0;
+                case "<=":
+                    return comparison <= 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+
+        private static boolean isEqual(Object columnValue, String value) {
+            if (columnValue instanceof Number) {
+                try {
+                    return new BigDecimal(columnValue.toString()).compareTo(new BigDecimal(value)) == 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            return String.valueOf(columnValue).equals(value);
+        }
+
+        private static Pattern getLikePattern(String value) {
+            List<String> parts = new ArrayList<>();
+            for (String part : value.split("%", -1)) {
+                parts.add(Pattern.quote(part));
+            }
+            return Pattern.compile(String.join(".*", parts), Pattern.DOTALL);
+        }
+
+        private static String unquote(String literal) {
+            if (literal.length() >= 2 && literal.startsWith("'") && literal.endsWith("'")) {
+                return literal.substring(1, literal.length() - 1).replace("''", "'");
+            }
+            return literal;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.exportstaging.api.searchfilter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -441,51 +443,67 @@ public class SearchFilterCriteria {
      */
     @JsonIgnore
     public String getFilters() {
-        String filters = "";
+        List<String> filters = getFilterList();
+        if (filters.isEmpty()) {
+            return null;
+        } else {
+            // the Filters always started with a space, callers may rely on it
+            return " " + String.join(" AND ", filters);
+        }
+    }
+
+    /**
+     * Compiles the Filters into a predicate tree, which the read API uses to choose the access path of each condition.
+     *
+     * @return :FilterPredicate conjunction of the conditions of all Filters.
+     */
+    @JsonIgnore
+    public FilterPredicate.And getPredicate() {
+        return FilterPredicate.compile(getFilterList());
+    }
+
+    private List<String> getFilterList() {
+        List<String> filters = new ArrayList<>();
         if (itemIds != null)
-            filters = filters + " AND " + getItemIdsFilter();
+            filters.add(getItemIdsFilter());
         if (workflowId != null)
-            filters = filters + " AND " + getWorkflowId();
+            filters.add(getWorkflowId());
         if (stateId != null)
-            filters = filters + " AND " + getStateId();
+            filters.add(getStateId());
         if (classID != null)
-            filters = filters + " AND " + getClassID();
+            filters.add(getClassID());
         if (parentId != null)
-            filters = filters + " AND " + getParentId();
+            filters.add(getParentId());
         if (lastChange != null)
-            filters = filters + " AND " + getLastChange();
+            filters.add(getLastChange());
         if (languageShortName != null) {
-            filters = filters + " AND " + getLanguageShortName();
+            filters.add(getLanguageShortName());
             setLanguage(true);
         }
         if (label != null)
-            filters = filters + " AND " + getLabel();
+            filters.add(getLabel());
         if (isFolder != null)
-            filters = filters + " AND " + getIsFolder();
+            filters.add(getIsFolder());
         if (externalKey != null)
-            filters = filters + " AND " + getExternalKey();
+            filters.add(getExternalKey());
         if (creationDate != null)
-            filters = filters + " AND " + getCreationDate();
+            filters.add(getCreationDate());
         if (copyOf != null)
-            filters = filters + " AND " + getCopyOf();
+            filters.add(getCopyOf());
         if (checkoutUser != null)
-            filters = filters + " AND " + getCheckoutUser();
+            filters.add(getCheckoutUser());
         if (authorId != null)
-            filters = filters + " AND " + getAuthorId();
+            filters.add(getAuthorId());
         if (author != null)
-            filters = filters + " AND " + getAuthor();
+            filters.add(getAuthor());
         if (parents != null)
-            filters = filters + " AND " + getParents();
+            filters.add(getParents());
         if (customAttribute != null && customAttribute != "")
-            filters = filters + " AND " + getCustomAttribute();
+            filters.add(getCustomAttribute());
         if (userDefineFilter != null)
-            filters = filters + " AND " + getUserDefineFilter();
+            filters.add(getUserDefineFilter());
         if (languageId != null)
-            filters = filters + " AND " + getLanguageId();
-        if (filters.equals("")) {
-            return null;
-        } else {
-            return filters.substring(4);
-        }
+            filters.add(getLanguageId());
+        return filters;
     }
 }
@@ -18,7 +18,6 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.Inflater;
 
 public class ExportMiscellaneousUtils {
 
@@ -77,12 +76,15 @@ public class ExportMiscellaneousUtils {
     public static final String EXPORT_ELASTIC_SETTING_FIELD_LIMIT            = "index.mapping.total_fields.limit";
     public static final String EXPORT_ELASTIC_SETTING_MAX_RESULT_WINDOW      = "index.max_result_window";
     public static final String EXPORT_ELASTIC_SETTING_INDEX_REFRESH_INTERVAL = "index.refresh_interval";
+    public static final String EXPORT_ELASTIC_SETTING_INDEX_REPLICAS         = "index.number_of_replicas";
+    public static final String EXPORT_ELASTIC_SETTING_TRANSLOG_DURABILITY    = "index.translog.durability";
 
 
     /*
      Constants for startup param
     */
     public static final String EXPORT_ELASTIC_INDEX_UPDATER = "elasticIndexUpdater";
+    public static final String EXPORT_LOOKUP_BACKFILL       = "lookupBackfill";
     public static final String EXPORT_MODE                  = "-mode";
     public static final String EXPORT_PROJECT_NAME          = "-p";
     public static final String EXPORT_LOG_PATH              = "-logPath";
@@ -106,8 +108,12 @@ public class ExportMiscellaneousUtils {
     public static final String CONSTANT_TYPE                            = "Type";
     public static final String CONSTANT_EXPORT_TYPE                     = "ExportType";
     public static final String IDB_INSERT_TIME                          = "IDBInsertTime";
+    public static final String IDB_ROW_INSERT_TIME                      = "IDBRowInsertTime";
+    public static final String PRODUCER_FETCH_TIME                      = "ProducerFetchTime";
+    public static final String JMS_MESSAGE_GROUP_ID                     = "JMSXGroupID";
     public static final String EXPORT_FIELD_STATEID                     = "StateID";
     public static final String EXPORT_FIELD_WORKFLOWID                  = "WorkflowID";
+    public static final String EXPORT_FIELD_PARENTID                    = "ParentID";
     public static final String EXPORT_FIELD_LANGUAGEID                  = "LanguageID";
     public static final String EXPORT_FIELD_ID                          = "ID";
     public static final String EXPORT_TYPE_OPERATION                    = "Operation";
@@ -635,43 +641,20 @@ public class ExportMiscellaneousUtils {
     }
 
   /**
-   * provided encoded compressed string will be decompressed
+   * provided encoded compressed string will be decompressed, see {@link MessageDecompressor}
    *
    * @param compressedMessage String contain compressed message
    *
-   * @return encoded compressed string will be decompressed
+   * @return encoded compressed string will be decompressed, the provided string if it cannot be decompressed
    */
   public static String getUnCompressedItemMessage(String compressedMessage)
   {
-    String                unCompressedMessage = null;
-    ByteArrayOutputStream outputStream        = null;
     try {
-      byte[]   data     = Base64.getDecoder().decode(compressedMessage);
-      Inflater inflater = new Inflater();
-      inflater.setInput(data);
-      outputStream = new ByteArrayOutputStream(data.length);
-      byte[] buffer = new byte[2048];
-	  int count;
-      while (!inflater.finished()) {
-        count = inflater.inflate(buffer);
-        outputStream.write(buffer, 0, count);
-      }
-
-      unCompressedMessage = outputStream.toString();
+      return MessageDecompressor.decompress(compressedMessage);
     } catch (Exception exception) {
-      unCompressedMessage = compressedMessage;
       logger.error("Error occurred while decompression of message : " + exception.getMessage());
-    } finally {
-      try {
-        if (outputStream != null) {
-          outputStream.close();
-        }
-      } catch (Exception exception) {
-        logger.error("Error occurred while closing stream object : " + exception.getMessage());
-      }
+      return compressedMessage;
     }
-
-    return unCompressedMessage;
   }
 
 
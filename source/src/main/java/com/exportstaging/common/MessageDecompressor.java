@@ -0,0 +1,173 @@
+package com.exportstaging.common;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompression of the Base64 encoded, deflated messages sent by the MasterProducer.
+ * <p>
+ * Every thread keeps its own {@link Inflater} and buffers, so decompressing a message only allocates the resulting
+ * String. The Base64 text is decoded chunk by chunk and each chunk is inflated right away, the decoded payload is never
+ * held as a whole. The message is read as UTF-8.
+ * <p>
+ * Number of messages, decompression times and sizes are exported with the MBean
+ * com.exportstaging:type=MessageDecompressor.
+ */
+public final class MessageDecompressor implements MessageDecompressorMBean {
+
+    private static final String MBEAN_NAME = "com.exportstaging:type=MessageDecompressor";
+    private static final int ENCODED_CHUNK_SIZE = 16384;
+    private static final int INITIAL_OUTPUT_SIZE = 65536;
+    private static final int MAX_RETAINED_OUTPUT_SIZE = 8 * 1024 * 1024;
+
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+    private static final MessageDecompressor INSTANCE = new MessageDecompressor();
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final AtomicLong maxTime = new AtomicLong();
+    private final AtomicLong lastTime = new AtomicLong();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            logger.debug("[MessageDecompressor] MBean " + MBEAN_NAME + " is already registered");
+        } catch (Exception e) {
+            logger.error("[MessageDecompressor] Failed to register MBean " + MBEAN_NAME + " Error Message:" + e.getMessage());
+        }
+    }
+
+    private MessageDecompressor() {
+    }
+
+    /**
+     * Decodes and inflates a message.
+     *
+     * @param compressedMessage Base64 encoded, deflated message
+     * @return uncompressed message
+     * @throws DataFormatException if the message is not a complete deflate stream
+     * @throws IllegalArgumentException if the message is not Base64 encoded
+     */
+    public static String decompress(String compressedMessage) throws DataFormatException {
+        long startTime = System.nanoTime();
+        Buffers buffers = BUFFERS.get();
+        Inflater inflater = buffers.inflater;
+        try {
+            int length = compressedMessage.length();
+            int outputLength = 0;
+            for (int start = 0; start < length && !inflater.finished(); start += ENCODED_CHUNK_SIZE) {
+                int decodedLength = buffers.decode(compressedMessage, start, Math.min(start + ENCODED_CHUNK_SIZE, length));
+                inflater.setInput(buffers.decoded, 0, decodedLength);
+                while (!inflater.needsInput() && !inflater.finished()) {
+                    if (outputLength == buffers.output.length) {
+                        buffers.output = Arrays.copyOf(buffers.output, buffers.output.length * 2);
+                    }
+                    int count = inflater.inflate(buffers.output, outputLength, buffers.output.length - outputLength);
+                    if (count == 0 && inflater.needsDictionary()) {
+                        throw new DataFormatException("Message requires a preset dictionary");
+                    }
+                    outputLength += count;
+                }
+            }
+            if (!inflater.finished()) {
+                throw new DataFormatException("Message ends before the end of the compressed data");
+            }
+            INSTANCE.record(System.nanoTime() - startTime, inflater.getBytesRead(), outputLength);
+            return new String(buffers.output, 0, outputLength, StandardCharsets.UTF_8);
+        } catch (DataFormatException | RuntimeException e) {
+            INSTANCE.failures.increment();
+            throw e;
+        } finally {
+            inflater.reset();
+            if (buffers.output.length > MAX_RETAINED_OUTPUT_SIZE) {
+                buffers.output = new byte[INITIAL_OUTPUT_SIZE];
+            }
+        }
+    }
+
+    private void record(long time, long compressedSize, long uncompressedSize) {
+        long micros = time / 1000;
+        messages.increment();
+        totalTime.add(micros);
+        lastTime.set(micros);
+        maxTime.accumulateAndGet(micros, Math::max);
+        compressedBytes.add(compressedSize);
+        uncompressedBytes.add(uncompressedSize);
+    }
+
+    @Override
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getTotalTimeMicros() {
+        return totalTime.sum();
+    }
+
+    @Override
+    public long getMaxTimeMicros() {
+        return maxTime.get();
+    }
+
+    @Override
+    public long getLastTimeMicros() {
+        return lastTime.get();
+    }
+
+    @Override
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    @Override
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    /**
+     * Inflater and buffers of one thread.
+     */
+    private static class Buffers {
+        private final Inflater inflater = new Inflater();
+        private final byte[] encoded = new byte[ENCODED_CHUNK_SIZE];
+        private final byte[] decoded = new byte[ENCODED_CHUNK_SIZE / 4 * 3];
+        private byte[] output = new byte[INITIAL_OUTPUT_SIZE];
+
+        /**
+         * Decodes the characters from start to end of the message into {@link #decoded}. Only the last chunk of a
+         * message can be shorter than the chunk size, it is decoded from an array of its own length.
+         *
+         * @return number of decoded bytes
+         */
+        private int decode(String message, int start, int end) {
+            int length = end - start;
+            byte[] source = length == ENCODED_CHUNK_SIZE ? encoded : new byte[length];
+            for (int index = 0; index < length; index++) {
+                source[index] = (byte) message.charAt(start + index);
+            }
+            return Base64.getDecoder().decode(source, decoded);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.exportstaging.common;
+
+/**
+ * Metrics of the {@link MessageDecompressor}.
+ */
+public interface MessageDecompressorMBean {
+
+    long getMessages();
+
+    long getFailures();
+
+    long getTotalTimeMicros();
+
+    long getMaxTimeMicros();
+
+    long getLastTimeMicros();
+
+    long getCompressedBytes();
+
+    long getUncompressedBytes();
+}
@@ -0,0 +1,315 @@
+package com.exportstaging.common;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.simple.JSONObject;
+
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Latencies of every message from the insert into the intermediate database up to the commit in the sink of the
+ * subscriber, in one {@link LatencyHistogram} per stage and subscriber, item type and operation type:
+ * <ul>
+ * <li>idbDwell: from the insert into the intermediate database until the producer fetched the row.</li>
+ * <li>producer: from the fetch until the message was sent.</li>
+ * <li>queueDwell: from sending until the subscriber received the message.</li>
+ * <li>decompress, parse: decompressing and parsing the message in the subscriber.</li>
+ * <li>commit: from processing until the data is committed to Cassandra, Elasticsearch or the custom sink.</li>
+ * <li>endToEnd: from the insert into the intermediate database until the commit.</li>
+ * </ul>
+ * The stages across processes are measured with the wall clock of the producer and subscriber hosts in milliseconds,
+ * the stages within the subscriber in microseconds. The stages of all traces are also summed up in the trace
+ * {@link #ALL_TRACES}.
+ * <p>
+ * The percentiles are exported with the MBean com.exportstaging:type=PipelineLatency and, if
+ * export.latency.http.port is set, as JSON on http://127.0.0.1:port/latency.
+ */
+public final class PipelineLatency implements PipelineLatencyMBean {
+
+    public static final String ALL_TRACES = "*";
+    private static final String MBEAN_NAME = "com.exportstaging:type=PipelineLatency";
+    private static final String HTTP_PATH = "/latency";
+    private static final String TRACE_SEPARATOR = "|";
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+    private static final PipelineLatency INSTANCE = new PipelineLatency();
+    private static final Trace DISABLED_TRACE = new Trace(null, 0);
+
+    private final Map<String, Map<Stage, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private HttpServer httpServer;
+
+    public enum Stage {
+        IDB_DWELL("idbDwell"),
+        PRODUCER("producer"),
+        QUEUE_DWELL("queueDwell"),
+        DECOMPRESS("decompress"),
+        PARSE("parse"),
+        COMMIT("commit"),
+        END_TO_END("endToEnd");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            logger.debug("[PipelineLatency] MBean " + MBEAN_NAME + " is already registered");
+        } catch (Exception e) {
+            logger.error("[PipelineLatency] Failed to register MBean " + MBEAN_NAME + " Error Message:" + e.getMessage());
+        }
+    }
+
+    private PipelineLatency() {
+    }
+
+    /**
+     * Enables tracing and starts the HTTP endpoint once per process.
+     *
+     * @param enabled  false to skip tracing
+     * @param httpPort port of the HTTP endpoint on the loopback interface, 0 to serve no endpoint
+     */
+    public static synchronized void configure(boolean enabled, int httpPort) {
+        INSTANCE.enabled = enabled;
+        if (enabled && httpPort > 0 && INSTANCE.httpServer == null) {
+            INSTANCE.startHttpServer(httpPort);
+        }
+    }
+
+    /**
+     * Starts the trace of a message received by a subscriber and records the stages before the subscriber.
+     *
+     * @param subscriberName name of the subscriber
+     * @param itemType       item type of the message
+     * @param operationType  operation type of the message, see ExportMiscellaneousUtils.getOperationType
+     * @param message        received message
+     * @param receiveTime    time the message was received in milliseconds
+     * @return trace of the message
+     */
+    public static Trace startTrace(String subscriberName, String itemType, String operationType, MapMessage message,
+                                   long receiveTime) throws JMSException {
+        if (!INSTANCE.enabled) {
+            return DISABLED_TRACE;
+        }
+        long insertTime = getLong(message, ExportMiscellaneousUtils.IDB_ROW_INSERT_TIME);
+        long fetchTime = getLong(message, ExportMiscellaneousUtils.PRODUCER_FETCH_TIME);
+        long sendTime = message.getJMSTimestamp();
+        Trace trace = new Trace(subscriberName + TRACE_SEPARATOR + itemType + TRACE_SEPARATOR + operationType,
+                insertTime);
+        if (insertTime > 0 && fetchTime > 0) {
+            trace.recordMillis(Stage.IDB_DWELL, fetchTime - insertTime);
+        }
+        if (fetchTime > 0 && sendTime > 0) {
+            trace.recordMillis(Stage.PRODUCER, sendTime - fetchTime);
+        }
+        if (sendTime > 0) {
+            trace.recordMillis(Stage.QUEUE_DWELL, receiveTime - sendTime);
+        }
+        return trace;
+    }
+
+    @Override
+    public String[] getTraces() {
+        return new TreeMap<>(histograms).keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, Map<Stage, LatencyHistogram>> trace : new TreeMap<>(histograms).entrySet()) {
+            for (Map.Entry<Stage, LatencyHistogram> stage : trace.getValue().entrySet()) {
+                LatencyHistogram histogram = stage.getValue();
+                report.append(trace.getKey()).append(TRACE_SEPARATOR).append(stage.getKey().getName())
+                        .append(": count ").append(histogram.getCount());
+                for (int index = 0; index < PERCENTILES.length; index++) {
+                    report.append(", ").append(PERCENTILE_NAMES[index]).append(' ')
+                            .append(toMillis(histogram.getPercentile(PERCENTILES[index]))).append(" ms");
+                }
+                report.append(", max ").append(toMillis(histogram.getMax())).append(" ms\n");
+            }
+        }
+        return report.toString();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String getReportJson() {
+        JSONObject traces = new JSONObject();
+        for (Map.Entry<String, Map<Stage, LatencyHistogram>> trace : histograms.entrySet()) {
+            JSONObject stages = new JSONObject();
+            for (Map.Entry<Stage, LatencyHistogram> stage : trace.getValue().entrySet()) {
+                LatencyHistogram histogram = stage.getValue();
+                JSONObject values = new JSONObject();
+                values.put("count", histogram.getCount());
+                values.put("mean", toMillis(histogram.getMean()));
+                for (int index = 0; index < PERCENTILES.length; index++) {
+                    values.put(PERCENTILE_NAMES[index], toMillis(histogram.getPercentile(PERCENTILES[index])));
+                }
+                values.put("max", toMillis(histogram.getMax()));
+                stages.put(stage.getKey().getName(), values);
+            }
+            traces.put(trace.getKey(), stages);
+        }
+        return traces.toJSONString();
+    }
+
+    @Override
+    public long getQueueDwellP50Micros() {
+        return getPercentileMicros(ALL_TRACES, Stage.QUEUE_DWELL.getName(), 50);
+    }
+
+    @Override
+    public long getQueueDwellP99Micros() {
+        return getPercentileMicros(ALL_TRACES, Stage.QUEUE_DWELL.getName(), 99);
+    }
+
+    @Override
+    public long getQueueDwellP999Micros() {
+        return getPercentileMicros(ALL_TRACES, Stage.QUEUE_DWELL.getName(), 99.9);
+    }
+
+    @Override
+    public long getEndToEndP99Micros() {
+        return getPercentileMicros(ALL_TRACES, Stage.END_TO_END.getName(), 99);
+    }
+
+    @Override
+    public long getPercentileMicros(String trace, String stage, double percentile) {
+        Map<Stage, LatencyHistogram> stages = histograms.get(trace);
+        if (stages != null) {
+            for (Map.Entry<Stage, LatencyHistogram> entry : stages.entrySet()) {
+                if (entry.getKey().getName().equalsIgnoreCase(stage)) {
+                    return entry.getValue().getPercentile(percentile);
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void reset() {
+        histograms.values().forEach(stages -> stages.values().forEach(LatencyHistogram::reset));
+    }
+
+    private void record(String trace, Stage stage, long micros) {
+        getHistogram(trace, stage).record(micros);
+        getHistogram(ALL_TRACES, stage).record(micros);
+    }
+
+    private LatencyHistogram getHistogram(String trace, Stage stage) {
+        Map<Stage, LatencyHistogram> stages = histograms.computeIfAbsent(trace,
+                key -> Collections.synchronizedMap(new EnumMap<>(Stage.class)));
+        LatencyHistogram histogram = stages.get(stage);
+        return histogram != null ? histogram : stages.computeIfAbsent(stage, key -> new LatencyHistogram());
+    }
+
+    private void startHttpServer(int port) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            httpServer.createContext(HTTP_PATH, exchange -> {
+                byte[] response = getReportJson().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(response);
+                }
+            });
+            httpServer.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "PipelineLatencyHttp");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            httpServer.start();
+            logger.info("[PipelineLatency] Latencies are served on http://127.0.0.1:" + port + HTTP_PATH);
+        } catch (IOException e) {
+            httpServer = null;
+            logger.error("[PipelineLatency] Failed to serve latencies on port " + port + " Error Message:" + e.getMessage());
+        }
+    }
+
+    private static long getLong(MapMessage message, String name) throws JMSException {
+        return message.itemExists(name) ? message.getLong(name) : 0;
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Stages of one message in a subscriber. Stages are skipped for messages sent by producers without the
+     * timestamps.
+     */
+    public static final class Trace {
+        private final String trace;
+        private final long insertTime;
+        private volatile long commitStartTime;
+
+        private Trace(String trace, long insertTime) {
+            this.trace = trace;
+            this.insertTime = insertTime;
+        }
+
+        /**
+         * @param stage     stage within the subscriber
+         * @param startTime start of the stage from System.nanoTime()
+         */
+        public void recordSince(Stage stage, long startTime) {
+            if (trace != null) {
+                INSTANCE.record(trace, stage, (System.nanoTime() - startTime) / 1000);
+            }
+        }
+
+        /**
+         * Called before the message is handed to the sink.
+         */
+        public void startCommit() {
+            commitStartTime = System.nanoTime();
+        }
+
+        /**
+         * Called once the sink committed the message, possibly on another thread.
+         */
+        public void committed() {
+            if (trace == null || commitStartTime == 0) {
+                return;
+            }
+            recordSince(Stage.COMMIT, commitStartTime);
+            if (insertTime > 0) {
+                recordMillis(Stage.END_TO_END, System.currentTimeMillis() - insertTime);
+            }
+        }
+
+        private void recordMillis(Stage stage, long millis) {
+            if (trace != null) {
+                INSTANCE.record(trace, stage, millis * 1000);
+            }
+        }
+    }
+}
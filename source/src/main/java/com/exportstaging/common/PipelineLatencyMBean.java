@@ -0,0 +1,34 @@
+package com.exportstaging.common;
+
+/**
+ * Latencies of the export pipeline traced by {@link PipelineLatency}.
+ */
+public interface PipelineLatencyMBean {
+
+    /**
+     * @return traced subscriber|item type|operation type combinations
+     */
+    String[] getTraces();
+
+    /**
+     * @return p50/p99/p999 in milliseconds of every stage of every trace, one line per stage
+     */
+    String getReport();
+
+    /**
+     * @return JSON of {@link #getReport()}, as served by the HTTP endpoint
+     */
+    String getReportJson();
+
+    long getQueueDwellP50Micros();
+
+    long getQueueDwellP99Micros();
+
+    long getQueueDwellP999Micros();
+
+    long getEndToEndP99Micros();
+
+    long getPercentileMicros(String trace, String stage, double percentile);
+
+    void reset();
+}
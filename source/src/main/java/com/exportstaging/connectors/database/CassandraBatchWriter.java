@@ -0,0 +1,415 @@
+package com.exportstaging.connectors.database;
+
+import com.datastax.driver.core.*;
+import com.datastax.driver.core.utils.Bytes;
+import com.exportstaging.api.exception.ExportStagingException;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage of the MasterSubscriber, used with cassandra.writer.mode = window.
+ * <p>
+ * The bound statements written while a message is open ({@link #openMessage()}) are collected in a window shared by
+ * all subscriber consumers. The window is sent once it holds cassandra.writer.window.statements statements or
+ * cassandra.writer.window.millis after its first statement. {@link #closeMessage(String)} returns the future of the
+ * statements of the message, which the subscriber acknowledges the message on. Outside of a message the statements
+ * are sent at once and {@link #write(Collection)} waits for them.
+ * <p>
+ * The statements of a write are grouped by table and partition key. Every group is sent as one asynchronous request,
+ * a single statement or an UNLOGGED batch which stays on one partition. The number of requests in flight is bounded by
+ * cassandra.writer.max.inflight across all callers. All requests of a write carry the client timestamp taken from the
+ * timestamp generator of the driver when the write is added, so a later write or a delete executed directly wins over
+ * an earlier write still in the window regardless of the order the requests complete in. The statements of a message
+ * are not written atomically: if a request fails, the other partitions of the message may already be written until
+ * the message is redelivered. A single-partition batch rejected as too large is written statement by statement.
+ */
+@Component("cassandraBatchWriter")
+public class CassandraBatchWriter {
+    @Autowired
+    private CassandraConnection conn;
+
+    @Value("${cassandra.statement.batchsize}")
+    private int cassandraStatementBatchSize;
+    @Value("${cassandra.writer.mode}")
+    private String writerMode;
+    @Value("${cassandra.writer.max.inflight}")
+    private int maxInFlightRequests;
+    @Value("${cassandra.writer.window.statements}")
+    private int windowStatements;
+    @Value("${cassandra.writer.window.millis}")
+    private long windowMillis;
+
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+    private static final String CASSANDRA_BATCH_EXCEPTION = "Batch too large";
+    private static final String WRITER_MODE_LOGGED = "logged";
+
+    private final ThreadLocal<List<CompletableFuture<Boolean>>> messageWrites = new ThreadLocal<>();
+    private final Map<String, CompletableFuture<Boolean>> pendingMessages = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<Boolean>> pendingWrites = ConcurrentHashMap.newKeySet();
+    private final Object windowLock = new Object();
+    private List<PendingWrite> window = new ArrayList<>();
+    private int windowSize = 0;
+    private ScheduledFuture<?> scheduledSend;
+    private volatile Semaphore inFlightRequests;
+    private volatile ScheduledExecutorService windowExecutor;
+
+    /**
+     * @return true if the statements are written by this writer instead of one LOGGED batch per message
+     */
+    public boolean isWindowEnabled() {
+        return !WRITER_MODE_LOGGED.equalsIgnoreCase(writerMode);
+    }
+
+    /**
+     * Starts collecting the statements written by the current thread for one message.
+     */
+    public void openMessage() {
+        messageWrites.set(new ArrayList<>());
+    }
+
+    /**
+     * Ends the message of the current thread.
+     *
+     * @param messageKey key of the item of the message, see {@link #awaitMessage(String)}
+     * @return future completing with true once all statements of the message are written, exceptionally if one of
+     * them failed
+     */
+    public CompletableFuture<Boolean> closeMessage(String messageKey) {
+        List<CompletableFuture<Boolean>> writes = messageWrites.get();
+        messageWrites.remove();
+        if (writes == null || writes.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        CompletableFuture<Boolean> written = CompletableFuture.allOf(writes.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> true);
+        pendingMessages.put(messageKey, written);
+        written.whenComplete((processed, throwable) -> pendingMessages.remove(messageKey, written));
+        return written;
+    }
+
+    /**
+     * Waits until the statements of the last message with the key are written, so the rows of the item can be read.
+     * A failed write is not reported here, its message is redelivered.
+     *
+     * @param messageKey key of the item of the message
+     */
+    public void awaitMessage(String messageKey) {
+        CompletableFuture<Boolean> written = pendingMessages.get(messageKey);
+        if (written == null) {
+            return;
+        }
+        sendWindow();
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.debug("[CassandraBatchWriter] Earlier message of " + messageKey + " failed: " + e.getCause());
+        }
+    }
+
+    /**
+     * Writes the statements grouped by partition. Within a message they are added to the window and written later,
+     * otherwise they are sent at once and the call waits for their completion.
+     *
+     * @param statements BoundStatements of one table write
+     * @throws ExportStagingException if the statements cannot be grouped or, outside of a message, one of the
+     *                                requests failed, the exception of the first failed request is used
+     */
+    public void write(Collection<BoundStatement> statements) throws ExportStagingException {
+        if (statements.isEmpty()) {
+            return;
+        }
+        PendingWrite write = new PendingWrite(groupByPartition(statements), statements.size(), getTimestamp());
+        pendingWrites.add(write.written);
+        write.written.whenComplete((written, throwable) -> pendingWrites.remove(write.written));
+        List<CompletableFuture<Boolean>> writes = messageWrites.get();
+        if (writes != null) {
+            writes.add(write.written);
+            addToWindow(write);
+            return;
+        }
+        send(write);
+        try {
+            write.written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExportStagingException(e);
+        } catch (ExecutionException e) {
+            throw new ExportStagingException(e.getCause());
+        }
+    }
+
+    /**
+     * Sends the window and waits for all writes added before.
+     *
+     * @return true if all of them are written, false if one failed or the thread was interrupted
+     */
+    public boolean flush() {
+        sendWindow();
+        List<CompletableFuture<Boolean>> writes = new ArrayList<>(pendingWrites);
+        try {
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the window and stops the timer of the window, called on shutdown of the subscriber.
+     */
+    public void close() {
+        flush();
+        if (windowExecutor != null) {
+            windowExecutor.shutdown();
+        }
+    }
+
+    private void addToWindow(PendingWrite write) {
+        boolean full;
+        synchronized (windowLock) {
+            window.add(write);
+            windowSize += write.size;
+            full = windowSize >= windowStatements;
+            if (!full && scheduledSend == null) {
+                scheduledSend = getWindowExecutor().schedule(this::sendWindow, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full) {
+            sendWindow();
+        }
+    }
+
+    private void sendWindow() {
+        List<PendingWrite> writes;
+        synchronized (windowLock) {
+            writes = window;
+            window = new ArrayList<>();
+            windowSize = 0;
+            if (scheduledSend != null) {
+                scheduledSend.cancel(false);
+                scheduledSend = null;
+            }
+        }
+        for (PendingWrite write : writes) {
+            send(write);
+        }
+    }
+
+    private void send(PendingWrite write) {
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        try {
+            Session session = conn.getSession();
+            for (List<BoundStatement> partitionStatements : write.partitions) {
+                for (List<BoundStatement> chunk : Iterables.partition(partitionStatements, cassandraStatementBatchSize)) {
+                    requests.add(execute(session, chunk, write.timestamp));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            requests.add(failed(e));
+        } catch (ExportStagingException | RuntimeException e) {
+            requests.add(failed(e));
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).whenComplete((written, throwable) -> {
+            if (throwable == null) {
+                write.written.complete(true);
+            } else {
+                Throwable cause = getCause(throwable);
+                logger.warn("[CassandraBatchWriter] Write of " + write.size + " statements failed: " + cause.getMessage());
+                write.written.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private CompletableFuture<Void> execute(Session session, List<BoundStatement> chunk, long timestamp)
+            throws InterruptedException {
+        CompletableFuture<Void> executed = new CompletableFuture<>();
+        Futures.addCallback(executeAsync(session, toStatement(chunk, timestamp)), new FutureCallback<ResultSet>() {
+            @Override
+            public void onSuccess(ResultSet resultSet) {
+                executed.complete(null);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                if (chunk.size() > 1 && isBatchTooLarge(throwable)) {
+                    // not on the I/O thread of the driver, the single statements wait for permits
+                    getWindowExecutor().execute(() -> executeOneByOne(session, chunk, timestamp, executed));
+                } else {
+                    executed.completeExceptionally(throwable);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        return executed;
+    }
+
+    private void executeOneByOne(Session session, List<BoundStatement> chunk, long timestamp,
+                                 CompletableFuture<Void> executed) {
+        logger.info("[CassandraBatchWriter] Batch is too big for one request, writing " + chunk.size()
+                + " statements one by one.");
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        try {
+            for (BoundStatement statement : chunk) {
+                requests.add(execute(session, Collections.singletonList(statement), timestamp));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            requests.add(failed(e));
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).whenComplete((written, throwable) -> {
+            if (throwable == null) {
+                executed.complete(null);
+            } else {
+                executed.completeExceptionally(getCause(throwable));
+            }
+        });
+    }
+
+    private static CompletableFuture<Void> failed(Throwable throwable) {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(throwable);
+        return failed;
+    }
+
+    private static Throwable getCause(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    private boolean isBatchTooLarge(Throwable exception) {
+        return exception != null && exception.getMessage() != null
+                && exception.getMessage().contains(CASSANDRA_BATCH_EXCEPTION);
+    }
+
+    private ResultSetFuture executeAsync(Session session, Statement statement) throws InterruptedException {
+        Semaphore permits = getInFlightRequests();
+        permits.acquire();
+        ResultSetFuture future;
+        try {
+            future = session.executeAsync(statement);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        future.addListener(permits::release, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    private Statement toStatement(List<BoundStatement> statements, long timestamp) {
+        Statement statement;
+        if (statements.size() == 1) {
+            statement = statements.get(0);
+        } else {
+            BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+            batch.addAll(statements);
+            statement = batch;
+        }
+        return statement.setDefaultTimestamp(timestamp);
+    }
+
+    /**
+     * Client timestamp of a write, Long.MIN_VALUE if the driver leaves the timestamps to the server.
+     */
+    private long getTimestamp() throws ExportStagingException {
+        return conn.getCluster().getConfiguration().getPolicies().getTimestampGenerator().next();
+    }
+
+    /**
+     * Groups the statements by table and routing key. Statements without routing key, e.g. because a partition key
+     * column is not bound, are sent one by one.
+     */
+    private Collection<List<BoundStatement>> groupByPartition(Collection<BoundStatement> statements) throws ExportStagingException {
+        Configuration configuration = conn.getCluster().getConfiguration();
+        ProtocolVersion protocolVersion = configuration.getProtocolOptions().getProtocolVersion();
+        CodecRegistry codecRegistry = configuration.getCodecRegistry();
+        Map<String, List<BoundStatement>> partitions = new LinkedHashMap<>();
+        int unroutedStatements = 0;
+        for (BoundStatement statement : statements) {
+            ByteBuffer routingKey = statement.getRoutingKey(protocolVersion, codecRegistry);
+            String partitionKey;
+            if (routingKey == null) {
+                partitionKey = "#" + unroutedStatements++;
+            } else {
+                partitionKey = getTableName(statement) + ":" + Bytes.toHexString(routingKey);
+            }
+            partitions.computeIfAbsent(partitionKey, key -> new ArrayList<>()).add(statement);
+        }
+        if (unroutedStatements > 0) {
+            logger.debug("[CassandraBatchWriter] " + unroutedStatements + " statements without routing key");
+        }
+        return partitions.values();
+    }
+
+    private String getTableName(BoundStatement statement) {
+        ColumnDefinitions variables = statement.preparedStatement().getVariables();
+        if (variables.size() == 0) {
+            return statement.preparedStatement().getQueryString();
+        }
+        return variables.getKeyspace(0) + "." + variables.getTable(0);
+    }
+
+    private Semaphore getInFlightRequests() {
+        if (inFlightRequests == null) {
+            synchronized (this) {
+                if (inFlightRequests == null) {
+                    inFlightRequests = new Semaphore(maxInFlightRequests);
+                }
+            }
+        }
+        return inFlightRequests;
+    }
+
+    private ScheduledExecutorService getWindowExecutor() {
+        if (windowExecutor == null) {
+            synchronized (this) {
+                if (windowExecutor == null) {
+                    windowExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "CassandraBatchWriter");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return windowExecutor;
+    }
+
+    /**
+     * Statements of one table write grouped by partition, with the client timestamp of the write.
+     */
+    private static final class PendingWrite {
+        private final Collection<List<BoundStatement>> partitions;
+        private final int size;
+        private final long timestamp;
+        private final CompletableFuture<Boolean> written = new CompletableFuture<>();
+
+        PendingWrite(Collection<List<BoundStatement>> partitions, int size, long timestamp) {
+            this.partitions = partitions;
+            this.size = size;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -7,7 +7,6 @@ import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import com.exportstaging.utils.CassandraListener;
 import com.google.common.collect.Iterables;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
@@ -15,10 +14,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static com.datastax.driver.core.BatchStatement.Type.LOGGED;
@@ -36,20 +33,23 @@ public class CassandraDAO {
     @Value("${activemq.subscriber.master}")
     protected String masterSubscriber;
 
+    @Autowired
+    private CassandraBatchWriter cassandraBatchWriter;
+    @Autowired
+    private CassandraStatementCache statementCache;
+
     @Value("${cassandra.statement.batchsize}")
     private int cassandraStatementBatchSize;
+    @Value("${cassandra.writer.mode}")
+    private String cassandraWriterMode;
     private String cassDownMsg = "Cassandra database unavailable. Waiting for Cassandra database before retrying";
     private String cassUpMsg = "Cassandra connection successful. Resuming waiting operations";
     private String keyspaceTemplate = "keyspace_template";
     protected final Logger logger = LogManager.getLogger("exportstaging");
-    private Map<String, Map<String, String>> columnNameWithType     = new HashMap<>();
-    private static Map<String, PreparedStatement> prepareStatements = new HashMap<>();
+    private Map<String, Map<String, String>> columnNameWithType     = new ConcurrentHashMap<>();
 
-    private static final String CASSANDRA_COLUMN_NOT_IN_METADATA = "is not a column defined in this metadata";
-    private static final String CASSANDRA_UNMATCHED_COLUMN_VALUE = "Unmatched column names/values";
     private static final String CASSANDRA_BATCH_EXCEPTION        = "Batch too large";
-    private static final String CONST_FORMATE_DATE_TIME          = "yyyy-MM-dd HH:mm:ss";
-    private static final String CONST_DEFAULT_DATE_VALUE         = "0000-00-00 00:00:00";
+    private static final String CASSANDRA_WRITER_MODE_LOGGED     = "logged";
 
     public CassandraDAO() {
     }
@@ -174,7 +174,7 @@ public class CassandraDAO {
     public Map<String, String> getColumnNameWithDataType(String tableName) throws ExportStagingException {
         Map<String, String> columnNameAndType;
         if (getColumnNameWithType().get(tableName) == null) {
-            columnNameAndType = new HashMap<>();
+            columnNameAndType = new ConcurrentHashMap<>();
             try {
                 if (conn.getCluster().getMetadata().getKeyspace(conn.getKeyspace()).getTable(tableName) != null) {
                     List<ColumnMetadata> list = conn.getCluster().getMetadata().getKeyspace(conn.getKeyspace()).getTable(tableName).getColumns();
@@ -213,13 +213,24 @@ public class CassandraDAO {
     }
 
     public ResultSet dbOperations(String query) throws ExportStagingException {
+        SimpleStatement statement = new SimpleStatement(query.replace(keyspaceTemplate, conn.getKeyspace()));
+        statement.setReadTimeoutMillis(ExportMiscellaneousUtils.CONST_READ_TIMEOUT_IN_MILISEC);
+        return execute(statement);
+    }
+
+    /**
+     * Executes a statement, if no Cassandra host is available it is executed again once a host is up.
+     *
+     * @param statement Statement to execute, e.g. a BoundStatement of the CassandraStatementCache
+     * @return ResultSet of the statement
+     * @throws ExportStagingException exception object if the execution failed
+     */
+    public ResultSet execute(Statement statement) throws ExportStagingException {
         try {
-            PreparedStatement prepared = conn.getSession().prepare(query.replace(keyspaceTemplate, conn.getKeyspace()));
-            BoundStatement bound = (BoundStatement) prepared.bind().setReadTimeoutMillis(ExportMiscellaneousUtils.CONST_READ_TIMEOUT_IN_MILISEC);
-            return conn.getSession().execute(bound);
+            return conn.getSession().execute(statement);
         } catch (NoHostAvailableException e) {
             handleNoHostAvailableException();
-            return dbOperations(query);
+            return execute(statement);
         } catch (Exception e) {
             throw new ExportStagingException(e);
         }
@@ -257,23 +268,9 @@ public class CassandraDAO {
             Map<String, Object> objectFieldValueMapping,
             Map<String, String> columnNameWithDataType,
             Set<BoundStatement> bindStatement) throws ExportStagingException {
-        Set<String> columnNames = objectFieldValueMapping.keySet();
-        PreparedStatement statement = getStatement(tableName, String.join(",", objectFieldValueMapping.keySet()));
-        BoundStatement boundStatement = statement.bind();
-        try {
-            for (String columnName : columnNames) {
-                String columnDataType = columnNameWithDataType.get(columnName);
-                Object columnValue = objectFieldValueMapping.get(columnName);
-                prepareBoundStatement(boundStatement, columnName, columnDataType, columnValue);
-            }
-        } catch (ExportStagingException exception) {
-            if (exception.getMessage().contains(CASSANDRA_COLUMN_NOT_IN_METADATA)) {
-                prepareStatements.remove(tableName);
-                processReferenceOrSubtableData(tableName, objectFieldValueMapping, columnNameWithDataType, bindStatement);
-            } else {
-                throw exception;
-            }
-        }
+        CassandraRowBinder rowBinder = statementCache.getInsertBinder(tableName, objectFieldValueMapping.keySet());
+        BoundStatement boundStatement = rowBinder.getStatement().bind();
+        rowBinder.bind(boundStatement, objectFieldValueMapping);
         bindStatement.add(boundStatement);
     }
 
@@ -281,12 +278,18 @@ public class CassandraDAO {
     /**
      * Execution of batch statement will be done here
      * If execution of batching failed single statement will be executed
+     * With cassandra.writer.mode = window the statements are handed to the CassandraBatchWriter, which writes them
+     * with the write window of the current message if the subscriber opened one
      *
      * @param bindStatement Set of BoundStatement
      * @return true if execution of statement is success otherwise false
      * @throws ExportStagingException exception object if exception occurs
      */
     public Boolean executeBatch(Set<BoundStatement> bindStatement) throws ExportStagingException {
+        if (!CASSANDRA_WRITER_MODE_LOGGED.equalsIgnoreCase(cassandraWriterMode)) {
+            cassandraBatchWriter.write(bindStatement);
+            return true;
+        }
         BatchStatement batch = new BatchStatement(LOGGED);
 
         try {
@@ -332,184 +335,15 @@ public class CassandraDAO {
             String tableName, Map<String, Object> attributeValueMapping,
             Map<String, String> columnNameWithDataType,
             Set<BoundStatement> bindStatement) throws Exception {
-        Set<String> columnNames = attributeValueMapping.keySet();
-        PreparedStatement statement = getItemStatement(tableName, String.join(",", columnNames));
-        BoundStatement boundStatement = statement.bind();
-        try {
-            for (String columnName : columnNames) {
-                String columnDataType = columnNameWithDataType.get(columnName);
-                Object columnValue = attributeValueMapping.get(columnName);
-                prepareBoundStatement(boundStatement, columnName, columnDataType, columnValue);
-            }
-        } catch (ExportStagingException exception) {
-            if (exception.getMessage().contains(CASSANDRA_COLUMN_NOT_IN_METADATA)) {
-                prepareStatements.remove(tableName);
-                processItemData(tableName, attributeValueMapping, columnNameWithDataType, bindStatement);
-            } else {
-                throw exception;
-            }
-        }
+        CassandraRowBinder rowBinder = statementCache.getInsertBinder(tableName, attributeValueMapping.keySet());
+        BoundStatement boundStatement = rowBinder.getStatement().bind();
+        rowBinder.bind(boundStatement, attributeValueMapping);
         bindStatement.add(boundStatement);
 
         return true;
     }
 
 
-    /**
-     * Bind column with provided field data
-     * Column Name and its values bind according to data type
-     *
-     * @param boundStatement BoundStatement where we need to bind the values
-     * @param fieldName String name of field
-     * @param fieldType String type of field
-     * @param columnValues Object column Values
-     *
-     * @throws ExportStagingException exception object if exception occurs
-     */
-    private void prepareBoundStatement(BoundStatement boundStatement, String fieldName, String fieldType, Object columnValues) throws ExportStagingException {
-        if (StringUtils.isEmpty(fieldType)) {
-            fieldType = "text";
-        }
-        try {
-            switch (fieldType) {
-                case "int":
-                    String intFieldValue = getValueFromObject(columnValues);
-                    intFieldValue = (StringUtils.isEmpty(intFieldValue) || intFieldValue.equalsIgnoreCase("null")) ? "0" : intFieldValue;
-                    boundStatement.setInt(fieldName, Integer.parseInt(intFieldValue));
-                    break;
-                case "bigint":
-                    String bigintFieldValue = getValueFromObject(columnValues);
-                    bigintFieldValue = (StringUtils.isEmpty(bigintFieldValue) || bigintFieldValue.equalsIgnoreCase("null")) ? "0" : bigintFieldValue;
-                    boundStatement.setLong(fieldName, Long.parseLong(bigintFieldValue));
-                    break;
-                case "float":
-                    String floatFieldValue = getValueFromObject(columnValues);
-                    floatFieldValue = (StringUtils.isEmpty(floatFieldValue) || floatFieldValue.equalsIgnoreCase("null")) ? "0" : floatFieldValue;
-                    boundStatement.setFloat(fieldName, Float.parseFloat(floatFieldValue));
-                    break;
-                case "timestamp":
-                    boundStatement.setTimestamp(fieldName, getFormattedDate(columnValues));
-                    break;
-                default:
-                    boundStatement.setString(fieldName, String.valueOf(columnValues));
-                    break;
-            }
-        } catch (Exception e) {
-            //System.out.println("Field Name: " + fieldName + " Type " + fieldType + " " + e.getMessage());
-            throw new ExportStagingException(e.getMessage());
-        }
-    }
-
-
-    /**
-     * get String conversion of columnValues
-     *
-     * @param columnValue String column values
-     * @return String value after conversion from different type
-     */
-    private String getValueFromObject(Object columnValue) {
-        return String.valueOf(columnValue);
-    }
-
-
-    /**
-     * Date format will be return as per the provided date information
-     *
-     * @param providedDate Object provided date format
-     *
-     * @return date after parsing
-     *
-     * @throws ParseException exception object if exception occurs
-     */
-    private Date getFormattedDate(Object providedDate) throws ParseException {
-        Date parseDate;
-        String dateValue = getValueFromObject(providedDate);
-        try {
-            if (StringUtils.isEmpty(dateValue) || dateValue.equalsIgnoreCase("null")) {
-                dateValue = CONST_DEFAULT_DATE_VALUE;
-                parseDate = new SimpleDateFormat(CONST_FORMATE_DATE_TIME).parse(dateValue);
-            } else if (dateValue.contains("now")) {
-                DateFormat dateFormat = new SimpleDateFormat(CONST_FORMATE_DATE_TIME);
-                 parseDate = new Date();
-                dateFormat.format(parseDate);
-            } else {
-                parseDate = new SimpleDateFormat(CONST_FORMATE_DATE_TIME).parse(dateValue);
-            }
-        }catch (ParseException exception) {
-            if(!dateValue.contains(":")){
-                dateValue = dateValue + " 00:00:00";
-            }
-            parseDate = new SimpleDateFormat(CONST_FORMATE_DATE_TIME).parse(dateValue);
-        }
-        return parseDate;
-    }
-
-
-    /**
-     * Provides statement for reference handling
-     *
-     * @param tableName   String name of table as of now its useful for reference and subtable
-     * @param columnNames String all columns in the form of String with ',' separated
-     * @return PreparedStatement for reference and subtable
-     * @throws ExportStagingException exception object if exception occurs
-     */
-    public PreparedStatement getStatement(String tableName, String columnNames) throws ExportStagingException {
-        return prepareStatement(tableName, columnNames);
-    }
-
-
-    /**
-     * Provides statement for reference handling
-     *
-     * @param tableName   String name of table as of now its useful for reference and subtable
-     * @param columnNames String all columns in the form of String with ',' separated
-     * @return PreparedStatement for reference and subtable
-     * @throws ExportStagingException exception object if exception occurs
-     */
-    public PreparedStatement getItemStatement(String tableName, String columnNames) throws ExportStagingException {
-        return prepareStatement(tableName, columnNames);
-    }
-
-
-    /**
-     * PreparedStatement will be prepare as per the cassandra table name
-     * for each table separate PreparedStatement will be prepared and cache for further used
-     * Only values would be bind to this statement, no new PreparedStatement will be generated
-     *
-     * @param tableName   String name of table
-     * @param columnNames String All column with separated by ','
-     * @return PreparedStatement for further used
-     * @throws ExportStagingException exception object if exception occurs
-     */
-    public PreparedStatement prepareStatement(String tableName, String columnNames) throws ExportStagingException {
-        if (prepareStatements.get(tableName) == null) {
-            String queryFormat = "insert into " + conn.getKeyspace() + "." + tableName + " (" + columnNames + ") values(";
-            long columnCount = columnNames.chars().filter(ch -> ch == ',').count();
-            String bindExpression = "";
-            for (int counter = 0; counter <= columnCount; counter++) {
-                bindExpression = bindExpression + "?, ";
-            }
-            bindExpression = StringUtils.substring(bindExpression, 0, bindExpression.length() - 2);
-            queryFormat = queryFormat + bindExpression + ")";
-            PreparedStatement prepared = null;
-            try {
-                prepared = conn.getSession().prepare(queryFormat);
-            } catch (Exception e) {
-                String message = e.getMessage();
-                if (message.contains(CASSANDRA_UNMATCHED_COLUMN_VALUE)) {
-                    prepareStatements.remove(tableName);
-                    prepareStatement(tableName, columnNames);
-                }
-                throw new ExportStagingException(e);
-            }
-            prepareStatements.put(tableName, prepared);
-
-        }
-
-        return prepareStatements.get(tableName);
-    }
-
-
     private boolean insertBatch(List<String> queries) throws ExportStagingException {
         BatchStatement batch = new BatchStatement(BatchStatement.Type.LOGGED);
         batch.setReadTimeoutMillis(ExportMiscellaneousUtils.CONST_READ_TIMEOUT_IN_MILISEC);
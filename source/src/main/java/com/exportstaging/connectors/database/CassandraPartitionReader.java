@@ -0,0 +1,165 @@
+package com.exportstaging.connectors.database;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.common.ExportMiscellaneousUtils;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads the rows of many items with single partition requests instead of multi partition IN queries.
+ * <p>
+ * The item tables are partitioned by LanguageID, so items are read with one request per language and chunk of
+ * cassandra.reader.chunksize IDs. The record tables are partitioned by ID, so records are read with one request per
+ * ID. The requests are prepared statements, so the token aware load balancing policy of the driver sends every
+ * request to a replica of its partition instead of one coordinator gathering all partitions. The requests are executed
+ * asynchronously, at most cassandra.reader.max.inflight across all callers, and the rows are returned in the order
+ * of the requests.
+ */
+@Component("cassandraPartitionReader")
+public class CassandraPartitionReader {
+    @Autowired
+    private CassandraConnection conn;
+    @Autowired
+    private CassandraStatementCache statementCache;
+
+    @Value("${cassandra.reader.chunksize}")
+    private int chunkSize;
+    @Value("${cassandra.reader.max.inflight}")
+    private int maxInFlightRequests;
+
+    private volatile Semaphore inFlightRequests;
+
+    /**
+     * Reads the rows of the items in the languages from an item table.
+     *
+     * @param tableName   String name of the item table
+     * @param itemIds     List of item IDs
+     * @param languageIds Collection of language IDs
+     * @return rows ordered by chunk of IDs and language
+     * @throws ExportStagingException if one of the requests failed
+     */
+    public List<Row> readItems(String tableName, List<Long> itemIds, Collection<Long> languageIds)
+            throws ExportStagingException {
+        PreparedStatement select = statementCache.getSelectStatement(tableName, "\"LanguageID\" = ? AND \"ID\" IN ?");
+        List<Statement> statements = new ArrayList<>();
+        for (List<Long> chunk : Lists.partition(itemIds, Math.max(chunkSize, 1))) {
+            for (Long languageId : languageIds) {
+                statements.add(select.bind(languageId, chunk)
+                        .setReadTimeoutMillis(ExportMiscellaneousUtils.CONST_READ_TIMEOUT_IN_MILISEC));
+            }
+        }
+        return read(statements);
+    }
+
+    /**
+     * Reads the rows of the records from a record table.
+     *
+     * @param tableName String name of the record table
+     * @param recordIds List of record IDs
+     * @return rows ordered by ID
+     * @throws ExportStagingException if one of the requests failed
+     */
+    public List<Row> readRecords(String tableName, List<Long> recordIds) throws ExportStagingException {
+        PreparedStatement select = statementCache.getSelectStatement(tableName, "\"ID\" = ?");
+        List<Statement> statements = new ArrayList<>(recordIds.size());
+        for (Long recordId : recordIds) {
+            statements.add(select.bind(recordId)
+                    .setReadTimeoutMillis(ExportMiscellaneousUtils.CONST_READ_TIMEOUT_IN_MILISEC));
+        }
+        return read(statements);
+    }
+
+    /**
+     * Executes the statements asynchronously and collects their rows.
+     *
+     * @param statements statements to execute
+     * @return rows of all statements in the order of the statements
+     * @throws ExportStagingException if one of the requests failed, the remaining requests are cancelled
+     */
+    public List<Row> read(List<? extends Statement> statements) throws ExportStagingException {
+        return readGroups(Collections.singletonList(statements)).get(0);
+    }
+
+    /**
+     * Executes the statements of all groups asynchronously, so independent queries run in parallel, and collects the
+     * rows per group.
+     *
+     * @param groups statements per group
+     * @return rows per group in the order of the groups, the rows of a group in the order of its statements
+     * @throws ExportStagingException if one of the requests failed, the remaining requests are cancelled
+     */
+    public List<List<Row>> readGroups(List<? extends List<? extends Statement>> groups) throws ExportStagingException {
+        Session session = conn.getSession();
+        List<ResultSetFuture> futures = new ArrayList<>();
+        try {
+            for (List<? extends Statement> statements : groups) {
+                for (Statement statement : statements) {
+                    futures.add(executeAsync(session, statement));
+                }
+            }
+            List<List<Row>> groupRows = new ArrayList<>(groups.size());
+            int futureIndex = 0;
+            for (List<? extends Statement> statements : groups) {
+                List<Row> rows = new ArrayList<>();
+                for (int i = 0; i < statements.size(); i++) {
+                    rows.addAll(futures.get(futureIndex++).get().all());
+                }
+                groupRows.add(rows);
+            }
+            return groupRows;
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new ExportStagingException(e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            throw new ExportStagingException(e.getCause());
+        }
+    }
+
+    private ResultSetFuture executeAsync(Session session, Statement statement) throws InterruptedException {
+        Semaphore permits = getInFlightRequests();
+        permits.acquire();
+        ResultSetFuture future;
+        try {
+            future = session.executeAsync(statement);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        future.addListener(permits::release, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    private void cancel(List<ResultSetFuture> futures) {
+        for (ResultSetFuture future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private Semaphore getInFlightRequests() {
+        if (inFlightRequests == null) {
+            synchronized (this) {
+                if (inFlightRequests == null) {
+                    inFlightRequests = new Semaphore(maxInFlightRequests);
+                }
+            }
+        }
+        return inFlightRequests;
+    }
+}
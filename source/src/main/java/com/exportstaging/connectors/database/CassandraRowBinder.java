@@ -0,0 +1,198 @@
+package com.exportstaging.connectors.database;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.SettableByIndexData;
+import com.exportstaging.api.exception.ExportStagingException;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binds the field values of one row to the variables of an insert statement.
+ * <p>
+ * The binder is compiled once per prepared statement: every quoted column name is mapped to the index of its variable
+ * and to a setter for the data type of the column. Values are converted directly from the objects of the item message,
+ * numbers are not formatted to Strings before being parsed again and timestamps are parsed with a shared
+ * {@link DateTimeFormatter}. Binders are cached together with their statement by the {@link CassandraStatementCache}.
+ */
+public class CassandraRowBinder {
+
+    private static final String COLUMN_NOT_IN_METADATA = "is not a column defined in this metadata";
+
+    private static final String            CONST_FORMATE_DATE_TIME  = "yyyy-MM-dd HH:mm:ss";
+    private static final String            CONST_DEFAULT_DATE_VALUE = "0000-00-00 00:00:00";
+    private static final DateTimeFormatter DATE_TIME_FORMATTER      =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss").withResolverStyle(ResolverStyle.STRICT);
+    private static final long              DEFAULT_DATE_TIME        = parseLegacyDate(CONST_DEFAULT_DATE_VALUE).getTime();
+
+    private final PreparedStatement     statement;
+    private final Map<String, Variable> variables;
+
+    /**
+     * @param statement prepared insert statement
+     */
+    public CassandraRowBinder(PreparedStatement statement) {
+        ColumnDefinitions columnDefinitions = statement.getVariables();
+        this.statement = statement;
+        variables = new HashMap<>(columnDefinitions.size() * 2);
+        for (int index = 0; index < columnDefinitions.size(); index++) {
+            addVariable(columnDefinitions.getName(index), index, columnDefinitions.getType(index));
+        }
+    }
+
+    /**
+     * @param columnTypes data types of the variables in the order of the statement, keyed by the column name
+     */
+    public CassandraRowBinder(Map<String, DataType> columnTypes) {
+        statement = null;
+        variables = new HashMap<>(columnTypes.size() * 2);
+        int index = 0;
+        for (Map.Entry<String, DataType> columnType : columnTypes.entrySet()) {
+            addVariable(columnType.getKey(), index++, columnType.getValue());
+        }
+    }
+
+    /**
+     * @return prepared statement the binder was compiled for
+     */
+    public PreparedStatement getStatement() {
+        return statement;
+    }
+
+    /**
+     * Binds the given field values.
+     *
+     * @param target      BoundStatement or any other settable data with the variables of the statement
+     * @param fieldValues Map of quoted column name and its value
+     * @throws ExportStagingException if a column is not a variable of the statement or a value cannot be converted
+     */
+    public void bind(SettableByIndexData<?> target, Map<String, Object> fieldValues) throws ExportStagingException {
+        for (Map.Entry<String, Object> fieldValue : fieldValues.entrySet()) {
+            Variable variable = variables.get(fieldValue.getKey());
+            if (variable == null) {
+                throw new ExportStagingException(fieldValue.getKey() + " " + COLUMN_NOT_IN_METADATA);
+            }
+            try {
+                variable.setter.set(target, variable.index, fieldValue.getValue());
+            } catch (ArithmeticException e) {
+                throw new ExportStagingException("Value " + fieldValue.getValue() + " of " + fieldValue.getKey()
+                        + " is out of the range of int");
+            } catch (Exception e) {
+                throw new ExportStagingException(e.getMessage());
+            }
+        }
+    }
+
+    private void addVariable(String columnName, int index, DataType dataType) {
+        variables.put("\"" + columnName + "\"", new Variable(index, getSetter(dataType)));
+    }
+
+    private static ValueSetter getSetter(DataType dataType) {
+        switch (dataType.getName()) {
+            case INT:
+                return (target, index, value) -> target.setInt(index, toInt(value));
+            case BIGINT:
+                return (target, index, value) -> target.setLong(index, toLong(value));
+            case FLOAT:
+                return (target, index, value) -> target.setFloat(index, toFloat(value));
+            case TIMESTAMP:
+                return (target, index, value) -> target.setTimestamp(index, toDate(value));
+            default:
+                return (target, index, value) -> target.setString(index, String.valueOf(value));
+        }
+    }
+
+    static int toInt(Object value) {
+        if (value instanceof Integer || value instanceof Short) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Long) {
+            return Math.toIntExact((Long) value);
+        }
+        String stringValue = String.valueOf(value);
+        return isEmpty(stringValue) ? 0 : Integer.parseInt(stringValue);
+    }
+
+    static long toLong(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+            return ((Number) value).longValue();
+        }
+        String stringValue = String.valueOf(value);
+        return isEmpty(stringValue) ? 0L : Long.parseLong(stringValue);
+    }
+
+    static float toFloat(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).floatValue();
+        }
+        String stringValue = String.valueOf(value);
+        return isEmpty(stringValue) ? 0F : Float.parseFloat(stringValue);
+    }
+
+    /**
+     * Converts a value to a timestamp. Empty values are stored as "0000-00-00 00:00:00", values containing "now" as the
+     * current time and dates without time as midnight. Values which do not strictly follow yyyy-MM-dd HH:mm:ss are
+     * parsed with the lenient {@link SimpleDateFormat} used before.
+     */
+    static Date toDate(Object value) throws ParseException {
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        String dateValue = String.valueOf(value);
+        if (isEmpty(dateValue)) {
+            return new Date(DEFAULT_DATE_TIME);
+        }
+        if (dateValue.contains("now")) {
+            return new Date();
+        }
+        if (dateValue.length() == CONST_FORMATE_DATE_TIME.length()) {
+            try {
+                LocalDateTime dateTime = LocalDateTime.parse(dateValue, DATE_TIME_FORMATTER);
+                return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+            } catch (RuntimeException e) {
+                // lenient values like 2019-02-30 are resolved by SimpleDateFormat
+            }
+        }
+        Date date = parseLegacyDate(dateValue);
+        if (date == null && !dateValue.contains(":")) {
+            date = parseLegacyDate(dateValue + " 00:00:00");
+        }
+        if (date == null) {
+            throw new ParseException("Unparseable date: \"" + dateValue + "\"", 0);
+        }
+        return date;
+    }
+
+    private static Date parseLegacyDate(String dateValue) {
+        return new SimpleDateFormat(CONST_FORMATE_DATE_TIME).parse(dateValue, new ParsePosition(0));
+    }
+
+    private static boolean isEmpty(String value) {
+        return value.isEmpty() || value.equalsIgnoreCase("null");
+    }
+
+    @FunctionalInterface
+    private interface ValueSetter {
+        void set(SettableByIndexData<?> target, int index, Object value) throws Exception;
+    }
+
+    private static class Variable {
+        private final int         index;
+        private final ValueSetter setter;
+
+        private Variable(int index, ValueSetter setter) {
+            this.index = index;
+            this.setter = setter;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.exportstaging.connectors.database;
+
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.SchemaChangeListenerBase;
+import com.datastax.driver.core.TableMetadata;
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.utils.CassandraListener;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of the prepared insert, select and delete statements of the export tables.
+ * <p>
+ * A statement is cached per table, set of columns and schema version of the table. The schema version is increased by
+ * the table events Cassandra sends through the {@link CassandraListener}, so a statement prepared before an ALTER TABLE
+ * is never used afterwards. Statements are prepared asynchronously outside of any lock: only writers which need the
+ * same statement wait for its preparation, all other writers continue with their cached statements.
+ * <p>
+ * Hits, misses, preparations and invalidations are exported with the MBean
+ * com.exportstaging:type=CassandraStatementCache.
+ */
+@Component("cassandraStatementCache")
+public class CassandraStatementCache implements CassandraStatementCacheMBean {
+    @Autowired
+    private CassandraConnection conn;
+    @Autowired
+    private CassandraListener listener;
+
+    private static final String MBEAN_NAME = "com.exportstaging:type=CassandraStatementCache";
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+
+    private final Map<String, Map<String, CachedStatement>> tableStatements = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder preparations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void registerListeners() {
+        listener.addSchemaChangeListener(new TableChangeListener());
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            logger.debug("[CassandraStatementCache] MBean " + MBEAN_NAME + " is already registered");
+        } catch (Exception e) {
+            logger.error("[CassandraStatementCache] Failed to register MBean " + MBEAN_NAME + " Error Message:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Provides the binder of the insert statement for the given columns of a table. The statement is prepared if the
+     * columns were not inserted into the current schema version of the table before.
+     *
+     * @param tableName   String name of table
+     * @param columnNames Set of quoted column names
+     * @return CassandraRowBinder with the prepared statement
+     * @throws ExportStagingException if the statement cannot be prepared
+     */
+    public CassandraRowBinder getInsertBinder(String tableName, Set<String> columnNames) throws ExportStagingException {
+        String table = tableName.toLowerCase();
+        String statementKey = getVersion(table).get() + ":" + getColumnSetHash(columnNames);
+        Map<String, CachedStatement> statements = tableStatements.computeIfAbsent(table, key -> new ConcurrentHashMap<>());
+        CachedStatement cachedStatement = statements.get(statementKey);
+        if (cachedStatement != null && cachedStatement.columns.equals(columnNames)) {
+            hits.increment();
+        } else {
+            misses.increment();
+            CachedStatement preparedStatement = prepare(table, columnNames);
+            if (cachedStatement == null) {
+                cachedStatement = statements.putIfAbsent(statementKey, preparedStatement);
+            }
+            if (cachedStatement == null || !cachedStatement.columns.equals(columnNames)) {
+                cachedStatement = preparedStatement;
+            }
+        }
+        try {
+            return cachedStatement.getRowBinder();
+        } catch (ExecutionException e) {
+            statements.remove(statementKey, cachedStatement);
+            throw new ExportStagingException(e.getCause());
+        }
+    }
+
+    /**
+     * Provides the statement selecting all columns of a table with the given where clause. Like the insert statements
+     * it is prepared again after a change of the table, so the columns of its rows are those of the current schema.
+     *
+     * @param tableName   String name of table
+     * @param whereClause where clause with bind markers, e.g. "ID" = ?
+     * @return PreparedStatement of the select
+     * @throws ExportStagingException if the statement cannot be prepared
+     */
+    public PreparedStatement getSelectStatement(String tableName, String whereClause) throws ExportStagingException {
+        String table = tableName.toLowerCase();
+        return getStatement(table, "select:" + whereClause,
+                "select * from " + conn.getKeyspace() + "." + table + " where " + whereClause).getStatement();
+    }
+
+    /**
+     * Provides the binder of the statement selecting the given columns of a table with the given where clause.
+     *
+     * @param tableName   String name of table
+     * @param columnNames List of quoted column names
+     * @param whereClause where clause with bind markers, e.g. "ItemID" = ?
+     * @return CassandraRowBinder binding the variables of the where clause by their quoted column names
+     * @throws ExportStagingException if the statement cannot be prepared
+     */
+    public CassandraRowBinder getSelectBinder(String tableName, List<String> columnNames, String whereClause)
+            throws ExportStagingException {
+        String table = tableName.toLowerCase();
+        String columns = String.join(",", columnNames);
+        return getStatement(table, "select:" + columns + ":" + whereClause,
+                "select " + columns + " from " + conn.getKeyspace() + "." + table + " where " + whereClause);
+    }
+
+    /**
+     * Provides the binder of the statement deleting the rows of a table selected by the given where clause.
+     *
+     * @param tableName   String name of table
+     * @param whereClause where clause with bind markers, e.g. "ItemID" = ?
+     * @return CassandraRowBinder binding the variables of the where clause by their quoted column names
+     * @throws ExportStagingException if the statement cannot be prepared
+     */
+    public CassandraRowBinder getDeleteBinder(String tableName, String whereClause) throws ExportStagingException {
+        String table = tableName.toLowerCase();
+        return getStatement(table, "delete:" + whereClause,
+                "delete from " + conn.getKeyspace() + "." + table + " where " + whereClause);
+    }
+
+    /**
+     * Drops all statements of a table, the next insert or select prepares them again.
+     *
+     * @param tableName String name of table
+     */
+    public void invalidate(String tableName) {
+        String table = tableName.toLowerCase();
+        getVersion(table).incrementAndGet();
+        Map<String, CachedStatement> statements = tableStatements.remove(table);
+        invalidations.increment();
+        if (statements != null && !statements.isEmpty()) {
+            logger.debug("[CassandraStatementCache] " + statements.size() + " statements of " + table + " invalidated");
+        }
+    }
+
+    public void invalidateAll() {
+        for (String table : tableStatements.keySet()) {
+            invalidate(table);
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getPreparations() {
+        return preparations.sum();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for (Map<String, CachedStatement> statements : tableStatements.values()) {
+            size += statements.size();
+        }
+        return size;
+    }
+
+    private CassandraRowBinder getStatement(String table, String statementName, String query) throws ExportStagingException {
+        String statementKey = getVersion(table).get() + ":" + statementName;
+        Map<String, CachedStatement> statements = tableStatements.computeIfAbsent(table, key -> new ConcurrentHashMap<>());
+        CachedStatement cachedStatement = statements.get(statementKey);
+        if (cachedStatement != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            preparations.increment();
+            CachedStatement preparedStatement = new CachedStatement(Collections.emptySet(),
+                    conn.getSession().prepareAsync(query));
+            cachedStatement = statements.putIfAbsent(statementKey, preparedStatement);
+            if (cachedStatement == null) {
+                cachedStatement = preparedStatement;
+            }
+        }
+        try {
+            return cachedStatement.getRowBinder();
+        } catch (ExecutionException e) {
+            statements.remove(statementKey, cachedStatement);
+            throw new ExportStagingException(e.getCause());
+        }
+    }
+
+    private CachedStatement prepare(String table, Set<String> columnNames) throws ExportStagingException {
+        StringBuilder query = new StringBuilder("insert into ").append(conn.getKeyspace()).append(".").append(table)
+                .append(" (").append(String.join(",", columnNames)).append(") values(");
+        for (int counter = 0; counter < columnNames.size(); counter++) {
+            query.append(counter == 0 ? "?" : ", ?");
+        }
+        query.append(")");
+        preparations.increment();
+        return new CachedStatement(new HashSet<>(columnNames), conn.getSession().prepareAsync(query.toString()));
+    }
+
+    private AtomicLong getVersion(String table) {
+        return tableVersions.computeIfAbsent(table, key -> new AtomicLong());
+    }
+
+    /**
+     * Hash of a set of columns which does not depend on the iteration order of the set. Two sets with the same hash
+     * are compared before a cached statement is used.
+     */
+    private static String getColumnSetHash(Set<String> columnNames) {
+        long hash = 0;
+        for (String columnName : columnNames) {
+            int columnHash = columnName.hashCode();
+            hash += columnHash ^ (columnHash >>> 7);
+        }
+        return columnNames.size() + ":" + Long.toHexString(hash);
+    }
+
+    private static class CachedStatement {
+        private final Set<String> columns;
+        private final ListenableFuture<PreparedStatement> preparedStatement;
+        private volatile CassandraRowBinder rowBinder;
+
+        private CachedStatement(Set<String> columns, ListenableFuture<PreparedStatement> preparedStatement) {
+            this.columns = columns;
+            this.preparedStatement = preparedStatement;
+        }
+
+        private CassandraRowBinder getRowBinder() throws ExecutionException {
+            CassandraRowBinder binder = rowBinder;
+            if (binder == null) {
+                binder = new CassandraRowBinder(getPreparedStatement());
+                rowBinder = binder;
+            }
+            return binder;
+        }
+
+        private PreparedStatement getPreparedStatement() throws ExecutionException {
+            return Uninterruptibles.getUninterruptibly(preparedStatement);
+        }
+    }
+
+    /**
+     * Invalidates the statements of a table of the export keyspace when Cassandra reports a change of the table.
+     */
+    private class TableChangeListener extends SchemaChangeListenerBase {
+        @Override
+        public void onTableAdded(TableMetadata table) {
+            onTableEvent(table);
+        }
+
+        @Override
+        public void onTableRemoved(TableMetadata table) {
+            onTableEvent(table);
+        }
+
+        @Override
+        public void onTableChanged(TableMetadata current, TableMetadata previous) {
+            onTableEvent(current);
+        }
+
+        @Override
+        public void onKeyspaceRemoved(KeyspaceMetadata keyspace) {
+            if (isExportKeyspace(keyspace.getName())) {
+                invalidateAll();
+            }
+        }
+
+        private void onTableEvent(TableMetadata table) {
+            if (isExportKeyspace(table.getKeyspace().getName())) {
+                invalidate(table.getName());
+            }
+        }
+
+        private boolean isExportKeyspace(String keyspaceName) {
+            try {
+                return keyspaceName.equalsIgnoreCase(conn.getKeyspace());
+            } catch (ExportStagingException e) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.exportstaging.connectors.database;
+
+/**
+ * Metrics of the {@link CassandraStatementCache}.
+ */
+public interface CassandraStatementCacheMBean {
+
+    long getHits();
+
+    long getMisses();
+
+    long getPreparations();
+
+    long getInvalidations();
+
+    int getSize();
+}
@@ -0,0 +1,104 @@
+package com.exportstaging.connectors.database;
+
+import com.datastax.driver.core.Row;
+import com.exportstaging.api.exception.ExportStagingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Versions of the metadata (configuration, mapping and languages) of the item types in export_metadata_version.
+ * <p>
+ * The subscriber publishes a new version of an item type after it applied a configuration or mapping message and a
+ * new version of "language" after a language message. The read API keeps a snapshot of the metadata per item type
+ * and builds a new snapshot when the published version differs from the version of its snapshot, so the API
+ * processes do not need a connection to the message broker to learn about changes.
+ */
+@Component("metadataVersions")
+public class MetadataVersions {
+    @Autowired
+    private CassandraDAO cassandraDAO;
+
+    @Value("${cassandra.prefix.export}")
+    private String prefixExport;
+    @Value("${cassandra.suffix.metadata}")
+    private String sSuffixMetadata;
+    @Value("${cassandra.suffix.view}")
+    private String sSuffixView;
+
+    private static final String KEYSPACE_TEMPLATE = "keyspace_template";
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+
+    private volatile boolean tableCreated = false;
+
+    public String getTableName() {
+        return prefixExport + "_" + sSuffixMetadata;
+    }
+
+    /**
+     * Publishes a new version of the metadata of an item type.
+     *
+     * @param itemType item type of the changed configuration or mapping, Language for languages
+     * @throws ExportStagingException if the version cannot be written
+     */
+    public void publish(String itemType) throws ExportStagingException {
+        String key = getKey(itemType);
+        try {
+            createTable();
+            cassandraDAO.dbOperations("UPDATE " + KEYSPACE_TEMPLATE + "." + getTableName() +
+                    " SET \"Version\" = now() WHERE \"ItemType\" = '" + key + "'");
+        } catch (ExportStagingException e) {
+            tableCreated = false;
+            throw e;
+        }
+        logger.debug("[MetadataVersions] New metadata version published for " + key);
+    }
+
+    /**
+     * Reads the published versions of all item types.
+     *
+     * @return version per key of item type, empty if no version was published yet
+     * @throws ExportStagingException if the versions cannot be read
+     */
+    public Map<String, UUID> getVersions() throws ExportStagingException {
+        if (!cassandraDAO.checkTable(getTableName())) {
+            return Collections.emptyMap();
+        }
+        Map<String, UUID> versions = new HashMap<>();
+        for (Row row : cassandraDAO.dbOperations("SELECT \"ItemType\", \"Version\" FROM " + KEYSPACE_TEMPLATE + "." +
+                getTableName())) {
+            versions.put(row.getString("ItemType"), row.getUUID("Version"));
+        }
+        return versions;
+    }
+
+    /**
+     * Key of an item type in the version table. The view of an item type shares its configuration and mapping, so it
+     * has the key of the item type.
+     *
+     * @param itemType item type, e.g. Pdmarticle, Pdmarticlestructure or Language
+     * @return lower case item type without the view suffix
+     */
+    public String getKey(String itemType) {
+        String key = itemType.toLowerCase();
+        if (key.endsWith(sSuffixView) && key.length() > sSuffixView.length()) {
+            key = key.substring(0, key.length() - sSuffixView.length());
+        }
+        return key;
+    }
+
+    private void createTable() throws ExportStagingException {
+        if (!tableCreated) {
+            cassandraDAO.dbOperations("CREATE TABLE IF NOT EXISTS " + KEYSPACE_TEMPLATE + "." + getTableName() +
+                    "(\"ItemType\" text, \"Version\" timeuuid, PRIMARY KEY(\"ItemType\"))");
+            tableCreated = true;
+        }
+    }
+}
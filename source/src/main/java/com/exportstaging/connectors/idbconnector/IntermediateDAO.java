@@ -22,6 +22,7 @@ import org.springframework.stereotype.Component;
 import java.net.SocketException;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component("idbConnector")
 public class IntermediateDAO {
@@ -59,11 +60,24 @@ public class IntermediateDAO {
     private String columnMessage;
     @Value("${mysql.column.data}")
     private String columnData;
+    @Value("${mysql.status.update.chunksize}")
+    private int statusUpdateChunkSize;
     @Value("${mysql.column.type}")
     private String columnType;
+    @Value("${mysql.column.id}")
+    private String columnID;
+    @Value("${mysql.column.inserttime}")
+    private String columnInsertTime;
+    @Value("${mysql.column.producerstatus}")
+    private String columnProducerStatus;
+    @Value("${mysql.column.jmspriority}")
+    private String columnJmsPriority;
 
     private final static Logger logger = LogManager.getLogger("exportstaging");
+    private final static String IDX_KEYSET_POLLING = "IDX_KeysetPolling";
     private Map<String, JSONObject> headerData = new HashMap<>();
+    private Set<String> keysetIndexedTables = ConcurrentHashMap.newKeySet();
+    private Map<String, Integer> pendingPurgeTables = new ConcurrentHashMap<>();
 
     /**
      * A single SQL update operation (such as an insert, update or delete statement).
@@ -108,6 +122,153 @@ public class IntermediateDAO {
         return result;
     }
 
+    /**
+     * Fetch the data for a parameterized query to a result list.
+     * <p>The results will be mapped to a List (one entry for each row) of
+     * Maps (one entry for each column using the column name as the key)
+     *
+     * @param query SQL query to execute, containing ? placeholders
+     * @param args  arguments to bind to the query
+     * @return an List that contains a Map per row
+     * @throws ExportStagingException if there is any problem executing the query
+     */
+    public List<Map<String, Object>> fetchData(String query, Object... args) throws ExportStagingException {
+        List<Map<String, Object>> result = new ArrayList<>();
+        try {
+            result = jdbcTemplate.queryForList(query, args);
+        } catch (DataAccessException e) {
+            handleDataAccessException(e);
+            return fetchData(query, args);
+        } catch (Exception e) {
+            ExceptionLogger.logError("Exception while communicating with Intermediate Database.", e, masterProducer);
+        }
+        return result;
+    }
+
+    /**
+     * Fetch a single integer value for a parameterized query, e.g. an aggregate.
+     *
+     * @param query SQL query to execute, containing ? placeholders
+     * @param args  arguments to bind to the query
+     * @return the value of the first column of the single result row, null if the value is SQL NULL
+     * @throws ExportStagingException if there is any problem executing the query
+     */
+    public Integer fetchInteger(String query, Object... args) throws ExportStagingException {
+        try {
+            return jdbcTemplate.queryForObject(query, Integer.class, args);
+        } catch (DataAccessException e) {
+            handleDataAccessException(e);
+            return fetchInteger(query, args);
+        } catch (Exception e) {
+            ExceptionLogger.logError("Exception while communicating with Intermediate Database.", e, masterProducer);
+        }
+        return null;
+    }
+
+    /**
+     * Marks the given rows as sent by the producer. The IDs are bound to prepared statements in chunks of
+     * mysql.status.update.chunksize, so large batches do not build one huge statement.
+     *
+     * @param tableName     Name of the intermediate database table
+     * @param ids           IDs of the rows sent by the producer
+     * @param producerID    ID of the producer which sent the rows
+     * @param maxInsertTime Rows inserted again after this time are kept pending
+     * @return number of updated rows
+     * @throws ExportStagingException if there is any problem executing the query
+     */
+    public int updateProducerStatus(String tableName, List<String> ids, int producerID, long maxInsertTime)
+            throws ExportStagingException {
+        int updatedRows = 0;
+        for (int start = 0; start < ids.size(); start += statusUpdateChunkSize) {
+            List<String> chunk = ids.subList(start, Math.min(start + statusUpdateChunkSize, ids.size()));
+            String query = "UPDATE " + tableName +
+                    " SET " + columnProducerStatus + " = " + columnProducerStatus + " + ?" +
+                    " WHERE " + columnID + " IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")" +
+                    " AND " + columnInsertTime + " <= ? AND (" + columnProducerStatus + " & ?) = 0";
+            List<Object> args = new ArrayList<>();
+            args.add(producerID);
+            for (String id : chunk) {
+                args.add(Long.parseLong(id));
+            }
+            args.add(maxInsertTime);
+            args.add(producerID);
+            updatedRows += executeUpdate(query, args.toArray());
+        }
+        return updatedRows;
+    }
+
+    /**
+     * Registers a table whose fully consumed rows have to be deleted by the IDB purger.
+     *
+     * @param tableName    Name of the intermediate database table
+     * @param deleteStatus ProducerStatus of rows which are sent by all producers
+     */
+    public void schedulePurge(String tableName, int deleteStatus) {
+        pendingPurgeTables.put(tableName, deleteStatus);
+    }
+
+    /**
+     * Returns and clears the tables registered for purging. A table which could not be purged completely has to be
+     * registered again with {@link #schedulePurge(String, int)}.
+     *
+     * @return Map of table name and the ProducerStatus of its fully consumed rows
+     */
+    public Map<String, Integer> takePendingPurgeTables() {
+        Map<String, Integer> tables = new HashMap<>();
+        for (String tableName : new ArrayList<>(pendingPurgeTables.keySet())) {
+            Integer deleteStatus = pendingPurgeTables.remove(tableName);
+            if (deleteStatus != null) {
+                tables.put(tableName, deleteStatus);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Deletes one bounded chunk of fully consumed rows. The statement is not retried, the purger continues with the
+     * next run.
+     *
+     * @param tableName    Name of the intermediate database table
+     * @param deleteStatus ProducerStatus of rows which are sent by all producers
+     * @param chunkSize    Maximum number of rows to delete
+     * @return number of deleted rows, -1 in case of an error
+     */
+    public int deleteConsumedRows(String tableName, int deleteStatus, int chunkSize) {
+        try {
+            return jdbcTemplate.update("DELETE FROM " + tableName + " WHERE " + columnProducerStatus + " = ? LIMIT " + chunkSize, deleteStatus);
+        } catch (Exception e) {
+            ExceptionLogger.logError("Exception while deleting consumed rows from " + tableName, e, masterProducer);
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the index used by the keyset polling mode of the producers to an existing intermediate database table.
+     * Tables created by this version already contain the index, so the check is only executed once per table.
+     *
+     * @param tableName Name of the intermediate database table
+     */
+    public void ensureKeysetPollingIndex(String tableName) {
+        tableName = tableName.toLowerCase();
+        if (keysetIndexedTables.contains(tableName)) {
+            return;
+        }
+        try {
+            String indexQuery = "SELECT COUNT(*) FROM information_schema.statistics" +
+                    " WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?";
+            Integer indexCount = jdbcTemplate.queryForObject(indexQuery, Integer.class, tableName, IDX_KEYSET_POLLING);
+            if (indexCount == null || indexCount == 0) {
+                logInfo("Creating index " + IDX_KEYSET_POLLING + " on " + tableName, true);
+                jdbcTemplate.execute("ALTER TABLE " + tableName + " ADD INDEX " + IDX_KEYSET_POLLING +
+                        " (" + columnJmsPriority + ", " + columnInsertTime + ", " + columnID + ", " + columnProducerStatus +
+                        ") USING BTREE");
+            }
+            keysetIndexedTables.add(tableName);
+        } catch (Exception e) {
+            ExceptionLogger.logError("Exception while creating index " + IDX_KEYSET_POLLING + " on " + tableName, e, masterProducer);
+        }
+    }
+
     /**
      * Inserting the subscriber name and its supported item types mapping entries in mapping table
      *
@@ -212,7 +373,7 @@ public class IntermediateDAO {
     }
 
     private String getQueryForCreateTable(String tableName) {
-        String idbCreateQuery = "CREATE TABLE IF NOT EXISTS IDB_TABLE_NAME_XXX( ID BIGINT(20) NOT NULL, Message LONGTEXT CHARACTER SET utf8 COLLATE utf8_unicode_ci, Action SMALLINT(6) NOT NULL DEFAULT '1', InsertTime BIGINT(20) UNSIGNED NOT NULL, JMSPriority SMALLINT(6) NOT NULL DEFAULT '0', JobID BIGINT(20) NOT NULL DEFAULT '0', VersionNr MEDIUMINT(8) UNSIGNED NOT NULL DEFAULT '1', ProducerStatus smallint(6) NOT NULL DEFAULT '0',PRIMARY KEY (ID), KEY IDX_JMSPriority (JMSPriority) USING BTREE, KEY IDX_Action (Action) USING BTREE, KEY IDX_ProducerStatus (ProducerStatus) USING BTREE, KEY IDX_InsertTime (InsertTime) USING BTREE)";
+        String idbCreateQuery = "CREATE TABLE IF NOT EXISTS IDB_TABLE_NAME_XXX( ID BIGINT(20) NOT NULL, Message LONGTEXT CHARACTER SET utf8 COLLATE utf8_unicode_ci, Action SMALLINT(6) NOT NULL DEFAULT '1', InsertTime BIGINT(20) UNSIGNED NOT NULL, JMSPriority SMALLINT(6) NOT NULL DEFAULT '0', JobID BIGINT(20) NOT NULL DEFAULT '0', VersionNr MEDIUMINT(8) UNSIGNED NOT NULL DEFAULT '1', ProducerStatus smallint(6) NOT NULL DEFAULT '0',PRIMARY KEY (ID), KEY IDX_JMSPriority (JMSPriority) USING BTREE, KEY IDX_Action (Action) USING BTREE, KEY IDX_ProducerStatus (ProducerStatus) USING BTREE, KEY IDX_InsertTime (InsertTime) USING BTREE, KEY " + IDX_KEYSET_POLLING + " (JMSPriority, InsertTime, ID, ProducerStatus) USING BTREE)";
         return idbCreateQuery
                 .replaceAll("IDB_TABLE_NAME_XXX", tableName.toLowerCase()); //Table Name replace
     }
@@ -300,6 +461,18 @@ public class IntermediateDAO {
         return itemTypeFromMapping;
     }
 
+    private int executeUpdate(String query, Object... args) throws ExportStagingException {
+        try {
+            return jdbcTemplate.update(query, args);
+        } catch (DataAccessException e) {
+            handleDataAccessException(e);
+            return executeUpdate(query, args);
+        } catch (Exception e) {
+            ExceptionLogger.logError("Exception while communicating with Intermediate Database.", e, masterProducer);
+        }
+        return 0;
+    }
+
     private boolean executeBatchQueries(List<String> queries) throws ExportStagingException {
         try {
             int[] queryStatus = jdbcTemplate.batchUpdate(queries.toArray(new String[0]));
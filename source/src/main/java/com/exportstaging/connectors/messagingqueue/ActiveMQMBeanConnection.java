@@ -172,6 +172,42 @@ public class ActiveMQMBeanConnection {
         return storagePercentSize;
     }
 
+    /**
+     * Returns the percentage of the broker memory limit used by the messages held in memory
+     *
+     * @return Percentage of memory used, -1 if the broker can not be reached
+     */
+    public int getMemoryPercentUsage() {
+        try {
+            return brokerViewMBean.getMemoryPercentUsage();
+        } catch (Exception e) {
+            logger.debug("Exception while getMemoryPercentUsage: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of pending messages of every queue whose name starts with the given prefix
+     *
+     * @param queuePrefix prefix of the queue names like Consumer.Core.
+     * @return pending messages by queue name
+     */
+    public Map<String, Long> getQueueSizes(String queuePrefix) {
+        Map<String, Long> queueSizes = new HashMap<>();
+        try {
+            for (ObjectName queue : brokerViewMBean.getQueues()) {
+                String queueName = queue.getKeyProperty(CONST_DESTINATION_NAME);
+                if (queueName.startsWith(queuePrefix)) {
+                    queueSizes.put(queueName, getQueueViewMbean(queueName).getQueueSize());
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("Exception while getQueueSizes: " + e.getMessage());
+            queueViewMBeanList.clear();
+        }
+        return queueSizes;
+    }
+
     public boolean removeQueueViewMBeanFromList(String queueName) {
         if (queueViewMBeanList.containsKey(queueName)) {
             queueViewMBeanList.remove(queueName);
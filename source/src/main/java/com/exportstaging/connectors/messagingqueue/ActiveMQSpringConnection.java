@@ -4,6 +4,7 @@ import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import org.apache.activemq.ActiveMQConnection;
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.ActiveMQSession;
 import org.apache.activemq.RedeliveryPolicy;
 import org.apache.activemq.command.ActiveMQTopic;
 import org.apache.activemq.pool.PooledConnection;
@@ -79,8 +80,16 @@ public class ActiveMQSpringConnection {
     }
 
     public Session createSession(String clientName, boolean isDurable) {
+        return createSession(clientName, isDurable, false);
+    }
+
+    /**
+     * Creates the consumer session. With individualAcknowledge a durable session acknowledges only the message
+     * acknowledge is called for, not all messages received before, so messages can be acknowledged out of order.
+     */
+    public Session createSession(String clientName, boolean isDurable, boolean individualAcknowledge) {
         try {
-            int ackMode = Session.CLIENT_ACKNOWLEDGE;
+            int ackMode = individualAcknowledge ? ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE : Session.CLIENT_ACKNOWLEDGE;
             if (!isDurable) {
                 ackMode = Session.AUTO_ACKNOWLEDGE;
             }
@@ -104,6 +113,38 @@ public class ActiveMQSpringConnection {
         return null;
     }
 
+    /**
+     * Creates a transacted producer session. Messages sent on this session are delivered to the broker only on commit,
+     * so the broker persists a whole group of messages with one round-trip.
+     *
+     * @param connectionClientName Connection client name
+     * @return Transacted session object
+     */
+    public Session createTransactedProducerSession(String connectionClientName) {
+        try {
+            return createPoolConnection(connectionClientName).createSession(true, Session.SESSION_TRANSACTED);
+        } catch (JMSException e) {
+            logError("JMSException while creating transacted Producer session object.", e);
+        } catch (Exception e) {
+            logError("Exception while creating transacted Producer session object.", e);
+        }
+        return null;
+    }
+
+    /**
+     * This method creates a MessageProducer object for the given session, which is not shared with other sessions.
+     *
+     * @param topicName Name of the export database topic
+     * @param session   ActiveMQ session object
+     * @return MessageProducer object
+     * @throws JMSException if the producer cannot be created
+     */
+    public MessageProducer createSessionProducer(String topicName, Session session) throws JMSException {
+        MessageProducer messageProducer = session.createProducer(getTopic(topicName));
+        messageProducer.setDeliveryMode(DeliveryMode.PERSISTENT);
+        return messageProducer;
+    }
+
     public Connection getConnection() {
         if (connection == null) {
             createConnection();
@@ -127,6 +168,26 @@ public class ActiveMQSpringConnection {
         return messageConsumers.get(subscriberName + "_" + exportDbName);
     }
 
+    /**
+     * Creates an additional MessageConsumer on the queue of the subscriber. Each consumer has to use its own session,
+     * so the messages of the consumers are acknowledged and recovered independently.
+     *
+     * @param exportDbName       Working project name
+     * @param subscriberName     Name of the subscriber for which to create consumer
+     * @param session            ActiveMQ Session object used only by this consumer
+     * @param isDurable          true if the subscriber is durable
+     * @param isCustomSubscriber true if the subscriber is a custom subscriber
+     * @return MessageConsumer object
+     * @throws JMSException if the consumer cannot be created
+     */
+    public MessageConsumer createPartitionConsumer(String exportDbName, String subscriberName, Session session, boolean isDurable, boolean isCustomSubscriber) throws JMSException {
+        String queueName = getQueueName(exportDbName, subscriberName, isCustomSubscriber);
+        if (isDurable) {
+            queueName = queueName + "?consumer.prefetchSize=100";
+        }
+        return session.createConsumer(session.createQueue(queueName));
+    }
+
     /**
      * This method return the MessageProducer object based on topic name and producerName
      *
@@ -0,0 +1,160 @@
+package com.exportstaging.connectors.messagingqueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the load of the broker over JMX in the background: the store usage of the core and project queues, the
+ * memory usage of the broker and the number of pending messages of every queue. All producer threads read the last
+ * sample instead of asking the broker themselves.
+ * <p>
+ * Sampling starts with the first read and runs every activemq.backpressure.sample.interval milliseconds. Listeners
+ * are called on the sampling thread after each sample.
+ */
+@Component("brokerBackpressureSampler")
+public class BrokerBackpressureSampler {
+    @Autowired
+    private ActiveMQMBeanConnection mBeanConnection;
+
+    @Value("${activemq.backpressure.sample.interval}")
+    private long sampleInterval;
+    @Value("${activemq.producer.master}")
+    private String masterProducer;
+    @Value("${activemq.producer.project}")
+    private String projectProducer;
+    @Value("${activemq.queue.prefix.core}")
+    private String coreQueuePrefix;
+    @Value("${activemq.queue.prefix.project}")
+    private String projectQueuePrefix;
+
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService executor;
+    private volatile Sample sample = new Sample();
+
+    /**
+     * @param producerName name of the producer like MasterProducer, ProjectProducer
+     * @return percentage of the store limit of the queues of the producer in use
+     */
+    public int getStorePercentUsage(String producerName) {
+        Integer storePercentUsage = getSample().storePercentUsage.get(producerName);
+        return storePercentUsage == null ? 0 : storePercentUsage;
+    }
+
+    /**
+     * @return percentage of the broker memory limit in use, -1 if unknown
+     */
+    public int getMemoryPercentUsage() {
+        return getSample().memoryPercentUsage;
+    }
+
+    /**
+     * @param producerName name of the producer like MasterProducer, ProjectProducer
+     * @return largest number of pending messages of a queue fed by the producer
+     */
+    public long getMaxQueueSize(String producerName) {
+        long maxQueueSize = 0;
+        Map<String, Long> queueSizes = getQueueSizes(producerName);
+        for (long queueSize : queueSizes.values()) {
+            maxQueueSize = Math.max(maxQueueSize, queueSize);
+        }
+        return maxQueueSize;
+    }
+
+    /**
+     * @param producerName name of the producer like MasterProducer, ProjectProducer
+     * @return pending messages by queue name of the queues fed by the producer
+     */
+    public Map<String, Long> getQueueSizes(String producerName) {
+        Map<String, Long> queueSizes = getSample().queueSizes.get(producerName);
+        return queueSizes == null ? Collections.emptyMap() : queueSizes;
+    }
+
+    /**
+     * @return time of the last sample in milliseconds, 0 before the first sample
+     */
+    public long getSampleTime() {
+        return sample.time;
+    }
+
+    public long getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Adds a listener called after each sample and starts sampling.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+        start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private Sample getSample() {
+        start();
+        return sample;
+    }
+
+    private synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BrokerBackpressureSampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sample();
+        executor.scheduleWithFixedDelay(this::sample, sampleInterval, sampleInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void sample() {
+        try {
+            Sample next = new Sample();
+            next.storePercentUsage.put(masterProducer, mBeanConnection.getStorePercentUsage(masterProducer));
+            next.storePercentUsage.put(projectProducer, mBeanConnection.getStorePercentUsage(projectProducer));
+            next.memoryPercentUsage = mBeanConnection.getMemoryPercentUsage();
+            next.queueSizes.put(masterProducer, mBeanConnection.getQueueSizes(coreQueuePrefix));
+            next.queueSizes.put(projectProducer, mBeanConnection.getQueueSizes(projectQueuePrefix));
+            next.time = System.currentTimeMillis();
+            sample = next;
+        } catch (Exception e) {
+            logger.error("[BrokerBackpressureSampler] Exception while sampling broker usage: " + e.getMessage());
+        }
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.error("[BrokerBackpressureSampler] Exception in listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class Sample {
+        private final Map<String, Integer> storePercentUsage = new HashMap<>();
+        private final Map<String, Map<String, Long>> queueSizes = new HashMap<>();
+        private int memoryPercentUsage = -1;
+        private long time;
+    }
+}
@@ -32,7 +32,7 @@ public class GetAttributeController {
   public Attribute attributeByExternalKey(@PathVariable String type,
       @PathVariable String attributeExternalkey) throws Exception
   {
-    return itemApiImpl.getAttributeByExternalKey(attributeExternalkey);
+    return itemApiImpl.getAttributeByExternalKey(type, attributeExternalkey);
   }
   
   @RequestMapping(value = "/get/attribute/byClassId/{classId}", method = RequestMethod.GET)
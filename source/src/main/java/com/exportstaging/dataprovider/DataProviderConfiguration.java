@@ -19,7 +19,6 @@ public class DataProviderConfiguration extends AbstractDataProvider {
     @Value("${json.key.configuration}")
     private String sConfigurationHeader;
 
-    private String tableName;
 
     @Override
     public String getTableName(String itemType) {
@@ -32,7 +31,7 @@ public class DataProviderConfiguration extends AbstractDataProvider {
 
     @Override
     public void createTableFromHeaders(String itemType, JSONObject dataModel) throws ExportStagingException {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String columnNames = "";
         try {
             Set headerData = dataModel.keySet();
@@ -67,7 +66,7 @@ public class DataProviderConfiguration extends AbstractDataProvider {
     }
 
     public int getIsLink(String itemType, String sConfigurationID) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String sIsLinkQuery;
         int isLink = 0;
         sIsLinkQuery = "SELECT * FROM " + keyspaceTemplate + "." + tableName + " WHERE \"ID\" = " + sConfigurationID + ";";
@@ -85,7 +84,7 @@ public class DataProviderConfiguration extends AbstractDataProvider {
 
     @Override
     public boolean deleteRow(String itemType, String message) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String deleteQuery = "DELETE FROM " + keyspaceTemplate + "." + tableName + " WHERE \"ID\" IN (" + message + ")";
         try {
             cassandraDAO.dbOperations(deleteQuery);
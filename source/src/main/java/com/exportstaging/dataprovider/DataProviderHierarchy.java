@@ -0,0 +1,451 @@
+package com.exportstaging.dataprovider;
+
+import com.datastax.driver.core.Row;
+import com.exportstaging.abstractclasses.AbstractDataProvider;
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.common.ExportMiscellaneousUtils;
+import org.apache.logging.log4j.ThreadContext;
+import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hierarchy tables of the core item types: a closure table of the ParentID tree, so the descendants of an item up to
+ * any depth are read from one partition instead of one query per visited item.
+ * <p>
+ * The partition of an item holds its descendants with their positive Depth below the item and its ancestors with
+ * their negative distance, e.g. the partition of a folder contains its children with Depth 1 and its parent with
+ * Depth -1. Moving an item rewrites the rows between the ancestors and the moved subtree. The rows of a moved
+ * subtree depend on the rows of its ancestors, so moves and deletes of one item type are serialized.
+ * <p>
+ * The rows are written by the MasterSubscriber together with the items. Keyspaces created before the hierarchy
+ * tables are filled by the lookup backfill tool, the marker row is written once the table contains all items.
+ * Readers only use a table with the marker row.
+ */
+@Component("dataProviderHierarchy")
+public class DataProviderHierarchy extends AbstractDataProvider {
+    public static final long MARKER_NODE_ID = -1;
+    private static final int WRITE_CHUNK_SIZE = 500;
+    private static final int READ_PAGE_SIZE = 500;
+    private static final int PARENT_CACHE_SIZE = 100000;
+
+    @Value("${cassandra.suffix.hierarchy}")
+    private String sSuffixHierarchy;
+
+    private Set<String> createdTables = ConcurrentHashMap.newKeySet();
+    private final Map<String, Object> itemTypeLocks = new ConcurrentHashMap<>();
+
+
+    @Override
+    public String getTableName(String itemType) {
+        return prefixExport + "_" + itemType.toLowerCase() + "_" + sSuffixHierarchy;
+    }
+
+    @Override
+    public void createTableFromHeaders(String itemType, JSONObject dataModel) throws ExportStagingException {
+        createTable(itemType);
+        markComplete(itemType);
+    }
+
+    /**
+     * Creates the hierarchy table of the item type if it does not exist yet.
+     *
+     * @param itemType String type of an object
+     * @throws ExportStagingException if the table could not be created
+     */
+    public void createTable(String itemType) throws ExportStagingException {
+        String tableName = getTableName(itemType);
+        if (createdTables.contains(tableName)) {
+            return;
+        }
+        String createQuery = "CREATE TABLE IF NOT EXISTS " + keyspaceTemplate + "." + tableName + "("
+                + "\"NodeID\" " + ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_BIGINT
+                + ", \"Depth\" " + ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_INT
+                + ", \"ID\" " + ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_BIGINT
+                + ", PRIMARY KEY(\"NodeID\",\"Depth\",\"ID\"));";
+        cassandraDAO.dbOperations(createQuery);
+        createdTables.add(tableName);
+    }
+
+    @Override
+    public void dropTable(String itemType) throws ExportStagingException {
+        createdTables.remove(getTableName(itemType));
+        super.dropTable(itemType);
+    }
+
+    /**
+     * Writes the marker row, the hierarchy table contains all items from now on.
+     *
+     * @param itemType String type of an object
+     * @throws ExportStagingException if the marker could not be written
+     */
+    public void markComplete(String itemType) throws ExportStagingException {
+        cassandraDAO.dbOperations(getInsertQuery(itemType, new Entry(MARKER_NODE_ID, 0, 0)));
+        logger.info(getTableName(itemType) + " table marked as complete");
+    }
+
+    /**
+     * @param itemType String type of an object
+     * @return true if the hierarchy table exists and contains all items
+     */
+    public boolean isComplete(String itemType) {
+        try {
+            return checkTable(itemType) && cassandraDAO.dbOperations("SELECT \"ID\" FROM " + keyspaceTemplate + "."
+                    + getTableName(itemType) + " WHERE \"NodeID\" = " + MARKER_NODE_ID).one() != null;
+        } catch (ExportStagingException e) {
+            logError("Exception while checking hierarchy table of " + itemType, e);
+        }
+        return false;
+    }
+
+    /**
+     * Moves an item with its subtree below its current parent after it has been written to the item table. Nothing is
+     * written if the parent did not change, which costs the read of the parent of the item. Only the messages of the
+     * item change its parent row, so it is read without the lock of the item type.
+     *
+     * @param itemType String type of an object
+     * @param itemID   String id of an object
+     * @param parentID Object ParentID of the item, null or empty for an item without parent
+     * @throws ExportStagingException if the hierarchy table could not be read or written
+     */
+    public void updateItem(String itemType, String itemID, Object parentID) throws ExportStagingException {
+        createTable(itemType);
+        long nodeID = Long.parseLong(itemID);
+        Long newParentID = toParentID(nodeID, parentID);
+        if (Objects.equals(newParentID, getParentID(readRelatives(itemType, nodeID, "\"Depth\" = -1")))) {
+            return;
+        }
+        synchronized (getLock(itemType)) {
+            moveItem(itemType, nodeID, newParentID);
+        }
+    }
+
+    private void moveItem(String itemType, long nodeID, Long newParentID) throws ExportStagingException {
+        Map<Long, Integer> ancestors = readRelatives(itemType, nodeID, "\"Depth\" < 0");
+        if (Objects.equals(newParentID, getParentID(ancestors))) {
+            return;
+        }
+        Map<Long, Integer> subtree = readRelatives(itemType, nodeID, "\"Depth\" > 0");
+        subtree.put(nodeID, 0);
+        Map<Long, Integer> newAncestors = new HashMap<>();
+        if (newParentID != null) {
+            newAncestors.put(newParentID, 1);
+            for (Map.Entry<Long, Integer> ancestor : readRelatives(itemType, newParentID, "\"Depth\" < 0").entrySet()) {
+                newAncestors.put(ancestor.getKey(), ancestor.getValue() + 1);
+            }
+            for (Long ancestorID : newAncestors.keySet()) {
+                if (subtree.containsKey(ancestorID)) {
+                    logger.warn("[" + masterSubscriber + "] Hierarchy of " + itemType + " not updated, ParentID "
+                            + newParentID + " of ID " + nodeID + " is part of its own subtree");
+                    return;
+                }
+            }
+        }
+        Set<Entry> removedEntries = getEntries(ancestors, subtree);
+        Set<Entry> addedEntries = getEntries(newAncestors, subtree);
+        List<String> queries = new ArrayList<>();
+        for (Entry entry : removedEntries) {
+            if (!addedEntries.contains(entry)) {
+                queries.add(getDeleteQuery(itemType, entry));
+            }
+        }
+        for (Entry entry : addedEntries) {
+            if (!removedEntries.contains(entry)) {
+                queries.add(getInsertQuery(itemType, entry));
+            }
+        }
+        write(queries);
+    }
+
+    /**
+     * Removes the items from the hierarchy before they are deleted from the item table: the item is removed from the
+     * partitions of its ancestors and descendants, its own partition is deleted and its descendants are unlinked from
+     * its ancestors. The descendants keep their rows among each other until they are moved or deleted as well.
+     *
+     * @param itemType String type of an object
+     * @param itemIDs  String comma separated ids of the objects
+     * @throws ExportStagingException if the hierarchy table could not be read or written
+     */
+    public void removeItems(String itemType, String itemIDs) throws ExportStagingException {
+        if (!checkTable(itemType)) {
+            return;
+        }
+        synchronized (getLock(itemType)) {
+            for (String itemID : itemIDs.split(",")) {
+                long nodeID = Long.parseLong(itemID.trim());
+                Map<Long, Integer> ancestors = readRelatives(itemType, nodeID, "\"Depth\" < 0");
+                Map<Long, Integer> descendants = readRelatives(itemType, nodeID, "\"Depth\" > 0");
+                List<String> queries = new ArrayList<>();
+                for (Map.Entry<Long, Integer> ancestor : ancestors.entrySet()) {
+                    queries.add(getDeleteQuery(itemType, new Entry(ancestor.getKey(), ancestor.getValue(), nodeID)));
+                }
+                for (Map.Entry<Long, Integer> descendant : descendants.entrySet()) {
+                    queries.add(getDeleteQuery(itemType, new Entry(descendant.getKey(), -descendant.getValue(), nodeID)));
+                }
+                for (Entry entry : getEntries(ancestors, descendants)) {
+                    queries.add(getDeleteQuery(itemType, entry));
+                }
+                queries.add("DELETE FROM " + keyspaceTemplate + "." + getTableName(itemType) + " WHERE \"NodeID\" = "
+                        + nodeID);
+                write(queries);
+            }
+        }
+    }
+
+    /**
+     * Fills the hierarchy table from the ParentIDs of all items, used for a keyspace created before the hierarchy
+     * tables. The item table is read language by language in pages of {@link #READ_PAGE_SIZE} items, an item found
+     * in an earlier language is skipped. The ancestors of the items of a page are read from the item table, the
+     * ParentIDs of the last {@link #PARENT_CACHE_SIZE} ancestors are cached. A row is written with the latest write
+     * time of the ParentIDs it is derived from, so a row the MasterSubscriber deleted in the meantime stays deleted.
+     *
+     * @param itemType String type of an object
+     * @return number of items with a parent
+     * @throws ExportStagingException if the item table could not be read or the rows could not be written
+     */
+    public long addItems(String itemType) throws ExportStagingException {
+        createTable(itemType);
+        String itemTableName = prefixExport + "_" + itemType.toLowerCase();
+        if (!cassandraDAO.getColumns(itemTableName).contains(ExportMiscellaneousUtils.EXPORT_FIELD_PARENTID)) {
+            return 0;
+        }
+        List<String> languageIDs = new ArrayList<>();
+        for (String languageID : getLanguageIds().split(",")) {
+            if (!languageID.isEmpty()) {
+                languageIDs.add(languageID);
+            }
+        }
+        Map<Long, long[]> parentCache = new LinkedHashMap<Long, long[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return size() > PARENT_CACHE_SIZE;
+            }
+        };
+        long items = 0;
+        for (int index = 0; index < languageIDs.size(); index++) {
+            List<String> earlierLanguageIDs = languageIDs.subList(0, index);
+            Map<Long, long[]> page = new LinkedHashMap<>();
+            String selectQuery = "SELECT \"ID\", \"ParentID\", WRITETIME(\"ParentID\") FROM " + keyspaceTemplate
+                    + "." + itemTableName + " WHERE \"LanguageID\" = " + languageIDs.get(index);
+            for (Row row : cassandraDAO.dbOperations(selectQuery)) {
+                long nodeID = row.getLong(0);
+                Long parentID = toParentID(nodeID, row.getObject(1));
+                if (parentID != null) {
+                    page.put(nodeID, new long[]{parentID, row.getLong(2)});
+                }
+                if (page.size() >= READ_PAGE_SIZE) {
+                    items += addPage(itemType, itemTableName, languageIDs, earlierLanguageIDs, page, parentCache);
+                    page.clear();
+                }
+            }
+            items += addPage(itemType, itemTableName, languageIDs, earlierLanguageIDs, page, parentCache);
+        }
+        return items;
+    }
+
+    /**
+     * Writes the rows between the items of a page and all their ancestors.
+     *
+     * @param page        Map of the ID of an item and its ParentID with the write time
+     * @param parentCache Map of the ID of an ancestor and its ParentID with the write time, empty without parent
+     * @return number of written items
+     */
+    private long addPage(String itemType, String itemTableName, List<String> languageIDs,
+                         List<String> earlierLanguageIDs, Map<Long, long[]> page, Map<Long, long[]> parentCache)
+            throws ExportStagingException {
+        if (page.isEmpty()) {
+            return 0;
+        }
+        if (!earlierLanguageIDs.isEmpty()) {
+            String selectQuery = "SELECT \"ID\" FROM " + keyspaceTemplate + "." + itemTableName
+                    + " WHERE \"LanguageID\" IN (" + String.join(",", earlierLanguageIDs) + ") AND \"ID\" IN ("
+                    + page.keySet().toString().replace("[", "").replace("]", "") + ")";
+            for (Row row : cassandraDAO.dbOperations(selectQuery)) {
+                page.remove(row.getLong(0));
+            }
+        }
+        List<String> queries = new ArrayList<>();
+        for (Map.Entry<Long, long[]> node : page.entrySet()) {
+            long nodeID = node.getKey();
+            parentCache.put(nodeID, node.getValue());
+            Set<Long> visited = new HashSet<>();
+            long writeTime = node.getValue()[1];
+            Long ancestorID = node.getValue()[0];
+            int depth = 1;
+            while (ancestorID != null && ancestorID != nodeID && visited.add(ancestorID)) {
+                long[] ancestorParent = getCachedParent(itemTableName, languageIDs, ancestorID, parentCache);
+                if (ancestorParent.length > 0) {
+                    writeTime = Math.max(writeTime, ancestorParent[1]);
+                }
+                String timestamp = " USING TIMESTAMP " + writeTime;
+                queries.add(getInsertQuery(itemType, new Entry(ancestorID, depth, nodeID)) + timestamp);
+                queries.add(getInsertQuery(itemType, new Entry(nodeID, -depth, ancestorID)) + timestamp);
+                ancestorID = ancestorParent.length > 0 ? ancestorParent[0] : null;
+                depth++;
+            }
+            if (queries.size() >= WRITE_CHUNK_SIZE) {
+                write(queries);
+                queries.clear();
+            }
+        }
+        write(queries);
+        return page.size();
+    }
+
+    /**
+     * @return ParentID and its write time of the item, empty if the item has no parent or does not exist
+     */
+    private long[] getCachedParent(String itemTableName, List<String> languageIDs, long nodeID,
+                                   Map<Long, long[]> parentCache) throws ExportStagingException {
+        long[] parent = parentCache.get(nodeID);
+        if (parent == null) {
+            parent = new long[0];
+            String selectQuery = "SELECT \"ParentID\", WRITETIME(\"ParentID\") FROM " + keyspaceTemplate + "."
+                    + itemTableName + " WHERE \"LanguageID\" IN (" + String.join(",", languageIDs) + ") AND \"ID\" = "
+                    + nodeID;
+            for (Row row : cassandraDAO.dbOperations(selectQuery)) {
+                Long parentID = toParentID(nodeID, row.getObject(0));
+                if (parentID != null) {
+                    parent = new long[]{parentID, row.getLong(1)};
+                    break;
+                }
+            }
+            parentCache.put(nodeID, parent);
+        }
+        return parent;
+    }
+
+    @Override
+    public boolean deleteRow(String itemType, String itemID) {
+        ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
+        try {
+            removeItems(itemType, itemID);
+        } catch (Exception e) {
+            logError("Exception while deleting hierarchy rows for ID(s): " + itemID, e);
+            return false;
+        } finally {
+            ThreadContext.remove(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean deleteRow(String itemType, String itemID, String sAffectedItemType) {
+        return false;
+    }
+
+    @Override
+    public String getHeaderKey(String dataType) {
+        return dataType;
+    }
+
+    private Object getLock(String itemType) {
+        return itemTypeLocks.computeIfAbsent(itemType.toLowerCase(), type -> new Object());
+    }
+
+    private Long getParentID(Map<Long, Integer> ancestors) {
+        for (Map.Entry<Long, Integer> ancestor : ancestors.entrySet()) {
+            if (ancestor.getValue() == 1) {
+                return ancestor.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the relatives of an item from its partition.
+     *
+     * @return Map of the ID of the relative and its Depth, negated for ancestors so it is always positive
+     */
+    private Map<Long, Integer> readRelatives(String itemType, long nodeID, String depthFilter)
+            throws ExportStagingException {
+        String selectQuery = "SELECT \"Depth\", \"ID\" FROM " + keyspaceTemplate + "." + getTableName(itemType)
+                + " WHERE \"NodeID\" = " + nodeID + " AND " + depthFilter;
+        Map<Long, Integer> relatives = new HashMap<>();
+        for (Row row : cassandraDAO.dbOperations(selectQuery)) {
+            relatives.put(row.getLong("ID"), Math.abs(row.getInt("Depth")));
+        }
+        return relatives;
+    }
+
+    /**
+     * @return rows linking every ancestor to every item of the subtree, in both directions
+     */
+    private Set<Entry> getEntries(Map<Long, Integer> ancestors, Map<Long, Integer> subtree) {
+        Set<Entry> entries = new LinkedHashSet<>();
+        for (Map.Entry<Long, Integer> ancestor : ancestors.entrySet()) {
+            for (Map.Entry<Long, Integer> node : subtree.entrySet()) {
+                int depth = ancestor.getValue() + node.getValue();
+                entries.add(new Entry(ancestor.getKey(), depth, node.getKey()));
+                entries.add(new Entry(node.getKey(), -depth, ancestor.getKey()));
+            }
+        }
+        return entries;
+    }
+
+    private Long toParentID(long nodeID, Object parentID) {
+        if (parentID == null || parentID.toString().isEmpty()) {
+            return null;
+        }
+        try {
+            long id = Long.parseLong(parentID.toString());
+            return id <= 0 || id == nodeID ? null : id;
+        } catch (NumberFormatException e) {
+            logger.warn("[" + masterSubscriber + "] Invalid ParentID " + parentID + " of ID " + nodeID);
+            return null;
+        }
+    }
+
+    private void write(List<String> queries) throws ExportStagingException {
+        if (!queries.isEmpty()) {
+            cassandraDAO.bulkInsert(queries);
+        }
+    }
+
+    private String getInsertQuery(String itemType, Entry entry) {
+        return "INSERT INTO " + keyspaceTemplate + "." + getTableName(itemType) + " (\"NodeID\", \"Depth\", \"ID\")"
+                + " VALUES (" + entry.nodeID + ", " + entry.depth + ", " + entry.id + ")";
+    }
+
+    private String getDeleteQuery(String itemType, Entry entry) {
+        return "DELETE FROM " + keyspaceTemplate + "." + getTableName(itemType) + " WHERE \"NodeID\" = "
+                + entry.nodeID + " AND \"Depth\" = " + entry.depth + " AND \"ID\" = " + entry.id;
+    }
+
+    private static final class Entry {
+        private final long nodeID;
+        private final int depth;
+        private final long id;
+
+        private Entry(long nodeID, int depth, long id) {
+            this.nodeID = nodeID;
+            this.depth = depth;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Entry)) {
+                return false;
+            }
+            Entry entry = (Entry) object;
+            return nodeID == entry.nodeID && depth == entry.depth && id == entry.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (31 * (31 * nodeID + depth) + id);
+        }
+    }
+}
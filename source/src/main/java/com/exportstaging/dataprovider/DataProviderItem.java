@@ -7,16 +7,24 @@ import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import org.apache.logging.log4j.ThreadContext;
 import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Component("dataProviderItem")
 public class DataProviderItem extends AbstractDataProvider {
-    private String tableName;
+
+    @Autowired
+    private DataProviderLookup dataProviderLookup;
+    @Autowired
+    private DataProviderHierarchy dataProviderHierarchy;
 
     @Override
     public String getTableName(String itemType) {
@@ -29,7 +37,7 @@ public class DataProviderItem extends AbstractDataProvider {
 
     public void createMaterializedView(String itemType, List<String> viewFieldName) throws ExportStagingException
     {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         if (viewFieldName != null) {
             for (String fieldName : viewFieldName) {
                 if (itemType.equals(ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_USER) && (fieldName.equals(
@@ -67,7 +75,7 @@ public class DataProviderItem extends AbstractDataProvider {
     @Override
     public void createTableFromHeaders(String itemType, JSONObject dataModel) throws ExportStagingException {
         String createQuery;
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String columnNames = "";
         try {
             String columnType;
@@ -116,9 +124,48 @@ public class DataProviderItem extends AbstractDataProvider {
         logger.info(tableName + " Table created successfully");
     }
 
+    /**
+     * Insertion of object will be happen here, for the core item types the entries of the lookup fields are written
+     * to the lookup table before and a changed ParentID is moved in the hierarchy table afterwards.
+     *
+     * @param itemType          String type of an object
+     * @param tableName         String name of a table for which insertion will be done
+     * @param fieldValueMapping Map of field and its values
+     *                          Map structure would be <LanguageID, <FieldName, FieldVale>>
+     * @return true if object, lookup entries and hierarchy are written successfully otherwise false
+     */
+    @Override
+    public boolean insertItemData(String itemType, String tableName, Map<String, Map<String, Object>> fieldValueMapping) {
+        Object itemID = null;
+        if (!fieldValueMapping.isEmpty()) {
+            itemID = fieldValueMapping.values().iterator().next().get("\"" + ExportMiscellaneousUtils.EXPORT_FIELD_ID + "\"");
+        }
+        if (itemID == null || !dataProviderLookup.isLookupType(itemType)) {
+            return super.insertItemData(itemType, tableName, fieldValueMapping);
+        }
+        try {
+            // the lookup is written first, a failed write is repeated with the same previous values on redelivery
+            Map<String, Map<String, String>> previousValues = dataProviderLookup.getLookupValues(itemType,
+                    itemID.toString());
+            dataProviderLookup.updateItem(itemType, itemID.toString(), previousValues, fieldValueMapping);
+            if (!super.insertItemData(itemType, tableName, fieldValueMapping)) {
+                return false;
+            }
+            Map<String, Object> fieldMapping = fieldValueMapping.values().iterator().next();
+            String parentIDColumn = "\"" + ExportMiscellaneousUtils.EXPORT_FIELD_PARENTID + "\"";
+            if (fieldMapping.containsKey(parentIDColumn)) {
+                dataProviderHierarchy.updateItem(itemType, itemID.toString(), fieldMapping.get(parentIDColumn));
+            }
+        } catch (ExportStagingException e) {
+            logError("Exception while updating lookup entries and hierarchy for ID: " + itemID, e);
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public boolean deleteRow(String itemType, String message) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String deleteQuery;
         String prepareLanguageIDs = "";
         if (ExportMiscellaneousUtils.getCoreItemTypes().contains(itemType)) {
@@ -127,6 +174,10 @@ public class DataProviderItem extends AbstractDataProvider {
         deleteQuery = "DELETE FROM " + keyspaceTemplate + "." + tableName
                 + " WHERE " + prepareLanguageIDs + "\"ID\" IN (" + message + ")";
         try {
+            if (dataProviderLookup.isLookupType(itemType)) {
+                dataProviderLookup.removeItems(itemType, prepareLanguageIDs + "\"ID\" IN (" + message + ")");
+                dataProviderHierarchy.removeItems(itemType, message);
+            }
             cassandraDAO.dbOperations(deleteQuery);
         } catch (Exception e) {
             logError("Exception while deleting item row.", e);
@@ -138,7 +189,7 @@ public class DataProviderItem extends AbstractDataProvider {
 
     @Override
     public boolean deleteRow(String itemType, String itemID, String sMessage) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String deletedFieldName = null;
         String deletedFieldID = null;
         String deleteQuery;
@@ -192,20 +243,33 @@ public class DataProviderItem extends AbstractDataProvider {
         String affectedItemIds = "";
         long itemID;
         try {
-            String selectQuery = "SELECT \"ID\", \"LanguageID\""
-                    + " FROM " + keyspaceTemplate + "." + getMaterializedViewName(getTableName(deletedType), deletedFieldName)
-                    + " WHERE \"" + deletedFieldName + "\" = " + deletedFieldID
-                    + " AND \"LanguageID\" IN (" + getLanguageIds() + ")";
+            List<Row> rows;
+            if (dataProviderLookup.isLookupField(deletedFieldName) && dataProviderLookup.isComplete(deletedType)) {
+                rows = dataProviderLookup.getItems(deletedType, deletedFieldName, deletedFieldID);
+            } else {
+                String selectQuery = "SELECT \"ID\", \"LanguageID\""
+                        + " FROM " + keyspaceTemplate + "." + getMaterializedViewName(getTableName(deletedType), deletedFieldName)
+                        + " WHERE \"" + deletedFieldName + "\" = " + deletedFieldID
+                        + " AND \"LanguageID\" IN (" + getLanguageIds() + ")";
 
-            ResultSet resultSet = cassandraDAO.dbOperations(selectQuery);
-            List<Row> rows = resultSet.all();
+                ResultSet resultSet = cassandraDAO.dbOperations(selectQuery);
+                rows = resultSet.all();
+            }
             for (Row row : rows) {
                 itemID = row.getLong("ID");
+                String languageID = String.valueOf(row.getLong("LanguageID"));
+                Map<String, Map<String, String>> previousValues = dataProviderLookup.getLookupValues(deletedType,
+                        String.valueOf(itemID));
                 String updateQuery = "UPDATE " + keyspaceTemplate + "." + getTableName(deletedType) +
                         " SET \"WorkflowID\" = 0, \"StateID\" = 0" +
                         " WHERE \"ID\" = " + itemID +
-                        " AND \"LanguageID\" = " + row.getLong("LanguageID");
+                        " AND \"LanguageID\" = " + languageID;
                 cassandraDAO.dbOperations(updateQuery);
+                Map<String, Object> resetValues = new HashMap<>();
+                resetValues.put("\"" + ExportMiscellaneousUtils.EXPORT_FIELD_WORKFLOWID + "\"", "0");
+                resetValues.put("\"" + ExportMiscellaneousUtils.EXPORT_FIELD_STATEID + "\"", "0");
+                dataProviderLookup.updateItem(deletedType, String.valueOf(itemID), previousValues,
+                        Collections.singletonMap(languageID, resetValues));
                 affectedItemIds += itemID + ",";
             }
             if (rows.size() > 0) {
@@ -226,6 +290,9 @@ public class DataProviderItem extends AbstractDataProvider {
                 " WHERE \"" + deletedFieldName + "\"=" + deletedFieldID;
         try {
             ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, deletedType);
+            if (dataProviderLookup.isLookupType(deletedType)) {
+                dataProviderLookup.removeItems(deletedType, "\"" + deletedFieldName + "\" = " + deletedFieldID);
+            }
             cassandraDAO.dbOperations(deleteAffectedItemsQuery);
             logger.info("[" + masterSubscriber + "] Affected items deleted successfully because of " + deletedFieldName + " deletion with ID" + deletedFieldID);
         } catch (ExportStagingException e) {
@@ -242,7 +309,7 @@ public class DataProviderItem extends AbstractDataProvider {
             ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
             for (String column : indexColumns) {
                 sIndexQuery = "CREATE CUSTOM INDEX IF NOT EXISTS INDEX_" + itemType.toUpperCase() + "_" + column + " ON " + keyspace + "." +
-                        tableName + "(\"" + column + "\") using 'org.apache.cassandra.index.sasi.SASIIndex' " +
+                        getTableName(itemType) + "(\"" + column + "\") using 'org.apache.cassandra.index.sasi.SASIIndex' " +
                         "WITH OPTIONS = { 'mode': 'CONTAINS' };";
                 cassandraDAO.dbOperations(sIndexQuery);
             }
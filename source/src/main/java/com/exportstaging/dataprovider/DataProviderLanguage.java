@@ -16,7 +16,6 @@ public class DataProviderLanguage extends AbstractDataProvider {
     @Value("${json.key.language}")
     private String sLanguagenData;
 
-    private String tableName;
 
     @Override
     public String getTableName(String itemType) {
@@ -26,7 +25,7 @@ public class DataProviderLanguage extends AbstractDataProvider {
     @Override
     public void createTableFromHeaders(String itemType, JSONObject dataModel) {
         //Note: For language, dataModel is always null. In future, if languageHeaders are created, you will get this in the above parameter
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
         try {
             String createQuery = "CREATE TABLE " + keyspaceTemplate + "." + tableName + "("
@@ -58,7 +57,7 @@ public class DataProviderLanguage extends AbstractDataProvider {
 
     @Override
     public boolean deleteRow(String itemType, String itemID) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String deleteQuery;
         ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
         try {
@@ -0,0 +1,357 @@
+package com.exportstaging.dataprovider;
+
+import com.datastax.driver.core.Row;
+import com.exportstaging.abstractclasses.AbstractDataProvider;
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.common.ExportMiscellaneousUtils;
+import org.apache.logging.log4j.ThreadContext;
+import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup tables of the core item types: the IDs of the items by value of the fields in cassandra.lookup.fields, e.g.
+ * the children of a folder by ParentID. Reading the items by such a value from the item table needs ALLOW FILTERING,
+ * which scans all partitions, the lookup table is read from one partition.
+ * <p>
+ * The entries are written by the MasterSubscriber together with the items. Keyspaces created before the lookup tables
+ * are filled by the lookup backfill tool, the marker row is written once the table contains the entries of all items.
+ * Readers only use a table with the marker row.
+ */
+@Component("dataProviderLookup")
+public class DataProviderLookup extends AbstractDataProvider {
+    public static final String MARKER_FIELD = "_Lookup";
+    public static final String MARKER_VALUE = "complete";
+    private static final int WRITE_CHUNK_SIZE = 500;
+
+    @Value("${cassandra.suffix.lookup}")
+    private String sSuffixLookup;
+    @Value("${cassandra.lookup.fields}")
+    private String lookupFieldNames;
+
+    private Set<String> createdTables = ConcurrentHashMap.newKeySet();
+
+
+    @Override
+    public String getTableName(String itemType) {
+        return prefixExport + "_" + itemType.toLowerCase() + "_" + sSuffixLookup;
+    }
+
+    /**
+     * @param itemType String type of an object
+     * @return true if the IDs of the item type are kept in a lookup table
+     */
+    public boolean isLookupType(String itemType) {
+        for (String coreItemType : ExportMiscellaneousUtils.getCoreItemTypes()) {
+            if (coreItemType.equalsIgnoreCase(itemType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param fieldName String name of a field
+     * @return true if the IDs of the items are kept by value of the field
+     */
+    public boolean isLookupField(String fieldName) {
+        return getLookupFields().contains(fieldName);
+    }
+
+    @Override
+    public void createTableFromHeaders(String itemType, JSONObject dataModel) throws ExportStagingException {
+        createTable(itemType);
+        markComplete(itemType);
+    }
+
+    /**
+     * Creates the lookup table of the item type if it does not exist yet.
+     *
+     * @param itemType String type of an object
+     * @throws ExportStagingException if the table could not be created
+     */
+    public void createTable(String itemType) throws ExportStagingException {
+        String tableName = getTableName(itemType);
+        if (createdTables.contains(tableName)) {
+            return;
+        }
+        String createQuery = "CREATE TABLE IF NOT EXISTS " + keyspaceTemplate + "." + tableName + "("
+                + "\"Field\" " + ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_TEXT
+                + ", \"Value\" " + ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_TEXT
+                + ", \"LanguageID\" " + ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_BIGINT
+                + ", \"ID\" " + ExportMiscellaneousUtils.EXPORT_DATABASE_DATA_TYPE_BIGINT
+                + ", PRIMARY KEY((\"Field\",\"Value\"),\"LanguageID\",\"ID\"));";
+        cassandraDAO.dbOperations(createQuery);
+        createdTables.add(tableName);
+    }
+
+    @Override
+    public void dropTable(String itemType) throws ExportStagingException {
+        createdTables.remove(getTableName(itemType));
+        super.dropTable(itemType);
+    }
+
+    /**
+     * Writes the marker row, the lookup table contains the entries of all items from now on.
+     *
+     * @param itemType String type of an object
+     * @throws ExportStagingException if the marker could not be written
+     */
+    public void markComplete(String itemType) throws ExportStagingException {
+        cassandraDAO.dbOperations(getInsertQuery(itemType, MARKER_FIELD, MARKER_VALUE, "0", "0"));
+        logger.info(getTableName(itemType) + " table marked as complete");
+    }
+
+    /**
+     * @param itemType String type of an object
+     * @return true if the lookup table exists and contains the entries of all items
+     */
+    public boolean isComplete(String itemType) {
+        try {
+            return checkTable(itemType) && cassandraDAO.dbOperations(getSelectQuery(itemType, MARKER_FIELD,
+                    MARKER_VALUE)).one() != null;
+        } catch (ExportStagingException e) {
+            logError("Exception while checking lookup table of " + itemType, e);
+        }
+        return false;
+    }
+
+    /**
+     * Reads the items with the value of the field from the lookup table.
+     *
+     * @param itemType  String type of an object
+     * @param fieldName String name of a lookup field
+     * @param value     String value of the field
+     * @return rows with the LanguageID and ID of the items
+     * @throws ExportStagingException if the lookup table could not be read
+     */
+    public List<Row> getItems(String itemType, String fieldName, String value) throws ExportStagingException {
+        return cassandraDAO.dbOperations(getSelectQuery(itemType, fieldName, value)).all();
+    }
+
+    /**
+     * Reads the current values of the lookup fields of an item from the item table.
+     *
+     * @param itemType String type of an object
+     * @param itemID   String id of an object
+     * @return Map of the values, structure would be <LanguageID, <FieldName, FieldValue>>
+     * @throws ExportStagingException if the item table could not be read
+     */
+    public Map<String, Map<String, String>> getLookupValues(String itemType, String itemID)
+            throws ExportStagingException {
+        Map<String, Map<String, String>> values = new HashMap<>();
+        readLookupValues(itemType, "\"LanguageID\" IN (" + getLanguageIds() + ") AND \"ID\" = " + itemID,
+                (fieldName, value, languageID, id, writeTime) ->
+                        values.computeIfAbsent(languageID, language -> new HashMap<>()).put(fieldName, value));
+        return values;
+    }
+
+    /**
+     * Writes the entries of the values of an item before it is written to the item table and deletes the entries of
+     * the changed previous values. The entries of the current values are always written, so a redelivered message
+     * repairs entries which were not written before. As long as the item is not written, the previous values are
+     * read from the item table again and their entries are deleted again.
+     *
+     * @param itemType          String type of an object
+     * @param itemID            String id of an object
+     * @param previousValues    Map of the values in the item table, see {@link #getLookupValues(String, String)}
+     * @param fieldValueMapping Map of the fields to write, structure would be <LanguageID, <"FieldName", FieldValue>>
+     * @throws ExportStagingException if the entries could not be written
+     */
+    public void updateItem(String itemType, String itemID, Map<String, Map<String, String>> previousValues,
+                           Map<String, Map<String, Object>> fieldValueMapping) throws ExportStagingException {
+        createTable(itemType);
+        List<String> queries = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> languageEntry : fieldValueMapping.entrySet()) {
+            String languageID = languageEntry.getKey();
+            Map<String, String> previousLanguageValues = previousValues.getOrDefault(languageID,
+                    Collections.emptyMap());
+            for (String fieldName : getLookupFields()) {
+                String cassandraColumnName = "\"" + fieldName + "\"";
+                if (!languageEntry.getValue().containsKey(cassandraColumnName)) {
+                    continue;
+                }
+                String value = toLookupValue(languageEntry.getValue().get(cassandraColumnName));
+                String previousValue = previousLanguageValues.get(fieldName);
+                if (previousValue != null && !Objects.equals(value, previousValue)) {
+                    queries.add(getDeleteQuery(itemType, fieldName, previousValue, languageID, itemID));
+                }
+                if (value != null) {
+                    queries.add(getInsertQuery(itemType, fieldName, value, languageID, itemID));
+                }
+            }
+        }
+        if (!queries.isEmpty()) {
+            cassandraDAO.bulkInsert(queries);
+        }
+    }
+
+    /**
+     * Adds the entries of the items selected by the filter, used to fill the lookup table of an existing keyspace.
+     * The item table is read page by page, the entries are written every {@link #WRITE_CHUNK_SIZE} entries. An entry
+     * is written with the write time of the value in the item table, so an entry the MasterSubscriber deleted in the
+     * meantime stays deleted.
+     *
+     * @param itemType String type of an object
+     * @param filter   String CQL condition on the item table, null for all items
+     * @return number of written entries
+     * @throws ExportStagingException if the item table could not be read or the entries could not be written
+     */
+    public long addItems(String itemType, String filter) throws ExportStagingException {
+        createTable(itemType);
+        return writeEntries(itemType, filter, (type, fieldName, value, languageID, itemID, writeTime) ->
+                getInsertQuery(type, fieldName, value, languageID, itemID) + " USING TIMESTAMP " + writeTime);
+    }
+
+    /**
+     * Removes the entries of the items selected by the filter before they are deleted from the item table.
+     *
+     * @param itemType String type of an object
+     * @param filter   String CQL condition on the item table
+     * @throws ExportStagingException if the item table could not be read or the entries could not be deleted
+     */
+    public void removeItems(String itemType, String filter) throws ExportStagingException {
+        if (checkTable(itemType)) {
+            writeEntries(itemType, filter, (type, fieldName, value, languageID, itemID, writeTime) ->
+                    getDeleteQuery(type, fieldName, value, languageID, itemID));
+        }
+    }
+
+    @Override
+    public boolean deleteRow(String itemType, String itemID) {
+        ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
+        try {
+            removeItems(itemType, "\"LanguageID\" IN (" + getLanguageIds() + ") AND \"ID\" IN (" + itemID + ")");
+        } catch (Exception e) {
+            logError("Exception while deleting lookup entries for ID(s): " + itemID, e);
+            return false;
+        } finally {
+            ThreadContext.remove(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean deleteRow(String itemType, String itemID, String sAffectedItemType) {
+        return false;
+    }
+
+    @Override
+    public String getHeaderKey(String dataType) {
+        return dataType;
+    }
+
+    private long writeEntries(String itemType, String filter, EntryQuery entryQuery) throws ExportStagingException {
+        List<String> queries = new ArrayList<>();
+        long entries = readLookupValues(itemType, filter, (fieldName, value, languageID, itemID, writeTime) -> {
+            queries.add(entryQuery.getQuery(itemType, fieldName, value, languageID, itemID, writeTime));
+            if (queries.size() >= WRITE_CHUNK_SIZE) {
+                cassandraDAO.bulkInsert(queries);
+                queries.clear();
+            }
+        });
+        if (!queries.isEmpty()) {
+            cassandraDAO.bulkInsert(queries);
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the values of the lookup fields which exist in the item table and passes every value with its write time
+     * to the consumer.
+     *
+     * @return number of values
+     */
+    private long readLookupValues(String itemType, String filter, EntryConsumer consumer)
+            throws ExportStagingException {
+        String itemTableName = prefixExport + "_" + itemType.toLowerCase();
+        List<String> columns = cassandraDAO.getColumns(itemTableName);
+        List<String> fields = new ArrayList<>();
+        for (String fieldName : getLookupFields()) {
+            if (columns.contains(fieldName)) {
+                fields.add(fieldName);
+            }
+        }
+        if (fields.isEmpty()) {
+            return 0;
+        }
+        StringBuilder selectQuery = new StringBuilder("SELECT \"ID\", \"LanguageID\"");
+        for (String fieldName : fields) {
+            selectQuery.append(", \"").append(fieldName).append("\", WRITETIME(\"").append(fieldName).append("\")");
+        }
+        selectQuery.append(" FROM ").append(keyspaceTemplate).append(".").append(itemTableName);
+        if (filter != null) {
+            selectQuery.append(" WHERE ").append(filter);
+        }
+        long entries = 0;
+        for (Row row : cassandraDAO.dbOperations(selectQuery.toString())) {
+            String itemID = String.valueOf(row.getLong("ID"));
+            String languageID = String.valueOf(row.getLong("LanguageID"));
+            for (int index = 0; index < fields.size(); index++) {
+                String value = toLookupValue(row.getObject(2 + 2 * index));
+                if (value != null) {
+                    consumer.accept(fields.get(index), value, languageID, itemID, row.getLong(3 + 2 * index));
+                    entries++;
+                }
+            }
+        }
+        return entries;
+    }
+
+    private List<String> getLookupFields() {
+        List<String> fields = new ArrayList<>();
+        for (String fieldName : lookupFieldNames.split(",")) {
+            if (!fieldName.trim().isEmpty()) {
+                fields.add(fieldName.trim());
+            }
+        }
+        return fields;
+    }
+
+    private String toLookupValue(Object value) {
+        if (value == null || value.toString().isEmpty()) {
+            return null;
+        }
+        return value.toString();
+    }
+
+    private String getSelectQuery(String itemType, String fieldName, String value) {
+        return "SELECT \"LanguageID\", \"ID\" FROM " + keyspaceTemplate + "." + getTableName(itemType)
+                + " WHERE \"Field\" = '" + escape(fieldName) + "' AND \"Value\" = '" + escape(value) + "'";
+    }
+
+    private String getInsertQuery(String itemType, String fieldName, String value, String languageID, String itemID) {
+        return "INSERT INTO " + keyspaceTemplate + "." + getTableName(itemType)
+                + " (\"Field\", \"Value\", \"LanguageID\", \"ID\") VALUES ('" + escape(fieldName) + "', '"
+                + escape(value) + "', " + languageID + ", " + itemID + ")";
+    }
+
+    private String getDeleteQuery(String itemType, String fieldName, String value, String languageID, String itemID) {
+        return "DELETE FROM " + keyspaceTemplate + "." + getTableName(itemType)
+                + " WHERE \"Field\" = '" + escape(fieldName) + "' AND \"Value\" = '" + escape(value)
+                + "' AND \"LanguageID\" = " + languageID + " AND \"ID\" = " + itemID;
+    }
+
+    private String escape(String value) {
+        return value.replace("'", "''");
+    }
+
+    private interface EntryConsumer {
+        void accept(String fieldName, String value, String languageID, String itemID, long writeTime)
+                throws ExportStagingException;
+    }
+
+    private interface EntryQuery {
+        String getQuery(String itemType, String fieldName, String value, String languageID, String itemID,
+                        long writeTime);
+    }
+}
@@ -19,7 +19,6 @@ public class DataProviderMapping extends AbstractDataProvider {
     @Value("${cassandra.table.mapping.attributeid}")
     private String columnAttributeID;
 
-    private String tableName;
 
     @Override
     public String getTableName(String itemType) {
@@ -32,7 +31,7 @@ public class DataProviderMapping extends AbstractDataProvider {
 
     @Override
     public void createTableFromHeaders(String itemType, JSONObject dataModel) throws ExportStagingException {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
         try {
             String createQuery = "CREATE TABLE " + keyspaceTemplate + "." + tableName + "("
@@ -50,7 +49,7 @@ public class DataProviderMapping extends AbstractDataProvider {
 
     @Override
     public boolean deleteRow(String itemType, String itemID) {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String deleteQuery;
         try {
             ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
@@ -8,16 +8,21 @@ import org.json.simple.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Component("dataProviderReference")
 public class DataProviderReference extends AbstractDataProvider {
+    private static final List<String> ROW_KEY_COLUMNS = Arrays.asList("LanguageID", "AttributeID", "CSReferenceID");
+
     @Value("${cassandra.suffix.reference}")
     private String sSuffixReference;
     @Value("${json.key.reference}")
     private String sReferenceHeaders;
 
-    private String tableName;
 
     @Override
     public String getTableName(String itemType) {
@@ -26,7 +31,7 @@ public class DataProviderReference extends AbstractDataProvider {
 
     @Override
     public void createTableFromHeaders(String itemType, JSONObject dataModel) throws ExportStagingException {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String columnNames = "";
         try {
             ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
@@ -80,6 +85,28 @@ public class DataProviderReference extends AbstractDataProvider {
         return true;
     }
 
+    /**
+     * Deletes the reference rows of an item which are not part of the given reference data anymore.
+     *
+     * @param itemType          String type of an object
+     * @param itemID            String Id of an object
+     * @param fieldValueMapping Map of the current reference data of the object
+     *                          Structure of Map would be <LanguageID,<CSReferenceID,<FieldName, Value>>>
+     * @return true if the removed rows are deleted successfully otherwise false
+     */
+    public boolean deleteRemovedRows(String itemType, String itemID,
+                                     Map<String, Map<String, Map<String, Object>>> fieldValueMapping) {
+        try {
+            ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
+            Map<String, Object> itemKey = new LinkedHashMap<>();
+            itemKey.put("\"ItemID\"", itemID);
+            itemKey.put("\"SourceType\"", itemType);
+            return deleteRemovedRows(getTableName(itemType), itemKey, ROW_KEY_COLUMNS, fieldValueMapping);
+        } finally {
+            ThreadContext.remove(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE);
+        }
+    }
+
     @Override
     public boolean deleteRow(String itemType, String itemID, String sAffectedItemType) {
         return false;
@@ -8,10 +8,16 @@ import org.json.simple.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Component("dataProviderSubtable")
 public class DataProviderSubtable extends AbstractDataProvider {
+    private static final List<String> ROW_KEY_COLUMNS = Arrays.asList("LanguageID", "AttributeID", "ItemTableID");
+
     @Value("${cassandra.suffix.subtable}")
     private String sSuffixSubtable;
     @Value("${cassandra.suffix.view}")
@@ -19,7 +25,6 @@ public class DataProviderSubtable extends AbstractDataProvider {
     @Value("${json.key.subtable}")
     private String sSubtableeHeaders;
 
-    private String tableName;
 
     @Override
     public String getTableName(String itemType) {
@@ -32,7 +37,7 @@ public class DataProviderSubtable extends AbstractDataProvider {
 
     @Override
     public void createTableFromHeaders(String itemType, JSONObject dataModel) throws ExportStagingException {
-        tableName = getTableName(itemType);
+        String tableName = getTableName(itemType);
         String columnNames = "";
         try {
             ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
@@ -87,6 +92,28 @@ public class DataProviderSubtable extends AbstractDataProvider {
         return true;
     }
 
+    /**
+     * Deletes the subtable rows of an item which are not part of the given subtable data anymore.
+     *
+     * @param itemType          String type of an object
+     * @param itemID            String Id of an object
+     * @param fieldValueMapping Map of the current subtable data of the object
+     *                          Structure of Map would be <LanguageID,<ItemTableID,<FieldName, Value>>>
+     * @return true if the removed rows are deleted successfully otherwise false
+     */
+    public boolean deleteRemovedRows(String itemType, String itemID,
+                                     Map<String, Map<String, Map<String, Object>>> fieldValueMapping) {
+        try {
+            ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
+            Map<String, Object> itemKey = new LinkedHashMap<>();
+            itemKey.put("\"ItemID\"", itemID);
+            itemKey.put("\"ItemType\"", itemType);
+            return deleteRemovedRows(getTableName(itemType), itemKey, ROW_KEY_COLUMNS, fieldValueMapping);
+        } finally {
+            ThreadContext.remove(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE);
+        }
+    }
+
     @Override
     public boolean deleteRow(String itemType, String itemID, String sAffectedItemType) {
         return false;
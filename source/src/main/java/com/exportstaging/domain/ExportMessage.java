@@ -1,8 +1,5 @@
 package com.exportstaging.domain;
 
-import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
-
 import static com.exportstaging.common.ExportMiscellaneousUtils.*;
 
 /**
@@ -19,7 +16,8 @@ import static com.exportstaging.common.ExportMiscellaneousUtils.*;
  * Message:     It is the Item/Configuration Data in JSON Format <br>
  * ItemType:    It specifies the Module Type <br>
  * Type:        It specifies Mapping/Configuration/Item <br>
- * ItemMessage: It specifies the complete json decoded message into item, reference, subtable
+ * ItemMessage: It specifies the complete json decoded message into item, reference, subtable. The message is decoded
+ *              only once, see {@link ExportMessageContent}
  * MessageType: It provides the information if the message if of type Item or Record
  * </p>
  *
@@ -43,6 +41,7 @@ public class ExportMessage {
     private String type;
     private String messageType;
 
+    private ExportMessageContent content = null;
     private ItemMessage itemMessage = null;
     private ConfigurationMessage configurationMessage = null;
 
@@ -55,7 +54,7 @@ public class ExportMessage {
         this.setType(type);
         this.setJobID(jobID);
         if (type.equals(EXPORT_JSON_KEY_ITEM) && action != MYSQL_ACTION_DELETE)
-            this.setMessageType(fetchMessageType(message));
+            this.setMessageType(fetchMessageType());
         else
             this.setMessageType(EXPORT_JSON_KEY_ITEM);
     }
@@ -113,7 +112,9 @@ public class ExportMessage {
 
     public ItemMessage getItemMessage() {
         if (EXPORT_JSON_KEY_ITEM.equals(type) || TYPE_FILE_CONTENT.equals(type)) {
-            itemMessage = new ItemMessage(message, id, action, messageType, jobID);
+            if (itemMessage == null) {
+                itemMessage = new ItemMessage(getContent(), message, id, action, messageType, jobID);
+            }
             return itemMessage;
         }
         return new ItemMessage();
@@ -128,7 +129,7 @@ public class ExportMessage {
     }
 
     public Message getMessageData() {
-        return new Message(message, id, action, messageType, jobID);
+        return new Message(getContent(), message, id, action, messageType, jobID);
     }
 
     public OperationMessage getOperationData() {
@@ -143,18 +144,23 @@ public class ExportMessage {
         this.messageType = messageType;
     }
 
-    private String fetchMessageType(String message) {
-        JSONObject jsonObject = (JSONObject) JSONValue.parse(message);
-        String messageType = EXPORT_JSON_KEY_ITEM;
-        if (jsonObject != null) {
-            if (jsonObject.containsKey(EXPORT_JSON_KEY_RECORD)) {
-                messageType = EXPORT_JSON_KEY_RECORD;
-            } else if (jsonObject.containsKey(EXPORT_JSON_KEY_DEBUG_MODE)) {
-                messageType = EXPORT_JSON_KEY_DEBUG_MODE;
-            } else if (jsonObject.containsKey(EXPORT_JSON_KEY_REINDEX)) {
-                messageType = EXPORT_JSON_KEY_REINDEX;
-            }
+    /**
+     * The message is read only once, the content is kept for the item or record message created afterwards.
+     *
+     * @return type of the message, Item if the message cannot be read
+     */
+    private String fetchMessageType() {
+        try {
+            return getContent().getMessageType();
+        } catch (IllegalArgumentException e) {
+            return EXPORT_JSON_KEY_ITEM;
         }
-        return messageType;
+    }
+
+    private ExportMessageContent getContent() {
+        if (content == null) {
+            content = ExportMessageContent.parse(message);
+        }
+        return content;
     }
 }
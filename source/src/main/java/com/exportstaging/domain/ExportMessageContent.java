@@ -0,0 +1,174 @@
+package com.exportstaging.domain;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.exportstaging.common.ExportMiscellaneousUtils.*;
+
+/**
+ * Content of an item or record message, read in a single streaming pass.
+ * <p>
+ * The top level keys decide the message type. Only the Item, Record and FileContent sections are materialized while
+ * reading, Reference, Subtable and _BigDataAttributes are kept as raw JSON and parsed on first access. All other
+ * sections are skipped. Values are read into json-simple {@link JSONObject}/{@link JSONArray} instances with the same value types
+ * json-simple produces (Long, Double, String, Boolean), so the existing moderators and ES handlers work on them
+ * unchanged.
+ * <p>
+ * The sections are handed out as they are, callers which modify them have to create the {@link ItemMessage} or
+ * {@link Message} only once per content.
+ */
+public class ExportMessageContent {
+
+    public static final String KEY_REFERENCE = "Reference";
+    public static final String KEY_SUBTABLE = "Subtable";
+    public static final String KEY_BIG_DATA_ATTRIBUTES = "_BigDataAttributes";
+    public static final String KEY_FILE_CONTENT = "FileContent";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Set<String> EAGER_SECTIONS =
+            new HashSet<>(Arrays.asList(EXPORT_JSON_KEY_ITEM, EXPORT_JSON_KEY_RECORD, KEY_FILE_CONTENT));
+    private static final Set<String> LAZY_SECTIONS =
+            new HashSet<>(Arrays.asList(KEY_REFERENCE, KEY_SUBTABLE, KEY_BIG_DATA_ATTRIBUTES));
+    private static final List<String> MESSAGE_TYPE_KEYS =
+            Arrays.asList(EXPORT_JSON_KEY_RECORD, EXPORT_JSON_KEY_DEBUG_MODE, EXPORT_JSON_KEY_REINDEX);
+
+    private final Set<String> keys = new HashSet<>();
+    private final Map<String, Object> sections = new HashMap<>();
+    private final Map<String, String> rawSections = new HashMap<>();
+
+    private ExportMessageContent() {
+    }
+
+    /**
+     * Reads the message.
+     *
+     * @param json JSON message of an item or record
+     * @return content of the message
+     * @throws IllegalArgumentException if the message is not a JSON object
+     */
+    public static ExportMessageContent parse(String json) {
+        ExportMessageContent content = new ExportMessageContent();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Export message is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                parser.nextToken();
+                content.keys.add(key);
+                if (EAGER_SECTIONS.contains(key)) {
+                    content.sections.put(key, readValue(parser));
+                } else if (LAZY_SECTIONS.contains(key)) {
+                    int start = (int) parser.getTokenLocation().getCharOffset();
+                    parser.skipChildren();
+                    int end = (int) parser.getCurrentLocation().getCharOffset();
+                    content.rawSections.put(key, json.substring(start, end));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid export message: " + e.getMessage(), e);
+        }
+        return content;
+    }
+
+    /**
+     * Message type as decided by the top level keys: Record, DebugMode or Reindex if present, Item otherwise.
+     *
+     * @return type of the message
+     */
+    public String getMessageType() {
+        for (String messageTypeKey : MESSAGE_TYPE_KEYS) {
+            if (keys.contains(messageTypeKey)) {
+                return messageTypeKey;
+            }
+        }
+        return EXPORT_JSON_KEY_ITEM;
+    }
+
+    public boolean containsKey(String key) {
+        return keys.contains(key);
+    }
+
+    /**
+     * Provides a section of the message, lazy sections are parsed on the first call.
+     *
+     * @param key top level key of the section
+     * @return JSONArray, JSONObject or value of the section, null if the section is not available
+     */
+    public synchronized Object get(String key) {
+        String rawSection = rawSections.remove(key);
+        if (rawSection != null) {
+            sections.put(key, parseSection(rawSection));
+        }
+        return sections.get(key);
+    }
+
+    public JSONArray getArray(String key) {
+        Object section = get(key);
+        return section instanceof JSONArray ? (JSONArray) section : null;
+    }
+
+    /**
+     * Reads a JSON value with the value types of the sections, e.g. a section which was sent as JSON string.
+     *
+     * @param json JSON value
+     * @return JSONArray, JSONObject or value
+     * @throws IllegalArgumentException if the value is not valid JSON
+     */
+    public static Object parseSection(String json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            return readValue(parser);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid export message section: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the value at the current token of the parser including all its children.
+     */
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                JSONObject object = new JSONObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.getCurrentName();
+                    parser.nextToken();
+                    object.put(key, readValue(parser));
+                }
+                return object;
+            case START_ARRAY:
+                JSONArray array = new JSONArray();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(readValue(parser));
+                }
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                        ? parser.getBigIntegerValue() : parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+}
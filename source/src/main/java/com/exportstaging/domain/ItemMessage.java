@@ -4,7 +4,6 @@ import com.exportstaging.common.ExportMiscellaneousUtils;
 import org.apache.logging.log4j.Logger;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -17,9 +16,10 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class ItemMessage extends Message {
     private String JSONMessage = null;
+    private ExportMessageContent content = null;
     private JSONArray parsedReference = null;
     private JSONArray parsedSubtable = null;
-    private Map<String, List<String>> bigDataAttributes = new TreeMap<>();
+    private Map<String, List<String>> bigDataAttributes = null;
     private Map<Integer, Map<Integer, List<Map>>> ReferenceData;
     private Map<Integer, Map<Integer, List<Map>>> SubtableData;
     private Set<String> languageIds = new HashSet<>();
@@ -27,7 +27,7 @@ public class ItemMessage extends Message {
     protected static Logger logger;
 
     public ItemMessage() {
-
+        bigDataAttributes = new TreeMap<>();
     }
 
     /**
@@ -41,48 +41,51 @@ public class ItemMessage extends Message {
      * @param jobID       int active script job id
      */
     public ItemMessage(String JSONMessage, String id, int action, String messageType, int jobID) {
+        this(ExportMessageContent.parse(JSONMessage), JSONMessage, id, action, messageType, jobID);
+    }
+
+    /**
+     * Constructor to create the item message from an already parsed message content. Reference, Subtable and
+     * _BigDataAttributes are parsed on their first access.
+     *
+     * @param content     content of the message, its sections are used without copying
+     * @param JSONMessage String message of the item
+     * @param id          Message ID
+     * @param action      int Action of the Operation performed
+     * @param messageType Is the Message is for Item or Record
+     * @param jobID       int active script job id
+     */
+    public ItemMessage(ExportMessageContent content, String JSONMessage, String id, int action, String messageType, int jobID) {
         setJobId(jobID);
         setId(id);
         setJSONMessage(JSONMessage);
         setAction(action);
         setMessageType(messageType);
+        this.content = content;
         this.parseJSON();
     }
 
     private void parseJSON() {
-        JSONObject jsonObject = (JSONObject) JSONValue.parse(this.getJSONMessage());
-
-        JSONArray itemMessage = (JSONArray) jsonObject.get(getMessageType());
+        JSONArray itemMessage = content.getArray(getMessageType());
         //convert language independent attribute data to original form
         if (getMessageType().equals(ExportMiscellaneousUtils.EXPORT_JSON_KEY_ITEM)) {
             itemMessage = mergeItemLanguageIndependentAttrData(itemMessage);
         }
         setItemMessage(itemMessage);
-
-        //convert reference language independent attribute data to original form
-        JSONArray parsedReference = (JSONArray) jsonObject.get("Reference");
-        parsedReference = mergeRefLanguageIndependentAttrData(parsedReference);
-        this.setParsedReference(parsedReference);
-
-        JSONArray parsedSubtable = (JSONArray) jsonObject.get("Subtable");
-        this.setParsedSubtable((parsedSubtable == null) ? new JSONArray() : parsedSubtable);
-
-        this.setBigDataAttributes(buildBigAttributeData(jsonObject));
     }
 
 
     /**
      * Prepare map of language id and list of big data attributes
      *
-     * @param jsonObject Json object from which we can get the details
+     * @param bigDataAttributes _BigDataAttributes section of the message
      *
      * @return map of language id and list of big data attributes
      */
-    private Map<String, List<String>> buildBigAttributeData(JSONObject jsonObject)
+    private Map<String, List<String>> buildBigAttributeData(Object bigDataAttributes)
     {
         Map<String, List<String>> map = new HashMap<>();
         try {
-            Object bigDataAttributes = jsonObject.get("_BigDataAttributes");
             if (bigDataAttributes instanceof JSONArray) {
                 JSONArray bigDataAttributesData = (JSONArray) bigDataAttributes;
                 if (bigDataAttributesData != null) {
@@ -225,6 +228,10 @@ public class ItemMessage extends Message {
      * @return Parsed JSONArray object which can be iterated to get Reference data
      */
     public JSONArray getParsedReference() {
+        if (parsedReference == null && content != null) {
+            //convert reference language independent attribute data to original form
+            setParsedReference(mergeRefLanguageIndependentAttrData(content.getArray(ExportMessageContent.KEY_REFERENCE)));
+        }
         return parsedReference;
     }
 
@@ -233,6 +240,9 @@ public class ItemMessage extends Message {
     }
 
     public Map<String, List<String>> getBigDataAttributes() {
+        if (bigDataAttributes == null) {
+            setBigDataAttributes(buildBigAttributeData(content.get(ExportMessageContent.KEY_BIG_DATA_ATTRIBUTES)));
+        }
         return bigDataAttributes;
     }
 
@@ -246,6 +256,10 @@ public class ItemMessage extends Message {
      * @return Parsed JSONArray object which can be iterated to get Subtable data
      */
     public JSONArray getParsedSubtable() {
+        if (parsedSubtable == null && content != null) {
+            JSONArray parsedSubtable = content.getArray(ExportMessageContent.KEY_SUBTABLE);
+            setParsedSubtable((parsedSubtable == null) ? new JSONArray() : parsedSubtable);
+        }
         return parsedSubtable;
     }
 
@@ -261,6 +275,15 @@ public class ItemMessage extends Message {
         SubtableData = subtableData;
     }
 
+    /**
+     * Returns the FileContent section of a file content message, read together with the rest of the message.
+     *
+     * @return JSONArray or JSONObject of the section, null if the message has no FileContent section
+     */
+    public Object getFileContent() {
+        return content == null ? null : content.get(ExportMessageContent.KEY_FILE_CONTENT);
+    }
+
     /**
      * The JSONString that contains the complete object information.
      *
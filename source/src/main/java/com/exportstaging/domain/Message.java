@@ -3,7 +3,6 @@ package com.exportstaging.domain;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,23 +20,32 @@ public class Message {
     }
 
     public Message(String messageJSON, String id, int action, String messageType, int jobID) {
+        this(ExportMessageContent.parse(messageJSON), messageJSON, id, action, messageType, jobID);
+    }
+
+    /**
+     * Creates the message from an already parsed message content.
+     *
+     * @param content     content of the message, its sections are used without copying
+     * @param messageJSON String message
+     * @param id          Message ID
+     * @param action      int Action of the Operation performed
+     * @param messageType Is the Message is for Item or Record
+     * @param jobID       int active script job id
+     */
+    public Message(ExportMessageContent content, String messageJSON, String id, int action, String messageType, int jobID) {
         this.id = id;
         this.jobID = jobID;
         this.setMessageJSON(messageJSON);
         this.setAction(action);
         this.setMessageType(messageType);
-        parseMessageJSON();
+        this.setParsedItem(content.getArray(messageType));
     }
 
     void setItemMessage(JSONArray JSONMessage) {
         this.setParsedItem(JSONMessage);
     }
 
-    private void parseMessageJSON() {
-        JSONObject jsonObject = (JSONObject) JSONValue.parse(this.getMessageJSON());
-        this.setParsedItem((JSONArray) jsonObject.get(getMessageType()));
-    }
-
 
     private void prepareItemValues() {
         JSONArray itemMessage = getParsedItem();
@@ -0,0 +1,174 @@
+package com.exportstaging.elasticsearch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the indices of item types in the bulk-load profile while their initial export is loaded, see
+ * {@link ElasticSearchOperations#applyBulkLoadSettings(String, String)}.
+ * <p>
+ * The initial export of an item type is loaded once no initial export message of the item type was received for
+ * elasticsearch.bulkload.idle.timeout milliseconds. The documents collected for bulk requests are written, then the
+ * production settings of the indices are restored and the indices are refreshed and force merged. Until then the
+ * progress is printed every elasticsearch.bulkload.status.interval milliseconds.
+ */
+public class ElasticBulkLoadMonitor {
+
+  ///// INSTANCE VARS //////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+  private final static Logger logger = LogManager.getLogger("exportstaging");
+
+  private final String                   subscriberName;
+  private final ElasticSearchOperations  elasticSearchOperations;
+  private final long                     idleTimeout;
+  private final Map<String, BulkLoad>    bulkLoads = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService executor;
+
+
+  ///// CONSTRUCTOR ////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+  public ElasticBulkLoadMonitor(String subscriberName, ElasticSearchOperations elasticSearchOperations,
+                                long idleTimeout, long statusInterval)
+  {
+    this.subscriberName = subscriberName;
+    this.elasticSearchOperations = elasticSearchOperations;
+    this.idleTimeout = idleTimeout;
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, subscriberName + "BulkLoad");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::checkBulkLoads, statusInterval, statusInterval, TimeUnit.MILLISECONDS);
+  }
+
+
+  ///// PUBLIC METHODS /////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+  /**
+   * Switches the indices of the item type into the bulk-load profile until its initial export is loaded.
+   *
+   * @param itemType   item type whose initial export starts
+   * @param indexNames indices of the item type
+   */
+  public void start(String itemType, List<String> indexNames)
+  {
+    List<String> bulkLoadIndices = new ArrayList<>();
+    for (String indexName : indexNames) {
+      if (elasticSearchOperations.applyBulkLoadSettings(indexName, subscriberName)) {
+        bulkLoadIndices.add(indexName);
+      }
+    }
+    if (bulkLoadIndices.isEmpty()) {
+      return;
+    }
+    BulkLoad previous = bulkLoads.put(itemType, new BulkLoad(bulkLoadIndices));
+    if (previous != null) {
+      previous.indexNames.removeAll(bulkLoadIndices);
+      restore(previous.indexNames, false);
+    }
+    log("Bulk load of " + itemType + " started for indices " + bulkLoadIndices);
+  }
+
+
+  /**
+   * Called for every initial export message received by the subscriber.
+   *
+   * @param itemType item type of the message
+   */
+  public void onInitialExportMessage(String itemType)
+  {
+    BulkLoad bulkLoad = bulkLoads.get(itemType);
+    if (bulkLoad != null) {
+      bulkLoad.messages.incrementAndGet();
+      bulkLoad.lastMessageTime = System.currentTimeMillis();
+    }
+  }
+
+
+  /**
+   * Restores the production settings of all indices still in the bulk-load profile, without merging them.
+   */
+  public void close()
+  {
+    executor.shutdownNow();
+    for (String itemType : new ArrayList<>(bulkLoads.keySet())) {
+      BulkLoad bulkLoad = bulkLoads.remove(itemType);
+      if (bulkLoad != null) {
+        restore(bulkLoad.indexNames, false);
+        log("Bulk load of " + itemType + " interrupted after " + bulkLoad.messages.get() + " messages");
+      }
+    }
+  }
+
+
+  ///// PRIVATE METHODS ////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+  private void checkBulkLoads()
+  {
+    try {
+      long now = System.currentTimeMillis();
+      for (Map.Entry<String, BulkLoad> entry : bulkLoads.entrySet()) {
+        String   itemType = entry.getKey();
+        BulkLoad bulkLoad = entry.getValue();
+        long     seconds  = Math.max(1, (now - bulkLoad.startTime) / 1000);
+        if (now - bulkLoad.lastMessageTime < idleTimeout) {
+          log("Bulk load of " + itemType + ": " + bulkLoad.messages.get() + " messages in " + seconds + " s ("
+              + bulkLoad.messages.get() / seconds + "/s)");
+        }
+        else if (bulkLoads.remove(itemType, bulkLoad)) {
+          elasticSearchOperations.flushBulkRequests();
+          restore(bulkLoad.indexNames, true);
+          log("Bulk load of " + itemType + " finished: " + bulkLoad.messages.get() + " messages in " + seconds
+              + " s, production settings restored");
+        }
+      }
+    } catch (Exception e) {
+      logger.error("[" + subscriberName + "] Exception while checking bulk loads: " + e.getMessage());
+    }
+  }
+
+
+  private void restore(List<String> indexNames, boolean merge)
+  {
+    for (String indexName : indexNames) {
+      if (!elasticSearchOperations.restoreIndexSettings(indexName, subscriberName, merge)) {
+        logger.error("[" + subscriberName + "] Failed to restore the settings of index " + indexName
+                     + ", refresh stays disabled until the settings are restored");
+      }
+    }
+  }
+
+
+  private void log(String text)
+  {
+    text = "[" + subscriberName + "] : " + text;
+    System.out.println(text);
+    logger.info(text);
+  }
+
+
+  private static class BulkLoad {
+    private final List<String> indexNames;
+    private final long         startTime       = System.currentTimeMillis();
+    private final AtomicLong   messages        = new AtomicLong();
+    private volatile long      lastMessageTime = startTime;
+
+    private BulkLoad(List<String> indexNames)
+    {
+      this.indexNames = indexNames;
+    }
+  }
+}
@@ -4,6 +4,7 @@ import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -12,8 +13,12 @@ import java.util.concurrent.Future;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.UnavailableShardsException;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
@@ -30,6 +35,7 @@ import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.client.IndicesClient;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.indices.CreateIndexRequest;
@@ -44,8 +50,6 @@ import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -55,11 +59,13 @@ import com.exportstaging.api.exception.CannotCreateConnectionException;
 import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import com.exportstaging.connectors.idbconnector.IntermediateDAO;
+import com.exportstaging.domain.ExportMessageContent;
 import com.exportstaging.domain.ItemMessage;
 import com.exportstaging.domain.OperationMessage;
 import com.exportstaging.elasticsearch.clientbuilder.ClientBuilder;
 import com.exportstaging.elasticsearch.querybuilder.ElasticIndexQueryBuilder;
 import com.exportstaging.elasticsearch.queryexecutor.ElasticSearchQueryExecutor;
+import com.exportstaging.elasticsearch.threadhandler.ElasticBulkBatcher;
 import com.exportstaging.elasticsearch.threadhandler.ElasticMainIndexRequestHandler;
 import com.exportstaging.elasticsearch.utils.ElasticsearchUtils;
 import com.exportstaging.subscribers.ElasticSubscriber;
@@ -187,10 +193,16 @@ public class ElasticSearchOperations
   private String indexRefreshInterval;
   @Value("${elasticsearch.searchable.reindex.sleep}")
   private int    searchableReindexSleep;
+  @Value("${elasticsearch.bulk.flush.timeout}")
+  private long   bulkFlushTimeout;
+  @Value("${elasticsearch.bulkload.max.segments}")
+  private int    bulkLoadMaxSegments;
 
   @Autowired
   private   ElasticMainIndexRequestHandler requestHandler;
   @Autowired
+  private   ElasticBulkBatcher             bulkBatcher;
+  @Autowired
   private   ClientBuilder                  clientBuilder;
   @Autowired
   protected IntermediateDAO                intermediateDAO;
@@ -205,10 +217,8 @@ public class ElasticSearchOperations
 
   private String          loggerMessage;
   private ExecutorService executor, searchIndexExecutor;
-  private JSONParser jsonParser = new JSONParser();
   private Client     client     = null;
   private String[]   mappingNumericFields, mappingDateFields, mappingStringMultiFields;
-  private Map<String, HashMap<String, HashMap<String, ArrayList<Object>>>> referenceMap = new HashMap<>();
 
 
   ElasticSearchOperations()
@@ -315,11 +325,11 @@ public class ElasticSearchOperations
    *
    * @return if document added successfully in elastic it will return true otherwise false
    */
-  public boolean addDocument(String message, String type, String id, String subscriberName)
+  public boolean addDocument(ItemMessage message, String type, String id, String subscriberName)
   {
     String indexName = null;
     try {
-      JSONObject jsonString = getJSONString(message, type);
+      JSONObject jsonString = getJSONString(message);
       if (jsonString != null) {
         indexName = handler.getElasticIndexName(ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_MAMFILECONTENT);
         IndexRequest indexRequest = new IndexRequest(indexName, handler.getElasticTypeName(type), id);
@@ -380,7 +390,7 @@ public class ElasticSearchOperations
       }
     }
     else if (type.equals(typeFileContent) && subscriberName.equalsIgnoreCase(elasticSubscriberName)) {
-      jsonItem = getElasticSearchFileContent(message.getRawMessage());
+      jsonItem = getElasticSearchFileContent(message);
     }
     if (jsonItem == null) {
       return false;
@@ -389,6 +399,78 @@ public class ElasticSearchOperations
   }
 
 
+  /**
+   * Adds the documents of all languages of the item to the bulk requests shared with other messages, see
+   * {@link ElasticBulkBatcher}.
+   *
+   * @param message  ItemMessage object
+   * @param itemType String type of object
+   * @param type     String type of operation
+   *
+   * @return future completing with true once all documents are written, false if a document could not be written
+   */
+  public CompletableFuture<Boolean> addDocumentForAllLanguagesAsync(ItemMessage message, String itemType, String type,
+                                                                    String subscriberName)
+  {
+    try {
+      List<IndexRequest> indexRequests = prepareIndexRequests(message, itemType, type, subscriberName);
+      if (indexRequests == null) {
+        return CompletableFuture.completedFuture(false);
+      }
+      return bulkBatcher.add(subscriberName, indexRequests)
+                        .handle((failures, throwable) -> handleBulkFailures(itemType, failures, throwable));
+    } catch (Exception e) {
+      handler.logError("Exception while creating update query.", e);
+      return CompletableFuture.completedFuture(false);
+    }
+  }
+
+
+  /**
+   * Prepares the documents of all languages of the item for the index of the subscriber, without sending them.
+   *
+   * @param message  ItemMessage object
+   * @param itemType String type of object
+   * @param type     String type of operation
+   *
+   * @return one index request per language, null if the message has no item documents
+   */
+  public List<IndexRequest> prepareIndexRequests(ItemMessage message, String itemType, String type,
+                                                 String subscriberName)
+  {
+    JSONArray jsonItem = null;
+    if (type.equals(typeItem)) {
+      if (subscriberName.equalsIgnoreCase(elasticSubscriberName)) {
+        jsonItem = getElasticSearchItem(message, itemType);
+      }
+      else {
+        jsonItem = getElasticSearchItemForSearchIndex(message, itemType);
+      }
+    }
+    return jsonItem == null ? null : buildIndexRequests(itemType, type, jsonItem, subscriberName);
+  }
+
+
+  /**
+   * Sends the documents collected for bulk requests and waits until they are written.
+   *
+   * @return true if all documents are written in time
+   */
+  public boolean flushBulkRequests()
+  {
+    return bulkBatcher.flushAndWait(bulkFlushTimeout);
+  }
+
+
+  /**
+   * Sends the documents collected for bulk requests of the subscriber and stops collecting documents for it.
+   */
+  public void closeBulkRequests(String subscriberName)
+  {
+    bulkBatcher.close(subscriberName, bulkFlushTimeout);
+  }
+
+
   /**
    * Method will be responsible for deletion of filecontent from elastic search
    *
@@ -646,34 +728,10 @@ public class ElasticSearchOperations
    */
   private boolean processBulkRequest(String itemType, String type, JSONArray jsonItem, String subscriberName)
   {
-    IndexRequest indexRequest;
-    boolean      requestStatus = true;
+    boolean requestStatus = true;
     try {
       BulkRequest bulkRequest = new BulkRequest();
-      String      elasticIndexName;
-      String      documentId  = null;
-      String      languageId;
-      for (Object object : jsonItem) {
-        JSONObject jsonObject = (JSONObject) object;
-        languageId = jsonObject.get(ElasticsearchUtils.ES_FIELD_LANGUAGEID).toString();
-
-        if (handler.getLanguagePerIndexFlag()) {
-          if (subscriberName.equalsIgnoreCase(elasticSubscriberName)) {
-            elasticIndexName = handler.getElasticIndexName(itemType, languageId);
-          }
-          else {
-            elasticIndexName = handler.getSearchableIndexName(itemType, languageId);
-          }
-          documentId = jsonObject.get(ElasticsearchUtils.ES_FIELD_ID).toString();
-        }
-        else {
-          elasticIndexName = handler.getElasticIndexName(itemType);
-          documentId = jsonObject.get(FIELD_ID) + "_" + languageId;
-        }
-
-
-        indexRequest = new IndexRequest(elasticIndexName, handler.getElasticTypeName(type), documentId);
-        indexRequest.source(jsonObject);
+      for (IndexRequest indexRequest : buildIndexRequests(itemType, type, jsonItem, subscriberName)) {
         bulkRequest.add(indexRequest);
 
         // Checks if languages more than elasticQueryBatchSize from elastic properties then request processed in batch
@@ -705,6 +763,85 @@ public class ElasticSearchOperations
   }
 
 
+  /**
+   * Index requests of all languages of the object
+   *
+   * @param itemType String type of object
+   * @param type     String type of operation
+   * @param jsonItem JSONArray Complete information about the object
+   *
+   * @return one index request per language
+   */
+  private List<IndexRequest> buildIndexRequests(String itemType, String type, JSONArray jsonItem, String subscriberName)
+  {
+    List<IndexRequest> indexRequests = new ArrayList<>(jsonItem.size());
+    String             elasticIndexName;
+    String             documentId;
+    String             languageId;
+    for (Object object : jsonItem) {
+      JSONObject jsonObject = (JSONObject) object;
+      languageId = jsonObject.get(ElasticsearchUtils.ES_FIELD_LANGUAGEID).toString();
+
+      if (handler.getLanguagePerIndexFlag()) {
+        if (subscriberName.equalsIgnoreCase(elasticSubscriberName)) {
+          elasticIndexName = handler.getElasticIndexName(itemType, languageId);
+        }
+        else {
+          elasticIndexName = handler.getSearchableIndexName(itemType, languageId);
+        }
+        documentId = jsonObject.get(ElasticsearchUtils.ES_FIELD_ID).toString();
+      }
+      else {
+        elasticIndexName = handler.getElasticIndexName(itemType);
+        documentId = jsonObject.get(FIELD_ID) + "_" + languageId;
+      }
+
+      IndexRequest indexRequest = new IndexRequest(elasticIndexName, handler.getElasticTypeName(type), documentId);
+      indexRequest.source(jsonObject);
+      indexRequests.add(indexRequest);
+    }
+
+    return indexRequests;
+  }
+
+
+  /**
+   * Missing indices are created and the mapping fields limit is increased for the failed documents, so the message
+   * succeeds when it is delivered again.
+   *
+   * @return true if all documents were written
+   */
+  private boolean handleBulkFailures(String itemType, List<BulkItemResponse.Failure> failures, Throwable throwable)
+  {
+    if (throwable != null) {
+      handler.logError("Exception while executing bulk request.", throwable instanceof Exception
+                                                                   ? (Exception) throwable
+                                                                   : new Exception(throwable));
+      return false;
+    }
+    Set<String> handledIndices = new HashSet<>();
+    for (BulkItemResponse.Failure failure : failures) {
+      String indexName = failure.getIndex();
+      if (!handledIndices.add(indexName)) {
+        continue;
+      }
+      logger.warn("Failed to write document [" + failure.getId() + "] into index [" + indexName + "]: " + failure.getMessage());
+      if (elasticQueryExecutor.validateForIndexNotFound(failure.getMessage())) {
+        try {
+          elasticSubscriber.validateAndCreateIndex(itemType, indexName);
+        } catch (Exception e) {
+          logger.info("Exception while creating index [" + indexName + "] in document insertion");
+        }
+      }
+      else {
+        elasticQueryExecutor.increaseMappingFieldsLimit(indexName, failure.getMessage());
+      }
+    }
+
+    return failures.isEmpty();
+  }
+
+
   /*private void processSearchableIndex(JSONArray jsonItem, String itemType, String type, boolean requestStatus)
   {
     if (handler.getLanguagePerIndexFlag()) {
@@ -851,37 +988,40 @@ public class ElasticSearchOperations
   }
 
 
-  private JSONObject getJSONString(String message, String type)
+  /**
+   * Returns the FileContent section of the message with the content trimmed to elasticFileContentLength as
+   * _ContentRaw. The section was read together with the message, a section sent as JSON string is read here.
+   */
+  private JSONObject getJSONString(ItemMessage message)
   {
-    JSONObject jsonMessage;
-    JSONObject jsonFileContent;
-    String     contentRaw = null;
+    Object typeContent = message.getFileContent();
     try {
-      jsonMessage = (JSONObject) jsonParser.parse(message);
-      if (jsonMessage != null) {
-        String jsonString = jsonMessage.get(type).toString();
-        jsonFileContent = (JSONObject) jsonParser.parse(jsonString);
-        String fileContent = (String) jsonFileContent.get(FIELD_CONTENT);
-        int    fileContentLen;
-        if (fileContent != null) {
-          if ((fileContentLen = fileContent.length()) > elasticFileContentLength) {
-            contentRaw = fileContent.substring(0, elasticFileContentLength / 2) + " " + fileContent.substring(
-              fileContentLen - elasticFileContentLength / 2);
-          }
-          else {
-            contentRaw = fileContent;
-          }
-        }
-        jsonFileContent.put(FIELD_CONTENT_RAW, contentRaw);
-        jsonMessage.put(type, jsonFileContent);
+      if (typeContent instanceof String) {
+        typeContent = ExportMessageContent.parseSection((String) typeContent);
       }
-      return (JSONObject) (jsonMessage != null
-                           ? jsonMessage.get(type)
-                           : null);
-    } catch (ParseException e) {
+    } catch (IllegalArgumentException e) {
       handler.logError("Exception while getting json string for add document.", e);
+      return null;
+    }
+    if (!(typeContent instanceof JSONObject)) {
+      logger.error("[" + elasticSubscriberName + "] FileContent section of item " + message.getId() + " is not an object");
+      return null;
     }
-    return null;
+    JSONObject jsonFileContent = (JSONObject) typeContent;
+    String     contentRaw      = null;
+    String     fileContent     = (String) jsonFileContent.get(FIELD_CONTENT);
+    int        fileContentLen;
+    if (fileContent != null) {
+      if ((fileContentLen = fileContent.length()) > elasticFileContentLength) {
+        contentRaw = fileContent.substring(0, elasticFileContentLength / 2) + " " + fileContent.substring(
+          fileContentLen - elasticFileContentLength / 2);
+      }
+      else {
+        contentRaw = fileContent;
+      }
+    }
+    jsonFileContent.put(FIELD_CONTENT_RAW, contentRaw);
+    return jsonFileContent;
   }
 
 
@@ -891,9 +1031,9 @@ public class ElasticSearchOperations
   
     JSONArray                 itemArray         = new JSONArray();
     Map<String, List<String>> bigDataAttributes = message.getBigDataAttributes();
-    referenceMap.clear();
-    JSONObject references = getReferences(message.getParsedReference(), customHtmlFields);
-    JSONObject subtables  = getSubtables(message.getParsedSubtable(), customHtmlFields);
+    Map<String, HashMap<String, HashMap<String, ArrayList<Object>>>> referenceMap = new HashMap<>();
+    JSONObject references = getReferences(message.getParsedReference(), customHtmlFields, referenceMap);
+    JSONObject subtables  = getSubtables(message.getParsedSubtable(), customHtmlFields, referenceMap);
     for (Object itemElement : message.getParsedItem()) {
       JSONObject   itemJSONElement = (JSONObject) itemElement;
       JSONObject removedNullFieldsItemJSONElement = processJson(itemJSONElement, customHtmlFields);
@@ -918,9 +1058,9 @@ public class ElasticSearchOperations
     Set<String>               searchableFields  = handler.getSearchableItemHeaders(itemType);
     JSONArray                 itemArray         = new JSONArray();
     Map<String, List<String>> bigDataAttributes = message.getBigDataAttributes();
-    referenceMap.clear();
-    JSONObject references = getReferences(message.getParsedReference(), searchableHtmlFields);
-    JSONObject subtables  = getSubtables(message.getParsedSubtable(), searchableHtmlFields);
+    Map<String, HashMap<String, HashMap<String, ArrayList<Object>>>> referenceMap = new HashMap<>();
+    JSONObject references = getReferences(message.getParsedReference(), searchableHtmlFields, referenceMap);
+    JSONObject subtables  = getSubtables(message.getParsedSubtable(), searchableHtmlFields, referenceMap);
     for (Object itemElement : message.getParsedItem()) {
       JSONObject itemJSONElement = (JSONObject) itemElement;
       itemJSONElement.keySet().retainAll(searchableFields);
@@ -969,18 +1109,12 @@ public class ElasticSearchOperations
   }
 
 
-  private JSONArray getElasticSearchFileContent(String message)
+  private JSONArray getElasticSearchFileContent(ItemMessage message)
   {
-    JSONObject jsonMessage;
-    try {
-      jsonMessage = (JSONObject) jsonParser.parse(message);
-      if (jsonMessage != null) {
-        return (JSONArray) jsonMessage.get(ElasticsearchUtils.ES_CONSTANT_FILECONTENT);
-      }
-    } catch (ParseException e) {
-      handler.logError("Exception while getting elastic search file content.", e);
-    }
-    return null;
+    Object fileContent = message.getFileContent();
+    return fileContent instanceof JSONArray
+           ? (JSONArray) fileContent
+           : null;
   }
 
 
@@ -1145,7 +1279,11 @@ public class ElasticSearchOperations
   }
 
 
-  private JSONObject getSubtables(JSONArray jsonArray, Set<String> htmlFields)
+  private JSONObject getSubtables(
+    JSONArray jsonArray,
+    Set<String> htmlFields,
+    Map<String, HashMap<String, HashMap<String, ArrayList<Object>>>> referenceMap
+  )
   {
     JSONObject                                                    jsonObject = new JSONObject();
     Map<String, Map<String, Map<String, Map<String, ArrayList>>>> itemMap    = new HashMap<>();
@@ -1204,7 +1342,7 @@ public class ElasticSearchOperations
             itemMap.get(itemID).get(languageID).get(attributeID).put(subItemID, new ArrayList());
             itemMap.get(itemID).get(languageID).get(attributeID).get(subItemID).add(nullRemovalElementJsonObject);
           }
-          handleNestedLevel(itemID, itemMap, nullRemovalElementJsonObject, languageID);
+          handleNestedLevel(itemID, itemMap, nullRemovalElementJsonObject, languageID, referenceMap);
           jsonObject.put(languageID, languageObject);
         }
         else {
@@ -1225,7 +1363,7 @@ public class ElasticSearchOperations
             itemMap.get(itemID).get(languageID).get(attributeID).put(subItemID, new ArrayList());
             itemMap.get(itemID).get(languageID).get(attributeID).get(subItemID).add(nullRemovalElementJsonObject);
           }
-          handleNestedLevel(itemID, itemMap, nullRemovalElementJsonObject, languageID);
+          handleNestedLevel(itemID, itemMap, nullRemovalElementJsonObject, languageID, referenceMap);
           parentArray.add(nullRemovalElementJsonObject);
           languageObject.put(attributeID, parentArray);
         }
@@ -1240,7 +1378,8 @@ public class ElasticSearchOperations
     String itemID,
     Map<String, Map<String, Map<String, Map<String, ArrayList>>>> itemMap,
     JSONObject elementJSONObject,
-    String languageID
+    String languageID,
+    Map<String, HashMap<String, HashMap<String, ArrayList<Object>>>> referenceMap
   )
   {
     if (itemMap.containsKey(itemID)) {
@@ -1251,11 +1390,11 @@ public class ElasticSearchOperations
       JSONObject subtableObject = new JSONObject();
       if (subtableID != null) {
         appendSubtableData(subtableID, referenceIDs, languageID, tableRowID, elementJSONObject, subtableObject, itemMap,
-                           itemID);
+                           itemID, referenceMap);
       }
       else {  // reference attribute is present but the subtable data is empty
         if (referenceIDs != null) {
-          appendReferenceData(elementJSONObject, referenceIDs, new JSONObject(), languageID, tableRowID);
+          appendReferenceData(elementJSONObject, referenceIDs, new JSONObject(), languageID, tableRowID, referenceMap);
         }
       }
     }
@@ -1270,7 +1409,8 @@ public class ElasticSearchOperations
     JSONObject elementJSONObject,
     JSONObject subtableObject,
     Map<String, Map<String, Map<String, Map<String, ArrayList>>>> itemMap,
-    String itemID
+    String itemID,
+    Map<String, HashMap<String, HashMap<String, ArrayList<Object>>>> referenceMap
   )
   {
     String[] subTableIDs = subtableID.split(",");
@@ -1278,7 +1418,7 @@ public class ElasticSearchOperations
       JSONObject referenceDataObject = new JSONObject();
       if (referenceIDs != null) {
         elementJSONObject = appendReferenceData(elementJSONObject, referenceIDs, referenceDataObject, languageID,
-                                                tableRowID);
+                                                tableRowID, referenceMap);
       }
       subtableObject.put(tableID, itemMap.get(itemID).get(languageID).get(tableID).get(tableRowID));
       elementJSONObject.put(CONSTANT_SUBTABLE, subtableObject);
@@ -1292,7 +1432,8 @@ public class ElasticSearchOperations
     String referenceIDs,
     JSONObject referenceDataObject,
     String languageID,
-    String tableRowID
+    String tableRowID,
+    Map<String, HashMap<String, HashMap<String, ArrayList<Object>>>> referenceMap
   )
   {
     String[] referenceIDList = referenceIDs.split(",");
@@ -1306,7 +1447,11 @@ public class ElasticSearchOperations
   }
 
 
-  private JSONObject getReferences(JSONArray jsonArray, Set<String> htmlFields)
+  private JSONObject getReferences(
+    JSONArray jsonArray,
+    Set<String> htmlFields,
+    Map<String, HashMap<String, HashMap<String, ArrayList<Object>>>> referenceMap
+  )
   {
     JSONObject jsonObject = new JSONObject();
 
@@ -1833,6 +1978,114 @@ public class ElasticSearchOperations
   }
 
 
+  /**
+   * Switches the index into the bulk-load profile used while an initial export is loaded: refresh disabled, no
+   * replicas and asynchronous translog durability.
+   *
+   * @param indexName name of the index
+   *
+   * @return true if the settings are applied
+   */
+  public boolean applyBulkLoadSettings(String indexName, String subscriberName)
+  {
+    Settings settings = Settings.builder()
+                                .put(ExportMiscellaneousUtils.EXPORT_ELASTIC_SETTING_INDEX_REFRESH_INTERVAL, "-1")
+                                .put(ExportMiscellaneousUtils.EXPORT_ELASTIC_SETTING_INDEX_REPLICAS, 0)
+                                .put(ExportMiscellaneousUtils.EXPORT_ELASTIC_SETTING_TRANSLOG_DURABILITY, "async")
+                                .build();
+    return updateIndexSettings(indexName, settings, subscriberName);
+  }
+
+
+  /**
+   * Restores the settings the index is created with. If merge is set the index is refreshed and force merged down
+   * to elasticsearch.bulkload.max.segments segments afterwards, the merge runs in the background.
+   *
+   * @param indexName name of the index
+   * @param merge     true to refresh and force merge the index
+   *
+   * @return true if the settings are restored
+   */
+  public boolean restoreIndexSettings(String indexName, String subscriberName, boolean merge)
+  {
+    Settings settings = Settings.builder()
+                                .put(ExportMiscellaneousUtils.EXPORT_ELASTIC_SETTING_INDEX_REFRESH_INTERVAL,
+                                     indexRefreshInterval)
+                                .put(ExportMiscellaneousUtils.EXPORT_ELASTIC_SETTING_INDEX_REPLICAS, elasticReplicasCount)
+                                .put(ExportMiscellaneousUtils.EXPORT_ELASTIC_SETTING_TRANSLOG_DURABILITY, "request")
+                                .build();
+    boolean restored = updateIndexSettings(indexName, settings, subscriberName);
+    if (!restored || !merge) {
+      return restored;
+    }
+    try {
+      IndicesClient indicesClient = clientBuilder.getIndicesAdminClient(subscriberName);
+      indicesClient.refresh(new RefreshRequest(indexName), RequestOptions.DEFAULT);
+      ForceMergeRequest forceMergeRequest = new ForceMergeRequest(indexName).maxNumSegments(bulkLoadMaxSegments);
+      indicesClient.forcemergeAsync(forceMergeRequest, RequestOptions.DEFAULT, new ActionListener<ForceMergeResponse>()
+      {
+        @Override
+        public void onResponse(ForceMergeResponse response)
+        {
+          logger.info("[" + subscriberName + "] Index " + indexName + " merged");
+        }
+
+        @Override
+        public void onFailure(Exception e)
+        {
+          handler.logError("Exception while merging index " + indexName + ".", e);
+        }
+      });
+    } catch (Exception e) {
+      handler.logError("Exception while refreshing index " + indexName + ".", e);
+    }
+    return true;
+  }
+
+
+  /**
+   * @param indexName name of the index
+   *
+   * @return true if refresh is disabled for the index, which is the case while it has the bulk-load profile
+   */
+  public boolean isBulkLoadProfile(String indexName, String subscriberName)
+  {
+    try {
+      GetSettingsRequest request = new GetSettingsRequest().indices(indexName);
+      GetSettingsResponse response = clientBuilder.getIndicesAdminClient(subscriberName)
+                                                  .getSettings(request, RequestOptions.DEFAULT);
+      return "-1".equals(response.getSetting(indexName,
+                                             ExportMiscellaneousUtils.EXPORT_ELASTIC_SETTING_INDEX_REFRESH_INTERVAL));
+    } catch (Exception e) {
+      handler.logError("Exception while retrieving settings of index " + indexName + ".", e);
+    }
+    return false;
+  }
+
+
+  private boolean updateIndexSettings(String indexName, Settings settings, String subscriberName)
+  {
+    try {
+      UpdateSettingsRequest request = new UpdateSettingsRequest(indexName).settings(settings);
+      return clientBuilder.getIndicesAdminClient(subscriberName)
+                          .putSettings(request, RequestOptions.DEFAULT)
+                          .isAcknowledged();
+    } catch (NoNodeAvailableException | UnavailableShardsException noHostOrShard) {
+      handler.logError("Connection to Elasticsearch failed. Retrying to perform operation.", noHostOrShard);
+      try {
+        Thread.sleep(retryDelay);
+      } catch (InterruptedException interrupt) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      return updateIndexSettings(indexName, settings, subscriberName);
+    } catch (Exception e) {
+      handler.logError("Exception while updating settings of index " + indexName + ".", e);
+    }
+    return false;
+  }
+
+
   /**
    * Default fields limit is 1000 for per index but if its exceeded then it would be set to new limit
    * New limit would be current limit + 50% of current limit
@@ -47,4 +47,13 @@ public interface ElasticSearchQueryExecutor
    * @return true if error message is Index not found otherwise false
    */
   boolean validateForIndexNotFound(String errorMessage);
+
+  /**
+   * Increases the mapping fields limit of the index if the error message reports that the limit is exceeded
+   *
+   * @param indexName      name of the index
+   * @param failureMessage error message
+   * @return true if the limit was increased otherwise false
+   */
+  boolean increaseMappingFieldsLimit(String indexName, String failureMessage);
 }
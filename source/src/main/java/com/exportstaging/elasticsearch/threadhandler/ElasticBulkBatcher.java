@@ -0,0 +1,273 @@
+package com.exportstaging.elasticsearch.threadhandler;
+
+import com.exportstaging.api.exception.CannotCreateConnectionException;
+import com.exportstaging.elasticsearch.clientbuilder.ClientBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the documents of many messages into shared bulk requests, one {@link BulkProcessor} per subscriber.
+ * <p>
+ * A bulk request is sent once it has elasticsearch.bulk.actions documents, elasticsearch.bulk.size.mb megabytes or
+ * is older than elasticsearch.bulk.flush.interval milliseconds. At most elasticsearch.bulk.concurrent.requests bulk
+ * requests are in flight, adding documents blocks until one of them completes. More than one request in flight may
+ * write two versions of a document out of order, so the default is 1.
+ * <p>
+ * Rejected documents are not retried by the BulkProcessor: its retry returns the responses of the retried documents
+ * in a different order, and a retried document may overwrite a newer version. They fail the future of their message,
+ * which is redelivered instead.
+ * <p>
+ * Every call of {@link #add(String, List)} returns a future of the documents of one message. It completes once the
+ * responses of all its documents are known, with the failures of its documents, or exceptionally if a bulk request
+ * containing one of its documents failed as a whole. Futures are completed on a thread of the batcher, never on a
+ * thread of the Elasticsearch client.
+ */
+@Component("elasticBulkBatcher")
+public class ElasticBulkBatcher {
+
+  ///// INSTANCE VARS //////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+  @Value("${elasticsearch.bulk.actions}")
+  private int bulkActions;
+  @Value("${elasticsearch.bulk.size.mb}")
+  private int bulkSizeMB;
+  @Value("${elasticsearch.bulk.flush.interval}")
+  private long flushInterval;
+  @Value("${elasticsearch.bulk.concurrent.requests}")
+  private int concurrentRequests;
+
+  @Autowired
+  private ClientBuilder clientBuilder;
+
+  private final static Logger logger = LogManager.getLogger("exportstaging");
+
+  private final Map<String, BulkProcessor> bulkProcessors = new ConcurrentHashMap<>();
+  private final Map<DocWriteRequest<?>, PendingDocuments> pendingRequests = new ConcurrentHashMap<>();
+  private final Set<PendingDocuments> pendingDocuments = ConcurrentHashMap.newKeySet();
+  private final ExecutorService completionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "ElasticBulkCompletion");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+
+  ///// PUBLIC METHODS /////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+  /**
+   * Adds the documents of one message to the bulk requests of the subscriber.
+   *
+   * @param subscriberName name of the subscriber whose client sends the requests
+   * @param requests       documents of the message
+   *
+   * @return future of the failed documents of the message, empty if all documents were written
+   *
+   * @throws CannotCreateConnectionException if there is no client for the subscriber
+   */
+  public CompletableFuture<List<BulkItemResponse.Failure>> add(String subscriberName,
+                                                               List<? extends DocWriteRequest<?>> requests)
+    throws CannotCreateConnectionException
+  {
+    PendingDocuments documents = new PendingDocuments(requests.size());
+    if (requests.isEmpty()) {
+      documents.future.complete(documents.failures);
+      return documents.future;
+    }
+    BulkProcessor bulkProcessor = getBulkProcessor(subscriberName);
+    pendingDocuments.add(documents);
+    for (DocWriteRequest<?> request : requests) {
+      pendingRequests.put(request, documents);
+    }
+    for (DocWriteRequest<?> request : requests) {
+      bulkProcessor.add(request);
+    }
+    return documents.future;
+  }
+
+
+  /**
+   * Sends the collected documents of all subscribers and waits until the documents added before are written.
+   *
+   * @param timeout maximum time to wait in milliseconds
+   *
+   * @return true if all documents are written in time
+   */
+  public boolean flushAndWait(long timeout)
+  {
+    List<CompletableFuture<?>> futures = new ArrayList<>();
+    for (PendingDocuments documents : pendingDocuments) {
+      futures.add(documents.future.handle((failures, throwable) -> null));
+    }
+    for (BulkProcessor bulkProcessor : bulkProcessors.values()) {
+      bulkProcessor.flush();
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeout, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      return false;
+    } catch (TimeoutException e) {
+      logger.warn("[ElasticBulkBatcher] " + pendingDocuments.size() + " messages are not written after " + timeout + " ms");
+      return false;
+    }
+    return true;
+  }
+
+
+  /**
+   * Sends the collected documents of the subscriber and closes its bulk processor.
+   *
+   * @param subscriberName name of the subscriber
+   * @param timeout        maximum time to wait in milliseconds
+   */
+  public void close(String subscriberName, long timeout)
+  {
+    BulkProcessor bulkProcessor = bulkProcessors.remove(subscriberName);
+    if (bulkProcessor != null) {
+      try {
+        if (!bulkProcessor.awaitClose(timeout, TimeUnit.MILLISECONDS)) {
+          logger.warn("[" + subscriberName + "] Bulk requests are not completed after " + timeout + " ms");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+
+  ///// PRIVATE METHODS ////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+  private BulkProcessor getBulkProcessor(String subscriberName) throws CannotCreateConnectionException
+  {
+    BulkProcessor bulkProcessor = bulkProcessors.get(subscriberName);
+    if (bulkProcessor == null) {
+      RestHighLevelClient client = clientBuilder.getClient(subscriberName);
+      bulkProcessor = bulkProcessors.computeIfAbsent(subscriberName, name -> BulkProcessor.builder(
+        (request, listener) -> client.bulkAsync(request, RequestOptions.DEFAULT, listener), new CompletionListener())
+        .setBulkActions(bulkActions)
+        .setBulkSize(new ByteSizeValue(bulkSizeMB, ByteSizeUnit.MB))
+        .setFlushInterval(TimeValue.timeValueMillis(flushInterval))
+        .setConcurrentRequests(concurrentRequests)
+        .setBackoffPolicy(BackoffPolicy.noBackoff())
+        .build());
+    }
+    return bulkProcessor;
+  }
+
+
+  /**
+   * Items of the response are in the order of the documents of the request, as long as the BulkProcessor does not
+   * retry.
+   */
+  private void complete(BulkRequest request, BulkResponse response)
+  {
+    BulkItemResponse[] items = response.getItems();
+    List<DocWriteRequest<?>> requests = request.requests();
+    for (int index = 0; index < requests.size(); index++) {
+      PendingDocuments documents = pendingRequests.remove(requests.get(index));
+      if (documents != null) {
+        documents.complete(items[index].isFailed() ? items[index].getFailure() : null);
+      }
+    }
+  }
+
+
+  private void fail(BulkRequest request, Throwable failure)
+  {
+    logger.error("[ElasticBulkBatcher] Bulk request of " + request.numberOfActions() + " documents failed: "
+                 + failure.getMessage());
+    for (DocWriteRequest<?> docWriteRequest : request.requests()) {
+      PendingDocuments documents = pendingRequests.remove(docWriteRequest);
+      if (documents != null) {
+        documents.fail(failure);
+      }
+    }
+  }
+
+
+  /**
+   * Documents of one message.
+   */
+  private class PendingDocuments {
+    private final CompletableFuture<List<BulkItemResponse.Failure>> future    = new CompletableFuture<>();
+    private final List<BulkItemResponse.Failure>                    failures  = new ArrayList<>();
+    private final AtomicInteger                                     remaining;
+
+    private PendingDocuments(int documentCount)
+    {
+      remaining = new AtomicInteger(documentCount);
+    }
+
+    private void complete(BulkItemResponse.Failure failure)
+    {
+      if (failure != null) {
+        synchronized (failures) {
+          failures.add(failure);
+        }
+      }
+      if (remaining.decrementAndGet() == 0) {
+        pendingDocuments.remove(this);
+        future.complete(failures);
+      }
+    }
+
+    private void fail(Throwable throwable)
+    {
+      if (remaining.decrementAndGet() == 0) {
+        pendingDocuments.remove(this);
+      }
+      future.completeExceptionally(throwable);
+    }
+  }
+
+
+  private class CompletionListener implements BulkProcessor.Listener {
+    @Override
+    public void beforeBulk(long executionId, BulkRequest request)
+    {
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, BulkResponse response)
+    {
+      completionExecutor.execute(() -> complete(request, response));
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, Throwable failure)
+    {
+      completionExecutor.execute(() -> fail(request, failure));
+    }
+  }
+}
@@ -56,6 +56,10 @@ public class DatabaseInitializer {
     @Autowired
     private DataProviderLanguage dataProviderLanguage;
     @Autowired
+    private DataProviderLookup dataProviderLookup;
+    @Autowired
+    private DataProviderHierarchy dataProviderHierarchy;
+    @Autowired
     private CassandraDAO cassandraDAO;
 
     private String keyspaceTemplate = "keyspace_template";
@@ -108,6 +112,8 @@ public class DatabaseInitializer {
             });
             tableCreator(dataProviderItem, itemType, combinedJson);
             createMaterializedView(itemType, configuredMVFields);
+            tableCreator(dataProviderLookup, itemType, null);
+            tableCreator(dataProviderHierarchy, itemType, null);
         }
     }
 
@@ -253,6 +259,8 @@ public class DatabaseInitializer {
                 }
                 dropMaterializedViews(itemType);
                 dataProviderItem.dropTable(itemType);
+                dataProviderLookup.dropTable(itemType);
+                dataProviderHierarchy.dropTable(itemType);
                 //TODO refactor to make it generic and remove hard-coded values
                 if (itemType.contains("Pdmarticle")) {
                     if ((!ExportMiscellaneousUtils.getCoreItemTypes().contains("Pdmarticle") && !ExportMiscellaneousUtils.getCoreItemTypes().contains("Pdmarticlestructure"))) {
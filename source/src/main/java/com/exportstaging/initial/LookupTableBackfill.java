@@ -0,0 +1,73 @@
+package com.exportstaging.initial;
+
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.common.ExportMiscellaneousUtils;
+import com.exportstaging.dataprovider.DataProviderHierarchy;
+import com.exportstaging.dataprovider.DataProviderItem;
+import com.exportstaging.dataprovider.DataProviderLookup;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The responsibility of this class is to fill the lookup and hierarchy tables of a keyspace created before these
+ * tables existed. It is started with the parameter -mode:lookupBackfill and can run while the MasterSubscriber is
+ * running: the MasterSubscriber maintains the rows of the items it writes, the backfill adds the rows of all other
+ * items. Once a table of an item type is filled, its marker row is written and the API reads the item IDs by
+ * ExternalKey, ParentID and StateID from the lookup table and the descendants of an item from the hierarchy table.
+ */
+@Component
+public class LookupTableBackfill {
+
+    private final Logger logger = LogManager.getLogger("exportstaging");
+
+    @Autowired
+    private DataProviderItem dataProviderItem;
+    @Autowired
+    private DataProviderLookup dataProviderLookup;
+    @Autowired
+    private DataProviderHierarchy dataProviderHierarchy;
+
+
+    /**
+     * Fills the lookup and hierarchy tables of all core item types which are not complete yet.
+     */
+    public void backfill() {
+        for (String itemType : ExportMiscellaneousUtils.getCoreItemTypes()) {
+            try {
+                if (!dataProviderItem.checkTable(itemType)) {
+                    printInfo("No " + dataProviderItem.getTableName(itemType) + " table, skipping " + itemType);
+                    continue;
+                }
+                if (dataProviderLookup.isComplete(itemType)) {
+                    printInfo(dataProviderLookup.getTableName(itemType) + " table is already complete");
+                } else {
+                    long startTime = System.currentTimeMillis();
+                    long entries = dataProviderLookup.addItems(itemType, null);
+                    dataProviderLookup.markComplete(itemType);
+                    printInfo(dataProviderLookup.getTableName(itemType) + " table filled with " + entries
+                            + " entries in " + (System.currentTimeMillis() - startTime) + " ms");
+                }
+                if (dataProviderHierarchy.isComplete(itemType)) {
+                    printInfo(dataProviderHierarchy.getTableName(itemType) + " table is already complete");
+                } else {
+                    long startTime = System.currentTimeMillis();
+                    long items = dataProviderHierarchy.addItems(itemType);
+                    dataProviderHierarchy.markComplete(itemType);
+                    printInfo(dataProviderHierarchy.getTableName(itemType) + " table filled with " + items
+                            + " items in " + (System.currentTimeMillis() - startTime) + " ms");
+                }
+            } catch (ExportStagingException e) {
+                System.out.println("Failed to fill lookup tables of " + itemType + ": " + e.getMessage());
+                logger.error("[LookupTableBackfill] Failed to fill lookup tables of " + itemType + " Error Message:"
+                        + e.getMessage());
+            }
+        }
+    }
+
+    private void printInfo(String message) {
+        System.out.println(message);
+        logger.info("[LookupTableBackfill] " + message);
+    }
+}
@@ -6,6 +6,7 @@ import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import com.exportstaging.elasticsearch.updatedatamodel.ElasticIndexUpdater;
 import com.exportstaging.initial.ExportInitializerUtils;
+import com.exportstaging.initial.LookupTableBackfill;
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -31,6 +32,9 @@ public class ExportExecutor {
             if (isElasticIndexUpdater(startUpSettings)) {
                 configureProjectPathProperty(startUpSettings);
                 loadElasticSpecificContext(startUpSettings);
+            } else if (isLookupBackfill(startUpSettings)) {
+                configureProjectPathProperty(startUpSettings);
+                loadLookupBackfillContext();
             } else {
                 if (startUpSettings.length > 0 && startUpSettings[0].startsWith("-")) {
                     getStartUpConfigurations(startUpSettings);
@@ -218,6 +222,30 @@ public class ExportExecutor {
     }
 
 
+    /**
+     * Method will check the startup parameter contains lookup backfill param or not
+     *
+     * @param startUpSettings startup parameters
+     * @return true if startup param contains lookup backfill param otherwise false
+     */
+    private static boolean isLookupBackfill(String[] startUpSettings) {
+        List<String> param = Arrays.asList(startUpSettings);
+
+        return param.contains(ExportMiscellaneousUtils.EXPORT_MODE + ":" + ExportMiscellaneousUtils.EXPORT_LOOKUP_BACKFILL);
+    }
+
+
+    /**
+     * Method will load application context only regarding the lookup tables of the export database
+     * Required configuration are specified in the lookupbackfill.xml
+     */
+    private static void loadLookupBackfillContext() {
+        try (ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("spring/lookupbackfill.xml")) {
+            applicationContext.getBean("lookupTableBackfill", LookupTableBackfill.class).backfill();
+        }
+    }
+
+
     /**
      * Method will load application context only regarding elastic search index creation
      * No Need to load all profiles and configuration
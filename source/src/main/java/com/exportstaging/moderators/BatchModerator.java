@@ -2,9 +2,9 @@ package com.exportstaging.moderators;
 
 import com.exportstaging.activemq.ExportActiveMQUtils;
 import com.exportstaging.api.exception.ExportStagingException;
-import com.exportstaging.connectors.messagingqueue.ActiveMQMBeanConnection;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import com.exportstaging.producers.Producer;
+import com.exportstaging.producers.ProducerRateController;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -35,16 +35,19 @@ public class BatchModerator extends ModeratorData implements Runnable {
     @Autowired
     private ExportActiveMQUtils exportActiveMQUtils;
     @Autowired
-    private ActiveMQMBeanConnection mBeanConnection;
+    private ProducerRateController rateController;
 
     @Value("${export.producer.sleep.time}")
     private int producerSleepTime;
-    @Value("${activemq.broker.store.threshold}")
-    private int maxStoreUsage;
     @Value("${core.project.name}")
     private String projectName;
+    @Value("${mysql.polling.mode}")
+    private String pollingMode;
+    @Value("${activemq.message.group.buckets}")
+    private int messageGroupBuckets;
 
     private static boolean isInitialOperation = false;
+    private static final String POLLING_MODE_KEYSET = "keyset";
 
     public void setItemType(String itemType) {
         this.itemType = itemType;
@@ -69,10 +72,20 @@ public class BatchModerator extends ModeratorData implements Runnable {
 
     @Override
     public void run() {
+        poll();
+    }
+
+    /**
+     * Sends the pending rows of the item type until a pass returns less than a full batch of items.
+     *
+     * @return number of rows sent, of all types
+     */
+    public int poll() {
         ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
         Thread.currentThread().setName(producerName + "_" + itemType);
+        int totalCount = 0;
         if (isInitialOperation) {
-            return;
+            return totalCount;
         }
         if (exportActiveMQUtils.isMessageBusRunning()) {
             boolean shouldProcess = true;
@@ -80,12 +93,13 @@ public class BatchModerator extends ModeratorData implements Runnable {
             do {
                 try {
                     if (!itemType.equals(ExportMiscellaneousUtils.EXPORT_TYPE_OPERATION)) {
-                        getMessagesInBatch(mTypeConfiguration);
-                        getMessagesInBatch(mTypeMapping);
+                        totalCount += getMessagesInBatch(mTypeConfiguration);
+                        totalCount += getMessagesInBatch(mTypeMapping);
                     }
                     processedCount = getMessagesInBatch(mTypeItem);
+                    totalCount += processedCount;
                     if (itemType.equals(ITEMTYPE_FILE)) {
-                        getMessagesInBatch(mTypeFileContent);
+                        totalCount += getMessagesInBatch(mTypeFileContent);
                     }
                     if (processedCount < mResultBatchSize) {
                         shouldProcess = false;
@@ -96,6 +110,7 @@ public class BatchModerator extends ModeratorData implements Runnable {
             } while (shouldProcess);
         }
         ThreadContext.remove(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE);
+        return totalCount;
     }
 
     private int getMessagesInBatch(String type) throws ExportStagingException {
@@ -104,17 +119,33 @@ public class BatchModerator extends ModeratorData implements Runnable {
         int iResultSize = 0;
         int iUpdateCount = 0;
         List<Map<String, Object>> resultRows;
+        IDBPollingCursor cursor = null;
+        if (isKeysetPolling()) {
+            cursor = createPollingCursor(type, producerSettings);
+        }
         do {
-            if (mBeanConnection.getStorePercentUsage(producerName) < maxStoreUsage) {
+            try {
+                rateController.acquire(producerName, 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (cursor != null) {
+                resultRows = fetchNextPage(cursor);
+            } else {
                 sSelectQuery = getSelectQuery(type, producerSettings);
                 resultRows = intermediateDAO.fetchData(sSelectQuery);
-                iResultSize = resultRows != null ? resultRows.size() : 0;
-                if (iResultSize != 0) {
-                    setMessages(resultRows, type, itemType);
-                    iUpdateCount += iResultSize;
+            }
+            iResultSize = resultRows != null ? resultRows.size() : 0;
+            if (iResultSize != 0) {
+                try {
+                    rateController.acquire(producerName, iResultSize);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 }
-            } else {
-                logger.debug("ActiveMQ kahadb storage capacity get full to " + maxStoreUsage + "%");
+                setMessages(resultRows, type, itemType);
+                iUpdateCount += iResultSize;
             }
         } while (iResultSize == mResultBatchSize);
         return iUpdateCount;
@@ -136,8 +167,51 @@ public class BatchModerator extends ModeratorData implements Runnable {
         return sSelectQuery;
     }
 
+    private boolean isKeysetPolling() {
+        return POLLING_MODE_KEYSET.equalsIgnoreCase(StringUtils.trim(pollingMode));
+    }
+
+    private IDBPollingCursor createPollingCursor(String type, Map<String, Object> producerSettings) {
+        String tableName = (String) producerSettings.get(CONSTANT_TABLENAME);
+        intermediateDAO.ensureKeysetPollingIndex(tableName);
+        List<String> selectColumns = Arrays.asList(columnID, columnMessage, columnAction, columnJobID,
+                columnVersionNr, columnInsertTime, columnJmsPriority);
+        List<Integer> actions = Arrays.asList(mActionUpdate, mActionDelete, mActionCreate, mActionInitial);
+        return new IDBPollingCursor(tableName, mTypeMapping.equals(type), columnID, columnInsertTime,
+                columnJmsPriority, columnAction, columnProducerStatus, selectColumns, actions, producer.getProducerID());
+    }
+
+    /**
+     * Fetches the next page of the keyset walk. A page is filled across priority levels, so a result smaller than the
+     * batch size still means that the backlog has been walked completely.
+     *
+     * @param cursor Keyset cursor of the current walk
+     * @return rows of the next page, empty if the walk is exhausted
+     * @throws ExportStagingException if there is any problem executing the queries
+     */
+    private List<Map<String, Object>> fetchNextPage(IDBPollingCursor cursor) throws ExportStagingException {
+        List<Map<String, Object>> resultRows = new ArrayList<>();
+        if (!cursor.isStarted()) {
+            cursor.setPriority(intermediateDAO.fetchInteger(cursor.getFirstPriorityQuery()));
+        }
+        while (!cursor.isExhausted() && resultRows.size() < mResultBatchSize) {
+            int pageSize = mResultBatchSize - resultRows.size();
+            List<Map<String, Object>> pageRows = intermediateDAO.fetchData(cursor.getPageQuery(pageSize), cursor.getPageParameters());
+            resultRows.addAll(pageRows);
+            if (pageRows.size() < pageSize) {
+                cursor.setPriority(intermediateDAO.fetchInteger(cursor.getNextPriorityQuery(), cursor.getPriority()));
+            } else {
+                Map<String, Object> lastRow = pageRows.get(pageRows.size() - 1);
+                cursor.advance(Long.parseLong(lastRow.get(columnInsertTime).toString()),
+                        Long.parseLong(lastRow.get(columnID).toString()));
+            }
+        }
+        return resultRows;
+    }
+
     private void setMessages(List<Map<String, Object>> resultRows, String type, String itemType) throws ExportStagingException {
         List<String> listUpdated = new ArrayList<>();
+        List<String> listUncommitted = new ArrayList<>();
         String itemID;
         String itemMessage;
         int action, jobID;
@@ -149,6 +223,7 @@ public class BatchModerator extends ModeratorData implements Runnable {
             ThreadContext.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
             MapMessage message = producer.getMapMessage();
             if (message != null) {
+                long fetchTime = System.currentTimeMillis();
                 for (Map rowMap : resultRows) {
                     long startTime = System.currentTimeMillis();
                     timeValueFromDB = Long.parseLong(rowMap.get(columnInsertTime).toString());
@@ -168,11 +243,15 @@ public class BatchModerator extends ModeratorData implements Runnable {
                     message.setString(ExportMiscellaneousUtils.CONSTANT_ITEM_TYPE, itemType);
                     message.setString(ExportMiscellaneousUtils.CONSTANT_TYPE, type);
                     message.setLong(ExportMiscellaneousUtils.IDB_INSERT_TIME, maxTimeValue);
+                    message.setLong(ExportMiscellaneousUtils.IDB_ROW_INSERT_TIME, timeValueFromDB);
+                    message.setLong(ExportMiscellaneousUtils.PRODUCER_FETCH_TIME, fetchTime);
                     message.setInt(columnAction, action);
                     message.setInt(columnJobID, jobID);
                     message.setInt(columnVersionNr, Integer.parseInt(rowMap.get(columnVersionNr).toString()));
                     message.setJMSType(itemType);
                     message.setStringProperty("ObjectId", itemID);
+                    //Messages of one group are delivered to the same subscriber partition, which keeps them in order
+                    message.setStringProperty(ExportMiscellaneousUtils.JMS_MESSAGE_GROUP_ID, getMessageGroupID(itemType, itemID));
 
                     int jmsPriority = Integer.parseInt(rowMap.get(columnJmsPriority).toString());
                     if (jmsPriority == ExportMiscellaneousUtils.CONSTANT_EXPORT_TYPE_INITIAL) {
@@ -188,23 +267,79 @@ public class BatchModerator extends ModeratorData implements Runnable {
                     String loggerInfo = "with ID: " + itemID + " and JMSPriority: " + jmsPriority + ". Took(ms): ";
                     long tookTime;
                     if (producer != null && producer.sendMessage(message, jmsPriority)) {
-                        listUpdated.add(itemID);
                         tookTime = System.currentTimeMillis() - startTime;
-                        logger.info("[" + producerName + "] Message sent " + loggerInfo + tookTime);
+                        if (producer.isTransacted()) {
+                            listUncommitted.add(itemID);
+                            logger.info("[" + producerName + "] Message queued for commit " + loggerInfo + tookTime);
+                            if (listUncommitted.size() >= producer.getTransactionSize()) {
+                                commitMessages(listUncommitted, listUpdated);
+                            }
+                        } else {
+                            listUpdated.add(itemID);
+                            logger.info("[" + producerName + "] Message sent " + loggerInfo + tookTime);
+                        }
                     } else {
                         logger.error("[" + producerName + "] Message sending failed " + loggerInfo);
                     }
                 }
+                commitMessages(listUncommitted, listUpdated);
             }
         } catch (JMSException | ExportStagingException e) {
             logError("Exception while sending message.", e, producerName);
+            if (!listUncommitted.isEmpty()) {
+                producer.rollbackMessages();
+            }
         } finally {
             ThreadContext.clearAll();
         }
         if (!listUpdated.isEmpty()) {
-            updateStatus(tableName, StringUtils.join(listUpdated, ","), maxTimeValue);
-            deleteFromIntermediateTable(tableName);
+            intermediateDAO.updateProducerStatus(tableName, listUpdated, producer.getProducerID(), maxTimeValue);
+            intermediateDAO.schedulePurge(tableName, getDeleteStatus());
+        }
+    }
+
+    /**
+     * Returns the message group of an item. The items of a type are hashed into activemq.message.group.buckets groups,
+     * so the number of groups stays below the 1024 groups the broker remembers per queue. With one group per item the
+     * broker would evict groups and assign the next version of an item to another consumer.
+     *
+     * @param itemType Item type of the message
+     * @param itemID   ID of the item
+     * @return JMSXGroupID of the message
+     */
+    private String getMessageGroupID(String itemType, String itemID) {
+        if (itemType.equals(ExportMiscellaneousUtils.EXPORT_TYPE_OPERATION)) {
+            return itemType;
         }
+        long bucket;
+        try {
+            bucket = Math.floorMod(Long.parseLong(itemID), (long) messageGroupBuckets);
+        } catch (NumberFormatException e) {
+            bucket = Math.floorMod(itemID.hashCode(), messageGroupBuckets);
+        }
+        return itemType + "_" + bucket;
+    }
+
+    /**
+     * Commits the messages sent in the current producer transaction. Only the IDs of committed messages are moved to
+     * the updated list, the rows of a failed commit stay pending in the IDB and are sent again with the next poll.
+     *
+     * @param listUncommitted IDs of the messages sent in the current transaction
+     * @param listUpdated     IDs of the messages accepted by the broker
+     */
+    private void commitMessages(List<String> listUncommitted, List<String> listUpdated) {
+        if (listUncommitted.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        if (producer.commitMessages()) {
+            listUpdated.addAll(listUncommitted);
+            logger.info("[" + producerName + "] " + listUncommitted.size() + " messages committed. Took(ms): " +
+                    (System.currentTimeMillis() - startTime));
+        } else {
+            logger.error("[" + producerName + "] Commit failed for messages with IDs: " + StringUtils.join(listUncommitted, ","));
+        }
+        listUncommitted.clear();
     }
 
     private void handleOperationMessage(String itemMessage, int action) throws ExportStagingException {
@@ -242,19 +377,4 @@ public class BatchModerator extends ModeratorData implements Runnable {
         rootLoggerConfig.addAppender(config.getAppender("debug-log"), debugLevel, null);
         ctx.updateLoggers();
     }
-
-    private void deleteFromIntermediateTable(String tableName) throws ExportStagingException {
-        String sDeleteQuery = "DELETE FROM " + tableName +
-                " WHERE " + columnProducerStatus + " = " + getDeleteStatus() + ";";
-        intermediateDAO.executeQuery(sDeleteQuery);
-    }
-
-    private void updateStatus(String tableName, String iDList, long maxTimeValue) throws ExportStagingException {
-        String sUpdateQuery = "UPDATE " + tableName +
-                " SET " + columnProducerStatus + "=" + columnProducerStatus + "+" + producer.getProducerID() +
-                " WHERE " + columnID +
-                " IN (" + iDList + ")" +
-                " AND " + columnInsertTime + " <= " + maxTimeValue + ";";
-        intermediateDAO.executeQuery(sUpdateQuery);
-    }
-}
\ No newline at end of file
+}
@@ -13,7 +13,6 @@ import java.util.Set;
 
 @Component("configurationModerator")
 public class ConfigurationModerator extends ModeratorData {
-    private Map<String, String> columnNameWithDataType = null;
 
     boolean setConfiguration(ConfigurationMessage message, String itemType) {
         boolean status = false;
@@ -21,14 +20,14 @@ public class ConfigurationModerator extends ModeratorData {
         String itemID = "";
         try {
             itemID = message.getId();
-            columnNameWithDataType = dataProviderConfiguration.getColumnNameWithDataType(dataProviderConfiguration.getTableName(itemType));
+            Map<String, String> columnNameWithDataType = dataProviderConfiguration.getColumnNameWithDataType(dataProviderConfiguration.getTableName(itemType));
             JSONObject messageObject = message.getParsedConfiguration();
             if (message.getConfigurationType().equals(mKeyItem)) {
-                isItemTableUpdated = updateItemTable(itemID, messageObject, itemType);
+                isItemTableUpdated = updateItemTable(itemID, messageObject, itemType, columnNameWithDataType);
             } else if (message.getConfigurationType().equals(mKeyReference)) {
-                isReferenceTableUpdated = updateReferenceTable(messageObject, itemType);
+                isReferenceTableUpdated = updateReferenceTable(messageObject, itemType, columnNameWithDataType);
             } else if (message.getConfigurationType().equals(mKeySubtable)) {
-                isSubtableTableUpdated = updateSubtableTable(messageObject, itemType);
+                isSubtableTableUpdated = updateSubtableTable(messageObject, itemType, columnNameWithDataType);
             } else {
                 logger.warn("Invalid json key for getting configuration data for ID: " + itemID);
             }
@@ -67,7 +66,8 @@ public class ConfigurationModerator extends ModeratorData {
         return bCheckFlag;
     }
 
-    private boolean updateConfigurationTable(JSONObject jsonObject, String itemType, String TypeID) {
+    private boolean updateConfigurationTable(JSONObject jsonObject, String itemType, String TypeID,
+                                             Map<String, String> columnNameWithDataType) {
         Set<String> extraColumns = new HashSet<>(columnNameWithDataType.keySet());
         String columnName = "";
         String columnValue = "";
@@ -88,7 +88,8 @@ public class ConfigurationModerator extends ModeratorData {
         return dataProviderConfiguration.insertColumnData(itemType, insertQueryData[0], insertQueryData[1]);
     }
 
-    private boolean updateItemTable(String itemID, JSONObject message, String itemType) {
+    private boolean updateItemTable(String itemID, JSONObject message, String itemType,
+                                    Map<String, String> columnNameWithDataType) {
         String typeID = (message.get("IsFolder").equals("1")) ? "0" : "1";
         if (typeID.equals("1")) {
             dataProviderItem.addAttributeColumns(itemType, itemID.trim());
@@ -103,11 +104,12 @@ public class ConfigurationModerator extends ModeratorData {
                 MDC.put(ExportMiscellaneousUtils.EXPORT_DATABASE_LOG_ITEM_TYPE, itemType);
             }
         }
-        return updateConfigurationTable(message, itemType, typeID);
+        return updateConfigurationTable(message, itemType, typeID, columnNameWithDataType);
     }
 
-    private boolean updateReferenceTable(JSONObject message, String itemType) {
-        boolean status = updateConfigurationTable(message, itemType, "2");
+    private boolean updateReferenceTable(JSONObject message, String itemType,
+                                         Map<String, String> columnNameWithDataType) {
+        boolean status = updateConfigurationTable(message, itemType, "2", columnNameWithDataType);
         String subAttributes = (String) message.get(ExportMiscellaneousUtils.getExportDatabaseFieldSubAttributes());
         if (subAttributes != null && !subAttributes.isEmpty()) {
             String ids[] = subAttributes.trim().split(",");
@@ -118,8 +120,9 @@ public class ConfigurationModerator extends ModeratorData {
         return status;
     }
 
-    private boolean updateSubtableTable(JSONObject message, String itemType) {
-        boolean status = updateConfigurationTable(message, itemType, "3");
+    private boolean updateSubtableTable(JSONObject message, String itemType,
+                                        Map<String, String> columnNameWithDataType) {
+        boolean status = updateConfigurationTable(message, itemType, "3", columnNameWithDataType);
         String subAttributes = (String) message.get(ExportMiscellaneousUtils.getExportDatabaseFieldSubAttributes());
         if (subAttributes != null && !subAttributes.isEmpty()) {
             String ids[] = subAttributes.trim().split(",");
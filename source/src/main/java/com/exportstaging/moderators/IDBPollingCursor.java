@@ -0,0 +1,161 @@
+package com.exportstaging.moderators;
+
+import com.exportstaging.producers.Producer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset cursor used by the {@link BatchModerator} to walk an intermediate database table in the order
+ * (JMSPriority DESC, InsertTime ASC, ID ASC) without sorting the whole backlog on every poll.
+ * <p>
+ * Each priority level is read with an equality on JMSPriority followed by a range on (InsertTime, ID), so MySQL can
+ * serve every poll from the IDX_KeysetPolling index. Mapping tables are walked on (JMSPriority, ID) to keep the
+ * ID ordering the subscribers rely on.
+ * <p>
+ * A cursor describes one walk over the backlog. Once a walk is exhausted a new cursor must be created, so rows which
+ * are inserted behind the cursor are picked up by the next walk.
+ */
+public class IDBPollingCursor {
+
+    private final String tableName;
+    private final boolean orderByIdOnly;
+    private final String columnID;
+    private final String columnInsertTime;
+    private final String columnJmsPriority;
+    private final String columnAction;
+    private final String columnProducerStatus;
+    private final String selectColumns;
+    private final String actionFilter;
+    private final String producerStatusFilter;
+
+    private Integer priority = null;
+    private long lastInsertTime = -1;
+    private long lastID = -1;
+    private boolean started = false;
+    private boolean exhausted = false;
+
+    public IDBPollingCursor(String tableName, boolean orderByIdOnly, String columnID, String columnInsertTime,
+                            String columnJmsPriority, String columnAction, String columnProducerStatus,
+                            List<String> selectColumns, List<Integer> actions, int producerID) {
+        this.tableName = tableName;
+        this.orderByIdOnly = orderByIdOnly;
+        this.columnID = columnID;
+        this.columnInsertTime = columnInsertTime;
+        this.columnJmsPriority = columnJmsPriority;
+        this.columnAction = columnAction;
+        this.columnProducerStatus = columnProducerStatus;
+        this.selectColumns = String.join(", ", selectColumns);
+        this.actionFilter = joinValues(actions);
+        this.producerStatusFilter = joinValues(getPendingProducerStatusValues(producerID));
+    }
+
+    /**
+     * Query returning the highest priority level of the walk. It is answered from the index alone.
+     *
+     * @return SQL query without parameters
+     */
+    public String getFirstPriorityQuery() {
+        return "SELECT MAX(" + columnJmsPriority + ") FROM " + tableName + ";";
+    }
+
+    /**
+     * Query returning the next lower priority level after the current one.
+     *
+     * @return SQL query expecting the current priority as parameter
+     */
+    public String getNextPriorityQuery() {
+        return "SELECT MAX(" + columnJmsPriority + ") FROM " + tableName +
+                " WHERE " + columnJmsPriority + " < ?;";
+    }
+
+    /**
+     * Query returning the next page of the current priority level.
+     *
+     * @param limit maximum number of rows to fetch
+     * @return SQL query, its parameters are provided by {@link #getPageParameters()}
+     */
+    public String getPageQuery(int limit) {
+        String query = "SELECT " + selectColumns +
+                " FROM " + tableName +
+                " WHERE " + columnJmsPriority + " = ?" +
+                " AND " + columnAction + " IN (" + actionFilter + ")" +
+                " AND " + columnProducerStatus + " IN (" + producerStatusFilter + ")";
+        if (orderByIdOnly) {
+            query += " AND " + columnID + " > ?" +
+                    " ORDER BY " + columnID + " ASC";
+        } else {
+            query += " AND (" + columnInsertTime + " > ? OR (" + columnInsertTime + " = ? AND " + columnID + " > ?))" +
+                    " ORDER BY " + columnInsertTime + " ASC, " + columnID + " ASC";
+        }
+        return query + " LIMIT " + limit + ";";
+    }
+
+    public Object[] getPageParameters() {
+        if (orderByIdOnly) {
+            return new Object[]{priority, lastID};
+        }
+        return new Object[]{priority, lastInsertTime, lastInsertTime, lastID};
+    }
+
+    /**
+     * Moves the cursor to the given priority level, an empty level ends the walk.
+     *
+     * @param priority priority level returned by the priority queries, null if there is none
+     */
+    public void setPriority(Integer priority) {
+        this.started = true;
+        this.priority = priority;
+        this.lastInsertTime = -1;
+        this.lastID = -1;
+        if (priority == null) {
+            exhausted = true;
+        }
+    }
+
+    /**
+     * Moves the cursor behind the last row of a fetched page.
+     *
+     * @param insertTime InsertTime of the last fetched row
+     * @param id         ID of the last fetched row
+     */
+    public void advance(long insertTime, long id) {
+        this.lastInsertTime = insertTime;
+        this.lastID = id;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Returns all ProducerStatus values which do not contain the bit of the given producer. Using these values in an
+     * IN list replaces the "ProducerStatus &amp; producerID = 0" predicate, which cannot be served by an index.
+     *
+     * @param producerID ID of the producer, a power of two
+     * @return ProducerStatus values of rows which are not yet sent by the producer
+     */
+    public static List<Integer> getPendingProducerStatusValues(int producerID) {
+        int allProducers = Producer.masterProducerID | Producer.projectProducerID;
+        List<Integer> values = new ArrayList<>();
+        for (int status = 0; status <= allProducers; status++) {
+            if ((status & ~allProducers) == 0 && (status & producerID) == 0) {
+                values.add(status);
+            }
+        }
+        return values;
+    }
+
+    private static String joinValues(List<Integer> values) {
+        return values.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
@@ -4,6 +4,7 @@ import com.exportstaging.abstractclasses.AbstractDataProvider;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -15,6 +16,10 @@ class ItemUpdater extends ModeratorData
 
   private static final String COLUMN_NAMES_KEY  = "columnNames";
   private static final String COLUMN_VALUES_KEY = "columnValues";
+  private static final String UPDATE_MODE_UPSERT = "upsert";
+
+  @Value("${cassandra.update.mode}")
+  private String updateMode;
 
 
   /**
@@ -110,7 +115,9 @@ class ItemUpdater extends ModeratorData
   {
     boolean status;
     try {
-      dataProviderReference.deleteRow(itemType, itemID);
+      if (!isUpsertMode()) {
+        dataProviderReference.deleteRow(itemType, itemID);
+      }
       Map<String, Map<String, Map<String, Object>>> fieldValueMapping = new HashMap<>();
 
       if (message != null) {
@@ -138,11 +145,14 @@ class ItemUpdater extends ModeratorData
           }
         }
 
+        if (isUpsertMode() && !dataProviderReference.deleteRemovedRows(itemType, itemID, fieldValueMapping)) {
+          return false;
+        }
         status = dataProviderReference.insertReferenceData(itemType, dataProviderReference.getTableName(itemType),
                                                            fieldValueMapping);
       }
       else {
-        return true;
+        return !isUpsertMode() || dataProviderReference.deleteRemovedRows(itemType, itemID, fieldValueMapping);
       }
     } catch (Exception exception) {
       logError("Exception while updating reference data for ID: " + itemID, exception, masterSubscriber);
@@ -184,7 +194,9 @@ class ItemUpdater extends ModeratorData
   {
     boolean status;
     try {
-      dataProviderSubtable.deleteRow(itemType, itemID);
+      if (!isUpsertMode()) {
+        dataProviderSubtable.deleteRow(itemType, itemID);
+      }
       Map<String, Map<String, Map<String, Object>>> fieldValueMapping = new HashMap<>();
       if (message != null) {
         for (Object item : message) {
@@ -214,11 +226,14 @@ class ItemUpdater extends ModeratorData
         }
 
 
+        if (isUpsertMode() && !dataProviderSubtable.deleteRemovedRows(itemType, itemID, fieldValueMapping)) {
+          return false;
+        }
         String tableName = dataProviderSubtable.getTableName(itemType);
         status = dataProviderSubtable.insertSubtableData(itemType, tableName, fieldValueMapping);
       }
       else {
-        return true;
+        return !isUpsertMode() || dataProviderSubtable.deleteRemovedRows(itemType, itemID, fieldValueMapping);
       }
     } catch (Exception exception) {
       logError("Exception while updating sub table data for ID: " + itemID, exception, masterSubscriber);
@@ -228,6 +243,20 @@ class ItemUpdater extends ModeratorData
   }
 
 
+  /**
+   * In upsert mode the reference and subtable rows of an object are overwritten by the insert and only the rows which
+   * disappeared from the message are deleted. Columns of an overwritten row which are missing from the message are
+   * written as empty values (see AbstractDataProvider.updateRemainingAttribute), so no value of an earlier message
+   * survives. In replace mode (default) all rows of the object are deleted before the insert.
+   *
+   * @return true if cassandra.update.mode is upsert
+   */
+  private boolean isUpsertMode()
+  {
+    return UPDATE_MODE_UPSERT.equalsIgnoreCase(updateMode);
+  }
+
+
   boolean deleteItem(String itemID, String itemType, List<String> ids)
   {
     boolean deleteItemData, deleteReferenceData, deleteSubtableData;
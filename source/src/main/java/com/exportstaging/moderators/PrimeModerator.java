@@ -1,5 +1,8 @@
 package com.exportstaging.moderators;
 
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.common.ExportMiscellaneousUtils;
+import com.exportstaging.connectors.database.MetadataVersions;
 import com.exportstaging.domain.ConfigurationMessage;
 import com.exportstaging.domain.Message;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,28 +18,51 @@ public class PrimeModerator extends ModeratorData {
     private ConfigurationModerator configurationModerator;
     @Autowired
     private MappingModerator mappingModerator;
+    @Autowired
+    private MetadataVersions metadataVersions;
 
 
     public boolean setItem(Message message, String itemType, String type) {
-        return mTypeItem.equals(type) && itemModerator.setItems(message, itemType);
+        boolean status = mTypeItem.equals(type) && itemModerator.setItems(message, itemType);
+        return status && publishLanguageChange(itemType);
     }
 
     public boolean setConfigurations(ConfigurationMessage message, String itemType, String type) {
+        boolean status = false;
         if (type.equals(mTypeConfiguration)) {
-            return configurationModerator.setConfiguration(message, itemType);
+            status = configurationModerator.setConfiguration(message, itemType);
         } else if (type.equals(mTypeMapping)) {
-            return mappingModerator.setMappings(message,itemType);
+            status = mappingModerator.setMappings(message,itemType);
         }
-        return false;
+        return status && publishMetadataChange(itemType);
     }
 
     public boolean deleteItem(List<String> ids, String itemType, String type) {
         boolean status = false;
         if (type.equals(mTypeItem)) {
-            status = itemModerator.deleteItem(ids, itemType);
+            status = itemModerator.deleteItem(ids, itemType) && publishLanguageChange(itemType);
         } else if (type.equals(mTypeConfiguration)) {
-            status = configurationModerator.deleteConfiguration(itemType, ids);
+            status = configurationModerator.deleteConfiguration(itemType, ids) && publishMetadataChange(itemType);
         }
         return status;
     }
-}
\ No newline at end of file
+
+    private boolean publishLanguageChange(String itemType) {
+        return !ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_LANGUAGE.equalsIgnoreCase(itemType) ||
+                publishMetadataChange(itemType);
+    }
+
+    /**
+     * Publishes a new metadata version of the item type, so the read API builds its metadata snapshot again. The
+     * message is processed again if the version cannot be written.
+     */
+    private boolean publishMetadataChange(String itemType) {
+        try {
+            metadataVersions.publish(itemType);
+        } catch (ExportStagingException e) {
+            logError("Exception while publishing the metadata version of " + itemType, e, masterSubscriber);
+            return false;
+        }
+        return true;
+    }
+}
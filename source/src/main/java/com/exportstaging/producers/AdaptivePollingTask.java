@@ -0,0 +1,53 @@
+package com.exportstaging.producers;
+
+import com.exportstaging.moderators.BatchModerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the intermediate database for one item type with an adaptive delay. The task is scheduled with the minimum
+ * delay, but only polls when its delay is over: right after a poll which sent rows, and with an exponentially growing
+ * delay up to the maximum delay while the item type is idle. {@link #wakeUp()} makes the next run poll at once.
+ */
+public class AdaptivePollingTask implements Runnable {
+    private final BatchModerator batchModerator;
+    private final long minDelay;
+    private final long maxDelay;
+
+    private final AtomicLong nextPollTime = new AtomicLong(0);
+    private long idleDelay;
+
+    public AdaptivePollingTask(BatchModerator batchModerator, long minDelay, long maxDelay) {
+        this.batchModerator = batchModerator;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.idleDelay = minDelay;
+    }
+
+    @Override
+    public void run() {
+        if (System.currentTimeMillis() < nextPollTime.get()) {
+            return;
+        }
+        nextPollTime.set(Long.MAX_VALUE);
+        if (batchModerator.poll() > 0) {
+            idleDelay = minDelay;
+            nextPollTime.set(0);
+        } else {
+            idleDelay = Math.min(maxDelay, idleDelay * 2);
+            // a wake up received during the poll is kept
+            nextPollTime.compareAndSet(Long.MAX_VALUE, System.currentTimeMillis() + idleDelay);
+        }
+    }
+
+    /**
+     * New rows are signaled for the item type, the next run polls at once.
+     */
+    public void wakeUp() {
+        nextPollTime.set(0);
+    }
+
+    public String getItemType() {
+        return batchModerator.getItemType();
+    }
+}
@@ -0,0 +1,78 @@
+package com.exportstaging.producers;
+
+import com.exportstaging.connectors.idbconnector.IntermediateDAO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Map;
+
+/**
+ * Deletes the rows which are sent by all producers from the intermediate database tables.
+ * <p>
+ * The {@link com.exportstaging.moderators.BatchModerator} only registers a table after updating the status of a batch.
+ * The purger deletes the consumed rows in bounded chunks with a pause between the chunks, so the deletes never hold
+ * long locks against the CS writer.
+ */
+public class IDBPurger {
+
+    @Autowired
+    private IntermediateDAO intermediateDAO;
+
+    @Value("${mysql.purge.chunksize}")
+    private int purgeChunkSize;
+    @Value("${mysql.purge.max.chunks}")
+    private int purgeMaxChunks;
+    @Value("${mysql.purge.chunk.delay}")
+    private long purgeChunkDelay;
+    @Value("${activemq.producer.master}")
+    private String masterProducer;
+
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+
+    /**
+     * Purges the registered tables. A table which still contains consumed rows after mysql.purge.max.chunks chunks is
+     * registered again and continued with the next run.
+     */
+    public void purgeConsumedRows() {
+        Map<String, Integer> tables = intermediateDAO.takePendingPurgeTables();
+        for (Map.Entry<String, Integer> table : tables.entrySet()) {
+            String tableName = table.getKey();
+            int deleteStatus = table.getValue();
+            if (Thread.currentThread().isInterrupted()) {
+                intermediateDAO.schedulePurge(tableName, deleteStatus);
+                continue;
+            }
+            int deletedRows = 0;
+            int chunks = 0;
+            int chunkRows;
+            do {
+                chunkRows = intermediateDAO.deleteConsumedRows(tableName, deleteStatus, purgeChunkSize);
+                if (chunkRows > 0) {
+                    deletedRows += chunkRows;
+                }
+                chunks++;
+                if (chunkRows == purgeChunkSize && !pause()) {
+                    break;
+                }
+            } while (chunkRows == purgeChunkSize && chunks < purgeMaxChunks);
+            if (chunkRows == purgeChunkSize) {
+                intermediateDAO.schedulePurge(tableName, deleteStatus);
+            }
+            if (deletedRows > 0) {
+                logger.debug("[" + masterProducer + "]: Purged " + deletedRows + " consumed rows from " + tableName);
+            }
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(purgeChunkDelay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
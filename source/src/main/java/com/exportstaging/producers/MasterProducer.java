@@ -3,27 +3,48 @@ package com.exportstaging.producers;
 import com.exportstaging.connectors.messagingqueue.ActiveMQSpringConnection;
 import com.exportstaging.moderators.ModeratorData;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.TaskScheduler;
 
 import javax.jms.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MasterProducer extends ModeratorData implements Producer {
     @Autowired
     ActiveMQSpringConnection activeMQSpringConnection;
     @Autowired
     private TaskScheduler masterProducerScheduler;
+    @Autowired
+    private ProducerRateController rateController;
+    @Value("${activemq.producer.send.mode}")
+    private String sendMode;
+    @Value("${activemq.producer.transaction.size}")
+    private int transactionSize;
+
+    private static final String SEND_MODE_TRANSACTED = "transacted";
 
     protected String producerName;
+    protected String topicName;
     MessageProducer messageProducer;
     private Map<String, Session> producerSession = new HashMap<>();
+    //Transacted sessions are not shared between the producer threads, otherwise one thread would commit the messages of the other one
+    private Map<Long, Session> transactedSessions = new ConcurrentHashMap<>();
+    private Map<Long, MessageProducer> transactedProducers = new ConcurrentHashMap<>();
+    //Threads whose transaction lost messages by a failed send, their next commit must fail
+    private Set<Long> failedTransactions = ConcurrentHashMap.newKeySet();
 
     @Override
     public boolean sendMessage(MapMessage message, int JMSPriority) {
         try {
             if (activeMQSpringConnection.isMessageBusRunning()) {
-                messageProducer.send(message, DeliveryMode.PERSISTENT, JMSPriority, 0);
+                if (isTransacted()) {
+                    getTransactedProducer().send(message, DeliveryMode.PERSISTENT, JMSPriority, 0);
+                } else {
+                    messageProducer.send(message, DeliveryMode.PERSISTENT, JMSPriority, 0);
+                }
             } else {
                 while (!activeMQSpringConnection.isMessageBusRunning()) {
                     Thread.sleep(1000);
@@ -34,6 +55,9 @@ public class MasterProducer extends ModeratorData implements Producer {
             Thread.currentThread().interrupt();
             return false;
         } catch (JMSException e) {
+            if (isTransacted()) {
+                failedTransactions.add(Thread.currentThread().getId());
+            }
             handleJMSException(e);
             return false;
         }
@@ -46,18 +70,67 @@ public class MasterProducer extends ModeratorData implements Producer {
         String msgInfo = "[" + producerName + "] : initializing...";
         System.out.println(msgInfo);
         logger.info(msgInfo);
-        String topicName = activeMQSpringConnection.getTopicName(exportDatabaseName, false);
+        topicName = activeMQSpringConnection.getTopicName(exportDatabaseName, false);
         messageProducer = activeMQSpringConnection.getProducer(topicName, producerName, getProducerSession());
     }
 
     @Override
     public void stopProducer() {
+        closeTransactedSessions();
         closeSession();
     }
 
+    @Override
+    public boolean isTransacted() {
+        return SEND_MODE_TRANSACTED.equalsIgnoreCase(sendMode);
+    }
+
+    @Override
+    public int getTransactionSize() {
+        return transactionSize;
+    }
+
+    @Override
+    public boolean commitMessages() {
+        if (!isTransacted()) {
+            return true;
+        }
+        long threadID = Thread.currentThread().getId();
+        if (failedTransactions.remove(threadID)) {
+            //The messages sent before the failed send were discarded with the session
+            discardTransactedSession();
+            return false;
+        }
+        Session session = transactedSessions.get(threadID);
+        if (session == null) {
+            return false;
+        }
+        try {
+            session.commit();
+            return true;
+        } catch (JMSException e) {
+            handleJMSException(e);
+        }
+        return false;
+    }
+
+    @Override
+    public void rollbackMessages() {
+        failedTransactions.remove(Thread.currentThread().getId());
+        Session session = transactedSessions.get(Thread.currentThread().getId());
+        if (session != null) {
+            try {
+                session.rollback();
+            } catch (JMSException e) {
+                logError("Exception while rolling back producer transaction.", e, producerName);
+                discardTransactedSession();
+            }
+        }
+    }
+
     @Override
     public MapMessage getMapMessage() {
-        Session session = producerSession.get(producerName);
+        Session session = isTransacted() ? getTransactedSession() : producerSession.get(producerName);
         try {
             if (session != null) {
                 return session.createMapMessage();
@@ -91,6 +164,58 @@ public class MasterProducer extends ModeratorData implements Producer {
         return producerSession.get(producerName);
     }
 
+    private Session getTransactedSession() {
+        return transactedSessions.computeIfAbsent(Thread.currentThread().getId(), threadID -> {
+            logger.info("[" + producerName + "] : Transacted session created for thread " + threadID);
+            return activeMQSpringConnection.createTransactedProducerSession(this.getClass().getName() + "_" + exportDatabaseName);
+        });
+    }
+
+    private MessageProducer getTransactedProducer() throws JMSException {
+        long threadID = Thread.currentThread().getId();
+        MessageProducer transactedProducer = transactedProducers.get(threadID);
+        if (transactedProducer == null) {
+            Session session = getTransactedSession();
+            if (session == null) {
+                throw new JMSException("Transacted producer session is not available.");
+            }
+            transactedProducer = activeMQSpringConnection.createSessionProducer(topicName, session);
+            transactedProducers.put(threadID, transactedProducer);
+        }
+        return transactedProducer;
+    }
+
+    /**
+     * Removes and closes the transacted session of the current thread, e.g. after a failed commit or a lost
+     * connection. Closing the session rolls back its uncommitted messages, the next send creates a new session.
+     */
+    private void discardTransactedSession() {
+        long threadID = Thread.currentThread().getId();
+        transactedProducers.remove(threadID);
+        Session session = transactedSessions.remove(threadID);
+        if (session != null) {
+            try {
+                session.close();
+            } catch (JMSException e) {
+                logError("Exception while closing transacted producer session.", e, producerName);
+            }
+            logger.info("[" + producerName + "] : Transacted session discarded for thread " + threadID);
+        }
+    }
+
+    private void closeTransactedSessions() {
+        for (Session session : transactedSessions.values()) {
+            try {
+                session.close();
+            } catch (JMSException e) {
+                logError("Exception while closing transacted producer session.", e, producerName);
+            }
+        }
+        transactedSessions.clear();
+        transactedProducers.clear();
+        failedTransactions.clear();
+    }
+
     private void closeSession() {
         if (producerSession != null) {
             try {
@@ -104,10 +229,13 @@ public class MasterProducer extends ModeratorData implements Producer {
     }
 
     private void handleJMSException(JMSException e) {
+        if (isTransacted()) {
+            discardTransactedSession();
+        }
         String exceptionMessage = e.getMessage();
         if (exceptionMessage.contains(exceptionMessageStorageFull)) {
             try {
-                Thread.sleep(30000);
+                rateController.onStoreFull(producerName);
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
             }
@@ -3,6 +3,7 @@ package com.exportstaging.producers;
 import com.exportstaging.common.ExportMiscellaneousUtils;
 import com.exportstaging.connectors.idbconnector.IntermediateDAO;
 import com.exportstaging.moderators.BatchModerator;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,9 +23,15 @@ public class MasterProducerExecutor {
     private ClassPathXmlApplicationContext applicationContext;
     @Autowired
     private IntermediateDAO intermediateDAO;
+    @Autowired
+    private ProducerWakeUpListener wakeUpListener;
 
     @Value("${export.thread.sleep.time}")
     private int threadSleepTime;
+    @Value("${export.producer.polling.mode}")
+    private String pollingMode;
+    @Value("${export.producer.polling.min.delay}")
+    private long pollingMinDelay;
     @Value("${activemq.producer.master}")
     private String masterProducer;
     @Value("${activemq.producer.project}")
@@ -34,11 +41,15 @@ public class MasterProducerExecutor {
 
     private volatile ConcurrentHashMap<String, Map<String, ScheduledFuture>> threadedMap = new ConcurrentHashMap<>();
     private volatile ConcurrentHashMap<String, Map<String, BatchModerator>> threadedBatchModeratorMap = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<String, Map<String, AdaptivePollingTask>> threadedPollingTaskMap = new ConcurrentHashMap<>();
+
+    private static final String POLLING_MODE_ADAPTIVE = "adaptive";
 
     public void addThreads(Producer producerBean, List<String> itemTypes) {
         String producerName = producerBean.getProducerName();
         threadedMap.putIfAbsent(producerName, new HashMap<>());
         threadedBatchModeratorMap.putIfAbsent(producerName, new HashMap<>());
+        threadedPollingTaskMap.putIfAbsent(producerName, new HashMap<>());
         if (!threadedMap.get(producerName).containsKey(ExportMiscellaneousUtils.EXPORT_TYPE_OPERATION)) {
             startThread(producerBean, ExportMiscellaneousUtils.EXPORT_TYPE_OPERATION);
         }
@@ -71,7 +82,7 @@ public class MasterProducerExecutor {
 
                 //The following if condition is to wait for operation data to be exported before starting threads of others types
                 if (itemType.equals(ExportMiscellaneousUtils.EXPORT_TYPE_OPERATION)) {
-                    threadedMap.get(producerName).put(itemType, producerBean.getTaskScheduler().scheduleWithFixedDelay(batchModerator, 2000));
+                    threadedMap.get(producerName).put(itemType, schedule(producerBean, batchModerator, 2000));
                     threadedBatchModeratorMap.get(producerName).put(itemType, batchModerator);
                     try {
                         Thread.sleep(10000);
@@ -83,7 +94,7 @@ public class MasterProducerExecutor {
                     }
                     return;
                 }
-                threadedMap.get(producerName).put(itemType, producerBean.getTaskScheduler().scheduleWithFixedDelay(batchModerator, threadSleepTime));
+                threadedMap.get(producerName).put(itemType, schedule(producerBean, batchModerator, threadSleepTime));
                 threadedBatchModeratorMap.get(producerName).put(itemType, batchModerator);
             }
         } catch (Exception e) {
@@ -93,6 +104,20 @@ public class MasterProducerExecutor {
         }
     }
 
+    /**
+     * Schedules the batch moderator with a fixed delay, or in adaptive polling mode with an adaptive delay between
+     * export.producer.polling.min.delay and the given delay, see {@link AdaptivePollingTask}.
+     */
+    private ScheduledFuture schedule(Producer producerBean, BatchModerator batchModerator, long delay) {
+        if (!POLLING_MODE_ADAPTIVE.equalsIgnoreCase(StringUtils.trim(pollingMode))) {
+            return producerBean.getTaskScheduler().scheduleWithFixedDelay(batchModerator, delay);
+        }
+        AdaptivePollingTask pollingTask = new AdaptivePollingTask(batchModerator, pollingMinDelay, delay);
+        threadedPollingTaskMap.get(producerBean.getProducerName()).put(batchModerator.getItemType(), pollingTask);
+        wakeUpListener.register(pollingTask);
+        return producerBean.getTaskScheduler().scheduleWithFixedDelay(pollingTask, pollingMinDelay);
+    }
+
     public void removeThreads(String producerName, List<String> itemTypes) {
         for (String itemType : itemTypes) {
             reinitializeDeleteStatusValue(producerName, itemType);
@@ -105,6 +130,11 @@ public class MasterProducerExecutor {
             }
             threadedMap.get(producerName).remove(itemType);
             threadedBatchModeratorMap.get(producerName).remove(itemType);
+            threadedPollingTaskMap.putIfAbsent(producerName, new HashMap<>());
+            AdaptivePollingTask pollingTask = threadedPollingTaskMap.get(producerName).remove(itemType);
+            if (pollingTask != null) {
+                wakeUpListener.unregister(pollingTask);
+            }
         }
     }
 
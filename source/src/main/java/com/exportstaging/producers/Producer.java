@@ -10,6 +10,14 @@ public interface Producer {
     int projectProducerID = 4;
 
     boolean sendMessage(MapMessage message, int JMSPriority);
+    /**
+     * In transacted mode the messages passed to {@link #sendMessage(MapMessage, int)} reach the broker only after
+     * {@link #commitMessages()} succeeded, so the IDB status must be updated only for committed messages.
+     */
+    boolean isTransacted();
+    int getTransactionSize();
+    boolean commitMessages();
+    void rollbackMessages();
     void startProducer();
     void stopProducer();
     MapMessage getMapMessage();
@@ -0,0 +1,214 @@
+package com.exportstaging.producers;
+
+import com.exportstaging.connectors.messagingqueue.BrokerBackpressureSampler;
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the messages per second sent by each producer according to the load of the broker, shared by all
+ * BatchModerator threads of a producer.
+ * <p>
+ * The pressure on the broker is the store usage relative to activemq.broker.store.threshold, or the largest queue
+ * relative to activemq.backpressure.queue.depth if it is higher and the queue depth limit is set. At full pressure the
+ * producer pauses until the pressure drops again.
+ * <p>
+ * If activemq.producer.rate.max is set, the rate is adjusted after every sample of the
+ * {@link BrokerBackpressureSampler} additive increase / multiplicative decrease: below
+ * activemq.backpressure.soft.threshold percent of pressure the rate grows by 5% of activemq.producer.rate.max, above
+ * it the rate is halved, down to activemq.producer.rate.min. After a pause the producer continues at the minimum rate.
+ * Both limits are 0 by default, producers send unthrottled and pause on the store usage only.
+ * <p>
+ * The rates are exported with the MBean com.exportstaging:type=ProducerRateController.
+ */
+@Component("producerRateController")
+public class ProducerRateController implements ProducerRateControllerMBean {
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+    private static final String MBEAN_NAME = "com.exportstaging:type=ProducerRateController";
+    private static final double INCREASE_FACTOR = 0.05;
+    private static final double DECREASE_FACTOR = 0.5;
+
+    @Autowired
+    private BrokerBackpressureSampler sampler;
+
+    @Value("${activemq.broker.store.threshold}")
+    private int maxStoreUsage;
+    @Value("${activemq.backpressure.soft.threshold}")
+    private int softThreshold;
+    @Value("${activemq.backpressure.queue.depth}")
+    private long maxQueueDepth;
+    @Value("${activemq.producer.rate.max}")
+    private double maxRate;
+    @Value("${activemq.producer.rate.min}")
+    private double minRate;
+    @Value("${activemq.producer.master}")
+    private String masterProducer;
+    @Value("${activemq.producer.project}")
+    private String projectProducer;
+
+    private final Map<String, ProducerRate> producerRates = new ConcurrentHashMap<>();
+    private volatile boolean started = false;
+
+    /**
+     * Blocks until the producer may send the given number of messages.
+     *
+     * @param producerName name of the producer like MasterProducer, ProjectProducer
+     * @param messages     number of messages to send
+     */
+    public void acquire(String producerName, int messages) throws InterruptedException {
+        ProducerRate producerRate = getProducerRate(producerName);
+        awaitCapacity(producerRate);
+        if (messages > 0 && producerRate.limiter != null) {
+            producerRate.limiter.acquire(messages);
+        }
+    }
+
+    /**
+     * Called when the broker rejected a message because the store is full. The rate of the producer drops to the
+     * minimum and the call blocks until the next sample of the broker shows it below its limits.
+     *
+     * @param producerName name of the producer like MasterProducer, ProjectProducer
+     */
+    public void onStoreFull(String producerName) throws InterruptedException {
+        ProducerRate producerRate = getProducerRate(producerName);
+        synchronized (producerRate) {
+            producerRate.saturated = true;
+            producerRate.setRate(minRate);
+        }
+        awaitCapacity(producerRate);
+    }
+
+    @Override
+    public double getMasterProducerRate() {
+        return getRate(masterProducer);
+    }
+
+    @Override
+    public double getProjectProducerRate() {
+        return getRate(projectProducer);
+    }
+
+    @Override
+    public int getMasterProducerPressure() {
+        return (int) (getPressure(masterProducer) * 100);
+    }
+
+    @Override
+    public int getProjectProducerPressure() {
+        return (int) (getPressure(projectProducer) * 100);
+    }
+
+    @Override
+    public int getMemoryPercentUsage() {
+        return sampler.getMemoryPercentUsage();
+    }
+
+    private double getRate(String producerName) {
+        ProducerRate producerRate = producerRates.get(producerName);
+        return producerRate == null ? maxRate : producerRate.rate;
+    }
+
+    private ProducerRate getProducerRate(String producerName) {
+        if (!started) {
+            start();
+        }
+        return producerRates.computeIfAbsent(producerName, name -> new ProducerRate(maxRate));
+    }
+
+    private synchronized void start() {
+        if (started) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            logger.debug("[ProducerRateController] MBean " + MBEAN_NAME + " is already registered");
+        } catch (Exception e) {
+            logger.error("[ProducerRateController] Failed to register MBean " + MBEAN_NAME + " Error Message:" + e.getMessage());
+        }
+        sampler.addListener(this::adjustRates);
+        started = true;
+    }
+
+    private void awaitCapacity(ProducerRate producerRate) throws InterruptedException {
+        synchronized (producerRate) {
+            while (producerRate.saturated) {
+                producerRate.wait(sampler.getSampleInterval());
+            }
+        }
+    }
+
+    /**
+     * Pressure of the broker on the producer, 1 at the store threshold or the queue depth limit.
+     */
+    private double getPressure(String producerName) {
+        double storePressure = (double) sampler.getStorePercentUsage(producerName) / maxStoreUsage;
+        if (maxQueueDepth <= 0) {
+            return storePressure;
+        }
+        double queuePressure = (double) sampler.getMaxQueueSize(producerName) / maxQueueDepth;
+        return Math.max(storePressure, queuePressure);
+    }
+
+    private void adjustRates() {
+        for (Map.Entry<String, ProducerRate> entry : producerRates.entrySet()) {
+            String producerName = entry.getKey();
+            ProducerRate producerRate = entry.getValue();
+            double pressure = getPressure(producerName);
+            synchronized (producerRate) {
+                if (pressure >= 1) {
+                    if (!producerRate.saturated) {
+                        logger.warn("[" + producerName + "] Broker load reached " + (int) (pressure * 100)
+                                + "% of its limits, sending is paused");
+                    }
+                    producerRate.saturated = true;
+                    producerRate.setRate(minRate);
+                    continue;
+                }
+                if (producerRate.saturated) {
+                    logger.info("[" + producerName + "] Broker load dropped to " + (int) (pressure * 100)
+                            + "% of its limits, sending is resumed");
+                    producerRate.saturated = false;
+                    producerRate.notifyAll();
+                }
+                if (maxRate <= 0) {
+                    continue;
+                }
+                if (pressure * 100 >= softThreshold) {
+                    producerRate.setRate(Math.max(minRate, producerRate.rate * DECREASE_FACTOR));
+                } else {
+                    producerRate.setRate(Math.min(maxRate, producerRate.rate + maxRate * INCREASE_FACTOR));
+                }
+            }
+            logger.debug("[" + producerName + "] Broker pressure " + (int) (pressure * 100) + "%, rate "
+                    + (int) producerRate.rate + " messages/s");
+        }
+    }
+
+    private static class ProducerRate {
+        private final RateLimiter limiter;
+        private volatile double rate;
+        private boolean saturated = false;
+
+        private ProducerRate(double rate) {
+            this.rate = rate;
+            this.limiter = rate > 0 ? RateLimiter.create(rate) : null;
+        }
+
+        private void setRate(double rate) {
+            if (limiter != null && rate != this.rate) {
+                this.rate = rate;
+                limiter.setRate(rate);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.exportstaging.producers;
+
+/**
+ * Send rates of the producers and the broker load they are derived from, see {@link ProducerRateController}.
+ */
+public interface ProducerRateControllerMBean {
+
+    double getMasterProducerRate();
+
+    double getProjectProducerRate();
+
+    int getMasterProducerPressure();
+
+    int getProjectProducerPressure();
+
+    int getMemoryPercentUsage();
+}
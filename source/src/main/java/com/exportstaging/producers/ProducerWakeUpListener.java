@@ -0,0 +1,182 @@
+package com.exportstaging.producers;
+
+import com.exportstaging.api.exception.ExportStagingException;
+import com.exportstaging.connectors.idbconnector.IntermediateDAO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes up the {@link AdaptivePollingTask}s of an item type as soon as new rows are written to the intermediate
+ * database, according to export.producer.wakeup:
+ * <ul>
+ * <li>none: the tasks only poll after their delay.</li>
+ * <li>table: the change counters of the table idb_changes (ItemType, ChangeCounter) are read every
+ * export.producer.wakeup.interval milliseconds with a single query. The writer increments the counter of the item
+ * type after writing rows, e.g. INSERT INTO idb_changes VALUES ('Pdmarticle', 1) ON DUPLICATE KEY UPDATE
+ * ChangeCounter = ChangeCounter + 1.</li>
+ * <li>socket: a UDP datagram containing the item type sent to export.producer.wakeup.port on the loopback interface
+ * wakes up the tasks of the item type, an empty datagram wakes up all tasks.</li>
+ * </ul>
+ */
+@Component("producerWakeUpListener")
+public class ProducerWakeUpListener {
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+    private static final String WAKEUP_TABLE = "table";
+    private static final String WAKEUP_SOCKET = "socket";
+    private static final String CHANGES_TABLE_SUFFIX = "_changes";
+
+    @Autowired
+    private IntermediateDAO intermediateDAO;
+
+    @Value("${export.producer.wakeup}")
+    private String wakeUpMode;
+    @Value("${export.producer.wakeup.interval}")
+    private long wakeUpInterval;
+    @Value("${export.producer.wakeup.port}")
+    private int wakeUpPort;
+    @Value("${mysql.csdbprefix.name}")
+    private String csDbPrefix;
+    @Value("${mysql.prefix.exportstaging}")
+    private String idbTablePrefix;
+    @Value("${mysql.column.itemtype}")
+    private String columnItemType;
+
+    private final Map<String, Set<AdaptivePollingTask>> pollingTasks = new ConcurrentHashMap<>();
+    private final Map<String, Long> changeCounters = new HashMap<>();
+    private ScheduledExecutorService executor;
+    private DatagramSocket socket;
+
+    /**
+     * Registers the task to be woken up for new rows of its item type.
+     */
+    public void register(AdaptivePollingTask pollingTask) {
+        start();
+        pollingTasks.computeIfAbsent(pollingTask.getItemType(), itemType -> ConcurrentHashMap.newKeySet())
+                .add(pollingTask);
+    }
+
+    public void unregister(AdaptivePollingTask pollingTask) {
+        Set<AdaptivePollingTask> tasks = pollingTasks.get(pollingTask.getItemType());
+        if (tasks != null) {
+            tasks.remove(pollingTask);
+        }
+    }
+
+    /**
+     * Wakes up the tasks of the item type, or all tasks if the item type is empty.
+     */
+    public void wakeUp(String itemType) {
+        if (itemType.isEmpty()) {
+            pollingTasks.values().forEach(tasks -> tasks.forEach(AdaptivePollingTask::wakeUp));
+            return;
+        }
+        for (Map.Entry<String, Set<AdaptivePollingTask>> entry : pollingTasks.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(itemType)) {
+                entry.getValue().forEach(AdaptivePollingTask::wakeUp);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+    }
+
+    private synchronized void start() {
+        if (executor != null || !(WAKEUP_TABLE.equalsIgnoreCase(wakeUpMode) || WAKEUP_SOCKET.equalsIgnoreCase(wakeUpMode))) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ProducerWakeUpListener");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (WAKEUP_TABLE.equalsIgnoreCase(wakeUpMode)) {
+            createChangesTable();
+            executor.scheduleWithFixedDelay(this::readChangeCounters, wakeUpInterval, wakeUpInterval, TimeUnit.MILLISECONDS);
+        } else {
+            try {
+                socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), wakeUpPort));
+                executor.execute(this::receiveDatagrams);
+            } catch (IOException e) {
+                logger.error("[ProducerWakeUpListener] Failed to listen on port " + wakeUpPort + " Error Message:" + e.getMessage());
+            }
+        }
+        logger.info("[ProducerWakeUpListener] Producers are woken up by " + wakeUpMode);
+    }
+
+    private String getChangesTableName() {
+        return csDbPrefix + idbTablePrefix + CHANGES_TABLE_SUFFIX;
+    }
+
+    private void createChangesTable() {
+        try {
+            intermediateDAO.executeQuery("CREATE TABLE IF NOT EXISTS " + getChangesTableName() + " (" +
+                    columnItemType + " VARCHAR(64) NOT NULL PRIMARY KEY, ChangeCounter BIGINT NOT NULL DEFAULT 0)");
+        } catch (ExportStagingException e) {
+            logger.error("[ProducerWakeUpListener] Failed to create table " + getChangesTableName() + " Error Message:" + e.getMessage());
+        }
+    }
+
+    private void readChangeCounters() {
+        try {
+            List<Map<String, Object>> rows = intermediateDAO.fetchData("SELECT " + columnItemType +
+                    ", ChangeCounter FROM " + getChangesTableName());
+            if (rows == null) {
+                return;
+            }
+            for (Map<String, Object> row : rows) {
+                String itemType = row.get(columnItemType).toString();
+                long changeCounter = ((Number) row.get("ChangeCounter")).longValue();
+                Long previous = changeCounters.put(itemType, changeCounter);
+                if (previous != null && previous != changeCounter) {
+                    wakeUp(itemType);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("[ProducerWakeUpListener] Exception while reading change counters: " + e.getMessage());
+        }
+    }
+
+    private void receiveDatagrams() {
+        byte[] buffer = new byte[256];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (socket != null && !socket.isClosed()) {
+            try {
+                socket.receive(packet);
+                wakeUp(new String(packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.UTF_8).trim());
+                packet.setLength(buffer.length);
+            } catch (IOException e) {
+                if (socket != null && !socket.isClosed()) {
+                    logger.error("[ProducerWakeUpListener] Exception while receiving wake up: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
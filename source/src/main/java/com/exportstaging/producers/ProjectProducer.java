@@ -14,7 +14,7 @@ public class ProjectProducer extends MasterProducer {
         String msgInfo = "[" + producerName + "] : initializing...";
         System.out.println(msgInfo);
         logger.info(msgInfo);
-        String topicName = activeMQSpringConnection.getTopicName(exportDatabaseName, true);
+        topicName = activeMQSpringConnection.getTopicName(exportDatabaseName, true);
         messageProducer = activeMQSpringConnection.getProducer(topicName, producerName, getProducerSession());
     }
 
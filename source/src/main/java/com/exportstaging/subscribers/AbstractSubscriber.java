@@ -6,6 +6,7 @@ import com.exportstaging.api.exception.ExceptionLogger;
 import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.cleanup.ActiveMQCleanupThread;
 import com.exportstaging.common.ExportMiscellaneousUtils;
+import com.exportstaging.common.PipelineLatency;
 import com.exportstaging.connectors.idbconnector.IntermediateDAO;
 import com.exportstaging.connectors.messagingqueue.ActiveMQMBeanConnection;
 import com.exportstaging.connectors.messagingqueue.ActiveMQSpringConnection;
@@ -28,6 +29,13 @@ import org.springframework.stereotype.Component;
 
 import javax.jms.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.exportstaging.common.ExportMiscellaneousUtils.*;
 
@@ -100,10 +108,24 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
     String exportSupportedItemTypes;
     @Value(("${export.supported.record.types}"))
     String exportSupportedRecordTypes;
+    @Value("${export.latency.tracing}")
+    private boolean latencyTracing;
+    @Value("${export.latency.http.port}")
+    private int latencyHttpPort;
 
     private List<String> exportDbNames = new ArrayList<>();
     private Map<String, Session> sessions = new HashMap<>();
     private Map<String, MessageConsumer> consumers = new HashMap<>();
+    private List<Session> partitionSessions = new ArrayList<>();
+    private List<MessageConsumer> partitionConsumers = new ArrayList<>();
+    private final ReadWriteLock dispatchLock = new ReentrantReadWriteLock();
+    private final Map<Session, Object> sessionLocks = new ConcurrentHashMap<>();
+    private final ThreadLocal<CompletableFuture<Boolean>> deferredAcknowledgement = new ThreadLocal<>();
+    private final ExecutorService acknowledgementExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SubscriberAcknowledgement");
+        thread.setDaemon(true);
+        return thread;
+    });
     private String subscriberEquivalentName;
 
 
@@ -136,6 +158,7 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
         if (exportDbNames.isEmpty()) {
             exportDbNames.add(exportDatabaseName);
         }
+        PipelineLatency.configure(latencyTracing, latencyHttpPort);
         createConsumer(supportedItemTypes);
         subscriberEquivalentName = isCustomSubscriber() ? subscriberName : "coreSubscriber";
 
@@ -169,15 +192,67 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
    */
   public void onMessage(javax.jms.Message message)
   {
-    Session session     = sessions.get(exportDatabaseName);
+    dispatchMessage(message, sessions.get(exportDatabaseName));
+  }
+
+
+  /**
+   * Operation messages change the state shared by all partitions, so they are processed exclusively. Data messages of
+   * different partitions are processed in parallel.
+   */
+  private void dispatchMessage(javax.jms.Message message, Session session)
+  {
+    boolean operationMessage = isOperationMessage(message);
+    Lock    lock             = operationMessage ? dispatchLock.writeLock() : dispatchLock.readLock();
+    lock.lock();
+    try {
+      synchronized (getSessionLock(session)) {
+        if (operationMessage && !awaitDeferredMessages()) {
+          logger.warn("[" + subscriberName + "] Messages received before are not processed yet, recovering operation message");
+          try {
+            handleAcknowledgement(message, session, false);
+          } catch (JMSException e) {
+            handleJmsException(e, session, message, false);
+          }
+          return;
+        }
+        handleMessage(message, session);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Acknowledgements of deferred messages are completed on another thread, the session is used by one thread at a time.
+   */
+  private Object getSessionLock(Session session)
+  {
+    return session == null ? sessionLocks : sessionLocks.computeIfAbsent(session, key -> new Object());
+  }
+
+
+  private boolean isOperationMessage(javax.jms.Message message)
+  {
+    try {
+      return EXPORT_TYPE_OPERATION.equals(message.getJMSType());
+    } catch (JMSException e) {
+      return false;
+    }
+  }
+
+
+  private void handleMessage(javax.jms.Message message, Session session)
+  {
     Boolean acknowledge = false;
     String type, itemType, itemID = null;
+    PipelineLatency.Trace trace = null;
     try {
       if (!isSubscriberReadyForNewMessage()) {
         logger.debug(
           "[" + subscriberName + "] is not ready to pickup new messages. Initial activity is going on, once it is " +
           "done message will process.");
-        session.recover();
         return;
       }
 
@@ -220,17 +295,19 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
       itemID   = mapMessage.getString(ID);
       itemType = mapMessage.getString(CONSTANT_ITEM_TYPE);
 
+      if (mapMessage.itemExists(CONSTANT_EXPORT_TYPE)
+          && mapMessage.getInt(CONSTANT_EXPORT_TYPE) == CONSTANT_EXPORT_TYPE_INITIAL) {
+        onInitialExportMessage(itemType, type);
+      }
+
+      trace = PipelineLatency.startTrace(subscriberName, itemType, getOperationType(action, priority, type), mapMessage,
+                                         startTime);
       String exportData = mapMessage.getString(this.message);
 
       if (!EXPORT_TYPE_OPERATION.equalsIgnoreCase(itemType)) {
-        long l1 = System.currentTimeMillis();
+        long decompressTime = System.nanoTime();
         exportData = ExportMiscellaneousUtils.getUnCompressedItemMessage(exportData);
-        logger.debug(
-          "Total time for decompression of " + subscriberName
-          + " " + itemType
-          + " " + itemID + " is "
-          + (System.currentTimeMillis() - l1)
-        );
+        trace.recordSince(PipelineLatency.Stage.DECOMPRESS, decompressTime);
       }
       int jmsPriority = mapMessage.getJMSPriority();
 
@@ -238,7 +315,9 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
       ThreadContext.put(EXPORT_DATABASE_LOG_OPERATION_TYPE, getOperationType(action, jmsPriority, type));
       ThreadContext.put(EXPORT_DATABASE_LOG_TRACE_ID, String.valueOf(insertTime));
 
+      long parseTime = System.nanoTime();
       ExportMessage exportMessage = new ExportMessage(itemID, exportData, action, itemType, type, jobID);
+      trace.recordSince(PipelineLatency.Stage.PARSE, parseTime);
 
       if (itemType.equalsIgnoreCase(EXPORT_TYPE_OPERATION)) {
         acknowledge = handleOperationMessage(insertTime, exportMessage.getOperationData());
@@ -255,7 +334,7 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
         }
         try {
           acknowledge = handleDataMessage(startTime, projectName, itemID, itemType, type, exportMessage, jmsPriority,
-                                          insertTime);
+                                          insertTime, trace);
         } catch (Exception e) {
           ExceptionLogger.logError("Framework exception on processing message for itemType:" + itemType + ", ItemID:" + itemID, e,
                    subscriberName);
@@ -266,19 +345,50 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
     }  catch (ExportStagingException e) {
       ExceptionLogger.logError("Export staging exception while getting project name detail", e, subscriberName);
     } finally {
-      try {
-      handleAcknowledgement(message, session, acknowledge);
-      } catch (JMSException e) {
-        handleJmsException(e, session, message, acknowledge);
+      CompletableFuture<Boolean> deferred = deferredAcknowledgement.get();
+      deferredAcknowledgement.remove();
+      if (deferred != null && acknowledge) {
+        deferAcknowledgement(message, session, itemID, deferred, trace);
       }
-      if (!acknowledge && isDurableSubscriber()) {
-        logger.warn("[" + subscriberName + "] Recovering message with ID: " + itemID + " and Action: " + action);
+      else {
+        try {
+          handleAcknowledgement(message, session, acknowledge);
+        } catch (JMSException e) {
+          handleJmsException(e, session, message, acknowledge);
+        }
+        if (!acknowledge && isDurableSubscriber()) {
+          logger.warn("[" + subscriberName + "] Recovering message with ID: " + itemID + " and Action: " + action);
+        }
       }
       ThreadContext.clearAll();
     }
   }
 
 
+  private void deferAcknowledgement(javax.jms.Message message, Session session, String itemID,
+                                    CompletableFuture<Boolean> deferred, PipelineLatency.Trace trace)
+  {
+    deferred.thenAccept(processed -> {
+      if (Boolean.TRUE.equals(processed)) {
+        trace.committed();
+      }
+    });
+    deferred.whenCompleteAsync((processed, throwable) -> {
+      boolean acknowledge = throwable == null && Boolean.TRUE.equals(processed);
+      synchronized (getSessionLock(session)) {
+        try {
+          handleAcknowledgement(message, session, acknowledge);
+        } catch (JMSException e) {
+          handleJmsException(e, session, message, acknowledge);
+        }
+      }
+      if (!acknowledge) {
+        logger.warn("[" + subscriberName + "] Recovering message with ID: " + itemID);
+      }
+    }, acknowledgementExecutor);
+  }
+
+
   private void handleAcknowledgement(javax.jms.Message message, Session session, Boolean acknowledge)
     throws JMSException
   {
@@ -286,6 +396,9 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
       if (acknowledge) {
         message.acknowledge();
       }
+      else if (isAcknowledgementDeferred()) {
+        redeliver(message, session);
+      }
       else {
         session.recover();
       }
@@ -295,6 +408,23 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
     }
   }
 
+  /**
+   * Redelivers only the given message on a session acknowledging messages individually. Recovering the session would
+   * redeliver all messages of the session which are not acknowledged yet, including those still being written. The
+   * message is sent to the end of its queue again before it is acknowledged, its message group keeps it on the same
+   * consumer and the DataManager skips it if a newer message of the item was processed in between.
+   */
+  private void redeliver(javax.jms.Message message, Session session) throws JMSException
+  {
+    MessageProducer producer = session.createProducer(message.getJMSDestination());
+    try {
+      producer.send(message, DeliveryMode.PERSISTENT, message.getJMSPriority(), javax.jms.Message.DEFAULT_TIME_TO_LIVE);
+    } finally {
+      producer.close();
+    }
+    message.acknowledge();
+  }
+
     private void handleJmsException(JMSException jmsException, Session session, javax.jms.Message message, boolean acknowledge) {
         Throwable cause = jmsException.getCause();
         if (cause instanceof InterruptedException || (Thread.currentThread().isInterrupted())) {
@@ -495,6 +625,56 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
         return false;
     }
 
+    /**
+     * Can be overwritten by subscribers which complete the processing of messages after processMessage returned, see
+     * {@link #deferAcknowledgement(CompletableFuture)}. Their sessions acknowledge every message individually.
+     *
+     * @return true if the subscriber defers acknowledgements, otherwise false (default)
+     */
+    protected boolean isAcknowledgementDeferred() {
+        return false;
+    }
+
+    /**
+     * Called from processMessage to acknowledge the current message once the future completes with true instead of
+     * when processMessage returns true. The message is recovered if the future completes with false or exceptionally.
+     *
+     * @param processed future of the processing result of the current message
+     */
+    protected final void deferAcknowledgement(CompletableFuture<Boolean> processed) {
+        deferredAcknowledgement.set(processed);
+    }
+
+    /**
+     * Called for every message of an initial export before it is processed.
+     *
+     * @param itemType ItemType of the message
+     * @param type     Defines the type of the message
+     */
+    protected void onInitialExportMessage(String itemType, String type) {
+    }
+
+    /**
+     * Called before an operation message is processed. Subscribers deferring acknowledgements wait here until the
+     * messages received before are processed.
+     *
+     * @return true if the messages received before are processed, false to recover the message
+     */
+    protected boolean awaitDeferredMessages() {
+        return true;
+    }
+
+    /**
+     * Number of consumers, each with its own session, which process the messages of an export database in parallel.
+     * The producers set the message group to the item type and a bucket of the item ID, so all messages of one item
+     * are delivered to the same consumer in order. Subscribers overriding this method must process messages in a thread safe way.
+     *
+     * @return number of parallel consumers, 1 by default
+     */
+    protected int getConsumerCount() {
+        return 1;
+    }
+
     private void removeMessagesFromQueue(List<String> removedItemTypes) {
         String queueName = activeMQSpringConnection.getQueueName(projectName, subscriberName, isCustomSubscriber());
         logger.info("[" + getSubscriberName() + "]: Start the performing cleanup of messages on " + queueName + " for item types: " + removedItemTypes.toString());
@@ -512,12 +692,30 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
                 consumer.setMessageListener(this);
                 logSubscriberIsDurableOrNot();
                 consumers.put(exportDbName, consumer);
+                createPartitionConsumers(exportDbName);
             } catch (JMSException e) {
                 ExceptionLogger.logError("Exception while creating consumer.", e, subscriberName);
             }
         }
     }
 
+    private void createPartitionConsumers(String exportDbName) throws JMSException {
+        for (int partition = 1; partition < getConsumerCount(); partition++) {
+            String clientName = exportProjectVirtualTopic + "_" + exportDbName + "_" + subscriberName + "_" + partition;
+            Session session = activeMQSpringConnection.createSession(clientName, isDurableSubscriber(), isAcknowledgementDeferred());
+            if (session == null) {
+                continue;
+            }
+            MessageConsumer consumer = activeMQSpringConnection.createPartitionConsumer(exportDbName, subscriberName, session, isDurableSubscriber(), isCustomSubscriber());
+            consumer.setMessageListener(new PartitionListener(session));
+            partitionSessions.add(session);
+            partitionConsumers.add(consumer);
+        }
+        if (getConsumerCount() > 1) {
+            log("processing messages with " + (partitionConsumers.size() + 1) + " consumers");
+        }
+    }
+
     private boolean handleOperationMessage(long insertTime, OperationMessage operationMessage) {
         List<String> itemTypes = operationMessage.getItemTypes();
       boolean status = false;
@@ -551,11 +749,12 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
         return dataManager.isMessageValid(mapMessage);
     }
 
-    private Boolean handleDataMessage(long startTime, String projectName, String itemID, String itemType, String type, ExportMessage exportMessage, int jmsPriority, long idbInsertTime) {
+    private Boolean handleDataMessage(long startTime, String projectName, String itemID, String itemType, String type, ExportMessage exportMessage, int jmsPriority, long idbInsertTime, PipelineLatency.Trace trace) {
         Boolean acknowledge = false;
         String operation;
         long totalTime;
         int action = exportMessage.getAction();
+        trace.startCommit();
         if (action == actionDelete) {
             operation = "delete";
             acknowledge = handleDeletedMessages(projectName, itemID, itemType, type, exportMessage);
@@ -576,6 +775,9 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
             }
         }
         totalTime = System.currentTimeMillis() - startTime;
+        if (acknowledge && deferredAcknowledgement.get() == null) {
+            trace.committed();
+        }
 
         log(operation, itemType, type, itemID, totalTime, acknowledge, action, jmsPriority, idbInsertTime);
         return acknowledge;
@@ -728,7 +930,7 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
         Session session = sessions.get(exportDbName);
         if (session == null) {
             String clientName = exportProjectVirtualTopic + "_" + exportDbName + "_" + subscriberName;
-            session = activeMQSpringConnection.createSession(clientName, isDurableSubscriber());
+            session = activeMQSpringConnection.createSession(clientName, isDurableSubscriber(), isAcknowledgementDeferred());
             sessions.put(exportDbName, session);
             logger.info("[" + subscriberName + "] session created");
         }
@@ -753,6 +955,22 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
             }
         }
         sessions.clear();
+        for (MessageConsumer consumer : partitionConsumers) {
+            try {
+                consumer.close();
+            } catch (JMSException e) {
+                ExceptionLogger.logError("Exception while closing partition consumer: ", e, subscriberName);
+            }
+        }
+        for (Session session : partitionSessions) {
+            try {
+                session.close();
+            } catch (JMSException e) {
+                ExceptionLogger.logError("Exception while closing partition session: ", e, subscriberName);
+            }
+        }
+        partitionConsumers.clear();
+        partitionSessions.clear();
         activeMQSpringConnection.close();
     }
 
@@ -805,6 +1023,22 @@ public abstract class AbstractSubscriber implements Subscriber, MessageListener
         }
     }
 
+    /**
+     * Listener of an additional consumer, acknowledging and recovering messages on the session of its consumer.
+     */
+    private class PartitionListener implements MessageListener {
+        private final Session session;
+
+        PartitionListener(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void onMessage(javax.jms.Message message) {
+            dispatchMessage(message, session);
+        }
+    }
+
     private class ShutdownCleaner extends Thread {
         public void run() {
             onBeforeShutdown();
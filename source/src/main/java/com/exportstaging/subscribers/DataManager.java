@@ -1,28 +1,40 @@
 package com.exportstaging.subscribers;
 
 import com.exportstaging.common.ExportMiscellaneousUtils;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.jms.JMSException;
 import javax.jms.MapMessage;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.exportstaging.common.ExportMiscellaneousUtils.*;
 
+/**
+ * Keeps the IDB insert time of the latest message of every item, so subscribers can skip messages which are already
+ * superseded by a newer message of the same item.
+ * <p>
+ * There is one {@link ItemInsertTimeIndex} per item type and per item type FileContent. Changes are persisted by the
+ * {@link ItemInsertTimeStore} in the data folder of the project, a snapshot is written in the background every
+ * checkpoint interval and on shutdown. Size and memory of the indexes are exported with the MBean
+ * com.exportstaging:type=DataManager.
+ */
 @Component
-public class DataManager {
+public class DataManager implements DataManagerMBean {
     @Value("${core.project.name}")
     protected String projectName;
     @Value("${mysql.type.item}")
@@ -58,36 +70,66 @@ public class DataManager {
     private String initialCacheFilesPath;
     private String serializedFilesPath;
     private boolean isProjectSubscriber;
+    @Value("${export.data.checkpoint.interval}")
+    private long checkpointInterval;
+    @Value("${export.data.log.flush.interval}")
+    private long logFlushInterval;
+    private String storeName;
+    private volatile ItemInsertTimeStore store = null;
+    private ScheduledExecutorService checkpointExecutor = null;
+    private static final String MBEAN_NAME = "com.exportstaging:type=DataManager";
+    private static final String KEY_SEPARATOR = "_";
     private final static Logger logger = LogManager.getLogger("exportstaging");
-    private volatile ConcurrentHashMap<String, Long> itemInsertTimeHashMap = null;
+    private volatile ConcurrentHashMap<String, ItemInsertTimeIndex> itemInsertTimeIndexes = null;
     private volatile long cleanUpTime = 0;
 
     private DataManager() {
     }
 
+    @PostConstruct
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            logger.debug("[DataManager] MBean " + MBEAN_NAME + " is already registered");
+        } catch (Exception e) {
+            logger.error("[DataManager] Failed to register MBean " + MBEAN_NAME + " Error Message:" + e.getMessage());
+        }
+    }
+
     boolean isMessageValid(MapMessage message) {
         try {
             int action = message.getInt(mAction);
-            String mapKey = generateItemMapKey(message);
-            long insertTime = message.getLong("IDBInsertTime");
-            return action == mActionDelete || action == mActionCreate ||
-                    (itemInsertTimeHashMap.containsKey(mapKey) && itemInsertTimeHashMap.get(mapKey) == insertTime);
+            if (action == mActionDelete || action == mActionCreate) {
+                return true;
+            }
+            ItemInsertTimeIndex index = itemInsertTimeIndexes.get(generateIndexKey(message));
+            return index != null && index.isLatest(getItemID(message), message.getLong("IDBInsertTime"));
         } catch (JMSException e) {
             return false;
+        } catch (NumberFormatException e) {
+            //Items are identified by numeric IDs only, messages of other IDs are never superseded
+            return true;
         }
 
     }
 
-    private String generateItemMapKey(MapMessage message) throws JMSException {
-        String id = message.getString(mID);
+    private String generateIndexKey(MapMessage message) throws JMSException {
         String itemType = message.getString(ExportMiscellaneousUtils.CONSTANT_ITEM_TYPE);
         String type = message.getString(ExportMiscellaneousUtils.CONSTANT_TYPE);
-        String mapKey = itemType;
-        if (type.equals(mTypeFileContent)) {
-            mapKey += "_" + type;
-        }
-        mapKey += "_" + id;
-        return mapKey;
+        return generateIndexKey(itemType, type.equals(mTypeFileContent));
+    }
+
+    private String generateIndexKey(String itemType, boolean isFileContent) {
+        return isFileContent ? itemType + KEY_SEPARATOR + mTypeFileContent : itemType;
+    }
+
+    private long getItemID(MapMessage message) throws JMSException {
+        return Long.parseLong(message.getString(mID));
+    }
+
+    private ItemInsertTimeIndex getIndex(String indexKey) {
+        return itemInsertTimeIndexes.computeIfAbsent(indexKey, key -> new ItemInsertTimeIndex());
     }
 
 
@@ -98,23 +140,14 @@ public class DataManager {
             if (type.equals(mTypeConfiguration) || type.equals(mTypeMapping)) {
                 return;
             }
-            if (itemInsertTimeHashMap == null) {
+            if (itemInsertTimeIndexes == null) {
                 loadMap(subscriberName);
             }
-            String mapKey = generateItemMapKey(message);
-            long insertTime = message.getLong("IDBInsertTime");
-            if (action == mActionDelete) {
-                itemInsertTimeHashMap.put(mapKey, (long) -1);
-            } else {
-                if (itemInsertTimeHashMap.containsKey(mapKey)) {
-                    if (itemInsertTimeHashMap.get(mapKey) != -1) {
-                        if (insertTime > itemInsertTimeHashMap.get(mapKey)) {
-                            itemInsertTimeHashMap.put(mapKey, insertTime);
-                        }
-                    }
-                } else {
-                    itemInsertTimeHashMap.put(mapKey, insertTime);
-                }
+            String indexKey = generateIndexKey(message);
+            long itemID = getItemID(message);
+            long insertTime = action == mActionDelete ? ItemInsertTimeIndex.DELETED : message.getLong("IDBInsertTime");
+            if (getIndex(indexKey).update(itemID, insertTime, action == mActionDelete) && store != null) {
+                store.append(indexKey, itemID, insertTime);
             }
         } catch (JMSException e) {
             String errorMessage = "JMSException while maintaining data entries. Error Message: ";
@@ -125,24 +158,56 @@ public class DataManager {
         }
     }
 
-    boolean loadMap(String subscriberName) {
+    synchronized boolean loadMap(String subscriberName) {
         if (!subscriberName.equals("coreSubscriber")) {
             isProjectSubscriber = true;
         }
         if (initialCacheFilesPath == null) {
             createProjectPath(subscriberName);
         }
+        if (store != null) {
+            if (itemInsertTimeIndexes == null) {
+                itemInsertTimeIndexes = new ConcurrentHashMap<>();
+            }
+            return true;
+        }
+        boolean status = true;
+        ItemInsertTimeStore itemInsertTimeStore = new ItemInsertTimeStore(new File(initialCacheFilesPath), storeName);
+        ConcurrentHashMap<String, ItemInsertTimeIndex> legacyIndexes = null;
         File file;
-        if ((file = new File(serializedFilesPath)).exists()) {
-            return loadDataFile(file);
-        } else if ((file = new File(serializedFilesPath.replace(".data", ".ser"))).exists()) {
-            return loadSerializedFile(file);
-        } else {
-            if (itemInsertTimeHashMap == null) {
-                itemInsertTimeHashMap = new ConcurrentHashMap<>();
+        try {
+            if (!itemInsertTimeStore.exists()) {
+                if ((file = new File(serializedFilesPath)).exists()) {
+                    legacyIndexes = ItemInsertTimeStore.readJsonFile(file);
+                } else if ((file = new File(serializedFilesPath.replace(".data", ".ser"))).exists()) {
+                    legacyIndexes = ItemInsertTimeStore.readSerializedFile(file);
+                }
             }
+        } catch (ClassNotFoundException | IOException e) {
+            logError("[DataManager] Exception while loading the cached data of the previous version. ", e);
+            status = false;
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            ConcurrentHashMap<String, ItemInsertTimeIndex> indexes = itemInsertTimeStore.load();
+            if (legacyIndexes != null) {
+                indexes = legacyIndexes;
+                itemInsertTimeStore.checkpoint(indexes);
+                deleteLegacyFiles();
+            }
+            itemInsertTimeIndexes = indexes;
+            store = itemInsertTimeStore;
+            startCheckpoints();
+            logger.info("[DataManager] Loaded " + getEntries() + " entries in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        } catch (IOException e) {
+            logError("[DataManager] IOException while loading the snapshot. ", e);
+            status = false;
         }
-        return true;
+        if (itemInsertTimeIndexes == null) {
+            itemInsertTimeIndexes = new ConcurrentHashMap<>();
+        }
+        return status;
     }
 
     void clearMap(long insertTime, String subscriberName) {
@@ -151,19 +216,43 @@ public class DataManager {
             return;
         }
         cleanUpTime = insertTime;
-        if (itemInsertTimeHashMap != null) {
-            itemInsertTimeHashMap = new ConcurrentHashMap<>();
-        }
-        //Deleting existing file because it is no longer needed
+        //Deleting existing files because they are no longer needed
         if (serializedFilesPath == null) {
             createProjectPath(subscriberName);
         }
-        deleteFile(new File(serializedFilesPath));
+        deleteLegacyFiles();
+        try {
+            if (store != null) {
+                store.clear(this::resetIndexes);
+            } else {
+                resetIndexes();
+                new ItemInsertTimeStore(new File(initialCacheFilesPath), storeName).delete();
+            }
+        } catch (IOException e) {
+            logError("[DataManager] IOException while deleting the snapshot. ", e);
+        }
+    }
+
+    private void resetIndexes() {
+        if (itemInsertTimeIndexes != null) {
+            itemInsertTimeIndexes = new ConcurrentHashMap<>();
+        }
     }
 
     void removeItemType(List<String> itemTypes) {
-        if (itemInsertTimeHashMap != null)
-            itemInsertTimeHashMap.keySet().stream().filter(mapKey -> itemTypes.contains(mapKey.split("_")[0])).forEach(mapKey -> itemInsertTimeHashMap.remove(mapKey));
+        if (itemInsertTimeIndexes != null) {
+            for (String itemType : itemTypes) {
+                for (String indexKey : Arrays.asList(generateIndexKey(itemType, false), generateIndexKey(itemType, true))) {
+                    if (itemInsertTimeIndexes.remove(indexKey) != null && store != null) {
+                        try {
+                            store.removeIndex(indexKey);
+                        } catch (IOException e) {
+                            logError("[DataManager] IOException while removing " + indexKey + ". ", e);
+                        }
+                    }
+                }
+            }
+        }
     }
 
     private void createProjectPath(String subscriberName) {
@@ -172,54 +261,64 @@ public class DataManager {
         if (!subscriberName.equals(masterSubscriber) && !subscriberName.equals(elasticSubscriber)) {
             subsName = subscriberName;
         }
+        storeName = subsName;
         serializedFilesPath = initialCacheFilesPath + File.separator + subsName + ".data";
     }
 
-
-    @PreDestroy
-    private void destroy() {
-        try {
-            if (serializedFilesPath != null) {
-                File file = new File(serializedFilesPath);
-                if (!file.exists()) {
-                    if (file.getParentFile().mkdirs()) {
-                        boolean newFile = file.createNewFile();
-                    }
-                }
-                
-                if(itemInsertTimeHashMap != null) {
-                    new ObjectMapper().writeValue(new File(serializedFilesPath), itemInsertTimeHashMap);
-                    logger.info("[DataManager] Data Cached successfully for next run");
-                }
-                
-                deleteFile(new File(serializedFilesPath.replace(".data", ".ser")));
-            }
-        } catch (IOException e) {
-            String errorMessage = "[DataManager] Failed to cache data for data management";
-            logError(errorMessage, e);
+    /**
+     * Flushes the log of the store every log flush interval and writes a snapshot every checkpoint interval.
+     */
+    private void startCheckpoints() {
+        if (checkpointExecutor != null) {
+            return;
         }
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DataManagerCheckpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                store.flush();
+            } catch (IOException e) {
+                logError("[DataManager] IOException while flushing the log. ", e);
+            }
+        }, logFlushInterval, logFlushInterval, TimeUnit.MILLISECONDS);
+        checkpointExecutor.scheduleWithFixedDelay(this::checkpoint, checkpointInterval, checkpointInterval,
+                TimeUnit.MILLISECONDS);
     }
 
-    private boolean loadSerializedFile(File file) {
+    private void checkpoint() {
         try {
-            ObjectInputStream stream = new ObjectInputStream(new FileInputStream(file));
-            itemInsertTimeHashMap = (ConcurrentHashMap<String, Long>) stream.readObject();
-            stream.close();
-        } catch (ClassNotFoundException | IOException exception) {
-            logError("Exception in loadSerializedFile.", exception);
-            return false;
+            long startTime = System.currentTimeMillis();
+            store.checkpoint(() -> itemInsertTimeIndexes);
+            logger.debug("[DataManager] Checkpoint of " + getEntries() + " entries written in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        } catch (IOException | RuntimeException e) {
+            logError("[DataManager] Failed to write the checkpoint. ", e);
         }
-        return true;
     }
 
-    private boolean loadDataFile(File file) {
-        try {
-            itemInsertTimeHashMap = getHashMapFromJSONFile(file);
-        } catch (IOException e) {
-            logError("[DataManager] IOException while loading CSV file. ", e);
-            return false;
+    @PreDestroy
+    private void destroy() {
+        if (checkpointExecutor != null) {
+            checkpointExecutor.shutdownNow();
+        }
+        if (store != null) {
+            try {
+                store.checkpoint(() -> itemInsertTimeIndexes);
+                store.close();
+                logger.info("[DataManager] Data Cached successfully for next run");
+            } catch (IOException e) {
+                String errorMessage = "[DataManager] Failed to cache data for data management";
+                logError(errorMessage, e);
+            }
         }
-        return true;
+    }
+
+    private void deleteLegacyFiles() {
+        deleteFile(new File(serializedFilesPath));
+        deleteFile(new File(serializedFilesPath.replace(".data", ".ser")));
     }
 
     private void deleteFile(File file) {
@@ -231,16 +330,32 @@ public class DataManager {
         }
     }
 
-    /**
-     * Converts single json object from the file to ConcurrentHashMap. Note that the file should contain [String, LONG] structure and a single json.
-     *
-     * @param file {@link File} object which contains the json to be read from
-     * @return Converted HashMap from the source file
-     * @throws IOException In case of Permissions issues or file is missing.
-     */
-    private ConcurrentHashMap<String, Long> getHashMapFromJSONFile(File file) throws IOException {
-        return new ObjectMapper().readValue(file, new TypeReference<ConcurrentHashMap<String, Long>>() {
-        });
+    @Override
+    public long getEntries() {
+        long entries = 0;
+        if (itemInsertTimeIndexes != null) {
+            for (ItemInsertTimeIndex index : itemInsertTimeIndexes.values()) {
+                entries += index.size();
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        long bytes = 0;
+        if (itemInsertTimeIndexes != null) {
+            for (ItemInsertTimeIndex index : itemInsertTimeIndexes.values()) {
+                bytes += index.getMemoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public double getBytesPerEntry() {
+        long entries = getEntries();
+        return entries == 0 ? 0 : (double) getMemoryBytes() / entries;
     }
 
     private void logError(String message, Exception e) {
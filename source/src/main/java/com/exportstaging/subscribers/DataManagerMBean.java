@@ -0,0 +1,13 @@
+package com.exportstaging.subscribers;
+
+/**
+ * Size and memory of the insert time indexes of the {@link DataManager}.
+ */
+public interface DataManagerMBean {
+
+    long getEntries();
+
+    long getMemoryBytes();
+
+    double getBytesPerEntry();
+}
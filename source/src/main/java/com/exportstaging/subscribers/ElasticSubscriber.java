@@ -16,6 +16,7 @@ import com.exportstaging.common.ExportMiscellaneousUtils;
 import com.exportstaging.domain.ItemMessage;
 import com.exportstaging.domain.Message;
 import com.exportstaging.domain.OperationMessage;
+import com.exportstaging.elasticsearch.ElasticBulkLoadMonitor;
 import com.exportstaging.elasticsearch.ElasticOperationHandler;
 import com.exportstaging.elasticsearch.ElasticSearchOperations;
 import com.exportstaging.elasticsearch.clientbuilder.ClientBuilder;
@@ -39,6 +40,18 @@ public class ElasticSubscriber extends AbstractSubscriber {
 
     @Value("${elasticsearch.reindex.batchsize}")
     public int batchSize;
+    @Value("${export.elastic.subscriber.thread.pool.size}")
+    private int consumerCount;
+    @Value("${elasticsearch.bulk.batching}")
+    private boolean bulkBatching;
+    @Value("${elasticsearch.bulkload.enabled}")
+    private boolean bulkLoadEnabled;
+    @Value("${elasticsearch.bulkload.idle.timeout}")
+    private long bulkLoadIdleTimeout;
+    @Value("${elasticsearch.bulkload.status.interval}")
+    private long bulkLoadStatusInterval;
+
+    private ElasticBulkLoadMonitor bulkLoadMonitor;
 
     public ElasticSubscriber() {
     }
@@ -57,6 +70,11 @@ public class ElasticSubscriber extends AbstractSubscriber {
         handler.updateLanguagePerIndexFlag(subscriberName);
         elasticSearchOperations.prepareThreadPool();
         initializeSearchEngine(handler.getElasticSupportedItemTypes(getHandledItemTypes()), this.subscriberName);
+        if (bulkLoadEnabled) {
+            restoreBulkLoadIndices(handler.getElasticSupportedItemTypes(getHandledItemTypes()));
+            bulkLoadMonitor = new ElasticBulkLoadMonitor(subscriberName, elasticSearchOperations, bulkLoadIdleTimeout,
+                                                         bulkLoadStatusInterval);
+        }
         super.startSubscriber();
     }
 
@@ -77,6 +95,11 @@ public class ElasticSubscriber extends AbstractSubscriber {
     }
 
 
+    @Override
+    protected int getConsumerCount() {
+        return consumerCount;
+    }
+
     @Override
     public List<String> getHandledItemTypes() {
         return new ArrayList<>(ExportMiscellaneousUtils.getConfiguredTypes());
@@ -87,11 +110,16 @@ public class ElasticSubscriber extends AbstractSubscriber {
   public Boolean processMessage(ItemMessage itemMessage, String itemType, String type, String projectName)
   {
     if (type.equals(typeItem)) {
+      if (isAcknowledgementDeferred()) {
+        deferAcknowledgement(
+          elasticSearchOperations.addDocumentForAllLanguagesAsync(itemMessage, itemType, type, subscriberName));
+        return true;
+      }
       return elasticSearchOperations.addDocumentForAllLanguages(itemMessage, itemType, type, subscriberName);
     }
     else if (type.equals(typeFileContent)) {
       return elasticSearchOperations.addDocument(
-        itemMessage.getRawMessage(),
+        itemMessage,
         type,
         itemMessage.getId(),
         subscriberName
@@ -128,8 +156,23 @@ public class ElasticSubscriber extends AbstractSubscriber {
         return true;
     }
 
+    @Override
+    protected boolean isAcknowledgementDeferred() {
+        return bulkBatching && isDurableSubscriber();
+    }
+
+    @Override
+    protected boolean awaitDeferredMessages() {
+        return !isAcknowledgementDeferred() || elasticSearchOperations.flushBulkRequests();
+    }
+
     @Override
     public Boolean deleteMessage(List<String> ids, String itemType, String type, String projectName) {
+        // documents of earlier messages must be written before they are deleted or read for an update
+        if (!awaitDeferredMessages()) {
+            logger.warn("[" + subscriberName + "] Documents of earlier messages are not written, recovering the delete of " + ids);
+            return false;
+        }
         int deleteStatus = 0;
         if (type.equals(typeItem) && ExportMiscellaneousUtils.getCoreItemTypes().contains(itemType)) {
             deleteStatus = elasticSearchOperations.deleteDocumentForAllLanguages(ids, itemType, subscriberName);
@@ -181,16 +224,77 @@ public class ElasticSubscriber extends AbstractSubscriber {
         } catch (CannotCreateConnectionException e) {
             return false;
         }
+        if (bulkLoadMonitor != null) {
+            for (String itemType : handler.getElasticSupportedItemTypes(itemTypes)) {
+                bulkLoadMonitor.start(itemType, getIndexNames(itemType));
+            }
+        }
         return true;
     }
 
+    @Override
+    protected void onInitialExportMessage(String itemType, String type) {
+        if (bulkLoadMonitor != null) {
+            bulkLoadMonitor.onInitialExportMessage(itemType);
+        }
+    }
+
 
     @Override
     public void onBeforeShutdown() {
+        if (bulkLoadMonitor != null) {
+            bulkLoadMonitor.close();
+        }
+        if (isAcknowledgementDeferred()) {
+            elasticSearchOperations.closeBulkRequests(subscriberName);
+        }
         clientBuilder.closeClient();
     }
 
 
+    /**
+     * Indices left in the bulk-load profile by an earlier run which ended before the initial export was loaded get
+     * their production settings back.
+     */
+    private void restoreBulkLoadIndices(List<String> itemTypes) {
+        for (String itemType : itemTypes) {
+            for (String indexName : getIndexNames(itemType)) {
+                if (elasticSearchOperations.isBulkLoadProfile(indexName, subscriberName)) {
+                    logger.warn("[" + subscriberName + "] Restoring settings of index " + indexName + " left in bulk-load profile");
+                    elasticSearchOperations.restoreIndexSettings(indexName, subscriberName, true);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @param itemType item type could be anyone from configured item types
+     * @return names of the indices of the item type used by this subscriber
+     */
+    private List<String> getIndexNames(String itemType) {
+        List<String> indexNames = new ArrayList<>();
+        if (handler.getLanguagePerIndexFlag()) {
+            if (itemType.equalsIgnoreCase(ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_MAMFILECONTENT)) {
+                if (elasticSubscriber.equalsIgnoreCase(subscriberName)) {
+                    indexNames.add(handler.getElasticIndexName(itemType));
+                }
+            } else {
+                for (String languageID : intermediateDAO.getLanguageIds()) {
+                    if (elasticSubscriber.equalsIgnoreCase(subscriberName)) {
+                        indexNames.add(handler.getElasticIndexName(itemType, languageID));
+                    } else {
+                        indexNames.add(handler.getSearchableIndexName(itemType, languageID));
+                    }
+                }
+            }
+        } else {
+            indexNames.add(handler.getElasticIndexName(itemType));
+        }
+        return indexNames;
+    }
+
+
     /**
      * Method will be responsible to create elastic indexes if its not exists
      *
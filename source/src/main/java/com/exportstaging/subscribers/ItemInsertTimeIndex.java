@@ -0,0 +1,287 @@
+package com.exportstaging.subscribers;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * IDB insert time of the latest message of every item of one item type, used by the {@link DataManager} to skip
+ * messages which are superseded by a newer message of the same item.
+ * <p>
+ * Item IDs and insert times are kept in primitive open addressing tables (linear probing) without any boxing, about
+ * 16 to 32 bytes per item depending on the fill of the table. The index is split into segments by the hash of the ID,
+ * every segment has its own lock, so subscribers updating different items rarely wait for each other.
+ * <p>
+ * The tables are written to the snapshot of the {@link ItemInsertTimeStore} as they are, reading a snapshot copies them
+ * from the mapped file without hashing any item again.
+ */
+public class ItemInsertTimeIndex {
+
+    /**
+     * Insert time of a deleted item. A deleted item never becomes valid again until the index is cleared.
+     */
+    public static final long DELETED = -1;
+
+    private static final int SEGMENT_COUNT = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 1024;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    public ItemInsertTimeIndex() {
+        for (int index = 0; index < SEGMENT_COUNT; index++) {
+            segments[index] = new Segment(INITIAL_SEGMENT_CAPACITY);
+        }
+    }
+
+    /**
+     * Stores the insert time of a message: deletions always, other messages only if the item is not deleted and the
+     * message is newer than the known one.
+     *
+     * @param itemID     ID of the item
+     * @param insertTime IDB insert time of the message
+     * @param delete     true if the message deletes the item
+     * @return true if the stored insert time of the item has changed
+     */
+    public boolean update(long itemID, long insertTime, boolean delete) {
+        if (delete) {
+            return merge(itemID, DELETED, (current, newer) -> newer);
+        }
+        return merge(itemID, insertTime, (current, newer) -> current == DELETED || newer <= current ? current : newer);
+    }
+
+    /**
+     * @return true if the insert time is the latest one known for the item
+     */
+    public boolean isLatest(long itemID, long insertTime) {
+        Segment segment = segmentOf(itemID);
+        synchronized (segment) {
+            return segment.contains(itemID) && segment.get(itemID) == insertTime;
+        }
+    }
+
+    /**
+     * @return the insert time of the item, null if the item is not known
+     */
+    public Long get(long itemID) {
+        Segment segment = segmentOf(itemID);
+        synchronized (segment) {
+            return segment.contains(itemID) ? segment.get(itemID) : null;
+        }
+    }
+
+    public void put(long itemID, long insertTime) {
+        merge(itemID, insertTime, (current, newer) -> newer);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.hasEmptyKey ? segment.size + 1 : segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return bytes used by the tables of the index
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += 2L * Long.BYTES * segment.keys.length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Calls the consumer for every item of the index. Segments are locked one after another while they are read.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                if (segment.hasEmptyKey) {
+                    consumer.accept(Segment.EMPTY, segment.emptyKeyValue);
+                }
+                for (int slot = 0; slot < segment.keys.length; slot++) {
+                    if (segment.keys[slot] != Segment.EMPTY) {
+                        consumer.accept(segment.keys[slot], segment.values[slot]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the tables of all segments. Segments are locked one after another while they are written.
+     */
+    void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(SEGMENT_COUNT);
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                output.writeInt(segment.keys.length);
+                output.writeInt(segment.size);
+                output.writeBoolean(segment.hasEmptyKey);
+                output.writeLong(segment.emptyKeyValue);
+                for (long key : segment.keys) {
+                    output.writeLong(key);
+                }
+                for (long value : segment.values) {
+                    output.writeLong(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the tables of all segments with the tables written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @param channel  file of the snapshot
+     * @param position position of the tables in the file
+     * @return position after the tables
+     */
+    long readFrom(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, position, Integer.BYTES);
+        if (header.getInt() != SEGMENT_COUNT) {
+            throw new IOException("Snapshot has a different number of segments");
+        }
+        position += Integer.BYTES;
+        for (Segment segment : segments) {
+            int headerSize = 2 * Integer.BYTES + 1 + Long.BYTES;
+            ByteBuffer segmentHeader = channel.map(FileChannel.MapMode.READ_ONLY, position, headerSize);
+            int capacity = segmentHeader.getInt();
+            if (Integer.bitCount(capacity) != 1) {
+                throw new IOException("Snapshot contains an invalid segment capacity " + capacity);
+            }
+            position += headerSize;
+            LongBuffer tables = channel.map(FileChannel.MapMode.READ_ONLY, position, 2L * Long.BYTES * capacity)
+                    .asLongBuffer();
+            synchronized (segment) {
+                segment.size = segmentHeader.getInt();
+                segment.hasEmptyKey = segmentHeader.get() != 0;
+                segment.emptyKeyValue = segmentHeader.getLong();
+                segment.keys = new long[capacity];
+                segment.values = new long[capacity];
+                tables.get(segment.keys);
+                tables.get(segment.values);
+            }
+            position += 2L * Long.BYTES * capacity;
+        }
+        return position;
+    }
+
+    private boolean merge(long itemID, long insertTime, LongBinaryOperator mergeFunction) {
+        Segment segment = segmentOf(itemID);
+        synchronized (segment) {
+            return segment.merge(itemID, insertTime, mergeFunction);
+        }
+    }
+
+    private Segment segmentOf(long itemID) {
+        return segments[(int) (hash(itemID) >>> 58)];
+    }
+
+    private static long hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    public interface EntryConsumer {
+        void accept(long itemID, long insertTime);
+    }
+
+    /**
+     * Table of one segment. Long.MIN_VALUE marks an empty slot, an item with this ID is kept outside of the table.
+     */
+    private static class Segment {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private long[] values;
+        private int size;
+        private boolean hasEmptyKey;
+        private long emptyKeyValue;
+
+        private Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        private boolean contains(long key) {
+            return key == EMPTY ? hasEmptyKey : find(key) >= 0;
+        }
+
+        private long get(long key) {
+            return key == EMPTY ? emptyKeyValue : values[find(key)];
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            for (int slot = (int) hash(key) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                if (keys[slot] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * @return true if the value of the key has changed
+         */
+        private boolean merge(long key, long value, LongBinaryOperator mergeFunction) {
+            if (key == EMPTY) {
+                long previousValue = emptyKeyValue;
+                boolean existed = hasEmptyKey;
+                emptyKeyValue = existed ? mergeFunction.applyAsLong(emptyKeyValue, value) : value;
+                hasEmptyKey = true;
+                return !existed || previousValue != emptyKeyValue;
+            }
+            int mask = keys.length - 1;
+            int slot = (int) hash(key) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    long previousValue = values[slot];
+                    values[slot] = mergeFunction.applyAsLong(previousValue, value);
+                    return previousValue != values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size > keys.length * 3 / 4) {
+                resize();
+            }
+            return true;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            allocate(oldKeys.length * 2);
+            int mask = keys.length - 1;
+            for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+                if (oldKeys[oldSlot] != EMPTY) {
+                    int slot = (int) hash(oldKeys[oldSlot]) & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[oldSlot];
+                    values[slot] = oldValues[oldSlot];
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+    }
+}
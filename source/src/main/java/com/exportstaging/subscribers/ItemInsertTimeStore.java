@@ -0,0 +1,351 @@
+package com.exportstaging.subscribers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Persistence of the {@link ItemInsertTimeIndex}es of the {@link DataManager}: a binary snapshot of all indexes and
+ * append-only logs of the changes since the snapshot.
+ * <p>
+ * Every change is appended to the current log, a checkpoint starts a new log, writes a new snapshot and deletes the
+ * logs which are contained in the snapshot. Loading maps the snapshot, copies the tables of the indexes and replays
+ * the remaining logs. Insert times of an item only grow until the item is deleted, so replaying a log on top of a newer
+ * snapshot gives the same state and a crash loses at most the changes which were not flushed yet.
+ * <p>
+ * Files: &lt;name&gt;.snapshot and &lt;name&gt;.&lt;sequence&gt;.log in the data folder of the project.
+ */
+public class ItemInsertTimeStore implements Closeable {
+
+    private static final long SNAPSHOT_MAGIC = 0x4553_4954_534E_4150L;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String LOG_SUFFIX = ".log";
+    private static final int LOG_BUFFER_SIZE = 65536;
+
+    private static final byte RECORD_INDEX = 'I';
+    private static final byte RECORD_ENTRY = 'E';
+    private static final byte RECORD_REMOVE = 'R';
+
+    private final static Logger logger = LogManager.getLogger("exportstaging");
+
+    private final File directory;
+    private final String name;
+    private final File snapshotFile;
+    private final Object checkpointLock = new Object();
+    private final Map<String, Integer> logIndexNumbers = new HashMap<>();
+    private DataOutputStream log;
+    private long logSequence;
+
+    public ItemInsertTimeStore(File directory, String name) {
+        this.directory = directory;
+        this.name = name;
+        this.snapshotFile = new File(directory, name + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * @return true if a snapshot or a log of the store exists
+     */
+    public boolean exists() {
+        return snapshotFile.exists() || !getLogFiles().isEmpty();
+    }
+
+    /**
+     * Reads the snapshot and replays the logs. The store appends to a new log afterwards.
+     *
+     * @return indexes by index key
+     * @throws IOException if the snapshot cannot be read
+     */
+    public synchronized ConcurrentHashMap<String, ItemInsertTimeIndex> load() throws IOException {
+        ConcurrentHashMap<String, ItemInsertTimeIndex> indexes = new ConcurrentHashMap<>();
+        if (snapshotFile.exists()) {
+            readSnapshot(indexes);
+        }
+        TreeMap<Long, File> logFiles = getLogFiles();
+        for (File logFile : logFiles.values()) {
+            replayLog(logFile, indexes);
+        }
+        logSequence = logFiles.isEmpty() ? 0 : logFiles.lastKey();
+        openLog();
+        return indexes;
+    }
+
+    public synchronized void append(String indexKey, long itemID, long insertTime) throws IOException {
+        if (log != null) {
+            int indexNumber = getLogIndexNumber(indexKey);
+            log.writeByte(RECORD_ENTRY);
+            log.writeInt(indexNumber);
+            log.writeLong(itemID);
+            log.writeLong(insertTime);
+        }
+    }
+
+    public synchronized void removeIndex(String indexKey) throws IOException {
+        if (log != null) {
+            int indexNumber = getLogIndexNumber(indexKey);
+            log.writeByte(RECORD_REMOVE);
+            log.writeInt(indexNumber);
+        }
+    }
+
+    /**
+     * Deletes the snapshot and all logs, changes are appended to a new log afterwards.
+     *
+     * @param reset replaces the indexes of the caller while no checkpoint is written and no change is appended, so
+     *              the new log contains every change made to the new indexes
+     */
+    public void clear(Runnable reset) throws IOException {
+        synchronized (checkpointLock) {
+            synchronized (this) {
+                reset.run();
+                delete();
+                openLog();
+            }
+        }
+    }
+
+    /**
+     * Deletes the snapshot and all logs, changes are no longer appended.
+     */
+    public void delete() throws IOException {
+        synchronized (checkpointLock) {
+            synchronized (this) {
+                closeLog();
+                deleteFile(snapshotFile);
+                for (File logFile : getLogFiles().values()) {
+                    deleteFile(logFile);
+                }
+            }
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (log != null) {
+            log.flush();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the indexes. Changes during the checkpoint go to a new log which is replayed on top of the
+     * snapshot, older logs are deleted once the snapshot is complete.
+     *
+     * @param indexes indexes by index key
+     */
+    public void checkpoint(Map<String, ItemInsertTimeIndex> indexes) throws IOException {
+        checkpoint(() -> indexes);
+    }
+
+    /**
+     * Writes a snapshot of the indexes returned by the supplier, which is called after a running
+     * {@link #clear(Runnable)} has replaced the indexes.
+     *
+     * @param indexes supplier of the indexes by index key
+     */
+    public void checkpoint(Supplier<Map<String, ItemInsertTimeIndex>> indexes) throws IOException {
+        synchronized (checkpointLock) {
+            long snapshotSequence;
+            synchronized (this) {
+                closeLog();
+                openLog();
+                snapshotSequence = logSequence;
+            }
+            File temporaryFile = new File(directory, name + SNAPSHOT_SUFFIX + ".tmp");
+            List<Map.Entry<String, ItemInsertTimeIndex>> snapshotIndexes = new ArrayList<>(indexes.get().entrySet());
+            FileOutputStream fileStream = new FileOutputStream(temporaryFile);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileStream, LOG_BUFFER_SIZE))) {
+                output.writeLong(SNAPSHOT_MAGIC);
+                output.writeInt(SNAPSHOT_VERSION);
+                output.writeInt(snapshotIndexes.size());
+                for (Map.Entry<String, ItemInsertTimeIndex> index : snapshotIndexes) {
+                    byte[] indexKey = index.getKey().getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(indexKey.length);
+                    output.write(indexKey);
+                    index.getValue().writeTo(output);
+                }
+                output.flush();
+                fileStream.getFD().sync();
+            }
+            Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            for (Map.Entry<Long, File> logFile : getLogFiles().headMap(snapshotSequence).entrySet()) {
+                deleteFile(logFile.getValue());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeLog();
+    }
+
+    /**
+     * Reads the JSON file written by earlier versions, a single json object with the keys ItemType_ID or
+     * ItemType_FileContent_ID and the insert times as values.
+     *
+     * @param file {@link File} object which contains the json to be read from
+     * @return indexes by index key
+     * @throws IOException In case of Permissions issues or file is missing.
+     */
+    public static ConcurrentHashMap<String, ItemInsertTimeIndex> readJsonFile(File file) throws IOException {
+        ConcurrentHashMap<String, ItemInsertTimeIndex> indexes = new ConcurrentHashMap<>();
+        try (JsonParser parser = new JsonFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("File " + file.getName() + " does not contain a json object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String mapKey = parser.getCurrentName();
+                parser.nextToken();
+                putLegacyEntry(indexes, mapKey, parser.getLongValue());
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Reads the serialized ConcurrentHashMap written by earlier versions.
+     */
+    @SuppressWarnings("unchecked")
+    public static ConcurrentHashMap<String, ItemInsertTimeIndex> readSerializedFile(File file) throws IOException, ClassNotFoundException {
+        ConcurrentHashMap<String, ItemInsertTimeIndex> indexes = new ConcurrentHashMap<>();
+        try (ObjectInputStream stream = new ObjectInputStream(new FileInputStream(file))) {
+            for (Map.Entry<String, Long> entry : ((Map<String, Long>) stream.readObject()).entrySet()) {
+                putLegacyEntry(indexes, entry.getKey(), entry.getValue());
+            }
+        }
+        return indexes;
+    }
+
+    private static void putLegacyEntry(Map<String, ItemInsertTimeIndex> indexes, String mapKey, long insertTime) {
+        int separator = mapKey.lastIndexOf("_");
+        try {
+            long itemID = Long.parseLong(mapKey.substring(separator + 1));
+            indexes.computeIfAbsent(mapKey.substring(0, Math.max(separator, 0)), key -> new ItemInsertTimeIndex())
+                    .put(itemID, insertTime);
+        } catch (NumberFormatException e) {
+            logger.debug("[DataManager] Ignoring cached entry " + mapKey);
+        }
+    }
+
+    private void readSnapshot(Map<String, ItemInsertTimeIndex> indexes) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Long.BYTES + 2 * Integer.BYTES);
+            if (header.getLong() != SNAPSHOT_MAGIC || header.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("File " + snapshotFile.getName() + " is not a snapshot of version " + SNAPSHOT_VERSION);
+            }
+            int indexCount = header.getInt();
+            long position = header.position();
+            for (int counter = 0; counter < indexCount; counter++) {
+                int keyLength = channel.map(FileChannel.MapMode.READ_ONLY, position, Integer.BYTES).getInt();
+                position += Integer.BYTES;
+                byte[] indexKey = new byte[keyLength];
+                channel.map(FileChannel.MapMode.READ_ONLY, position, keyLength).get(indexKey);
+                position += keyLength;
+                ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+                position = index.readFrom(channel, position);
+                indexes.put(new String(indexKey, StandardCharsets.UTF_8), index);
+            }
+        }
+    }
+
+    private void replayLog(File logFile, Map<String, ItemInsertTimeIndex> indexes) throws IOException {
+        Map<Integer, String> indexKeys = new HashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile), LOG_BUFFER_SIZE))) {
+            while (true) {
+                byte record = input.readByte();
+                if (record == RECORD_INDEX) {
+                    int indexNumber = input.readInt();
+                    indexKeys.put(indexNumber, input.readUTF());
+                } else if (record == RECORD_ENTRY) {
+                    String indexKey = indexKeys.get(input.readInt());
+                    long itemID = input.readLong();
+                    long insertTime = input.readLong();
+                    indexes.computeIfAbsent(indexKey, key -> new ItemInsertTimeIndex())
+                            .update(itemID, insertTime, insertTime == ItemInsertTimeIndex.DELETED);
+                } else if (record == RECORD_REMOVE) {
+                    indexes.remove(indexKeys.get(input.readInt()));
+                } else {
+                    logger.warn("[DataManager] Unknown record in " + logFile.getName() + ", skipping the rest of the log");
+                    return;
+                }
+            }
+        } catch (EOFException e) {
+            //End of the log, the last record may be incomplete if the process was stopped while writing it
+        }
+    }
+
+    private int getLogIndexNumber(String indexKey) throws IOException {
+        Integer indexNumber = logIndexNumbers.get(indexKey);
+        if (indexNumber == null) {
+            indexNumber = logIndexNumbers.size();
+            logIndexNumbers.put(indexKey, indexNumber);
+            log.writeByte(RECORD_INDEX);
+            log.writeInt(indexNumber);
+            log.writeUTF(indexKey);
+        }
+        return indexNumber;
+    }
+
+    private void openLog() throws IOException {
+        logSequence++;
+        File logFile = new File(directory, name + "." + logSequence + LOG_SUFFIX);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory " + directory);
+        }
+        log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile), LOG_BUFFER_SIZE));
+        logIndexNumbers.clear();
+    }
+
+    private void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    private TreeMap<Long, File> getLogFiles() {
+        TreeMap<Long, File> logFiles = new TreeMap<>();
+        File[] files = directory.listFiles((dir, fileName) -> fileName.startsWith(name + ".") && fileName.endsWith(LOG_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String sequence = file.getName().substring(name.length() + 1, file.getName().length() - LOG_SUFFIX.length());
+                try {
+                    logFiles.put(Long.parseLong(sequence), file);
+                } catch (NumberFormatException e) {
+                    logger.debug("[DataManager] Ignoring file " + file.getName());
+                }
+            }
+        }
+        return logFiles;
+    }
+
+    private void deleteFile(File file) throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -4,6 +4,7 @@ import com.exportstaging.api.exception.CannotCreateConnectionException;
 import com.exportstaging.api.exception.ExceptionLogger;
 import com.exportstaging.api.exception.ExportStagingException;
 import com.exportstaging.common.ExportMiscellaneousUtils;
+import com.exportstaging.connectors.database.CassandraBatchWriter;
 import com.exportstaging.domain.ConfigurationMessage;
 import com.exportstaging.domain.ItemMessage;
 import com.exportstaging.domain.Message;
@@ -20,6 +21,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static com.exportstaging.common.ExportMiscellaneousUtils.EXPORT_LOGGER_NAME;
 
@@ -30,12 +33,16 @@ public class MasterSubscriber extends AbstractSubscriber {
     private DatabaseInitializer initializer;
     @Autowired
     private CassandraListener stateListener;
+    @Autowired
+    private CassandraBatchWriter cassandraBatchWriter;
 
 
     @Value("${activemq.subscriber.master}")
     private String masterSubscriber;
     @Value("${cassandra.suffix.view}")
     private String sSuffixView;
+    @Value("${export.cassandra.subscriber.thread.pool.size}")
+    private int consumerCount;
 
 
     @Override
@@ -99,6 +106,11 @@ public class MasterSubscriber extends AbstractSubscriber {
         return stateListener.isHostAvailable();
     }
 
+    @Override
+    protected int getConsumerCount() {
+        return consumerCount;
+    }
+
     @Override
     public List<String> getHandledItemTypes() {
         return new ArrayList<>(ExportMiscellaneousUtils.getConfiguredTypes());
@@ -124,28 +136,84 @@ public class MasterSubscriber extends AbstractSubscriber {
         return true;
     }
 
+    /**
+     * With cassandra.writer.mode = window the statements of item messages are written by the CassandraBatchWriter
+     * after processMessage returned and the messages are acknowledged one by one once their statements are written.
+     */
+    @Override
+    protected boolean isAcknowledgementDeferred() {
+        return cassandraBatchWriter.isWindowEnabled() && isDurableSubscriber();
+    }
+
+    @Override
+    protected boolean awaitDeferredMessages() {
+        return !isAcknowledgementDeferred() || cassandraBatchWriter.flush();
+    }
+
     @Override
     public Boolean processMessage(ConfigurationMessage configurationMessage, String itemType, String type, String projectName) {
+        // items of earlier messages must be written before their tables are altered
+        if (!awaitDeferredMessages()) {
+            logger.warn("[" + masterSubscriber + "] Items of earlier messages are not written, recovering the configuration message of " + itemType);
+            return false;
+        }
         return primeModerator.setConfigurations(configurationMessage, itemType, type);
     }
 
     @Override
     public Boolean processMessage(ItemMessage itemMessage, String itemType, String type, String projectName) {
-        return primeModerator.setItem(itemMessage, itemType, type);
+        return processItem(itemMessage, itemType, () -> primeModerator.setItem(itemMessage, itemType, type));
     }
 
     @Override
     public Boolean processMessage(Message message, String itemType, String type, String projectName) {
-        return primeModerator.setItem(message, itemType, type);
+        return processItem(message, itemType, () -> primeModerator.setItem(message, itemType, type));
     }
 
     @Override
     public Boolean deleteMessage(List<String> ids, String itemType, String type, String projectName) {
+        if (isAcknowledgementDeferred()) {
+            for (String id : ids) {
+                cassandraBatchWriter.awaitMessage(getMessageKey(itemType, id));
+            }
+        }
         return primeModerator.deleteItem(ids, itemType, type);
     }
 
+    /**
+     * Processes an item message in the write window of the CassandraBatchWriter and acknowledges it once its
+     * statements are written. The rows of the item are read while it is processed, so the statements of the last
+     * message of the item have to be written first. Language items are written directly because their change is
+     * published to the read API when the message is processed.
+     */
+    private Boolean processItem(Message message, String itemType, Supplier<Boolean> processor) {
+        if (!isAcknowledgementDeferred() || ExportMiscellaneousUtils.EXPORT_ITEM_TYPE_LANGUAGE.equalsIgnoreCase(itemType)) {
+            return processor.get();
+        }
+        String messageKey = getMessageKey(itemType, message.getId());
+        cassandraBatchWriter.awaitMessage(messageKey);
+        boolean processed = false;
+        cassandraBatchWriter.openMessage();
+        try {
+            processed = processor.get();
+        } finally {
+            CompletableFuture<Boolean> written = cassandraBatchWriter.closeMessage(messageKey);
+            if (processed) {
+                deferAcknowledgement(written);
+            }
+        }
+        return processed;
+    }
+
+    private static String getMessageKey(String itemType, String id) {
+        return itemType + ":" + id;
+    }
+
     @Override
     public void onBeforeShutdown() {
+        if (isAcknowledgementDeferred()) {
+            cassandraBatchWriter.close();
+        }
         initializer.closeConnection();
     }
     
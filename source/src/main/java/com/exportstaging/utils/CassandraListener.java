@@ -2,14 +2,17 @@ package com.exportstaging.utils;
 
 import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.Host;
+import com.datastax.driver.core.SchemaChangeListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Component("stateListener")
 public class CassandraListener implements Host.StateListener {
@@ -18,6 +21,8 @@ public class CassandraListener implements Host.StateListener {
 
     private Map<InetSocketAddress, Host> hostMap = new ConcurrentHashMap<>();
     private volatile boolean hostAvailability = false;
+    private volatile Cluster cluster;
+    private List<SchemaChangeListener> schemaChangeListeners = new CopyOnWriteArrayList<>();
     private final static Logger logger = LogManager.getLogger("exportstaging");
 
     public boolean isHostAvailable() {
@@ -65,11 +70,32 @@ public class CassandraListener implements Host.StateListener {
         }
     }
 
+    /**
+     * Registers a listener for schema changes with the current cluster and with every cluster created after a
+     * reconnect.
+     *
+     * @param schemaChangeListener listener to be informed about schema changes
+     */
+    public void addSchemaChangeListener(SchemaChangeListener schemaChangeListener) {
+        schemaChangeListeners.add(schemaChangeListener);
+        Cluster currentCluster = cluster;
+        if (currentCluster != null && !currentCluster.isClosed()) {
+            currentCluster.register(schemaChangeListener);
+        }
+    }
+
     @Override
     public void onRegister(Cluster cluster) {
+        this.cluster = cluster;
+        for (SchemaChangeListener schemaChangeListener : schemaChangeListeners) {
+            cluster.register(schemaChangeListener);
+        }
     }
 
     @Override
     public void onUnregister(Cluster cluster) {
+        if (this.cluster == cluster) {
+            this.cluster = null;
+        }
     }
 }
@@ -0,0 +1,91 @@
+package com.exportstaging.testcases;
+
+import com.exportstaging.domain.ExportMessageContent;
+import com.exportstaging.domain.ItemMessage;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExportMessageContentTest {
+
+    private static final String ITEM_MESSAGE = "{\"Item\":[{\"ID\":62,\"LanguageID\":\"1\",\"Label\":\"Media \\\"Player\\\"\","
+            + "\"Price\":12.5,\"Active\":true,\"CopyOf\":null,\"Nested\":{\"List\":[1,[2,3]]}}],"
+            + "\"Unknown\":{\"Skipped\":[{\"a\":\"}]\"}]},"
+            + "\"Reference\":[{\"ItemID\":\"62\",\"Value\":\"{not a section}\"}],"
+            + "\"Subtable\":[],"
+            + "\"_BigDataAttributes\":{\"1\":[\"13:Value\"]}}";
+
+    @Test
+    public void messageTypeTest() {
+        Assert.assertEquals("Item", ExportMessageContent.parse(ITEM_MESSAGE).getMessageType());
+        Assert.assertEquals("Record", ExportMessageContent.parse("{\"Record\":[]}").getMessageType());
+        Assert.assertEquals("Record", ExportMessageContent.parse("{\"Item\":[],\"Record\":[]}").getMessageType());
+        Assert.assertEquals("Item", ExportMessageContent.parse("{}").getMessageType());
+    }
+
+    @Test
+    public void valueTypesTest() {
+        JSONArray items = ExportMessageContent.parse(ITEM_MESSAGE).getArray("Item");
+        Assert.assertEquals(1, items.size());
+        JSONObject item = (JSONObject) items.get(0);
+        Assert.assertEquals(62L, item.get("ID"));
+        Assert.assertEquals("1", item.get("LanguageID"));
+        Assert.assertEquals("Media \"Player\"", item.get("Label"));
+        Assert.assertEquals(12.5, item.get("Price"));
+        Assert.assertEquals(Boolean.TRUE, item.get("Active"));
+        Assert.assertTrue(item.containsKey("CopyOf"));
+        Assert.assertNull(item.get("CopyOf"));
+        JSONArray list = (JSONArray) ((JSONObject) item.get("Nested")).get("List");
+        Assert.assertEquals(1L, list.get(0));
+        Assert.assertEquals(2, ((JSONArray) list.get(1)).size());
+    }
+
+    @Test
+    public void lazySectionsTest() {
+        ExportMessageContent content = ExportMessageContent.parse(ITEM_MESSAGE);
+        JSONArray references = content.getArray(ExportMessageContent.KEY_REFERENCE);
+        Assert.assertEquals(1, references.size());
+        Assert.assertEquals("{not a section}", ((JSONObject) references.get(0)).get("Value"));
+        Assert.assertSame(references, content.getArray(ExportMessageContent.KEY_REFERENCE));
+        Assert.assertEquals(0, content.getArray(ExportMessageContent.KEY_SUBTABLE).size());
+        JSONObject bigDataAttributes = (JSONObject) content.get(ExportMessageContent.KEY_BIG_DATA_ATTRIBUTES);
+        Assert.assertEquals("13:Value", ((JSONArray) bigDataAttributes.get("1")).get(0));
+    }
+
+    @Test
+    public void skippedSectionsTest() {
+        ExportMessageContent content = ExportMessageContent.parse(ITEM_MESSAGE);
+        Assert.assertTrue(content.containsKey("Unknown"));
+        Assert.assertNull(content.get("Unknown"));
+        Assert.assertFalse(content.containsKey("Record"));
+        Assert.assertNull(content.getArray("Record"));
+    }
+
+    @Test
+    public void fileContentTest() {
+        String message = "{\"FileContent\":{\"ID\":\"4711\",\"_Content\":\"Text with \\u00e4 and \\n\"}}";
+        ItemMessage itemMessage = new ItemMessage(message, "4711", 1, "Item", 0);
+        JSONObject fileContent = (JSONObject) itemMessage.getFileContent();
+        Assert.assertEquals("4711", fileContent.get("ID"));
+        Assert.assertEquals("Text with \u00e4 and \n", fileContent.get("_Content"));
+        Assert.assertNull(new ItemMessage(ITEM_MESSAGE, "62", 1, "Item", 0).getFileContent());
+    }
+
+    @Test
+    public void parseSectionTest() {
+        JSONObject section = (JSONObject) ExportMessageContent.parseSection("{\"_Content\":\"Text\",\"Size\":3}");
+        Assert.assertEquals("Text", section.get("_Content"));
+        Assert.assertEquals(3L, section.get("Size"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notAnObjectTest() {
+        ExportMessageContent.parse("[{\"Item\":[]}]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMessageTest() {
+        ExportMessageContent.parse("{\"Item\":[{\"ID\":62,}");
+    }
+}
@@ -0,0 +1,90 @@
+package com.exportstaging.testcases;
+
+import com.exportstaging.api.searchfilter.FilterPredicate;
+import com.exportstaging.api.searchfilter.FilterPredicate.Condition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FilterPredicateTest {
+
+    @Test
+    public void compileTest() {
+        FilterPredicate.And predicate = FilterPredicate.compile(Arrays.asList("\"LanguageID\" = 1", "\"ID\" IN (61, 62)"));
+        List<Condition> conditions = predicate.getConditions();
+        Assert.assertEquals(2, conditions.size());
+        Assert.assertEquals("LanguageID", conditions.get(0).getColumn());
+        Assert.assertEquals("=", conditions.get(0).getOperator());
+        Assert.assertEquals(Collections.singletonList("1"), conditions.get(0).getValues());
+        Assert.assertEquals("ID", conditions.get(1).getColumn());
+        Assert.assertTrue(conditions.get(1).isEquality());
+        Assert.assertEquals(Arrays.asList("61", "62"), conditions.get(1).getLiterals());
+        Assert.assertEquals("\"LanguageID\" = 1 AND \"ID\" IN (61, 62)", predicate.getCql());
+    }
+
+    @Test
+    public void splitTest() {
+        List<Condition> conditions = FilterPredicate.compile(Collections.singletonList(
+                "\"Label\" = 'Salt AND Pepper' and \"StateID\" IN (1, 2) AND (\"AuthorID\" = 2 AND \"WorkflowID\" = 23)"
+                        + " AND \"ExternalKey\" = 'It''s AND more' AND  ")).getConditions();
+        Assert.assertEquals(4, conditions.size());
+        Assert.assertEquals("Label", conditions.get(0).getColumn());
+        Assert.assertEquals(Collections.singletonList("Salt AND Pepper"), conditions.get(0).getValues());
+        Assert.assertEquals("StateID", conditions.get(1).getColumn());
+        Assert.assertEquals(Arrays.asList("1", "2"), conditions.get(1).getLiterals());
+        Assert.assertTrue(conditions.get(2).isRaw());
+        Assert.assertEquals("(\"AuthorID\" = 2 AND \"WorkflowID\" = 23)", conditions.get(2).getCql());
+        Assert.assertEquals(Collections.singletonList("It's AND more"), conditions.get(3).getValues());
+    }
+
+    @Test
+    public void inListSplitTest() {
+        Condition condition = FilterPredicate.compile(Collections.singletonList(
+                "\"ExternalKey\" IN ('CS-61', 'A, B', 'O''Neil')")).getConditions().get(0);
+        Assert.assertEquals(Arrays.asList("'CS-61'", "'A, B'", "'O''Neil'"), condition.getLiterals());
+        Assert.assertEquals(Arrays.asList("CS-61", "A, B", "O'Neil"), condition.getValues());
+    }
+
+    @Test
+    public void operatorTest() {
+        List<Condition> conditions = FilterPredicate.compile(Arrays.asList("\"ParentID\">=5", "\"StateID\" < 3",
+                "\"_Parents\" like '% 61 %'", "\"Tags\" CONTAINS 'new'", "\"ID\" IN(1,2)")).getConditions();
+        Assert.assertEquals(">=", conditions.get(0).getOperator());
+        Assert.assertTrue(conditions.get(0).isRange());
+        Assert.assertEquals("<", conditions.get(1).getOperator());
+        Assert.assertEquals("LIKE", conditions.get(2).getOperator());
+        Assert.assertEquals("_Parents", conditions.get(2).getColumn());
+        Assert.assertEquals("CONTAINS", conditions.get(3).getOperator());
+        Assert.assertFalse(conditions.get(3).isEquality());
+        Assert.assertEquals("IN", conditions.get(4).getOperator());
+        Assert.assertEquals(Arrays.asList("1", "2"), conditions.get(4).getLiterals());
+    }
+
+    @Test
+    public void rawConditionTest() {
+        List<Condition> conditions = FilterPredicate.compile(Arrays.asList("\"ID\" INSIDE 3", "\"ID\" IN 3",
+                "token(\"ID\") > 5", "Label = 'A'")).getConditions();
+        Assert.assertEquals(4, conditions.size());
+        for (Condition condition : conditions) {
+            Assert.assertTrue(condition.getCql(), condition.isRaw());
+            Assert.assertNull(condition.getOperator());
+        }
+        Assert.assertEquals("token(\"ID\") > 5", conditions.get(2).getCql());
+    }
+
+    @Test
+    public void matchesTest() {
+        Condition parents = FilterPredicate.compile(Collections.singletonList("\"_Parents\" LIKE '% 61 %'"))
+                .getConditions().get(0);
+        Assert.assertTrue(parents.matches(" 1 61 62 "));
+        Assert.assertFalse(parents.matches(" 1 610 62 "));
+        Assert.assertFalse(parents.matches(null));
+        Condition stateID = FilterPredicate.compile(Collections.singletonList("\"StateID\" >= 120"))
+                .getConditions().get(0);
+        Assert.assertTrue(stateID.matches(120L));
+        Assert.assertFalse(stateID.matches(119));
+    }
+}
@@ -0,0 +1,43 @@
+package com.exportstaging.testcases;
+
+import com.exportstaging.api.dao.ItemIDQueryPlanner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ItemIDQueryPlannerTest {
+
+    @Test
+    public void intersectTest() {
+        List<Set<Long>> idSets = Arrays.asList(ids(1, 2, 3, 4, 5, 6), ids(2, 4, 6, 8), ids(6, 4, 9));
+        Assert.assertEquals(ids(4, 6), ItemIDQueryPlanner.intersect(idSets));
+    }
+
+    @Test
+    public void intersectSingleSetTest() {
+        Set<Long> ids = ids(61, 62);
+        Set<Long> intersection = ItemIDQueryPlanner.intersect(Collections.singletonList(ids));
+        Assert.assertEquals(ids, intersection);
+        intersection.add(63L);
+        Assert.assertEquals(ids(61, 62), ids);
+    }
+
+    @Test
+    public void intersectEmptySetTest() {
+        Assert.assertTrue(ItemIDQueryPlanner.intersect(Arrays.asList(ids(1, 2), ids(), ids(2))).isEmpty());
+        Assert.assertTrue(ItemIDQueryPlanner.intersect(Arrays.asList(ids(1, 2), ids(3, 4))).isEmpty());
+    }
+
+    private static Set<Long> ids(long... ids) {
+        Set<Long> set = new HashSet<>();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,98 @@
+package com.exportstaging.testcases;
+
+import com.exportstaging.subscribers.ItemInsertTimeIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ItemInsertTimeIndexTest {
+
+    @Test
+    public void updateTest() {
+        ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+        Assert.assertTrue(index.update(62, 1000, false));
+        Assert.assertFalse(index.update(62, 900, false));
+        Assert.assertFalse(index.update(62, 1000, false));
+        Assert.assertTrue(index.update(62, 1100, false));
+        Assert.assertEquals(Long.valueOf(1100), index.get(62));
+        Assert.assertTrue(index.isLatest(62, 1100));
+        Assert.assertFalse(index.isLatest(62, 1000));
+        Assert.assertFalse(index.isLatest(63, 1100));
+        Assert.assertNull(index.get(63));
+    }
+
+    @Test
+    public void deleteTest() {
+        ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+        index.update(62, 1000, false);
+        Assert.assertTrue(index.update(62, 2000, true));
+        Assert.assertEquals(Long.valueOf(ItemInsertTimeIndex.DELETED), index.get(62));
+        Assert.assertFalse(index.update(62, 3000, false));
+        Assert.assertFalse(index.update(62, 3000, true));
+        Assert.assertTrue(index.update(64, 1000, true));
+        Assert.assertFalse(index.update(64, 3000, false));
+        Assert.assertTrue(index.isLatest(64, ItemInsertTimeIndex.DELETED));
+    }
+
+    @Test
+    public void putTest() {
+        ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+        index.put(62, 1000);
+        index.put(62, 500);
+        Assert.assertEquals(Long.valueOf(500), index.get(62));
+        Assert.assertEquals(1, index.size());
+    }
+
+    @Test
+    public void sentinelKeysTest() {
+        ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+        Assert.assertNull(index.get(Long.MIN_VALUE));
+        Assert.assertTrue(index.update(Long.MIN_VALUE, 1000, false));
+        Assert.assertFalse(index.update(Long.MIN_VALUE, 900, false));
+        Assert.assertTrue(index.update(0, 10, false));
+        Assert.assertTrue(index.update(-1, 20, false));
+        Assert.assertTrue(index.update(Long.MAX_VALUE, 30, false));
+        Assert.assertEquals(Long.valueOf(1000), index.get(Long.MIN_VALUE));
+        Assert.assertEquals(Long.valueOf(10), index.get(0));
+        Assert.assertEquals(Long.valueOf(20), index.get(-1));
+        Assert.assertEquals(Long.valueOf(30), index.get(Long.MAX_VALUE));
+        Assert.assertEquals(4, index.size());
+        Assert.assertTrue(index.update(Long.MIN_VALUE, 2000, true));
+        Assert.assertFalse(index.update(Long.MIN_VALUE, 3000, false));
+        Assert.assertEquals(Long.valueOf(ItemInsertTimeIndex.DELETED), index.get(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void resizeTest() {
+        ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+        long initialBytes = index.getMemoryBytes();
+        int items = 200000;
+        for (long itemID = 0; itemID < items; itemID++) {
+            Assert.assertTrue(index.update(itemID * 64, itemID + 1, false));
+        }
+        Assert.assertEquals(items, index.size());
+        Assert.assertTrue(index.getMemoryBytes() > initialBytes);
+        for (long itemID = 0; itemID < items; itemID++) {
+            Assert.assertEquals(Long.valueOf(itemID + 1), index.get(itemID * 64));
+        }
+        Assert.assertNull(index.get(items * 64L));
+    }
+
+    @Test
+    public void forEachTest() {
+        ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+        Map<Long, Long> expected = new HashMap<>();
+        for (long itemID = -50; itemID < 5000; itemID += 7) {
+            index.put(itemID, itemID * 3);
+            expected.put(itemID, itemID * 3);
+        }
+        index.put(Long.MIN_VALUE, 42);
+        expected.put(Long.MIN_VALUE, 42L);
+        Map<Long, Long> entries = new HashMap<>();
+        index.forEach((itemID, insertTime) -> Assert.assertNull(entries.put(itemID, insertTime)));
+        Assert.assertEquals(expected, entries);
+        Assert.assertEquals(expected.size(), index.size());
+    }
+}
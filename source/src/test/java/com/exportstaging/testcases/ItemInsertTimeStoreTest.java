@@ -0,0 +1,163 @@
+package com.exportstaging.testcases;
+
+import com.exportstaging.subscribers.ItemInsertTimeIndex;
+import com.exportstaging.subscribers.ItemInsertTimeStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ItemInsertTimeStoreTest {
+
+    private static final String STORE_NAME = "project";
+    private static final String ITEM_KEY = "Pdmarticle";
+    private static final String FILE_CONTENT_KEY = "Mamfile_FileContent";
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("itemInsertTimeStore").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void replayLogTest() throws IOException {
+        ItemInsertTimeStore store = new ItemInsertTimeStore(directory, STORE_NAME);
+        Assert.assertFalse(store.exists());
+        Assert.assertTrue(store.load().isEmpty());
+        store.append(ITEM_KEY, 62, 1000);
+        store.append(ITEM_KEY, 62, 1100);
+        store.append(ITEM_KEY, 63, 1000);
+        store.append(ITEM_KEY, 63, ItemInsertTimeIndex.DELETED);
+        store.append(ITEM_KEY, 63, 1200);
+        store.append(FILE_CONTENT_KEY, 70, 500);
+        store.close();
+
+        store = new ItemInsertTimeStore(directory, STORE_NAME);
+        Assert.assertTrue(store.exists());
+        Map<String, ItemInsertTimeIndex> indexes = store.load();
+        store.close();
+        Assert.assertEquals(2, indexes.size());
+        Assert.assertEquals(Long.valueOf(1100), indexes.get(ITEM_KEY).get(62));
+        Assert.assertEquals(Long.valueOf(ItemInsertTimeIndex.DELETED), indexes.get(ITEM_KEY).get(63));
+        Assert.assertEquals(Long.valueOf(500), indexes.get(FILE_CONTENT_KEY).get(70));
+    }
+
+    @Test
+    public void snapshotTest() throws IOException {
+        ItemInsertTimeStore store = new ItemInsertTimeStore(directory, STORE_NAME);
+        Map<String, ItemInsertTimeIndex> indexes = store.load();
+        ItemInsertTimeIndex index = new ItemInsertTimeIndex();
+        for (long itemID = 1; itemID <= 10000; itemID++) {
+            index.put(itemID, itemID * 10);
+        }
+        index.put(Long.MIN_VALUE, 7);
+        indexes.put(ITEM_KEY, index);
+        store.checkpoint(indexes);
+        store.append(ITEM_KEY, 5, 60);
+        store.append(ITEM_KEY, 6, ItemInsertTimeIndex.DELETED);
+        store.append(ITEM_KEY, 20000, 1);
+        store.close();
+        Assert.assertEquals(1, directory.listFiles((dir, name) -> name.endsWith(".log")).length);
+
+        store = new ItemInsertTimeStore(directory, STORE_NAME);
+        Map<String, ItemInsertTimeIndex> loaded = store.load();
+        store.close();
+        ItemInsertTimeIndex loadedIndex = loaded.get(ITEM_KEY);
+        Assert.assertEquals(10002, loadedIndex.size());
+        Assert.assertEquals(Long.valueOf(60), loadedIndex.get(5));
+        Assert.assertEquals(Long.valueOf(ItemInsertTimeIndex.DELETED), loadedIndex.get(6));
+        Assert.assertEquals(Long.valueOf(1), loadedIndex.get(20000));
+        Assert.assertEquals(Long.valueOf(7), loadedIndex.get(Long.MIN_VALUE));
+        Assert.assertEquals(Long.valueOf(99990), loadedIndex.get(9999));
+        Assert.assertTrue(loadedIndex.update(9999, 99991, false));
+    }
+
+    @Test
+    public void removeIndexTest() throws IOException {
+        ItemInsertTimeStore store = new ItemInsertTimeStore(directory, STORE_NAME);
+        store.load();
+        store.append(ITEM_KEY, 62, 1000);
+        store.append(FILE_CONTENT_KEY, 70, 500);
+        store.removeIndex(ITEM_KEY);
+        store.close();
+
+        store = new ItemInsertTimeStore(directory, STORE_NAME);
+        Map<String, ItemInsertTimeIndex> indexes = store.load();
+        store.close();
+        Assert.assertNull(indexes.get(ITEM_KEY));
+        Assert.assertEquals(Long.valueOf(500), indexes.get(FILE_CONTENT_KEY).get(70));
+    }
+
+    @Test
+    public void incompleteRecordTest() throws IOException {
+        ItemInsertTimeStore store = new ItemInsertTimeStore(directory, STORE_NAME);
+        store.load();
+        store.append(ITEM_KEY, 62, 1000);
+        store.append(ITEM_KEY, 63, 1000);
+        store.close();
+        File log = directory.listFiles((dir, name) -> name.endsWith(".log"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        store = new ItemInsertTimeStore(directory, STORE_NAME);
+        Map<String, ItemInsertTimeIndex> indexes = store.load();
+        store.close();
+        Assert.assertEquals(Long.valueOf(1000), indexes.get(ITEM_KEY).get(62));
+        Assert.assertNull(indexes.get(ITEM_KEY).get(63));
+    }
+
+    @Test
+    public void clearTest() throws IOException {
+        ItemInsertTimeStore store = new ItemInsertTimeStore(directory, STORE_NAME);
+        Map<String, ItemInsertTimeIndex> indexes = store.load();
+        indexes.computeIfAbsent(ITEM_KEY, key -> new ItemInsertTimeIndex()).put(62, 1000);
+        store.checkpoint(indexes);
+        store.append(ITEM_KEY, 63, 1000);
+        AtomicBoolean reset = new AtomicBoolean();
+        store.clear(() -> reset.set(true));
+        Assert.assertTrue(reset.get());
+        store.append(ITEM_KEY, 64, 2000);
+        store.close();
+
+        store = new ItemInsertTimeStore(directory, STORE_NAME);
+        indexes = store.load();
+        store.close();
+        Assert.assertEquals(1, indexes.get(ITEM_KEY).size());
+        Assert.assertEquals(Long.valueOf(2000), indexes.get(ITEM_KEY).get(64));
+
+        store.delete();
+        Assert.assertFalse(store.exists());
+    }
+
+    @Test
+    public void readJsonFileTest() throws IOException {
+        File file = new File(directory, "legacy.json");
+        Files.write(file.toPath(), ("{\"Pdmarticle_62\":1000,\"Mamfile_FileContent_70\":500,\"Invalid_Key\":1}")
+                .getBytes(StandardCharsets.UTF_8));
+        Map<String, ItemInsertTimeIndex> indexes = ItemInsertTimeStore.readJsonFile(file);
+        Assert.assertEquals(Long.valueOf(1000), indexes.get(ITEM_KEY).get(62));
+        Assert.assertEquals(Long.valueOf(500), indexes.get(FILE_CONTENT_KEY).get(70));
+        Assert.assertNull(indexes.get("Invalid"));
+    }
+}